@@ -1,12 +1,16 @@
 package com.alonsodelarte.quadraticRings;
 
+import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.BatchRenderer;
 import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.RingWindowDisplay;
+import java.util.Arrays;
 
 
 /**
- * The main entry point for the package. For now, it only starts {@link
+ * The main entry point for the package. For now, it mostly starts {@link
  * RingWindowDisplay}. In a later version (no later than 1.0), it will be
- * able to accept command line arguments.
+ * able to accept more command line arguments. Given <code>--batch</code> as
+ * the first argument, it saves diagrams of many rings without opening a
+ * window at all, by way of {@link BatchRenderer}.
  */
 @SuppressWarnings("WeakerAccess")
 public class Application {
@@ -16,7 +20,8 @@ public class Application {
         DO_NOTHING,
         VERSION,
         LAUNCH_A,
-        LAUNCH_B
+        LAUNCH_B,
+        BATCH
     }
 
 
@@ -30,11 +35,15 @@ public class Application {
             case VERSION: version(); break;
             case LAUNCH_A: standardLaunch(arguments[0]); break;
             case LAUNCH_B: alternateLaunch(arguments[0], arguments[1]); break;
+            case BATCH: batchLaunch(Arrays.copyOfRange(arguments, 1, arguments.length)); break;
         }
     }
 
 
     private static LaunchOption parseArguments(String[] arguments) {
+        if (arguments.length > 0 && isBatchOption(arguments[0])) {
+            return LaunchOption.BATCH;
+        }
         switch(arguments.length) {
             case 0: return LaunchOption.DO_NOTHING;
             case 1: return parseSingleArgument(arguments[0]);
@@ -57,6 +66,17 @@ public class Application {
         }
     }
 
+    private static boolean isBatchOption(String argument) {
+        switch (argument) {
+            case "-b":
+            case "-batch":
+            case "--batch":
+            case "batch": return true;
+
+            default: return false;
+        }
+    }
+
 
     public static void doNothing() {
         // RingWindowDisplay.startRingWindowDisplay(RingWindowDisplay.DEFAULT_RING_D);
@@ -78,4 +98,18 @@ public class Application {
         RingWindowDisplay.startRingWindowDisplay(argumentA, argumentB);
     }
 
+    /**
+     * Saves diagrams of the rings given without opening a window. The program
+     * exits with a nonzero status if any of them could not be saved.
+     * @param arguments The arguments after <code>--batch</code>. For example,
+     * "-1..-8191", "-s", "1280x720", "-z", "2,40", "-o", "gallery".
+     */
+    public static void batchLaunch(String... arguments) {
+        System.setProperty("java.awt.headless", "true");
+        int status = BatchRenderer.run(arguments);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
 }
@@ -17,4 +17,55 @@ public class Configuration {
      */
     public static final int MAXIMUM_HISTORY_ITEMS = 128;
 
+    /**
+     * How many bytes the diagrams kept for going back to views already drawn
+     * may take up. At the default canvas size, this is enough for about ten
+     * diagrams.
+     */
+    public static final long DEFAULT_FRAME_CACHE_BUDGET = 128L << 20;
+
+    /**
+     * The system property that says how many megabytes the diagrams kept for
+     * going back to views already drawn may take up, instead of {@link
+     * #DEFAULT_FRAME_CACHE_BUDGET}. For example,
+     * <code>-DquadraticRings.frameCacheMegabytes=512</code>, or 0 to not keep
+     * any.
+     */
+    public static final String FRAME_CACHE_MEGABYTES_PROPERTY = "quadraticRings.frameCacheMegabytes";
+
+    /**
+     * Where to keep the classifications of lattice points between runs of
+     * the program, relative to the user's home directory.
+     */
+    public static final String CLASSIFICATION_CACHE_DIRECTORY = ".quadratic-rings/classifications";
+
+    /**
+     * The system property that says where to keep the classifications of
+     * lattice points between runs instead, or "off" to not keep them at all.
+     * For example, <code>-DquadraticRings.classificationCache=/tmp/rings</code>.
+     */
+    public static final String CLASSIFICATION_CACHE_PROPERTY = "quadraticRings.classificationCache";
+
+    /**
+     * The value of {@link #CLASSIFICATION_CACHE_PROPERTY} that turns off the
+     * keeping of classifications between runs.
+     */
+    public static final String CLASSIFICATION_CACHE_OFF = "off";
+
+    /**
+     * How many bytes the classifications kept between runs may take up on
+     * disk. Once they take up more, the least recently used are deleted. At
+     * the default canvas size, this is enough for the diagrams of a few
+     * hundred rings.
+     */
+    public static final long DEFAULT_CLASSIFICATION_CACHE_BUDGET = 256L << 20;
+
+    /**
+     * The system property that says how many megabytes the classifications
+     * kept between runs may take up on disk, instead of {@link
+     * #DEFAULT_CLASSIFICATION_CACHE_BUDGET}. For example,
+     * <code>-DquadraticRings.classificationCacheMegabytes=1024</code>.
+     */
+    public static final String CLASSIFICATION_CACHE_MEGABYTES_PROPERTY = "quadraticRings.classificationCacheMegabytes";
+
 }
@@ -26,6 +26,14 @@ public class Display {
      */
     public static final int MINIMUM_PIXELS_PER_UNIT_INTERVAL_TO_DRAW_GRIDS = 5;
 
+    /**
+     * The most unit intervals a single pixel may span when the diagram is
+     * zoomed out past {@link #MINIMUM_PIXELS_PER_UNIT_INTERVAL} and drawn as
+     * a density map. At this level, a diagram of <b>Z</b>[<i>i</i>] with the
+     * default canvas size covers about a billion lattice points.
+     */
+    public static final int MAXIMUM_UNIT_INTERVALS_PER_PIXEL = 32;
+
     /**
      * The maximum pixels per unit interval. Even on an 8K display, this value
      * might be much too large. Trying to set pixels per unit interval above
@@ -75,6 +83,27 @@ public class Display {
      */
     public static final int MAXIMUM_DOT_RADIUS = 128;
 
+    /**
+     * The largest pixels per unit interval at which the dots are drawn by
+     * writing pixels directly into an image rather than one by one through
+     * Java2D. Below this, there are so many dots that the overhead of Java2D
+     * for each one adds up.
+     */
+    public static final int MAXIMUM_PIXELS_PER_UNIT_INTERVAL_TO_RASTERIZE = 20;
+
+    /**
+     * The largest dot radius at which the dots are drawn by writing pixels
+     * directly into an image. Larger dots are drawn through Java2D.
+     */
+    public static final int MAXIMUM_DOT_RADIUS_TO_RASTERIZE = 16;
+
+    /**
+     * How many pixels beyond each edge of the canvas the diagram is drawn, so
+     * that when the user drags the diagram, it can be shifted that far
+     * without anything having to be classified or drawn.
+     */
+    public static final int OFF_SCREEN_MARGIN = 128;
+
     /**
      * The usual step by which to increment or decrement pixels by unit
      * interval. This step can be increased or decreased, either through the
@@ -165,4 +194,28 @@ public class Display {
      */
     public static final Color DEFAULT_RAMIFIED_PRIME_COLOR = Color.GREEN;
 
+    /**
+     * The color of the ring drawn around the number under the mouse pointer
+     * when readouts are enabled.
+     */
+    public static final Color DEFAULT_HOVER_COLOR = Color.YELLOW;
+
+    /**
+     * The color of the rings drawn around the conjugate and the associates of
+     * the number under the mouse pointer.
+     */
+    public static final Color DEFAULT_HOVER_RELATIVE_COLOR = Color.ORANGE;
+
+    /**
+     * The color of the rings drawn around the prime factors of the number
+     * under the mouse pointer, if they're known.
+     */
+    public static final Color DEFAULT_HOVER_FACTOR_COLOR = Color.MAGENTA;
+
+    /**
+     * How many pixels out from the edge of a dot the ring around it is drawn
+     * when the mouse pointer hovers over it or a related number.
+     */
+    public static final int HOVER_RING_GAP = 2;
+
 }
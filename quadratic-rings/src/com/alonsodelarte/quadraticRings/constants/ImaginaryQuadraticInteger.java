@@ -25,4 +25,15 @@ public class ImaginaryQuadraticInteger {
      */
     public static final int MINIMUM_RING_D = -8191;
 
+    /**
+     * The bound on the absolute value of the real part and the imaginary part 
+     * (divided by the square root of <i>d</i>) of the numbers that 
+     * ImaginaryQuadraticInteger.valueOf() keeps in a per-ring flyweight table. 
+     * With a bound of 16, each ring can have as many as 33<sup>2</sup> 
+     * cached numbers (plus the "half-integers," if applicable), which covers 
+     * units, small rational integers and the small divisors tried in 
+     * factorization and GCD computations.
+     */
+    public static final int FLYWEIGHT_CACHE_BOUND = 16;
+
 }
@@ -0,0 +1,603 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Display.*;
+import static com.alonsodelarte.quadraticRings.constants.ImaginaryQuadraticInteger.MINIMUM_RING_D;
+import static com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.NumberTheoreticFunctionsCalculator.isSquareFree;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import javax.imageio.ImageIO;
+
+/**
+ * Draws the diagrams of many rings without a window and saves them as
+ * Portable Network Graphics (PNG) files, so that a whole gallery of diagrams
+ * can be made with one command rather than by going to each ring and saving
+ * its diagram by hand. This is what {@link
+ * com.alonsodelarte.quadraticRings.Application} runs when it's given the
+ * <code>--batch</code> option, in which case there's no need for a display at
+ * all.
+ * <p>Each ring goes to a worker thread, which draws all the diagrams asked for
+ * of that ring one after the other, reusing the classification of the lattice
+ * points from one diagram for the next where it can. A worker holds on to only
+ * one diagram at a time, and there are no more workers than there's memory
+ * for, so the rings can number in the thousands.</p>
+ * <p>The files are named the same way {@link
+ * RingWindowDisplay#saveDiagramAs()} suggests: {@link
+ * ImaginaryQuadraticRing#toFilenameString()} followed by the zoom level, and
+ * by the canvas size if diagrams of more than one size are asked for.</p>
+ * @author Alonso del Arte
+ */
+public final class BatchRenderer {
+
+    /**
+     * How to use the batch mode, for when the arguments don't make sense.
+     */
+    static final String USAGE = "Usage: --batch DISCRIMINANTS [-s WIDTHxHEIGHT,...] [-z ZOOM,...] [-r RADIUS] [-o DIRECTORY] [-t THREADS]\n"
+            + "  DISCRIMINANTS  Comma-separated discriminants or ranges, e.g. -1,-2,-7..-43 or -1..-8191.\n"
+            + "                 Numbers that are not squarefree are skipped.\n"
+            + "  -s             Canvas sizes, e.g. 1280x720,640x360 (default " + RING_CANVAS_DEFAULT_HORIZ_MAX + "x" + RING_CANVAS_DEFAULT_VERTIC_MAX + ").\n"
+            + "  -z             Zoom levels in pixels per unit interval, e.g. 40,2, or in unit intervals\n"
+            + "                 per pixel for density maps, e.g. 4uipx (default " + DEFAULT_PIXELS_PER_UNIT_INTERVAL + ").\n"
+            + "  -r, --radius   Dot radius in pixels, from " + MINIMUM_DOT_RADIUS + " to " + MAXIMUM_DOT_RADIUS + " (default " + DEFAULT_DOT_RADIUS + ").\n"
+            + "  -o             Directory to save the diagrams in (default the current directory).\n"
+            + "  -t             How many rings to draw at once (default the number of processors).";
+
+    /**
+     * Of the memory the Java virtual machine may use, how much the workers
+     * may take up, as a fraction, leaving the rest for everything else.
+     */
+    private static final double WORKER_MEMORY_FRACTION = 0.75;
+
+    /**
+     * A zoom level: either how many pixels apart 0 and 1 are, or, for a
+     * density map, how many unit intervals each pixel spans.
+     */
+    static final class Zoom {
+
+        private final int pixelsPerUnitInterval, unitIntervalsPerPixel;
+
+        int getPixelsPerUnitInterval() {
+            return this.pixelsPerUnitInterval;
+        }
+
+        int getUnitIntervalsPerPixel() {
+            return this.unitIntervalsPerPixel;
+        }
+
+        /**
+         * Gives the part of the filename that tells the zoom level, the same
+         * as {@link RingWindowDisplay#saveDiagramAs()} suggests.
+         * @return For example, "pxui40" or "uipx4".
+         */
+        String toFilenameString() {
+            if (this.unitIntervalsPerPixel > 0) {
+                return "uipx" + this.unitIntervalsPerPixel;
+            }
+            return "pxui" + this.pixelsPerUnitInterval;
+        }
+
+        /**
+         * Reads a zoom level.
+         * @param s Pixels per unit interval, optionally followed by "pxui",
+         * or unit intervals per pixel followed by "uipx". For example, "40",
+         * "40pxui" or "4uipx".
+         * @return The zoom level.
+         * @throws IllegalArgumentException If the zoom level is not a number
+         * or is out of range. Pixels per unit interval must be from {@link
+         * com.alonsodelarte.quadraticRings.constants.Display#MINIMUM_PIXELS_PER_UNIT_INTERVAL}
+         * to {@link
+         * com.alonsodelarte.quadraticRings.constants.Display#MAXIMUM_PIXELS_PER_UNIT_INTERVAL},
+         * and unit intervals per pixel must be a power of 2 no more than
+         * {@link
+         * com.alonsodelarte.quadraticRings.constants.Display#MAXIMUM_UNIT_INTERVALS_PER_PIXEL}.
+         */
+        static Zoom parse(String s) {
+            String trimmed = s.trim().toLowerCase();
+            try {
+                if (trimmed.endsWith("uipx")) {
+                    int intervals = Integer.parseInt(trimmed.substring(0, trimmed.length() - 4));
+                    if (intervals < 1 || intervals > MAXIMUM_UNIT_INTERVALS_PER_PIXEL || Integer.bitCount(intervals) != 1) {
+                        throw new IllegalArgumentException("Unit intervals per pixel " + intervals + " needs to be a power of 2 no more than " + MAXIMUM_UNIT_INTERVALS_PER_PIXEL);
+                    }
+                    return new Zoom(MINIMUM_PIXELS_PER_UNIT_INTERVAL, intervals);
+                }
+                if (trimmed.endsWith("pxui")) {
+                    trimmed = trimmed.substring(0, trimmed.length() - 4);
+                }
+                int pixels = Integer.parseInt(trimmed);
+                if (pixels < MINIMUM_PIXELS_PER_UNIT_INTERVAL || pixels > MAXIMUM_PIXELS_PER_UNIT_INTERVAL) {
+                    throw new IllegalArgumentException("Pixels per unit interval " + pixels + " needs to be from " + MINIMUM_PIXELS_PER_UNIT_INTERVAL + " to " + MAXIMUM_PIXELS_PER_UNIT_INTERVAL);
+                }
+                return new Zoom(pixels, 0);
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Zoom level \"" + s + "\" is not understood", nfe);
+            }
+        }
+
+        private Zoom(int pixelsPerUnitInterval, int unitIntervalsPerPixel) {
+            this.pixelsPerUnitInterval = pixelsPerUnitInterval;
+            this.unitIntervalsPerPixel = unitIntervalsPerPixel;
+        }
+
+    }
+
+    private final List<Integer> discriminants;
+
+    private final List<Dimension> sizes;
+
+    private final List<Zoom> zooms;
+
+    private final File directory;
+
+    private final int threadCount;
+
+    private final int dotRadius;
+
+    /**
+     * Reads a list of discriminants and ranges of discriminants.
+     * @param s Comma-separated discriminants or ranges with two dots between
+     * the ends, which may be in either order. Positive numbers are taken to
+     * be their additive inverses, the same as in {@link
+     * RingWindowDisplay#RingWindowDisplay(int)}. For example, "-1,-2,-7..-43".
+     * @return The squarefree discriminants, without repeats, from the one
+     * nearest to 0 down. For example, &minus;1, &minus;2, &minus;7,
+     * &minus;10, &minus;11, ..., &minus;42, &minus;43.
+     * @throws IllegalArgumentException If a discriminant is not a number, is
+     * 0 or is less than {@link
+     * com.alonsodelarte.quadraticRings.constants.ImaginaryQuadraticInteger#MINIMUM_RING_D}.
+     */
+    static List<Integer> parseDiscriminants(String s) {
+        TreeSet<Integer> found = new TreeSet<>(Collections.reverseOrder());
+        for (String item : s.split(",")) {
+            int rangeDots = item.indexOf("..");
+            int from, to;
+            if (rangeDots < 0) {
+                from = parseDiscriminant(item);
+                to = from;
+            } else {
+                from = parseDiscriminant(item.substring(0, rangeDots));
+                to = parseDiscriminant(item.substring(rangeDots + 2));
+            }
+            for (int d = Math.max(from, to); d >= Math.min(from, to); d--) {
+                if (isSquareFree(d)) {
+                    found.add(d);
+                }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static int parseDiscriminant(String s) {
+        int d;
+        try {
+            d = Integer.parseInt(s.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Discriminant \"" + s + "\" is not understood", nfe);
+        }
+        if (d > 0) {
+            d *= -1;
+        }
+        if (d == 0 || d < MINIMUM_RING_D) {
+            throw new IllegalArgumentException("Discriminant " + d + " needs to be from " + MINIMUM_RING_D + " to -1");
+        }
+        return d;
+    }
+
+    /**
+     * Reads a canvas size.
+     * @param s The width and the height, separated by an "x". For example,
+     * "1280x720".
+     * @return The size. For example, 1280 by 720.
+     * @throws IllegalArgumentException If the size is not understood, or is
+     * less than {@link
+     * com.alonsodelarte.quadraticRings.constants.Display#RING_CANVAS_HORIZ_MIN}
+     * by {@link
+     * com.alonsodelarte.quadraticRings.constants.Display#RING_CANVAS_VERTIC_MIN}.
+     */
+    static Dimension parseSize(String s) {
+        String[] parts = s.trim().toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Size \"" + s + "\" is not understood");
+        }
+        int width, height;
+        try {
+            width = Integer.parseInt(parts[0].trim());
+            height = Integer.parseInt(parts[1].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Size \"" + s + "\" is not understood", nfe);
+        }
+        if (width < RING_CANVAS_HORIZ_MIN || height < RING_CANVAS_VERTIC_MIN) {
+            throw new IllegalArgumentException("Size " + width + "x" + height + " needs to be at least " + RING_CANVAS_HORIZ_MIN + "x" + RING_CANVAS_VERTIC_MIN);
+        }
+        return new Dimension(width, height);
+    }
+
+    /**
+     * Reads a dot radius.
+     * @param s The radius in pixels. For example, "3".
+     * @return The radius. For example, 3.
+     * @throws IllegalArgumentException If the radius is not a number or is
+     * out of range. It must be from {@link
+     * com.alonsodelarte.quadraticRings.constants.Display#MINIMUM_DOT_RADIUS}
+     * to {@link
+     * com.alonsodelarte.quadraticRings.constants.Display#MAXIMUM_DOT_RADIUS}.
+     */
+    static int parseDotRadius(String s) {
+        int radius;
+        try {
+            radius = Integer.parseInt(s.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Dot radius \"" + s + "\" is not understood", nfe);
+        }
+        if (radius < MINIMUM_DOT_RADIUS || radius > MAXIMUM_DOT_RADIUS) {
+            throw new IllegalArgumentException("Dot radius " + radius + " needs to be from " + MINIMUM_DOT_RADIUS + " to " + MAXIMUM_DOT_RADIUS);
+        }
+        return radius;
+    }
+
+    /**
+     * Sets up a batch from command line arguments.
+     * @param arguments The arguments after <code>--batch</code>, as described
+     * in {@link #USAGE}. For example, "-1..-100", "-z", "2,40".
+     * @return The batch, not yet drawn.
+     * @throws IllegalArgumentException If the arguments don't make sense.
+     */
+    static BatchRenderer fromArguments(String... arguments) {
+        String discriminantList = null;
+        List<Dimension> sizes = new ArrayList<>();
+        List<Zoom> zooms = new ArrayList<>();
+        File directory = new File(".");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int radius = DEFAULT_DOT_RADIUS;
+        int index = 0;
+        while (index < arguments.length) {
+            String argument = arguments[index++];
+            switch (argument) {
+                case "-s":
+                case "-z":
+                case "-r":
+                case "--radius":
+                case "-o":
+                case "-t":
+                    if (index == arguments.length) {
+                        throw new IllegalArgumentException("Option " + argument + " needs a value");
+                    }
+                    String value = arguments[index++];
+                    switch (argument) {
+                        case "-s":
+                            for (String size : value.split(",")) {
+                                sizes.add(parseSize(size));
+                            }
+                            break;
+                        case "-z":
+                            for (String zoom : value.split(",")) {
+                                zooms.add(Zoom.parse(zoom));
+                            }
+                            break;
+                        case "-r":
+                        case "--radius":
+                            radius = parseDotRadius(value);
+                            break;
+                        case "-o":
+                            directory = new File(value);
+                            break;
+                        default:
+                            try {
+                                threads = Integer.parseInt(value);
+                            } catch (NumberFormatException nfe) {
+                                throw new IllegalArgumentException("Thread count \"" + value + "\" is not understood", nfe);
+                            }
+                    }
+                    break;
+                default:
+                    if (discriminantList != null) {
+                        throw new IllegalArgumentException("Argument \"" + argument + "\" is not understood");
+                    }
+                    discriminantList = argument;
+            }
+        }
+        if (discriminantList == null) {
+            throw new IllegalArgumentException("No discriminants given");
+        }
+        if (sizes.isEmpty()) {
+            sizes.add(new Dimension(RING_CANVAS_DEFAULT_HORIZ_MAX, RING_CANVAS_DEFAULT_VERTIC_MAX));
+        }
+        if (zooms.isEmpty()) {
+            zooms.add(Zoom.parse(Integer.toString(DEFAULT_PIXELS_PER_UNIT_INTERVAL)));
+        }
+        return new BatchRenderer(parseDiscriminants(discriminantList), sizes, zooms, directory, threads, radius);
+    }
+
+    /**
+     * Draws and saves the diagrams asked for on the command line, reporting
+     * each file saved on standard output and each failure on standard error.
+     * The caller should have set <code>java.awt.headless</code> to true
+     * before any windowing classes are loaded.
+     * @param arguments The arguments after <code>--batch</code>, as described
+     * in {@link #USAGE}. For example, "-1..-8191", "-o", "gallery".
+     * @return 0 if all the diagrams were saved, 1 if any could not be, or 2
+     * if the arguments don't make sense, suitable for use as the exit status
+     * of the program.
+     */
+    public static int run(String... arguments) {
+        BatchRenderer batch;
+        try {
+            batch = fromArguments(arguments);
+        } catch (IllegalArgumentException iae) {
+            System.err.println(iae.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (!batch.directory.isDirectory() && !batch.directory.mkdirs()) {
+            System.err.println("Could not create directory " + batch.directory);
+            return 1;
+        }
+        return batch.renderAll() == 0 ? 0 : 1;
+    }
+
+    /**
+     * Gives the name of the file for a diagram.
+     * @param ring The ring. For example, <b>Z</b>[&radic;&minus;2].
+     * @param size The canvas size. For example, 1280 by 720.
+     * @param zoom The zoom level. For example, 40 pixels per unit interval.
+     * @return For example, "ZI2pxui40.png", or "ZI2pxui40w1280h720.png" if
+     * diagrams of more than one size are in the batch.
+     */
+    String filenameFor(ImaginaryQuadraticRing ring, Dimension size, Zoom zoom) {
+        String filename = ring.toFilenameString() + zoom.toFilenameString();
+        if (this.sizes.size() > 1) {
+            filename += "w" + size.width + "h" + size.height;
+        }
+        return filename + ".png";
+    }
+
+    /**
+     * Captures the settings of a diagram, with 0 at the center of the canvas
+     * and the default colors.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param size The canvas size. For example, 1280 by 720.
+     * @param zoom The zoom level. For example, 40 pixels per unit interval.
+     * @param dotRadius The dot radius in pixels. For example, 3. Density maps
+     * have no dots, so it makes no difference to them.
+     * @return The view.
+     */
+    static DiagramView viewOf(ImaginaryQuadraticRing ring, Dimension size, Zoom zoom, int dotRadius) {
+        double imagInterval = zoom.getPixelsPerUnitInterval() * ring.absNegRadSqrt;
+        if (ring.d1mod4) {
+            imagInterval /= 2;
+        }
+        Color[] gridColors = {DEFAULT_HALF_INTEGER_GRID_COLOR, DEFAULT_INTEGER_GRID_COLOR};
+        Color[] pointColors = {DEFAULT_ZERO_COLOR, DEFAULT_UNIT_COLOR, DEFAULT_INERT_PRIME_COLOR, DEFAULT_SPLIT_PRIME_COLOR, DEFAULT_RAMIFIED_PRIME_COLOR};
+        return new DiagramView(ring, zoom.getPixelsPerUnitInterval(), (int) Math.floor(imagInterval), zoom.getUnitIntervalsPerPixel(), size.width, size.height, size.width / 2, size.height / 2, 0, 0, dotRadius, gridColors, pointColors);
+    }
+
+    /**
+     * Estimates how many bytes a worker needs at most to draw one of the
+     * diagrams of the batch. For dots, that's the image, the image the small
+     * dots are drawn into, and the classification of the lattice points, which
+     * the worker keeps for the next diagram. For density maps, that's the
+     * image, the counts of each kind of point for each pixel, the map the
+     * counts are turned into, and the chunk of classified points the worker
+     * counts when it helps out the fork/join pool. No ring has more lattice
+     * points on a canvas than <b>Z</b>[&omega;], so it's the ring the
+     * classification and the chunks are sized for.
+     * @return The number of bytes. For example, a little over 8 megabytes for
+     * 1280 by 720 at 40 pixels per unit interval, or a little over 24
+     * megabytes at 32 unit intervals per pixel.
+     */
+    long bytesPerWorker() {
+        ImaginaryQuadraticRing densest = ImaginaryQuadraticRing.valueOf(-3);
+        long most = 0;
+        for (Dimension size : this.sizes) {
+            long pixels = (long) size.width * size.height;
+            for (Zoom zoom : this.zooms) {
+                DiagramView view = viewOf(densest, size, zoom, this.dotRadius);
+                long bytes;
+                if (view.drawsDensity()) {
+                    bytes = Integer.BYTES * pixels + view.densityMapBytes() + view.densityChunkBytes();
+                } else {
+                    long[] region = view.visibleRegion();
+                    bytes = 2 * Integer.BYTES * pixels + 2 * region[2] * region[3];
+                }
+                most = Math.max(most, bytes);
+            }
+        }
+        return most;
+    }
+
+    /**
+     * Estimates how many bytes the workers share at most, no matter how many
+     * of them there are. That's nothing unless there are density maps in the
+     * batch, and then it's a chunk of classified points for each thread of
+     * the fork/join pool, and the sieve of primes, which can grow as big as
+     * {@link PrimeSieve#MAXIMUM_LIMIT} allows when the maps are far from 0.
+     * @return The number of bytes. For example, about 66 megabytes for 1280
+     * by 720 at 32 unit intervals per pixel on a machine with one or two
+     * processors.
+     */
+    long sharedBytes() {
+        ImaginaryQuadraticRing densest = ImaginaryQuadraticRing.valueOf(-3);
+        long mostChunk = 0;
+        for (Dimension size : this.sizes) {
+            for (Zoom zoom : this.zooms) {
+                DiagramView view = viewOf(densest, size, zoom, this.dotRadius);
+                if (view.drawsDensity()) {
+                    mostChunk = Math.max(mostChunk, view.densityChunkBytes());
+                }
+            }
+        }
+        if (mostChunk == 0) {
+            return 0;
+        }
+        return ForkJoinPool.getCommonPoolParallelism() * mostChunk + PrimeSieve.MAXIMUM_LIMIT / 16;
+    }
+
+    /**
+     * Tells how many workers draw the diagrams: as many as asked for, but no
+     * more than there are rings, and no more than there's memory for once
+     * what the workers share is set aside.
+     * @return The number of workers, at least 1.
+     */
+    int getWorkerCount() {
+        long available = (long) (Runtime.getRuntime().maxMemory() * WORKER_MEMORY_FRACTION) - this.sharedBytes();
+        long affordable = available / Math.max(1, this.bytesPerWorker());
+        long workers = Math.min(this.threadCount, Math.min(affordable, this.discriminants.size()));
+        return (int) Math.max(1, workers);
+    }
+
+    /**
+     * Draws one diagram, the same as {@link DiagramRenderer#renderNow(DiagramView,
+     * Color)} does when there's no diagram already drawn to use.
+     * @param view The view to draw.
+     * @param completed The classification of the points of the previous
+     * diagram of the same ring, in the first element, or null. The
+     * classification of the points of this diagram is put in its place.
+     * @return The diagram.
+     */
+    static BufferedImage render(DiagramView view, RegionClassification[] completed) {
+        BufferedImage diagram = new BufferedImage(view.getCanvasWidth(), view.getCanvasHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = diagram.createGraphics();
+        graphics.setColor(DEFAULT_CANVAS_BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, view.getCanvasWidth(), view.getCanvasHeight());
+        if (view.drawsDensity()) {
+            view.draw(graphics, null, null, null);
+        } else {
+            RegionClassification visible = view.startClassifying(null, completed[0]).finish(null);
+            completed[0] = visible;
+            view.draw(graphics, visible, new DotRaster(view.getCanvasWidth() + 1, view.getCanvasHeight() + 1), null);
+        }
+        graphics.dispose();
+        return diagram;
+    }
+
+    /**
+     * Draws and saves all the diagrams of the batch, one ring per worker.
+     * @return How many diagrams could not be saved. Hopefully 0.
+     */
+    int renderAll() {
+        int workers = this.getWorkerCount();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private int count = 0;
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Batch renderer " + (++this.count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        for (final Integer d : this.discriminants) {
+            completion.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return renderRing(ImaginaryQuadraticRing.valueOf(d));
+                }
+            });
+        }
+        int failures = 0;
+        try {
+            for (int i = 0; i < this.discriminants.size(); i++) {
+                try {
+                    failures += completion.take().get();
+                } catch (ExecutionException ee) {
+                    System.err.println("Diagram could not be drawn: " + ee.getCause());
+                    failures++;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            failures++;
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    /**
+     * Draws and saves all the diagrams of one ring. This is what each worker
+     * does.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @return How many of the diagrams of the ring could not be saved.
+     */
+    private int renderRing(ImaginaryQuadraticRing ring) {
+        int failures = 0;
+        RegionClassification[] completed = new RegionClassification[1];
+        for (Dimension size : this.sizes) {
+            for (Zoom zoom : this.zooms) {
+                File file = new File(this.directory, this.filenameFor(ring, size, zoom));
+                try {
+                    ImageIO.write(render(viewOf(ring, size, zoom, this.dotRadius), completed), "PNG", file);
+                    System.out.println(file.getPath());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println(file.getPath() + " could not be saved: " + e.getMessage());
+                    failures++;
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Sets up a batch of diagrams.
+     * @param discriminants The discriminants of the rings, all squarefree and
+     * negative. For example, &minus;1, &minus;2, &minus;3.
+     * @param sizes The canvas sizes. For example, 1280 by 720.
+     * @param zooms The zoom levels. For example, 40 pixels per unit interval.
+     * @param directory The directory to save the diagrams in.
+     * @param threadCount How many rings to draw at once, if there's memory
+     * enough. For example, 4.
+     * @param dotRadius The dot radius in pixels. For example, 3.
+     * @throws IllegalArgumentException If any of the lists is empty, the
+     * thread count is less than 1 or the dot radius is out of range.
+     */
+    BatchRenderer(List<Integer> discriminants, List<Dimension> sizes, List<Zoom> zooms, File directory, int threadCount, int dotRadius) {
+        if (discriminants.isEmpty() || sizes.isEmpty() || zooms.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one squarefree discriminant, size and zoom level");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count " + threadCount + " needs to be at least 1");
+        }
+        if (dotRadius < MINIMUM_DOT_RADIUS || dotRadius > MAXIMUM_DOT_RADIUS) {
+            throw new IllegalArgumentException("Dot radius " + dotRadius + " needs to be from " + MINIMUM_DOT_RADIUS + " to " + MAXIMUM_DOT_RADIUS);
+        }
+        this.discriminants = new ArrayList<>(discriminants);
+        this.sizes = new ArrayList<>(sizes);
+        this.zooms = new ArrayList<>(zooms);
+        this.directory = directory;
+        this.threadCount = threadCount;
+        this.dotRadius = dotRadius;
+    }
+
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_DIRECTORY;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_MEGABYTES_PROPERTY;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_OFF;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_PROPERTY;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.DEFAULT_CLASSIFICATION_CACHE_BUDGET;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps classifications of lattice points on disk, so that the diagram of a
+ * ring viewed in an earlier run of the program can be drawn without
+ * classifying anything. The classification of a point depends only on the
+ * ring and the point, so it never goes stale, except if the meaning of the
+ * codes of {@link RegionClassification} changes, in which case {@link
+ * #CLASSIFICATION_VERSION} must be bumped.
+ * <p>The lattice of each ring is divided into square tiles of {@link
+ * #TILE_SIZE} by {@link #TILE_SIZE} points, in the coordinates of {@link
+ * RegionClassification}, and each tile is kept in a file of its own in a
+ * directory for the ring. The codes all fit in four bits, so each file holds
+ * two points to a byte, after a header that says what's in the file. A file
+ * with a header that doesn't match what's expected, whether because it was
+ * written by another version or because it's been damaged, is deleted and
+ * treated as missing.</p>
+ * <p>Tiles are read by mapping their files into memory, on whatever thread
+ * asks for them. Tiles are written on a thread of their own, to a temporary
+ * file that is then moved into place, so that a tile file is either complete
+ * or not there at all. Any trouble reading or writing is logged and
+ * otherwise ignored, since the classifications can always be worked out
+ * again.</p>
+ * <p>The tiles are kept within a budget of bytes. Reading a tile sets its
+ * modification time to the present, so once writing a tile takes the tiles
+ * over the budget, the tiles with the oldest modification times are the least
+ * recently used, and those are deleted until the tiles take up no more than
+ * seven eighths of the budget. That way the directory is only gone through
+ * again after quite a few more tiles have been written. The directory, the
+ * budget, or whether to keep tiles at all can be set with system properties
+ * (see {@link #configured()}).</p>
+ * @author Alonso del Arte
+ */
+final class ClassificationDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassificationDiskCache.class);
+
+    /**
+     * How many points across and down each tile is.
+     */
+    static final int TILE_SIZE = 128;
+
+    /**
+     * The first four bytes of every tile file, "QRCT" in ASCII.
+     */
+    private static final int MAGIC = 0x51524354;
+
+    /**
+     * The version of the layout of tile files.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The version of the meaning of the codes in tile files. Bump this if the
+     * codes of {@link RegionClassification} change.
+     */
+    static final int CLASSIFICATION_VERSION = 1;
+
+    /**
+     * The magic number, the two versions, the discriminant, the tile size and
+     * the two tile coordinates.
+     */
+    private static final int HEADER_BYTES = 5 * Integer.BYTES + 2 * Long.BYTES;
+
+    /**
+     * How many bytes each tile file takes up.
+     */
+    static final int TILE_BYTES = HEADER_BYTES + TILE_SIZE * TILE_SIZE / 2;
+
+    private static final String TILE_SUFFIX = ".tile";
+
+    private final Path directory;
+
+    private final long budget;
+
+    private final ExecutorService writer;
+
+    /* How many bytes the tile files take up, counted when the first tile is
+       written and kept up to date after that. Only used on the writer
+       thread. */
+    private long bytesOnDisk = -1;
+
+    /**
+     * Gives a cache as set by the system properties. If {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#CLASSIFICATION_CACHE_PROPERTY}
+     * is "off," there's no cache, if it's anything else, it's the directory
+     * for the cache, and if it's not set, the cache is in the directory named
+     * by {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#CLASSIFICATION_CACHE_DIRECTORY}
+     * in the user's home directory. The budget is {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#CLASSIFICATION_CACHE_MEGABYTES_PROPERTY}
+     * megabytes if that's set to a number, or {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#DEFAULT_CLASSIFICATION_CACHE_BUDGET}
+     * bytes otherwise.
+     * @return The cache, or null if it's turned off. The directory is only
+     * created once something is written to it.
+     */
+    static ClassificationDiskCache configured() {
+        String location = System.getProperty(CLASSIFICATION_CACHE_PROPERTY);
+        if (location != null && location.trim().equalsIgnoreCase(CLASSIFICATION_CACHE_OFF)) {
+            return null;
+        }
+        Path cacheDirectory;
+        if (location == null || location.trim().isEmpty()) {
+            cacheDirectory = Paths.get(System.getProperty("user.home"), CLASSIFICATION_CACHE_DIRECTORY);
+        } else {
+            cacheDirectory = Paths.get(location.trim());
+        }
+        long cacheBudget = DEFAULT_CLASSIFICATION_CACHE_BUDGET;
+        String megabytes = System.getProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY);
+        if (megabytes != null) {
+            try {
+                cacheBudget = Long.parseLong(megabytes.trim()) << 20;
+            } catch (NumberFormatException nfe) {
+                log.warn("Ignoring {}={}, which is not a whole number of megabytes", CLASSIFICATION_CACHE_MEGABYTES_PROPERTY, megabytes);
+            }
+        }
+        return new ClassificationDiskCache(cacheDirectory, cacheBudget);
+    }
+
+    Path getDirectory() {
+        return this.directory;
+    }
+
+    long getBudget() {
+        return this.budget;
+    }
+
+    private Path tilePath(ImaginaryQuadraticRing ring, long tileX, long tileY) {
+        return this.directory.resolve("d" + ring.getNegRad()).resolve(tileX + "_" + tileY + TILE_SUFFIX);
+    }
+
+    /**
+     * Reads the classification of a region, if every tile it touches is on
+     * disk.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param minX The least x coordinate of the region. For example, -320.
+     * @param minY The least y coordinate of the region. For example, -180.
+     * @param width How many points across the region is. For example, 641.
+     * @param height How many points down the region is. For example, 361.
+     * @return The classification, or null if any of the tiles is missing or
+     * can't be read, or if the region has more than {@link
+     * Integer#MAX_VALUE} points.
+     */
+    RegionClassification load(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            return null;
+        }
+        byte[] codes = new byte[width * height];
+        long firstTileX = Math.floorDiv(minX, TILE_SIZE);
+        long lastTileX = Math.floorDiv(minX + width - 1, TILE_SIZE);
+        long firstTileY = Math.floorDiv(minY, TILE_SIZE);
+        long lastTileY = Math.floorDiv(minY + height - 1, TILE_SIZE);
+        for (long tileY = firstTileY; tileY <= lastTileY; tileY++) {
+            for (long tileX = firstTileX; tileX <= lastTileX; tileX++) {
+                if (!this.readTile(ring, tileX, tileY, minX, minY, width, height, codes)) {
+                    return null;
+                }
+            }
+        }
+        return RegionClassification.fromCodes(ring, minX, minY, width, height, codes);
+    }
+
+    /**
+     * Copies the part of a tile that overlaps a region into the codes of the
+     * region.
+     * @return True if the tile was read, false if it's missing or invalid.
+     */
+    private boolean readTile(ImaginaryQuadraticRing ring, long tileX, long tileY, long minX, long minY, int width, int height, byte[] codes) {
+        Path path = this.tilePath(ring, tileX, tileY);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        boolean valid = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the whole header is in
+            }
+            header.flip();
+            valid = channel.size() == TILE_BYTES && header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION && header.getInt() == CLASSIFICATION_VERSION && header.getInt() == ring.getNegRad() && header.getInt() == TILE_SIZE && header.getLong() == tileX && header.getLong() == tileY;
+            if (!valid) {
+                return false;
+            }
+            /* The file is mapped only once the header checks out, so that
+               files to be discarded are never mapped, since on some systems
+               a mapped file can't be deleted. */
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, TILE_BYTES);
+            long tileMinX = tileX * TILE_SIZE;
+            long tileMinY = tileY * TILE_SIZE;
+            int startColumn = (int) Math.max(tileMinX - minX, 0);
+            int endColumn = (int) Math.min(tileMinX + TILE_SIZE - minX, width);
+            int startRow = (int) Math.max(tileMinY - minY, 0);
+            int endRow = (int) Math.min(tileMinY + TILE_SIZE - minY, height);
+            for (int row = startRow; row < endRow; row++) {
+                int tileRowStart = (int) (minY + row - tileMinY) * TILE_SIZE;
+                for (int column = startColumn; column < endColumn; column++) {
+                    int tileIndex = tileRowStart + (int) (minX + column - tileMinX);
+                    int packed = buffer.get(HEADER_BYTES + tileIndex / 2);
+                    codes[row * width + column] = (byte) ((tileIndex & 1) == 0 ? packed & 0x0F : (packed >> 4) & 0x0F);
+                }
+            }
+            this.touch(path);
+            return true;
+        } catch (IOException ioe) {
+            log.warn("Could not read classification tile {}", path, ioe);
+            return false;
+        } finally {
+            if (!valid) {
+                this.discard(path);
+            }
+        }
+    }
+
+    /**
+     * Marks a tile file as just used, so that it's among the last to be
+     * deleted to stay within the budget.
+     */
+    private void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ioe) {
+            log.debug("Could not mark classification tile {} as used", path, ioe);
+        }
+    }
+
+    /**
+     * Deletes a tile file that's not what it should be.
+     */
+    private void discard(Path path) {
+        log.info("Discarding outdated or damaged classification tile {}", path);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ioe) {
+            log.warn("Could not delete classification tile {}", path, ioe);
+        }
+    }
+
+    /**
+     * Writes the tiles a complete classification touches, in the background.
+     * Tiles already on disk are not written again. Tiles that stick out of
+     * the region are classified in full on the writer thread before they're
+     * written.
+     * @param region The classification. It must be complete.
+     */
+    void save(final RegionClassification region) {
+        this.writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                writeTiles(region);
+            }
+        });
+    }
+
+    private void writeTiles(RegionClassification region) {
+        if (region.getWidth() == 0 || region.getHeight() == 0 || this.budget < TILE_BYTES) {
+            return;
+        }
+        if (this.bytesOnDisk < 0) {
+            this.bytesOnDisk = 0;
+            for (Path path : this.listTiles()) {
+                try {
+                    this.bytesOnDisk += Files.size(path);
+                } catch (IOException ioe) {
+                    log.debug("Could not get the size of classification tile {}", path, ioe);
+                }
+            }
+        }
+        ImaginaryQuadraticRing ring = region.getRing();
+        long firstTileX = Math.floorDiv(region.getMinX(), TILE_SIZE);
+        long lastTileX = Math.floorDiv(region.getMinX() + region.getWidth() - 1, TILE_SIZE);
+        long firstTileY = Math.floorDiv(region.getMinY(), TILE_SIZE);
+        long lastTileY = Math.floorDiv(region.getMinY() + region.getHeight() - 1, TILE_SIZE);
+        for (long tileY = firstTileY; tileY <= lastTileY; tileY++) {
+            for (long tileX = firstTileX; tileX <= lastTileX; tileX++) {
+                Path path = this.tilePath(ring, tileX, tileY);
+                if (Files.exists(path)) {
+                    continue;
+                }
+                long tileMinX = tileX * TILE_SIZE;
+                long tileMinY = tileY * TILE_SIZE;
+                RegionClassification source = region;
+                boolean inside = tileMinX >= region.getMinX() && tileMinY >= region.getMinY() && tileMinX + TILE_SIZE <= region.getMinX() + region.getWidth() && tileMinY + TILE_SIZE <= region.getMinY() + region.getHeight();
+                try {
+                    if (!inside) {
+                        source = RegionClassification.classify(ring, tileMinX, tileMinY, TILE_SIZE, TILE_SIZE);
+                    }
+                    this.writeTile(path, source, tileX, tileY);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not write classification tile {}", path, e);
+                    return;
+                }
+                this.bytesOnDisk += TILE_BYTES;
+                if (this.bytesOnDisk > this.budget) {
+                    this.evict();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the tile files of every ring.
+     */
+    private List<Path> listTiles() {
+        List<Path> tiles = new ArrayList<>();
+        if (!Files.isDirectory(this.directory)) {
+            return tiles;
+        }
+        try (DirectoryStream<Path> ringDirectories = Files.newDirectoryStream(this.directory)) {
+            for (Path ringDirectory : ringDirectories) {
+                if (!Files.isDirectory(ringDirectory)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> ringTiles = Files.newDirectoryStream(ringDirectory, "*" + TILE_SUFFIX)) {
+                    for (Path tile : ringTiles) {
+                        tiles.add(tile);
+                    }
+                }
+            }
+        } catch (IOException ioe) {
+            log.warn("Could not list the classification tiles in {}", this.directory, ioe);
+        }
+        return tiles;
+    }
+
+    /**
+     * Deletes the least recently used tiles until the tiles take up no more
+     * than seven eighths of the budget. The tiles are counted all over again
+     * while at it, in case they've been added to or deleted by something
+     * else, such as another instance of the program.
+     */
+    private void evict() {
+        List<TileUse> uses = new ArrayList<>();
+        long total = 0;
+        for (Path tile : this.listTiles()) {
+            try {
+                TileUse use = new TileUse(tile, Files.getLastModifiedTime(tile).toMillis(), Files.size(tile));
+                uses.add(use);
+                total += use.size;
+            } catch (IOException ioe) {
+                log.debug("Could not get the size or time of classification tile {}", tile, ioe);
+            }
+        }
+        Collections.sort(uses, new Comparator<TileUse>() {
+            @Override
+            public int compare(TileUse a, TileUse b) {
+                return Long.compare(a.lastUsed, b.lastUsed);
+            }
+        });
+        long target = this.budget - this.budget / 8;
+        for (int i = 0; i < uses.size() && total > target; i++) {
+            TileUse use = uses.get(i);
+            try {
+                Files.deleteIfExists(use.path);
+                total -= use.size;
+            } catch (IOException ioe) {
+                log.warn("Could not delete classification tile {}", use.path, ioe);
+            }
+        }
+        this.bytesOnDisk = total;
+    }
+
+    /**
+     * A tile file, when it was last used and how big it is, for picking which
+     * tiles to delete.
+     */
+    private static final class TileUse {
+
+        private final Path path;
+
+        private final long lastUsed, size;
+
+        TileUse(Path path, long lastUsed, long size) {
+            this.path = path;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+
+    }
+
+    private void writeTile(Path path, RegionClassification source, long tileX, long tileY) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TILE_BYTES);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(CLASSIFICATION_VERSION).putInt(source.getRing().getNegRad()).putInt(TILE_SIZE).putLong(tileX).putLong(tileY);
+        int columnOffset = (int) (tileX * TILE_SIZE - source.getMinX());
+        int rowOffset = (int) (tileY * TILE_SIZE - source.getMinY());
+        for (int row = 0; row < TILE_SIZE; row++) {
+            for (int column = 0; column < TILE_SIZE; column += 2) {
+                int low = source.getCode(columnOffset + column, rowOffset + row);
+                int high = source.getCode(columnOffset + column + 1, rowOffset + row);
+                buffer.put((byte) (low | (high << 4)));
+            }
+        }
+        buffer.flip();
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), "tile", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Waits for the tiles asked to be saved so far to be written. This is
+     * meant for testing.
+     * @param timeoutMillis How long to wait at most, in milliseconds.
+     * @return True if the tiles were written in time, false otherwise.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    boolean awaitWrites(long timeoutMillis) throws InterruptedException {
+        try {
+            this.writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // Nothing to do, this only marks a place in the queue
+                }
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sets up a cache in a directory, with a budget of {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#DEFAULT_CLASSIFICATION_CACHE_BUDGET}
+     * bytes.
+     * @param directory The directory to keep the tiles in. It doesn't need to
+     * exist yet. For example, ~/.quadratic-rings/classifications.
+     */
+    ClassificationDiskCache(Path directory) {
+        this(directory, DEFAULT_CLASSIFICATION_CACHE_BUDGET);
+    }
+
+    /**
+     * Sets up a cache in a directory. The writer thread doesn't keep the
+     * program from exiting, so tiles still waiting to be written when the
+     * program exits are just not written.
+     * @param directory The directory to keep the tiles in. It doesn't need to
+     * exist yet. For example, ~/.quadratic-rings/classifications.
+     * @param budget How many bytes the tiles may take up. For example, 256
+     * megabytes. If it's less than a tile, nothing is written, but tiles
+     * already there are still read.
+     */
+    ClassificationDiskCache(Path directory, long budget) {
+        this.directory = directory;
+        this.budget = budget;
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Classification tile writer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+}
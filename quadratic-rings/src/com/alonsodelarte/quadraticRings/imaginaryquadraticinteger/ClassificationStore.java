@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps complete classifications of lattice points so that they can be reused
+ * whatever the zoom level. A classification doesn't depend on how many pixels
+ * apart the points are drawn, so when the user zooms in, the points of the new
+ * view can all be copied from the classification of the view before, and when
+ * the user zooms out, only the points around the edges of the view before
+ * need to be classified.
+ * <p>For each ring, I keep the classification of the largest region seen so
+ * far, unless a new one doesn't fit inside it, in which case the new one
+ * replaces it, since it's the one more likely to overlap the next view. Only
+ * a few rings are remembered, the least recently used ring being forgotten
+ * first.</p>
+ * @author Alonso del Arte
+ */
+final class ClassificationStore {
+
+    /**
+     * How many rings to remember classifications for. This is enough for the
+     * current ring, the rings prefetched around it (see {@link
+     * DiagramRenderer#prefetch(java.util.List)}) and a couple more.
+     */
+    static final int DEFAULT_RING_CAPACITY = 8;
+
+    private final Map<ImaginaryQuadraticRing, RegionClassification> regions;
+
+    /**
+     * Gets the classification remembered for a ring.
+     * @param ring The ring to look up.
+     * @return The classification, or null if there is none for the ring.
+     */
+    RegionClassification get(ImaginaryQuadraticRing ring) {
+        return this.regions.get(ring);
+    }
+
+    /**
+     * Remembers a complete classification, unless the one already remembered
+     * for its ring contains it.
+     * @param region The classification to remember. It must be complete.
+     */
+    void put(RegionClassification region) {
+        RegionClassification known = this.regions.get(region.getRing());
+        if (known != null && contains(known, region)) {
+            return;
+        }
+        this.regions.put(region.getRing(), region);
+    }
+
+    private static boolean contains(RegionClassification outer, RegionClassification inner) {
+        return inner.getMinX() >= outer.getMinX() && inner.getMinY() >= outer.getMinY() && inner.getMinX() + inner.getWidth() <= outer.getMinX() + outer.getWidth() && inner.getMinY() + inner.getHeight() <= outer.getMinY() + outer.getHeight();
+    }
+
+    /**
+     * Sets up a store for up to {@link #DEFAULT_RING_CAPACITY} rings.
+     */
+    ClassificationStore() {
+        this(DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * Sets up a store.
+     * @param ringCapacity How many rings to remember classifications for. For
+     * example, 2.
+     * @throws IllegalArgumentException If the capacity is less than 1.
+     */
+    ClassificationStore(final int ringCapacity) {
+        if (ringCapacity < 1) {
+            throw new IllegalArgumentException("Ring capacity " + ringCapacity + " is not positive");
+        }
+        this.regions = new LinkedHashMap<ImaginaryQuadraticRing, RegionClassification>(ringCapacity + 1, 1.0f, true) {
+            private static final long serialVersionUID = 4547203186530581L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ImaginaryQuadraticRing, RegionClassification> eldest) {
+                return this.size() > ringCapacity;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,652 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Configuration.DEFAULT_FRAME_CACHE_BUDGET;
+import static com.alonsodelarte.quadraticRings.constants.Display.OFF_SCREEN_MARGIN;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Draws ring diagrams on a background thread, so that the Swing event
+ * dispatch thread only ever has to draw a finished image. Each request for a
+ * diagram gets a new generation number, and any diagram being drawn for an
+ * older generation is abandoned as soon as it notices, so when the user holds
+ * down the zoom key, only the diagram for the last zoom level gets finished.
+ * A request for the same view as the last request is ignored, so however
+ * many repaints Swing asks for, each view is drawn only once.
+ * <p>Regions that take a while to classify, such as those far from 0, are
+ * classified in passes (see {@link RegionClassification.Progressive}), and
+ * the diagram is drawn after each pass with the rows classified so far, so
+ * that the user sees something of the new view within a few dozen
+ * milliseconds rather than a second or so. Diagrams drawn after a pass are
+ * only published if the rest of the passes look like they'll take long
+ * enough for the difference to be noticed.</p>
+ * <p>Each diagram is drawn with a margin of {@link
+ * com.alonsodelarte.quadraticRings.constants.Display#OFF_SCREEN_MARGIN}
+ * pixels all around the canvas, so that while the user drags the diagram,
+ * the canvas can be painted by shifting the latest diagram until the margin
+ * runs low.</p>
+ * <p>Complete classifications are kept in a {@link ClassificationStore}, so
+ * that after zooming in, the new diagram is drawn from points already
+ * classified, and after zooming out, only the points around the edges of the
+ * previous view are classified. If the renderer is given a {@link
+ * ClassificationDiskCache}, complete classifications are also written to disk,
+ * and a view whose points have all been classified in an earlier run is drawn
+ * from the classifications read back from disk.</p>
+ * <p>The grids and the points are drawn into separate layers. The grid
+ * layer is only redrawn when the grids themselves change, and a complete
+ * point layer is reused for a later view that differs only in the grid
+ * colors. The component, saving and copying to the clipboard all just
+ * composite the layers of the latest frame. Diagrams for saving and copying
+ * are drawn on the renderer thread too, in case there's no frame to
+ * composite and the diagram has to be drawn all over again.</p>
+ * <p>Density maps, for views zoomed out past the point where the dots would
+ * run together, are drawn in a single pass, since they're already drawn in
+ * parallel and can be abandoned at any time.</p>
+ * <p>Complete diagrams are kept in a {@link FrameCache}, so that going back
+ * to a view already drawn, as when flipping back and forth between two rings,
+ * is instant. Whenever the renderer has nothing else to do, it draws diagrams
+ * for the views the user is likely to go to next, such as the adjacent rings,
+ * into the cache (see {@link #prefetch(List)}). The classification and the
+ * drawing are split over the common fork/join pool, so prefetching uses
+ * whatever cores are idle, and it's abandoned as soon as a diagram is
+ * requested.</p>
+ * <p>The methods of this class, other than the constructor, are to be called
+ * on the event dispatch thread only.</p>
+ * @author Alonso del Arte
+ */
+final class DiagramRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagramRenderer.class);
+
+    /**
+     * If the passes left to classify the region of a view look like they'll
+     * take fewer than this many milliseconds, the diagram is not drawn for
+     * the passes done so far.
+     */
+    private static final long MINIMUM_MILLISECONDS_LEFT_TO_DRAW_PASS = 30;
+
+    /**
+     * A diagram and the view it was drawn for. The diagram may be of only
+     * some of the rows of lattice points, if the rest were still being
+     * classified when it was drawn. The diagram is kept in two layers, the
+     * grids and the points, so that a later diagram that differs only in one
+     * of them can share the other.
+     */
+    static final class Frame {
+
+        private final DiagramView view, drawnView;
+
+        private final BufferedImage gridLayer, pointLayer;
+
+        private final boolean complete;
+
+        DiagramView getView() {
+            return this.view;
+        }
+
+        /**
+         * Gets the view the image was actually drawn for, which is the view
+         * requested with a margin around the canvas.
+         * @return The view with the margin.
+         */
+        DiagramView getDrawnView() {
+            return this.drawnView;
+        }
+
+        /**
+         * Tells whether the diagram has all the points it should have.
+         * @return True if every visible point had been classified when the
+         * diagram was drawn, false otherwise.
+         */
+        boolean isComplete() {
+            return this.complete;
+        }
+
+        /**
+         * Tells how much memory the layers of the diagram take up.
+         * @return The number of bytes, at four bytes a pixel.
+         */
+        long getByteCount() {
+            long count = 0;
+            BufferedImage[] layers = {this.gridLayer, this.pointLayer};
+            for (BufferedImage layer : layers) {
+                if (layer != null) {
+                    count += 4L * layer.getWidth() * layer.getHeight();
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Paints the layers of the diagram, grids first and points on top.
+         * The layers have transparent backgrounds and are one pixel wider
+         * and taller than the canvas of the drawn view.
+         * @param graphics The Graphics object to paint with.
+         * @param placement Where the pixels of the drawn view go, as given
+         * by {@link DiagramView#placementOf(DiagramView)}. If it's just a
+         * shift, the layers are drawn a whole number of pixels over, so that
+         * they stay sharp.
+         */
+        void paint(Graphics2D graphics, AffineTransform placement) {
+            BufferedImage[] layers = {this.gridLayer, this.pointLayer};
+            for (BufferedImage layer : layers) {
+                if (layer == null) {
+                    continue;
+                }
+                if (placement.getType() == AffineTransform.TYPE_TRANSLATION || placement.isIdentity()) {
+                    graphics.drawImage(layer, (int) Math.round(placement.getTranslateX()), (int) Math.round(placement.getTranslateY()), null);
+                } else {
+                    graphics.drawImage(layer, placement, null);
+                }
+            }
+        }
+
+        Frame(DiagramView view, DiagramView drawnView, BufferedImage gridLayer, BufferedImage pointLayer, boolean complete) {
+            this.view = view;
+            this.drawnView = drawnView;
+            this.gridLayer = gridLayer;
+            this.pointLayer = pointLayer;
+            this.complete = complete;
+        }
+
+    }
+
+    private final Component component;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private DiagramView requestedView = null;
+
+    private Future<?> inFlight = null;
+
+    private Frame latestFrame = null;
+
+    private final FrameCache frameCache;
+
+    private volatile List<DiagramView> prefetchViews = Collections.emptyList();
+
+    /* These are only used on the renderer thread. */
+    private RegionClassification.Progressive progress = null;
+
+    private DiagramView gridView = null;
+
+    private BufferedImage gridLayer = null;
+
+    private Frame lastCompleteFrame = null;
+
+    private final ClassificationStore completedRegions = new ClassificationStore();
+
+    private final ClassificationDiskCache diskCache;
+
+    private DotRaster raster = null;
+
+    /**
+     * Gets the most recently drawn diagram. This may be for a view other than
+     * the current one, if the diagram for the current one is still being
+     * drawn, or it may be a diagram of only some of the rows of the current
+     * view.
+     * @return The diagram, or null if none has been finished yet.
+     */
+    Frame getLatestFrame() {
+        return this.latestFrame;
+    }
+
+    /**
+     * Tells whether a complete diagram of a view is in the frame cache, so
+     * that requesting the view would make it the latest frame right away.
+     * @param view The view to check for.
+     * @return True if the diagram is in the cache, false otherwise.
+     */
+    boolean isCached(DiagramView view) {
+        return this.frameCache.contains(view);
+    }
+
+    /**
+     * Tells whether a diagram for the specified view is still being drawn.
+     * @param view The view to check for.
+     * @return True if the view was the last one requested and its diagram is
+     * not finished yet, false otherwise.
+     */
+    boolean isPending(DiagramView view) {
+        return view.equals(this.requestedView) && (this.latestFrame == null || !this.latestFrame.isComplete() || !this.latestFrame.getView().equals(view));
+    }
+
+    /**
+     * Asks for a diagram to be drawn in the background. Whatever diagram is
+     * being drawn for a previous request is abandoned, though the rows it had
+     * classified are kept in case the region is the same. Once the diagram is
+     * finished, or once enough of it is drawn to be worth showing, it becomes
+     * the latest frame and the component is repainted. If a complete diagram
+     * of the view is in the frame cache, it becomes the latest frame right
+     * away instead. Either way, the views to prefetch are drawn afterwards.
+     * @param view The view to draw a diagram of. If it's the same as the view
+     * of the previous request, this does nothing.
+     */
+    void request(final DiagramView view) {
+        if (view.equals(this.requestedView)) {
+            return;
+        }
+        this.requestedView = view;
+        final long requestGeneration = this.generation.incrementAndGet();
+        if (this.inFlight != null) {
+            this.inFlight.cancel(false);
+            this.inFlight = null;
+        }
+        Frame cached = this.frameCache.get(view);
+        if (cached != null) {
+            this.latestFrame = cached;
+        } else {
+            this.inFlight = this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    render(view, requestGeneration);
+                }
+            });
+        }
+        this.submitPrefetch(requestGeneration);
+    }
+
+    /**
+     * Sets the views to draw diagrams of whenever the renderer is idle, so
+     * that they're in the frame cache by the time they're requested. These
+     * replace whatever views were to be prefetched before. Views already in
+     * the cache are skipped.
+     * @param views The views, most likely to be requested first. For
+     * example, the current view but with the adjacent rings.
+     */
+    void prefetch(List<DiagramView> views) {
+        this.prefetchViews = Collections.unmodifiableList(new ArrayList<>(views));
+        this.submitPrefetch(this.generation.get());
+    }
+
+    /**
+     * Queues the drawing of the views to prefetch behind whatever the
+     * renderer thread is doing, to be abandoned if by then another diagram
+     * has been requested.
+     */
+    private void submitPrefetch(final long requestGeneration) {
+        this.executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                prefetchAll(requestGeneration);
+            }
+        });
+    }
+
+    /**
+     * Draws the views to prefetch into the frame cache on the renderer
+     * thread, stopping as soon as another diagram is requested. Views whose
+     * diagrams the cache has no room for are skipped, since they would only
+     * be thrown away once drawn.
+     */
+    private void prefetchAll(final long requestGeneration) {
+        BooleanSupplier cancelled = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return generation.get() != requestGeneration;
+            }
+        };
+        try {
+            for (DiagramView view : this.prefetchViews) {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                if (this.frameCache.canHold(frameByteCount(view.withMargin(OFF_SCREEN_MARGIN))) && !this.frameCache.contains(view)) {
+                    this.frameCache.put(this.drawCompleteFrame(view, cancelled));
+                }
+            }
+        } catch (CancellationException ce) {
+            // A diagram was requested, which takes precedence
+        } catch (RuntimeException re) {
+            log.error("Could not prefetch diagram", re);
+        }
+    }
+
+    /**
+     * Tells how many bytes the layers of a complete diagram of a view add up
+     * to, the same as {@link Frame#getByteCount()} gives once it's drawn.
+     */
+    private static long frameByteCount(DiagramView drawnView) {
+        int layers = drawnView.drawsGrids() ? 2 : 1;
+        return 4L * layers * (drawnView.getCanvasWidth() + 1) * (drawnView.getCanvasHeight() + 1);
+    }
+
+    /**
+     * Draws a complete diagram in one go, for prefetching. This doesn't touch
+     * the classification in progress or the grid layer kept for requested
+     * views, so that the next requested view can still pick up from them.
+     */
+    private Frame drawCompleteFrame(DiagramView view, BooleanSupplier cancelled) {
+        DiagramView drawnView = view.withMargin(OFF_SCREEN_MARGIN);
+        BufferedImage prefetchGridLayer = null;
+        if (drawnView.hasSameGridsAs(this.gridView)) {
+            prefetchGridLayer = this.gridLayer;
+        } else if (drawnView.drawsGrids()) {
+            prefetchGridLayer = new BufferedImage(drawnView.getCanvasWidth() + 1, drawnView.getCanvasHeight() + 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = prefetchGridLayer.createGraphics();
+            drawnView.drawGridLayer(graphics);
+            graphics.dispose();
+        }
+        RegionClassification region = null;
+        if (!drawnView.drawsDensity()) {
+            region = drawnView.startClassifying(null, this.completedRegionFor(drawnView)).finish(cancelled);
+            this.remember(region);
+            this.ensureRaster(drawnView);
+        }
+        BufferedImage pointLayer = new BufferedImage(drawnView.getCanvasWidth() + 1, drawnView.getCanvasHeight() + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = pointLayer.createGraphics();
+        drawnView.drawPointLayer(graphics, region, this.raster, cancelled);
+        graphics.dispose();
+        return new Frame(view, drawnView, prefetchGridLayer, pointLayer, true);
+    }
+
+    /**
+     * Gives the complete classification to start classifying the region of a
+     * view from. That's the one remembered for the ring, unless it doesn't
+     * cover the region and the whole region can be read from disk instead.
+     */
+    private RegionClassification completedRegionFor(DiagramView drawnView) {
+        RegionClassification completed = this.completedRegions.get(drawnView.getRing());
+        if (this.diskCache == null) {
+            return completed;
+        }
+        long[] bounds = drawnView.visibleRegion();
+        if (completed != null && bounds[0] >= completed.getMinX() && bounds[1] >= completed.getMinY() && bounds[0] + bounds[2] <= completed.getMinX() + completed.getWidth() && bounds[1] + bounds[3] <= completed.getMinY() + completed.getHeight()) {
+            return completed;
+        }
+        if (bounds[2] > Integer.MAX_VALUE || bounds[3] > Integer.MAX_VALUE) {
+            return completed;
+        }
+        RegionClassification loaded = this.diskCache.load(drawnView.getRing(), bounds[0], bounds[1], (int) bounds[2], (int) bounds[3]);
+        if (loaded == null) {
+            return completed;
+        }
+        this.completedRegions.put(loaded);
+        return loaded;
+    }
+
+    /**
+     * Remembers a complete classification in memory and, if there's a disk
+     * cache, on disk.
+     */
+    private void remember(RegionClassification region) {
+        this.completedRegions.put(region);
+        if (this.diskCache != null) {
+            this.diskCache.save(region);
+        }
+    }
+
+    private void ensureRaster(DiagramView drawnView) {
+        if (this.raster == null || this.raster.getWidth() != drawnView.getCanvasWidth() + 1 || this.raster.getHeight() != drawnView.getCanvasHeight() + 1) {
+            this.raster = new DotRaster(drawnView.getCanvasWidth() + 1, drawnView.getCanvasHeight() + 1);
+        }
+    }
+
+    /**
+     * Asks for a diagram to be drawn in the background, unless the latest
+     * frame or the diagram being drawn can be shifted to cover the view with
+     * at least half the off-screen margin to spare. This is what the
+     * component calls whenever it's painted, so that while the user drags the
+     * diagram, a new diagram is only asked for every so often, and never
+     * abandoned just because the user has dragged a little further.
+     * @param view The view to cover.
+     */
+    void requestCovering(DiagramView view) {
+        int enough = OFF_SCREEN_MARGIN / 2;
+        if (this.latestFrame != null && this.latestFrame.isComplete() && view.coverageMargin(this.latestFrame.getDrawnView()) >= enough) {
+            return;
+        }
+        if (this.requestedView != null && view.coverageMargin(this.requestedView.withMargin(OFF_SCREEN_MARGIN)) >= enough) {
+            return;
+        }
+        this.request(view);
+    }
+
+    /**
+     * Draws a diagram on the renderer thread, unless a newer one has been
+     * requested by the time it would start.
+     */
+    private void render(DiagramView view, final long requestGeneration) {
+        BooleanSupplier cancelled = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return generation.get() != requestGeneration;
+            }
+        };
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            DiagramView drawnView = view.withMargin(OFF_SCREEN_MARGIN);
+            if (!drawnView.hasSameGridsAs(this.gridView)) {
+                this.gridLayer = null;
+                if (drawnView.drawsGrids()) {
+                    this.gridLayer = new BufferedImage(drawnView.getCanvasWidth() + 1, drawnView.getCanvasHeight() + 1, BufferedImage.TYPE_INT_ARGB);
+                    Graphics2D graphics = this.gridLayer.createGraphics();
+                    drawnView.drawGridLayer(graphics);
+                    graphics.dispose();
+                }
+                this.gridView = drawnView;
+            }
+            if (this.lastCompleteFrame != null && drawnView.hasSamePointsAs(this.lastCompleteFrame.getDrawnView())) {
+                this.publish(new Frame(view, drawnView, this.gridLayer, this.lastCompleteFrame.pointLayer, true), requestGeneration);
+                return;
+            }
+            if (drawnView.drawsDensity()) {
+                this.publish(view, drawnView, null, requestGeneration, true, cancelled);
+                return;
+            }
+            this.progress = drawnView.startClassifying(this.progress, this.completedRegionFor(drawnView));
+            this.ensureRaster(drawnView);
+            while (!this.progress.isComplete()) {
+                this.progress.refine(cancelled);
+                if (!this.progress.isComplete()) {
+                    double fractionDone = this.progress.getFractionDone();
+                    long millisecondsLeft = (long) ((System.nanoTime() - start) / 1000000.0 * (1.0 - fractionDone) / fractionDone);
+                    if (millisecondsLeft >= MINIMUM_MILLISECONDS_LEFT_TO_DRAW_PASS) {
+                        this.publish(view, drawnView, this.progress.getRegion(), requestGeneration, false, cancelled);
+                    }
+                }
+            }
+            this.remember(this.progress.getRegion());
+            this.publish(view, drawnView, this.progress.getRegion(), requestGeneration, true, cancelled);
+        } catch (CancellationException ce) {
+            // A newer diagram was requested, so this one is not needed
+        } catch (RuntimeException re) {
+            log.error("Could not draw diagram of {}", view.getRing().toASCIIString(), re);
+        }
+    }
+
+    /**
+     * Draws the points classified so far into a new point layer, and makes it
+     * the latest frame along with the current grid layer. The region is null
+     * for density maps, which classify the points as they're drawn.
+     */
+    private void publish(DiagramView view, DiagramView drawnView, RegionClassification region, final long requestGeneration, boolean complete, BooleanSupplier cancelled) {
+        BufferedImage pointLayer = new BufferedImage(drawnView.getCanvasWidth() + 1, drawnView.getCanvasHeight() + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = pointLayer.createGraphics();
+        drawnView.drawPointLayer(graphics, region, this.raster, cancelled);
+        graphics.dispose();
+        this.publish(new Frame(view, drawnView, this.gridLayer, pointLayer, complete), requestGeneration);
+    }
+
+    /**
+     * Makes a frame the latest frame on the event dispatch thread, unless by
+     * then a newer diagram has been requested.
+     */
+    private void publish(final Frame frame, final long requestGeneration) {
+        if (frame.isComplete()) {
+            this.lastCompleteFrame = frame;
+            this.frameCache.put(frame);
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (generation.get() == requestGeneration) {
+                    latestFrame = frame;
+                    component.repaint();
+                }
+            }
+        });
+    }
+
+    /**
+     * Draws a diagram on the renderer thread for saving or copying, and hands
+     * it over on the event dispatch thread, so that the user interface stays
+     * responsive however long the diagram takes. The drawing is queued behind
+     * whatever the renderer thread is doing, so if the view is the one last
+     * requested, its diagram is most likely complete by the time this gets
+     * its turn, and its layers are just composited onto the background.
+     * @param view The view to draw a diagram of.
+     * @param background The color to fill the background with.
+     * @param whenDone What to do with the image of the diagram, the size of
+     * the canvas with an opaque background. This is called on the event
+     * dispatch thread, and it's given null if the diagram could not be drawn,
+     * in which case the reason has been logged.
+     */
+    void renderLater(final DiagramView view, final Color background, final Consumer<BufferedImage> whenDone) {
+        final Frame shown = this.latestFrame;
+        this.executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                Frame cached = frameCache.get(view);
+                BufferedImage diagram = null;
+                try {
+                    diagram = renderNow(view, background, cached != null ? cached : shown);
+                } catch (RuntimeException re) {
+                    log.error("Could not draw diagram for saving or copying", re);
+                }
+                final BufferedImage result = diagram;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        whenDone.accept(result);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Draws a diagram right away, on the calling thread. This can take
+     * minutes for a density map far out, so the user interface should use
+     * {@link #renderLater(DiagramView, Color, Consumer)} instead. If the
+     * latest frame is a complete diagram that can be shifted to cover the
+     * canvas of the view, its layers are composited onto the background
+     * rather than drawing the diagram all over again.
+     * @param view The view to draw a diagram of.
+     * @param background The color to fill the background with.
+     * @return An image of the diagram the size of the canvas, with an opaque
+     * background.
+     */
+    BufferedImage renderNow(DiagramView view, Color background) {
+        return renderNow(view, background, this.latestFrame);
+    }
+
+    /**
+     * Draws a diagram, reusing the layers of a frame if it's a complete
+     * diagram that can be shifted to cover the canvas of the view.
+     */
+    private static BufferedImage renderNow(DiagramView view, Color background, Frame frame) {
+        BufferedImage diagram = new BufferedImage(view.getCanvasWidth(), view.getCanvasHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = diagram.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, view.getCanvasWidth(), view.getCanvasHeight());
+        if (frame != null && frame.isComplete() && view.coverageMargin(frame.getDrawnView()) >= 0) {
+            frame.paint(graphics, view.placementOf(frame.getDrawnView()));
+        } else if (view.drawsDensity()) {
+            view.draw(graphics, null, null, null);
+        } else {
+            RegionClassification visible = view.startClassifying(null, null).finish(null);
+            view.draw(graphics, visible, new DotRaster(view.getCanvasWidth() + 1, view.getCanvasHeight() + 1), null);
+        }
+        graphics.dispose();
+        return diagram;
+    }
+
+    /**
+     * Sets up a renderer for a component, with a frame cache of {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#DEFAULT_FRAME_CACHE_BUDGET}
+     * bytes and no disk cache.
+     * @param component The component to repaint whenever a diagram is
+     * finished.
+     */
+    DiagramRenderer(Component component) {
+        this(component, DEFAULT_FRAME_CACHE_BUDGET, null);
+    }
+
+    /**
+     * Sets up a renderer for a component, without a disk cache.
+     * @param component The component to repaint whenever a diagram is
+     * finished.
+     * @param frameCacheBudget How many bytes the complete diagrams kept for
+     * going back to may take up. For example, 128 megabytes. May be 0 to keep
+     * none.
+     */
+    DiagramRenderer(Component component, long frameCacheBudget) {
+        this(component, frameCacheBudget, null);
+    }
+
+    /**
+     * Sets up a renderer for a component. The renderer has a thread of its
+     * own, which doesn't keep the program from exiting.
+     * @param component The component to repaint whenever a diagram is
+     * finished.
+     * @param frameCacheBudget How many bytes the complete diagrams kept for
+     * going back to may take up. For example, 128 megabytes. May be 0 to keep
+     * none.
+     * @param diskCache Where to keep classifications between runs of the
+     * program. May be null to keep them only in memory.
+     */
+    DiagramRenderer(Component component, long frameCacheBudget, ClassificationDiskCache diskCache) {
+        this.component = component;
+        this.frameCache = new FrameCache(frameCacheBudget);
+        this.diskCache = diskCache;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Ring diagram renderer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,996 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Display.*;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything that determines what a ring diagram looks like: the ring, the
+ * zoom level, the canvas size, where 0 is, the dot radius and the colors. A
+ * view never changes once constructed, so {@link RingWindowDisplay} can hand
+ * the current view to a background thread to draw while the user goes on
+ * zooming or switching rings, and two views can be compared to tell whether a
+ * diagram already drawn is still current.
+ * <p>Zoomed out past {@link
+ * com.alonsodelarte.quadraticRings.constants.Display#MINIMUM_PIXELS_PER_UNIT_INTERVAL},
+ * a view has one or more unit intervals per pixel, and rather than drawing
+ * dots on top of each other, each pixel shows how many of the lattice points
+ * it spans are prime: the more primes, the more opaque, and the color is the
+ * mix of the colors of the kinds of primes found.</p>
+ * @author Alonso del Arte
+ */
+final class DiagramView {
+
+    /**
+     * Bands of the canvas taller than this many pixels are split in two for
+     * their dots to be drawn in parallel.
+     */
+    private static final int PARALLEL_BAND_PIXEL_ROWS = 32;
+
+    /**
+     * When a density map is drawn, the lattice points spanned by a band of
+     * pixel rows are classified a chunk of about this many points at a time,
+     * so that zoomed way out, only a chunk per thread is ever held in memory.
+     */
+    private static final int DENSITY_CHUNK_POINTS = 1 << 20;
+
+    /**
+     * How many counts are kept for each pixel of a density map: points in
+     * the ring, inert primes, split primes and ramified primes.
+     */
+    private static final int DENSITY_COUNT_KINDS = 4;
+
+    private final ImaginaryQuadraticRing diagramRing;
+
+    private final int pixelsPerUnitInterval, pixelsPerBasicImaginaryInterval;
+
+    private final int unitIntervalsPerPixel;
+
+    private final int ringCanvasHorizMax, ringCanvasVerticMax;
+
+    private final int zeroCoordX, zeroCoordY;
+
+    private final long viewCenterRe, viewCenterIm;
+
+    private final int dotRadius;
+
+    private final Color halfIntegerGridColor, integerGridColor;
+
+    private final Color zeroColor, unitColor, inertPrimeColor, splitPrimeColor, ramifiedPrimeColor;
+
+    ImaginaryQuadraticRing getRing() {
+        return this.diagramRing;
+    }
+
+    int getPixelsPerUnitInterval() {
+        return this.pixelsPerUnitInterval;
+    }
+
+    /**
+     * Tells how many unit intervals each pixel spans, if the diagram is a
+     * density map.
+     * @return How many unit intervals across each pixel is, or 0 if the
+     * diagram is drawn with dots.
+     */
+    int getUnitIntervalsPerPixel() {
+        return this.unitIntervalsPerPixel;
+    }
+
+    /**
+     * Tells whether the diagram is zoomed out so far that it's drawn as a
+     * density map rather than with dots.
+     * @return True if each pixel spans one or more unit intervals, false
+     * otherwise.
+     */
+    boolean drawsDensity() {
+        return this.unitIntervalsPerPixel > 0;
+    }
+
+    /**
+     * Estimates how many bytes drawing this view as a density map allocates
+     * once for the whole canvas: the counts of each kind of point for each
+     * pixel, and the map the counts are turned into.
+     * @return The number of bytes. For example, a little over 18 megabytes
+     * for 1280 by 720.
+     */
+    long densityMapBytes() {
+        long pixels = (long) (this.ringCanvasHorizMax + 1) * (this.ringCanvasVerticMax + 1);
+        return (DENSITY_COUNT_KINDS + 1) * Integer.BYTES * pixels;
+    }
+
+    /**
+     * Estimates how many bytes each thread counting lattice points for a
+     * density map of this view holds at most: a chunk of classified points,
+     * one byte each, and the norms of a row of the chunk, two words each. The
+     * chunk is sized as if the canvas didn't straddle the imaginary axis,
+     * which it's never bigger than.
+     * @return The number of bytes. For example, about 1.7 megabytes for
+     * <b>Z</b>[<i>i</i>] at 1280 by 720 and 32 unit intervals per pixel.
+     */
+    long densityChunkBytes() {
+        int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+        long columns = (long) (this.ringCanvasHorizMax + 1) * unitsPerInterval * this.unitIntervalsPerPixel;
+        long rows = Math.max(1, DENSITY_CHUNK_POINTS / columns);
+        return rows * columns + 2 * Long.BYTES * columns;
+    }
+
+    /**
+     * Gives how many pixels apart 0 and 1 are, which is a fraction of a pixel
+     * for density maps.
+     */
+    private double horizPixelsPerUnitInterval() {
+        if (this.unitIntervalsPerPixel > 0) {
+            return 1.0 / this.unitIntervalsPerPixel;
+        }
+        return this.pixelsPerUnitInterval;
+    }
+
+    /**
+     * Gives how many pixels apart vertically neighboring lattice points are,
+     * which is a fraction of a pixel for density maps.
+     */
+    private double verticPixelsPerBasicImaginaryInterval() {
+        if (this.unitIntervalsPerPixel > 0) {
+            int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+            return this.diagramRing.getAbsNegRadSqrt() / (unitsPerInterval * this.unitIntervalsPerPixel);
+        }
+        return this.pixelsPerBasicImaginaryInterval;
+    }
+
+    int getCanvasWidth() {
+        return this.ringCanvasHorizMax;
+    }
+
+    int getCanvasHeight() {
+        return this.ringCanvasVerticMax;
+    }
+
+    /**
+     * Draws the grids. Should only be called if the points are spaced far apart
+     * enough for the grids to be visible. The lines are drawn all the way
+     * across the canvas even if 0 is off to one side of it, or off the canvas
+     * altogether, as it can be once the user drags the diagram around.
+     * @param graphicsForGrids The Graphics object supplied by the caller.
+     */
+    private void drawGrids(Graphics graphicsForGrids) {
+        int verticalGridDistance = this.pixelsPerBasicImaginaryInterval;
+        int currPixelPos;
+        if (this.diagramRing.d1mod4) {
+            // Draw horizontal lines of half integer grid
+            graphicsForGrids.setColor(this.halfIntegerGridColor);
+            verticalGridDistance *= 2;
+            currPixelPos = firstGridLine(this.zeroCoordY + this.pixelsPerBasicImaginaryInterval, verticalGridDistance);
+            while (currPixelPos < this.ringCanvasVerticMax) {
+                graphicsForGrids.drawLine(0, currPixelPos, this.ringCanvasHorizMax, currPixelPos);
+                currPixelPos += verticalGridDistance;
+            }
+            // Draw vertical lines of half integer grid
+            int halfHorizontalGridDistance = this.pixelsPerUnitInterval;
+            if (halfHorizontalGridDistance % 2 == 1) {
+                halfHorizontalGridDistance--;
+            }
+            halfHorizontalGridDistance /= 2;
+            currPixelPos = firstGridLine(this.zeroCoordX + halfHorizontalGridDistance, this.pixelsPerUnitInterval);
+            while (currPixelPos < this.ringCanvasHorizMax) {
+                graphicsForGrids.drawLine(currPixelPos, 0, currPixelPos, this.ringCanvasVerticMax);
+                currPixelPos += this.pixelsPerUnitInterval;
+            }
+        }
+        // Draw horizontal lines of integer grid
+        graphicsForGrids.setColor(this.integerGridColor);
+        currPixelPos = firstGridLine(this.zeroCoordY, verticalGridDistance);
+        while (currPixelPos < this.ringCanvasVerticMax) {
+            graphicsForGrids.drawLine(0, currPixelPos, this.ringCanvasHorizMax, currPixelPos);
+            currPixelPos += verticalGridDistance;
+        }
+        // Draw vertical lines of integer grid
+        currPixelPos = firstGridLine(this.zeroCoordX, this.pixelsPerUnitInterval);
+        while (currPixelPos < this.ringCanvasHorizMax) {
+            graphicsForGrids.drawLine(currPixelPos, 0, currPixelPos, this.ringCanvasVerticMax);
+            currPixelPos += this.pixelsPerUnitInterval;
+        }
+    }
+
+    /**
+     * Finds the first position on the canvas of a family of evenly spaced grid
+     * lines.
+     * @param linePos The position of any one line of the family, which may be
+     * off the canvas.
+     * @param spacing How many pixels apart the lines are.
+     * @return The least nonnegative position of a line of the family.
+     */
+    private static int firstGridLine(int linePos, int spacing) {
+        return Math.floorMod(linePos, spacing);
+    }
+
+    /**
+     * Gives the horizontal pixel position of a lattice point. For rings with
+     * "half-integers," the x coordinate is in half units, and the odd ones go
+     * on the "half-integer" grid lines, the same as drawGrids() draws them.
+     * @param x The x coordinate, as in {@link RegionClassification}.
+     * @return The horizontal pixel position, which may be outside the canvas.
+     */
+    int pixelX(long x) {
+        if (this.diagramRing.d1mod4) {
+            x -= 2 * this.viewCenterRe;
+            int halfUnitInterval = this.pixelsPerUnitInterval / 2;
+            long pos = this.zeroCoordX + Math.floorDiv(x, 2) * this.pixelsPerUnitInterval;
+            if ((x & 1) != 0) {
+                pos += halfUnitInterval;
+            }
+            return (int) pos;
+        }
+        return (int) (this.zeroCoordX + (x - this.viewCenterRe) * this.pixelsPerUnitInterval);
+    }
+
+    /**
+     * Gives the vertical pixel position of a lattice point. Positive y
+     * coordinates go up from 0, the same way mouseMoved() reads them.
+     * @param y The y coordinate, as in {@link RegionClassification}.
+     * @return The vertical pixel position, which may be outside the canvas.
+     */
+    int pixelY(long y) {
+        if (this.diagramRing.d1mod4) {
+            y -= 2 * this.viewCenterIm;
+        } else {
+            y -= this.viewCenterIm;
+        }
+        return (int) (this.zeroCoordY - y * this.pixelsPerBasicImaginaryInterval);
+    }
+
+    /**
+     * Sets up the classification of all the lattice points that fit on the
+     * canvas, unless a previous classification is already of exactly the same
+     * points, in which case whatever rows it has classified are kept.
+     * Otherwise, if a complete classification overlaps the visible region
+     * enough, as it does after the user drags the diagram, the new
+     * classification starts from the overlap. Which
+     * lattice points are visible depends only on the ring, the pixels per unit
+     * interval, the canvas size, the zero coordinates and the view center, so
+     * as long as none of those change, a change of colors or dot radius
+     * requires no primality tests.
+     * @param previous The classification from the last time, if any. May be
+     * null.
+     * @param completed The last classification that was completed, which
+     * may or may not be the same as the previous one. May be null.
+     * @return The classification of the visible region, which may still need
+     * some or all of its passes to be done.
+     */
+    RegionClassification.Progressive startClassifying(RegionClassification.Progressive previous, RegionClassification completed) {
+        long[] bounds = this.visibleRegion();
+        int width = (int) bounds[2];
+        int height = (int) bounds[3];
+        if (previous != null && previous.covers(this.diagramRing, bounds[0], bounds[1], width, height)) {
+            return previous;
+        }
+        return new RegionClassification.Progressive(this.diagramRing, bounds[0], bounds[1], width, height, completed);
+    }
+
+    /**
+     * Works out which lattice points fit on the canvas.
+     * @return The least x coordinate, the least y coordinate, the width and
+     * the height of the region of lattice points, in that order, in the
+     * coordinates of {@link RegionClassification}.
+     */
+    long[] visibleRegion() {
+        int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+        long minX = Math.floorDiv((long) -this.zeroCoordX * unitsPerInterval, this.pixelsPerUnitInterval);
+        long maxX = Math.floorDiv((long) (this.ringCanvasHorizMax - this.zeroCoordX) * unitsPerInterval, this.pixelsPerUnitInterval);
+        long minY = -Math.floorDiv(this.ringCanvasVerticMax - this.zeroCoordY, this.pixelsPerBasicImaginaryInterval);
+        long maxY = Math.floorDiv(this.zeroCoordY, this.pixelsPerBasicImaginaryInterval);
+        long centerX = unitsPerInterval * this.viewCenterRe;
+        long centerY = unitsPerInterval * this.viewCenterIm;
+        long[] bounds = {centerX + minX, centerY + minY, maxX - minX + 1, maxY - minY + 1};
+        return bounds;
+    }
+
+    /**
+     * Gives a view of the same diagram with a margin all around the canvas, so
+     * that the diagram can be shifted by up to that many pixels in any
+     * direction and still fill the canvas.
+     * @param margin How many pixels to add on each side. For example, 128.
+     * @return A view with a canvas 2 &times; margin pixels wider and taller,
+     * and 0 moved margin pixels right and down.
+     */
+    DiagramView withMargin(int margin) {
+        Color[] gridColors = {this.halfIntegerGridColor, this.integerGridColor};
+        Color[] pointColors = {this.zeroColor, this.unitColor, this.inertPrimeColor, this.splitPrimeColor, this.ramifiedPrimeColor};
+        return new DiagramView(this.diagramRing, this.pixelsPerUnitInterval, this.pixelsPerBasicImaginaryInterval, this.unitIntervalsPerPixel, this.ringCanvasHorizMax + 2 * margin, this.ringCanvasVerticMax + 2 * margin, this.zeroCoordX + margin, this.zeroCoordY + margin, this.viewCenterRe, this.viewCenterIm, this.dotRadius, gridColors, pointColors);
+    }
+
+    /**
+     * Tells how well a diagram drawn for another view covers the canvas of
+     * this view, if it can be shifted to look just like the diagram of this
+     * view. That's the case when the two views differ only in the canvas size,
+     * where 0 is and the view center, and the shift is a whole number of
+     * pixels, which it always is for diagrams drawn with dots. A density map
+     * can only be shifted if the view center is the same.
+     * @param drawn The view the diagram was drawn for.
+     * @return How many pixels past the nearest edge of the canvas the shifted
+     * diagram reaches. This is negative if the shifted diagram leaves part of
+     * the canvas uncovered, and {@link Integer#MIN_VALUE} if the diagram
+     * would have to be stretched or recolored rather than just shifted.
+     */
+    int coverageMargin(DiagramView drawn) {
+        if (!this.diagramRing.equals(drawn.diagramRing)
+                || this.pixelsPerUnitInterval != drawn.pixelsPerUnitInterval
+                || this.pixelsPerBasicImaginaryInterval != drawn.pixelsPerBasicImaginaryInterval
+                || this.unitIntervalsPerPixel != drawn.unitIntervalsPerPixel
+                || this.dotRadius != drawn.dotRadius
+                || !this.halfIntegerGridColor.equals(drawn.halfIntegerGridColor)
+                || !this.integerGridColor.equals(drawn.integerGridColor)
+                || !this.zeroColor.equals(drawn.zeroColor)
+                || !this.unitColor.equals(drawn.unitColor)
+                || !this.inertPrimeColor.equals(drawn.inertPrimeColor)
+                || !this.splitPrimeColor.equals(drawn.splitPrimeColor)
+                || !this.ramifiedPrimeColor.equals(drawn.ramifiedPrimeColor)) {
+            return Integer.MIN_VALUE;
+        }
+        long centerShiftRe = drawn.viewCenterRe - this.viewCenterRe;
+        long centerShiftIm = drawn.viewCenterIm - this.viewCenterIm;
+        if (Math.abs(centerShiftRe) > Integer.MAX_VALUE || Math.abs(centerShiftIm) > Integer.MAX_VALUE || (this.unitIntervalsPerPixel > 0 && (centerShiftRe != 0 || centerShiftIm != 0))) {
+            return Integer.MIN_VALUE + 1;
+        }
+        int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+        long shiftX = this.zeroCoordX - drawn.zeroCoordX + centerShiftRe * this.pixelsPerUnitInterval;
+        long shiftY = this.zeroCoordY - drawn.zeroCoordY - centerShiftIm * unitsPerInterval * this.pixelsPerBasicImaginaryInterval;
+        long margin = Math.min(Math.min(-shiftX, shiftX + drawn.ringCanvasHorizMax - this.ringCanvasHorizMax), Math.min(-shiftY, shiftY + drawn.ringCanvasVerticMax - this.ringCanvasVerticMax));
+        return (int) Math.max(margin, Integer.MIN_VALUE + 1);
+    }
+
+    /**
+     * Works out where a diagram drawn for an earlier view would go on the
+     * canvas of this view, so that it can be shown, stretched and shifted,
+     * while the diagram for this view is being drawn. The lattice points of
+     * the earlier diagram land where this view has them, give or take a
+     * pixel, but the dots and the grid lines are stretched along with
+     * everything else.
+     * @param earlier The view the diagram was drawn for.
+     * @return The transform from the pixels of the earlier diagram to the
+     * pixels of this view's canvas, or null if the earlier view is of a
+     * different ring.
+     */
+    AffineTransform placementOf(DiagramView earlier) {
+        if (!this.diagramRing.equals(earlier.diagramRing)) {
+            return null;
+        }
+        int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+        double horizPixels = this.horizPixelsPerUnitInterval();
+        double verticPixels = this.verticPixelsPerBasicImaginaryInterval();
+        double scaleX = horizPixels / earlier.horizPixelsPerUnitInterval();
+        double scaleY = verticPixels / earlier.verticPixelsPerBasicImaginaryInterval();
+        double shiftX = this.zeroCoordX - scaleX * earlier.zeroCoordX + (double) (earlier.viewCenterRe - this.viewCenterRe) * horizPixels;
+        double shiftY = this.zeroCoordY - scaleY * earlier.zeroCoordY - (double) (earlier.viewCenterIm - this.viewCenterIm) * unitsPerInterval * verticPixels;
+        return new AffineTransform(scaleX, 0.0, 0.0, scaleY, shiftX, shiftY);
+    }
+
+    /**
+     * Draws the diagram: the grids, if the points are far enough apart for
+     * them to be visible, and then the points, or the density map if the
+     * diagram is zoomed out that far. The background is not drawn.
+     * @param graphics The Graphics object to draw with.
+     * @param region The classification of the visible region, as set up by
+     * {@link #startClassifying(RegionClassification.Progressive,
+     * RegionClassification)}. If it's
+     * not complete yet, only the points classified so far are drawn. Not
+     * used for density maps, which classify the points they span as they go,
+     * so it may then be null.
+     * @param raster An image to draw small dots into, which may have been
+     * used for a previous diagram. May be null, but it must not be null if
+     * the dots are small and the drawing is to be fast.
+     * @param cancelled Tells whether to give up. May be null.
+     * @throws CancellationException If cancelled says to give up before the
+     * drawing is done.
+     */
+    void draw(Graphics graphics, RegionClassification region, DotRaster raster, BooleanSupplier cancelled) {
+        this.drawGridLayer(graphics);
+        this.drawPointLayer(graphics, region, raster, cancelled);
+    }
+
+    /**
+     * Tells whether the points are far enough apart for the grids to be
+     * drawn.
+     * @return True if the diagram is drawn with dots and the pixels per unit
+     * interval are more than {@link
+     * com.alonsodelarte.quadraticRings.constants.Display#MINIMUM_PIXELS_PER_UNIT_INTERVAL_TO_DRAW_GRIDS},
+     * false otherwise.
+     */
+    boolean drawsGrids() {
+        return this.unitIntervalsPerPixel == 0 && this.pixelsPerUnitInterval > MINIMUM_PIXELS_PER_UNIT_INTERVAL_TO_DRAW_GRIDS;
+    }
+
+    /**
+     * Draws the grids, if the points are far enough apart for them to be
+     * visible, and nothing else. This is the bottom layer of the diagram.
+     * @param graphics The Graphics object to draw with.
+     */
+    void drawGridLayer(Graphics graphics) {
+        if (this.drawsGrids()) {
+            this.drawGrids(graphics);
+        }
+    }
+
+    /**
+     * Draws the points, or the density map, and nothing else. This is the
+     * layer that goes on top of the grids. The parameters are the same as for
+     * {@link #draw(Graphics, RegionClassification, DotRaster,
+     * BooleanSupplier)}.
+     * @param graphics The Graphics object to draw with.
+     * @param region The classification of the visible region. May be null
+     * for density maps.
+     * @param raster An image to draw small dots into. May be null.
+     * @param cancelled Tells whether to give up. May be null.
+     * @throws CancellationException If cancelled says to give up before the
+     * drawing is done.
+     */
+    void drawPointLayer(Graphics graphics, RegionClassification region, DotRaster raster, BooleanSupplier cancelled) {
+        if (this.unitIntervalsPerPixel > 0) {
+            this.drawDensity(graphics, cancelled);
+        } else {
+            this.drawPoints(graphics, region, raster, cancelled);
+        }
+    }
+
+    /**
+     * Tells whether the grid layer of another view looks just like the grid
+     * layer of this view. The grids don't depend on the point colors, the dot
+     * radius or the view center, and moving 0 by a whole number of grid
+     * spacings doesn't change them either, so the grid layer can be kept
+     * while the user drags the diagram or changes the dot radius.
+     * @param other The view to compare to. May be null.
+     * @return True if the grid layers look the same, false otherwise.
+     */
+    boolean hasSameGridsAs(DiagramView other) {
+        if (other == null) {
+            return false;
+        }
+        if (!this.drawsGrids() || !other.drawsGrids()) {
+            return !this.drawsGrids() && !other.drawsGrids() && this.ringCanvasHorizMax == other.ringCanvasHorizMax && this.ringCanvasVerticMax == other.ringCanvasVerticMax;
+        }
+        int verticalGridDistance = this.diagramRing.d1mod4 ? 2 * this.pixelsPerBasicImaginaryInterval : this.pixelsPerBasicImaginaryInterval;
+        return this.diagramRing.d1mod4 == other.diagramRing.d1mod4
+                && this.pixelsPerUnitInterval == other.pixelsPerUnitInterval
+                && this.pixelsPerBasicImaginaryInterval == other.pixelsPerBasicImaginaryInterval
+                && this.ringCanvasHorizMax == other.ringCanvasHorizMax
+                && this.ringCanvasVerticMax == other.ringCanvasVerticMax
+                && Math.floorMod(this.zeroCoordX - other.zeroCoordX, this.pixelsPerUnitInterval) == 0
+                && Math.floorMod(this.zeroCoordY - other.zeroCoordY, verticalGridDistance) == 0
+                && this.halfIntegerGridColor.equals(other.halfIntegerGridColor)
+                && this.integerGridColor.equals(other.integerGridColor);
+    }
+
+    /**
+     * Tells whether the point layer of another view looks just like the point
+     * layer of this view. That's the case when the views are the same, or
+     * differ only in the grid colors.
+     * @param other The view to compare to. May be null.
+     * @return True if the point layers look the same, false otherwise.
+     */
+    boolean hasSamePointsAs(DiagramView other) {
+        if (other == null) {
+            return false;
+        }
+        return this.diagramRing.equals(other.diagramRing)
+                && this.pixelsPerUnitInterval == other.pixelsPerUnitInterval
+                && this.pixelsPerBasicImaginaryInterval == other.pixelsPerBasicImaginaryInterval
+                && this.unitIntervalsPerPixel == other.unitIntervalsPerPixel
+                && this.ringCanvasHorizMax == other.ringCanvasHorizMax
+                && this.ringCanvasVerticMax == other.ringCanvasVerticMax
+                && this.zeroCoordX == other.zeroCoordX
+                && this.zeroCoordY == other.zeroCoordY
+                && this.viewCenterRe == other.viewCenterRe
+                && this.viewCenterIm == other.viewCenterIm
+                && this.dotRadius == other.dotRadius
+                && this.zeroColor.equals(other.zeroColor)
+                && this.unitColor.equals(other.unitColor)
+                && this.inertPrimeColor.equals(other.inertPrimeColor)
+                && this.splitPrimeColor.equals(other.splitPrimeColor)
+                && this.ramifiedPrimeColor.equals(other.ramifiedPrimeColor);
+    }
+
+    /**
+     * Tells whether the dots of this view are small and many enough to be
+     * drawn into a {@link DotRaster} rather than one by one with Java2D.
+     * @return True if the pixels per unit interval and the dot radius are
+     * both small.
+     */
+    boolean usesDotRaster() {
+        return this.pixelsPerUnitInterval <= MAXIMUM_PIXELS_PER_UNIT_INTERVAL_TO_RASTERIZE && this.dotRadius <= MAXIMUM_DOT_RADIUS_TO_RASTERIZE;
+    }
+
+    /**
+     * Draws the points. In the original implementation, this tested the
+     * primality of the norms of the imaginary quadratic integers with nonzero
+     * imaginary parts. However, that was not quite correct in that it skipped
+     * over primes that are real integer multiples of &omega; in
+     * <b>Z</b>[&omega;]. So I changed it to do primality test on the imaginary
+     * quadratic integers themselves, but that caused a slight delay for the
+     * <b>Z</b>[&omega;] diagram at 2 pixels per unit interval. Then the
+     * program went back to doing primality testing on the norms of the numbers
+     * rather than the numbers themselves, with a special pass for the
+     * aforementioned primes. Now the whole visible region is classified at
+     * once by {@link RegionClassification}, which sieves the primes up to the
+     * largest norm in view, and this function just draws the classifications.
+     * <p>At low zoom levels, with small dots, the dots are written directly
+     * into the pixels of an image (see {@link DotRaster}), which is then drawn
+     * all at once. Otherwise each dot is drawn with fillOval() or drawOval().
+     * Either way the dots look the same.</p>
+     * @param graphicsForPoints The Graphics object supplied by the caller.
+     */
+    private void drawPoints(Graphics graphicsForPoints, RegionClassification region, DotRaster raster, BooleanSupplier cancelled) {
+
+        Color[] codeColors = new Color[RegionClassification.CODE_COUNT];
+        boolean[] codeFilled = new boolean[RegionClassification.CODE_COUNT];
+        int[] codeOffsets = new int[RegionClassification.CODE_COUNT];
+        this.styleCodes(codeColors, codeFilled, codeOffsets);
+
+        if (raster != null && this.usesDotRaster()) {
+            raster.clear();
+            raster.prepareSprites(this.dotRadius);
+            int[] codeARGBs = new int[RegionClassification.CODE_COUNT];
+            for (int code = 0; code < RegionClassification.CODE_COUNT; code++) {
+                if (codeColors[code] != null) {
+                    codeARGBs[code] = codeColors[code].getRGB();
+                }
+            }
+            int[] columnPixels = new int[region.getWidth()];
+            for (int column = 0; column < columnPixels.length; column++) {
+                columnPixels[column] = this.pixelX(region.getMinX() + column);
+            }
+            ForkJoinPool.commonPool().invoke(new PointBand(region, raster, columnPixels, codeARGBs, codeFilled, codeOffsets, cancelled, 0, raster.getHeight()));
+            graphicsForPoints.drawImage(raster.getImage(), 0, 0, null);
+            return;
+        }
+
+        int dotDiameter = 2 * this.dotRadius;
+        int currPointX, currPointY;
+        Color currColor, prevColor = null;
+        byte code;
+        int offset;
+
+        for (int row = 0; row < region.getHeight(); row++) {
+            if (cancelled != null && cancelled.getAsBoolean()) {
+                throw new CancellationException("Diagram no longer needed.");
+            }
+            currPointY = this.pixelY(region.getMinY() + row);
+            for (int column = 0; column < region.getWidth(); column++) {
+                code = region.getCode(column, row);
+                currColor = codeColors[code];
+                if (currColor == null) {
+                    continue;
+                }
+                if (currColor != prevColor) {
+                    graphicsForPoints.setColor(currColor);
+                    prevColor = currColor;
+                }
+                currPointX = this.pixelX(region.getMinX() + column);
+                offset = codeOffsets[code];
+                if (codeFilled[code]) {
+                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
+                } else {
+                    graphicsForPoints.drawOval(currPointX - this.dotRadius + offset, currPointY - this.dotRadius + offset, dotDiameter, dotDiameter);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Decides how to draw the points of each classification. Zero, units and
+     * prime numbers are drawn. Inert primes, and primes with prime norms, are
+     * drawn as filled dots. Purely real primes that split or ramify are drawn
+     * as filled dots if they are the norms of numbers in the ring, and as
+     * outlines otherwise, with the split ones nudged by a pixel.
+     * @param codeColors The array in which to put the color for each
+     * classification code, or null for the codes that aren't drawn.
+     * @param codeFilled The array in which to put whether each code is drawn
+     * as a filled dot.
+     * @param codeOffsets The array in which to put how many pixels right and
+     * down to nudge the dots of each code.
+     */
+    private void styleCodes(Color[] codeColors, boolean[] codeFilled, int[] codeOffsets) {
+        for (byte code = 0; code < RegionClassification.CODE_COUNT; code++) {
+            codeFilled[code] = true;
+            switch (code) {
+                case RegionClassification.ZERO:
+                    codeColors[code] = this.zeroColor;
+                    break;
+                case RegionClassification.UNIT:
+                    codeColors[code] = this.unitColor;
+                    break;
+                case RegionClassification.INERT_PRIME:
+                case RegionClassification.SPLIT_PRIME_FACTOR:
+                    codeColors[code] = this.inertPrimeColor;
+                    break;
+                case RegionClassification.SPLIT_PRIME:
+                    codeColors[code] = this.splitPrimeColor;
+                    break;
+                case RegionClassification.SPLIT_PRIME_NONPRINCIPAL:
+                    codeColors[code] = this.splitPrimeColor;
+                    codeFilled[code] = false;
+                    codeOffsets[code] = 1;
+                    break;
+                case RegionClassification.RAMIFIED_PRIME:
+                case RegionClassification.RAMIFIED_PRIME_FACTOR:
+                    codeColors[code] = this.ramifiedPrimeColor;
+                    break;
+                case RegionClassification.RAMIFIED_PRIME_NONPRINCIPAL:
+                    codeColors[code] = this.ramifiedPrimeColor;
+                    codeFilled[code] = false;
+                    break;
+                default:
+                    codeColors[code] = null;
+            }
+        }
+    }
+
+    /**
+     * Stamps the dots that fall within a band of pixel rows of the canvas,
+     * splitting the band in two for the fork/join pool to work on in parallel
+     * if it's tall enough. Each band only writes its own pixels, clipping the
+     * dots that straddle two bands, and goes through the points in the same
+     * order as a single thread would, so the picture comes out the same no
+     * matter how many threads draw it. The bands are kept short so that the
+     * threads that finish early can steal the bands left over.
+     */
+    private final class PointBand extends RecursiveAction {
+
+        private static final long serialVersionUID = 1058516833;
+
+        private final RegionClassification region;
+
+        private final DotRaster raster;
+
+        private final int[] columnPixels, codeARGBs, codeOffsets;
+
+        private final boolean[] codeFilled;
+
+        private final BooleanSupplier cancelled;
+
+        private final int top, bottom;
+
+        @Override
+        protected void compute() {
+            if (this.cancelled != null && this.cancelled.getAsBoolean()) {
+                throw new CancellationException("Diagram no longer needed.");
+            }
+            if (this.bottom - this.top > PARALLEL_BAND_PIXEL_ROWS) {
+                int middle = (this.top + this.bottom) >>> 1;
+                invokeAll(new PointBand(this.region, this.raster, this.columnPixels, this.codeARGBs, this.codeFilled, this.codeOffsets, this.cancelled, this.top, middle), new PointBand(this.region, this.raster, this.columnPixels, this.codeARGBs, this.codeFilled, this.codeOffsets, this.cancelled, middle, this.bottom));
+                return;
+            }
+            int reach = this.raster.getSpriteReach() + 1;
+            int radius = DiagramView.this.dotRadius;
+            for (int row = 0; row < this.region.getHeight(); row++) {
+                int pointY = DiagramView.this.pixelY(this.region.getMinY() + row);
+                if (pointY + reach < this.top || pointY - reach >= this.bottom) {
+                    continue;
+                }
+                for (int column = 0; column < this.columnPixels.length; column++) {
+                    byte code = this.region.getCode(column, row);
+                    if (this.codeARGBs[code] != 0) {
+                        int offset = this.codeOffsets[code];
+                        this.raster.stamp(this.columnPixels[column] + offset, pointY + offset, radius, this.codeFilled[code], this.codeARGBs[code], this.top, this.bottom);
+                    }
+                }
+            }
+        }
+
+        PointBand(RegionClassification region, DotRaster raster, int[] columnPixels, int[] codeARGBs, boolean[] codeFilled, int[] codeOffsets, BooleanSupplier cancelled, int top, int bottom) {
+            this.region = region;
+            this.raster = raster;
+            this.columnPixels = columnPixels;
+            this.codeARGBs = codeARGBs;
+            this.codeFilled = codeFilled;
+            this.codeOffsets = codeOffsets;
+            this.cancelled = cancelled;
+            this.top = top;
+            this.bottom = bottom;
+        }
+
+    }
+
+    /**
+     * Draws the density map. Every lattice point the canvas spans is
+     * classified, a chunk of rows at a time, and for each pixel I count how
+     * many of its points are in the ring and how many of those are inert,
+     * split or ramified primes. The pixel with the greatest proportion of
+     * primes is drawn fully opaque and the rest in proportion, so that the
+     * map doesn't just fade away as the primes thin out far from 0.
+     * @param graphics The Graphics object supplied by the caller.
+     * @param cancelled Tells whether to give up. May be null.
+     */
+    private void drawDensity(Graphics graphics, BooleanSupplier cancelled) {
+        int width = this.ringCanvasHorizMax + 1;
+        int height = this.ringCanvasVerticMax + 1;
+        int[][] counts = new int[DENSITY_COUNT_KINDS][width * height];
+        ForkJoinPool.commonPool().invoke(new DensityBand(counts, width, cancelled, 0, height));
+        int[] points = counts[0];
+        double maxProportion = 0.0;
+        for (int i = 0; i < points.length; i++) {
+            int primes = counts[1][i] + counts[2][i] + counts[3][i];
+            if (primes > 0) {
+                maxProportion = Math.max(maxProportion, (double) primes / points[i]);
+            }
+        }
+        BufferedImage map = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) map.getRaster().getDataBuffer()).getData();
+        Color[] kindColors = {this.inertPrimeColor, this.splitPrimeColor, this.ramifiedPrimeColor};
+        for (int i = 0; i < pixels.length; i++) {
+            int primes = counts[1][i] + counts[2][i] + counts[3][i];
+            if (primes == 0) {
+                continue;
+            }
+            int red = 0, green = 0, blue = 0;
+            for (int kind = 0; kind < kindColors.length; kind++) {
+                int count = counts[kind + 1][i];
+                red += count * kindColors[kind].getRed();
+                green += count * kindColors[kind].getGreen();
+                blue += count * kindColors[kind].getBlue();
+            }
+            int alpha = (int) Math.round(255 * ((double) primes / points[i]) / maxProportion);
+            pixels[i] = (alpha << 24) | ((red / primes) << 16) | ((green / primes) << 8) | (blue / primes);
+        }
+        graphics.drawImage(map, 0, 0, null);
+    }
+
+    /**
+     * Counts the lattice points spanned by a band of pixel rows of a density
+     * map, splitting the band in two for the fork/join pool to work on in
+     * parallel if it's tall enough. The bands don't share any pixel rows, so
+     * each band adds its counts straight into the arrays for the whole canvas
+     * with nothing left to combine afterwards.
+     */
+    private final class DensityBand extends RecursiveAction {
+
+        private static final long serialVersionUID = 1058516834;
+
+        private final int[][] counts;
+
+        private final int width;
+
+        private final BooleanSupplier cancelled;
+
+        private final int top, bottom;
+
+        /**
+         * Gives the pixel row of a lattice row, rounding to the nearest.
+         */
+        private long pixelRow(long relativeY, double rowPixels) {
+            return DiagramView.this.zeroCoordY - (long) Math.floor(relativeY * rowPixels + 0.5);
+        }
+
+        @Override
+        protected void compute() {
+            if (this.cancelled != null && this.cancelled.getAsBoolean()) {
+                throw new CancellationException("Diagram no longer needed.");
+            }
+            if (this.bottom - this.top > PARALLEL_BAND_PIXEL_ROWS) {
+                int middle = (this.top + this.bottom) >>> 1;
+                invokeAll(new DensityBand(this.counts, this.width, this.cancelled, this.top, middle), new DensityBand(this.counts, this.width, this.cancelled, middle, this.bottom));
+                return;
+            }
+            DiagramView view = DiagramView.this;
+            int unitsPerInterval = view.diagramRing.d1mod4 ? 2 : 1;
+            int columnsPerPixel = unitsPerInterval * view.unitIntervalsPerPixel;
+            long minX = unitsPerInterval * view.viewCenterRe - (long) view.zeroCoordX * columnsPerPixel - columnsPerPixel / 2;
+            long centerY = unitsPerInterval * view.viewCenterIm;
+            int columns = this.width * columnsPerPixel;
+            /* A point and its mirror image across the imaginary axis, the
+               negative of its conjugate, are classified the same way. So if
+               the diagram straddles the imaginary axis, I only classify the
+               wider side and count each point on it for its mirror image as
+               well, if that's in view. */
+            long maxX = minX + columns - 1;
+            long classifyMinX = minX;
+            int classifyColumns = columns;
+            boolean mirrored = minX < 0 && maxX > 0;
+            if (mirrored) {
+                if (maxX >= -minX) {
+                    classifyMinX = 0;
+                    classifyColumns = (int) maxX + 1;
+                } else {
+                    classifyColumns = (int) -minX + 1;
+                }
+            }
+            double rowPixels = view.verticPixelsPerBasicImaginaryInterval();
+            /* One row more each way than strictly needed, in case of rounding,
+               and the rows that fall outside the band are skipped. */
+            long firstRow = (long) Math.ceil((view.zeroCoordY - this.bottom + 0.5) / rowPixels) - 1;
+            long endRow = (long) Math.ceil((view.zeroCoordY - this.top + 0.5) / rowPixels) + 1;
+            int chunkRows = Math.max(1, DENSITY_CHUNK_POINTS / classifyColumns);
+            for (long chunkY = firstRow; chunkY < endRow; chunkY += chunkRows) {
+                int rows = (int) Math.min(chunkRows, endRow - chunkY);
+                RegionClassification chunk = RegionClassification.classify(view.diagramRing, classifyMinX, centerY + chunkY, classifyColumns, rows, this.cancelled);
+                for (int row = 0; row < rows; row++) {
+                    long pixelY = this.pixelRow(chunkY + row, rowPixels);
+                    if (pixelY < this.top || pixelY >= this.bottom) {
+                        continue;
+                    }
+                    int rowIndex = (int) pixelY * this.width;
+                    for (int column = 0; column < classifyColumns; column++) {
+                        byte code = chunk.getCode(column, row);
+                        if (code == RegionClassification.NOT_IN_RING) {
+                            continue;
+                        }
+                        long x = classifyMinX + column;
+                        this.count(code, rowIndex + (int) (x - minX) / columnsPerPixel);
+                        if (mirrored && x != 0 && -x <= maxX && -x >= minX) {
+                            this.count(code, rowIndex + (int) (-x - minX) / columnsPerPixel);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Counts a point for a pixel.
+         */
+        private void count(byte code, int index) {
+            this.counts[0][index]++;
+            switch (code) {
+                case RegionClassification.INERT_PRIME:
+                case RegionClassification.SPLIT_PRIME_FACTOR:
+                    this.counts[1][index]++;
+                    break;
+                case RegionClassification.SPLIT_PRIME:
+                case RegionClassification.SPLIT_PRIME_NONPRINCIPAL:
+                    this.counts[2][index]++;
+                    break;
+                case RegionClassification.RAMIFIED_PRIME:
+                case RegionClassification.RAMIFIED_PRIME_NONPRINCIPAL:
+                case RegionClassification.RAMIFIED_PRIME_FACTOR:
+                    this.counts[3][index]++;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        DensityBand(int[][] counts, int width, BooleanSupplier cancelled, int top, int bottom) {
+            this.counts = counts;
+            this.width = width;
+            this.cancelled = cancelled;
+            this.top = top;
+            this.bottom = bottom;
+        }
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || this.getClass() != obj.getClass()) {
+            return false;
+        }
+        final DiagramView other = (DiagramView) obj;
+        return this.diagramRing.equals(other.diagramRing)
+                && this.pixelsPerUnitInterval == other.pixelsPerUnitInterval
+                && this.pixelsPerBasicImaginaryInterval == other.pixelsPerBasicImaginaryInterval
+                && this.unitIntervalsPerPixel == other.unitIntervalsPerPixel
+                && this.ringCanvasHorizMax == other.ringCanvasHorizMax
+                && this.ringCanvasVerticMax == other.ringCanvasVerticMax
+                && this.zeroCoordX == other.zeroCoordX
+                && this.zeroCoordY == other.zeroCoordY
+                && this.viewCenterRe == other.viewCenterRe
+                && this.viewCenterIm == other.viewCenterIm
+                && this.dotRadius == other.dotRadius
+                && this.halfIntegerGridColor.equals(other.halfIntegerGridColor)
+                && this.integerGridColor.equals(other.integerGridColor)
+                && this.zeroColor.equals(other.zeroColor)
+                && this.unitColor.equals(other.unitColor)
+                && this.inertPrimeColor.equals(other.inertPrimeColor)
+                && this.splitPrimeColor.equals(other.splitPrimeColor)
+                && this.ramifiedPrimeColor.equals(other.ramifiedPrimeColor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.diagramRing, this.pixelsPerUnitInterval, this.unitIntervalsPerPixel, this.ringCanvasHorizMax, this.ringCanvasVerticMax, this.zeroCoordX, this.zeroCoordY, this.viewCenterRe, this.viewCenterIm, this.dotRadius);
+    }
+
+    /**
+     * Captures the settings of a diagram.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param pixelsPerUnitInterval How many pixels apart 0 and 1 are. For
+     * example, 40.
+     * @param pixelsPerBasicImaginaryInterval How many pixels apart 0 and
+     * &radic;<i>d</i> are, or 0 and &radic;<i>d</i>/2 in rings with
+     * "half-integers." For example, 40.
+     * @param ringCanvasHorizMax The width of the canvas. For example, 1280.
+     * @param ringCanvasVerticMax The height of the canvas. For example, 720.
+     * @param zeroCoordX The horizontal pixel position of 0, or of the view
+     * center. For example, 640.
+     * @param zeroCoordY The vertical pixel position of 0, or of the view
+     * center. For example, 360.
+     * @param viewCenterRe The real part of the number drawn at the zero
+     * coordinates, as in {@link RingWindowDisplay#changeViewCenter(long,
+     * long)}. For example, 0.
+     * @param viewCenterIm The imaginary part of the number drawn at the zero
+     * coordinates, divided by &radic;<i>d</i>. For example, 0.
+     * @param dotRadius The radius of the dots. For example, 5.
+     * @param gridColors The "half-integer" grid color and the integer grid
+     * color, in that order.
+     * @param pointColors The colors of zero, the units, inert primes, split
+     * primes and ramified primes, in that order.
+     */
+    DiagramView(ImaginaryQuadraticRing ring, int pixelsPerUnitInterval, int pixelsPerBasicImaginaryInterval, int ringCanvasHorizMax, int ringCanvasVerticMax, int zeroCoordX, int zeroCoordY, long viewCenterRe, long viewCenterIm, int dotRadius, Color[] gridColors, Color[] pointColors) {
+        this(ring, pixelsPerUnitInterval, pixelsPerBasicImaginaryInterval, 0, ringCanvasHorizMax, ringCanvasVerticMax, zeroCoordX, zeroCoordY, viewCenterRe, viewCenterIm, dotRadius, gridColors, pointColors);
+    }
+
+    /**
+     * Captures the settings of a diagram that may be zoomed out so far that
+     * it's drawn as a density map.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param pixelsPerUnitInterval How many pixels apart 0 and 1 are when the
+     * diagram is drawn with dots. For example, 2.
+     * @param pixelsPerBasicImaginaryInterval How many pixels apart 0 and
+     * &radic;<i>d</i> are when the diagram is drawn with dots. For example,
+     * 2.
+     * @param unitIntervalsPerPixel How many unit intervals each pixel of the
+     * density map spans, or 0 to draw the diagram with dots. For example, 4.
+     * @param ringCanvasHorizMax The width of the canvas. For example, 1280.
+     * @param ringCanvasVerticMax The height of the canvas. For example, 720.
+     * @param zeroCoordX The horizontal pixel position of 0, or of the view
+     * center. For example, 640.
+     * @param zeroCoordY The vertical pixel position of 0, or of the view
+     * center. For example, 360.
+     * @param viewCenterRe The real part of the number drawn at the zero
+     * coordinates. For example, 0.
+     * @param viewCenterIm The imaginary part of the number drawn at the zero
+     * coordinates, divided by &radic;<i>d</i>. For example, 0.
+     * @param dotRadius The radius of the dots. For example, 5.
+     * @param gridColors The "half-integer" grid color and the integer grid
+     * color, in that order.
+     * @param pointColors The colors of zero, the units, inert primes, split
+     * primes and ramified primes, in that order.
+     */
+    DiagramView(ImaginaryQuadraticRing ring, int pixelsPerUnitInterval, int pixelsPerBasicImaginaryInterval, int unitIntervalsPerPixel, int ringCanvasHorizMax, int ringCanvasVerticMax, int zeroCoordX, int zeroCoordY, long viewCenterRe, long viewCenterIm, int dotRadius, Color[] gridColors, Color[] pointColors) {
+        this.diagramRing = ring;
+        this.pixelsPerUnitInterval = pixelsPerUnitInterval;
+        this.pixelsPerBasicImaginaryInterval = pixelsPerBasicImaginaryInterval;
+        this.unitIntervalsPerPixel = unitIntervalsPerPixel;
+        this.ringCanvasHorizMax = ringCanvasHorizMax;
+        this.ringCanvasVerticMax = ringCanvasVerticMax;
+        this.zeroCoordX = zeroCoordX;
+        this.zeroCoordY = zeroCoordY;
+        this.viewCenterRe = viewCenterRe;
+        this.viewCenterIm = viewCenterIm;
+        this.dotRadius = dotRadius;
+        this.halfIntegerGridColor = gridColors[0];
+        this.integerGridColor = gridColors[1];
+        this.zeroColor = pointColors[0];
+        this.unitColor = pointColors[1];
+        this.inertPrimeColor = pointColors[2];
+        this.splitPrimeColor = pointColors[3];
+        this.ramifiedPrimeColor = pointColors[4];
+    }
+
+}
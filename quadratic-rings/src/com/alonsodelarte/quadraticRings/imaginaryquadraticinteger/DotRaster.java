@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * An image into which dots are drawn by writing pixels directly, rather than
+ * with {@link java.awt.Graphics#fillOval(int, int, int, int)} and {@link
+ * java.awt.Graphics#drawOval(int, int, int, int)}. At low zoom levels, there
+ * can be hundreds of thousands of dots in a diagram, and each call to Java2D
+ * goes through a lot of checks before it gets to the pixels. Here each dot
+ * shape is rasterized once, by Java2D itself so that it looks exactly the
+ * same, and then stamped wherever needed. A dot of radius 1 is only a couple
+ * of pixels, so stamping it is just a couple of array writes.
+ * <p>The pixels start out transparent, so that once the dots are drawn, the
+ * image can be drawn over the grids with a single call.</p>
+ * @author Alonso del Arte
+ */
+final class DotRaster {
+
+    private final int width, height;
+
+    private final BufferedImage image;
+
+    private final int[] pixels;
+
+    private int spriteRadius = -1;
+
+    /**
+     * The pixels of the dot shapes for spriteRadius, filled and outline, as
+     * pairs of horizontal and vertical offsets from the center of the dot.
+     */
+    private int[] filledSprite, outlineSprite;
+
+    /**
+     * The pixels of the dot shapes for spriteRadius, as offsets into the
+     * pixel array from the center of the dot. These can only be used for dots
+     * that are entirely inside the image.
+     */
+    private int[] filledSpriteIndices, outlineSpriteIndices;
+
+    private int spriteReach;
+
+    /**
+     * Gets the image the dots are drawn into.
+     * @return The image, of type {@link BufferedImage#TYPE_INT_ARGB}.
+     */
+    BufferedImage getImage() {
+        return this.image;
+    }
+
+    int getWidth() {
+        return this.width;
+    }
+
+    int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Makes every pixel of the image transparent again.
+     */
+    void clear() {
+        Arrays.fill(this.pixels, 0);
+    }
+
+    private static int[] rasterize(int radius, boolean filled) {
+        int diameter = 2 * radius;
+        BufferedImage shape = new BufferedImage(diameter + 2, diameter + 2, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = shape.createGraphics();
+        graphics.setColor(Color.WHITE);
+        if (filled) {
+            graphics.fillOval(0, 0, diameter, diameter);
+        } else {
+            graphics.drawOval(0, 0, diameter, diameter);
+        }
+        graphics.dispose();
+        int[] offsets = new int[2 * shape.getWidth() * shape.getHeight()];
+        int count = 0;
+        for (int y = 0; y < shape.getHeight(); y++) {
+            for (int x = 0; x < shape.getWidth(); x++) {
+                if (shape.getRGB(x, y) != 0) {
+                    offsets[count++] = x - radius;
+                    offsets[count++] = y - radius;
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    private int[] toIndices(int[] sprite) {
+        int[] indices = new int[sprite.length / 2];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = sprite[2 * i + 1] * this.width + sprite[2 * i];
+        }
+        return indices;
+    }
+
+    /**
+     * Rasterizes the dot shapes for a radius, unless they're already
+     * rasterized. This is done automatically when stamping, but when several
+     * threads are going to stamp into different bands of the image, this must
+     * be called first so that they don't all try to rasterize the shapes at
+     * the same time.
+     * @param radius The radius of the dots. For example, 1.
+     */
+    void prepareSprites(int radius) {
+        if (radius != this.spriteRadius) {
+            this.filledSprite = rasterize(radius, true);
+            this.outlineSprite = rasterize(radius, false);
+            this.filledSpriteIndices = this.toIndices(this.filledSprite);
+            this.outlineSpriteIndices = this.toIndices(this.outlineSprite);
+            this.spriteReach = radius + 2;
+            this.spriteRadius = radius;
+        }
+    }
+
+    /**
+     * Draws a dot the same as {@link java.awt.Graphics#fillOval(int, int,
+     * int, int)} or {@link java.awt.Graphics#drawOval(int, int, int, int)}
+     * would draw it with the corner at (centerX &minus; radius, centerY
+     * &minus; radius) and width and height 2 &times; radius. Parts of the dot
+     * outside the image are skipped.
+     * @param centerX The horizontal pixel position of the center of the dot.
+     * May be outside the image.
+     * @param centerY The vertical pixel position of the center of the dot.
+     * May be outside the image.
+     * @param radius The radius of the dot. For example, 1.
+     * @param filled Whether to fill the dot or only draw its outline.
+     * @param argb The color of the dot, as given by {@link Color#getRGB()}.
+     */
+    void stamp(int centerX, int centerY, int radius, boolean filled, int argb) {
+        this.stamp(centerX, centerY, radius, filled, argb, 0, this.height);
+    }
+
+    /**
+     * Draws the part of a dot that falls within a band of rows of the image.
+     * Different threads can stamp into different bands at the same time,
+     * provided {@link #prepareSprites(int)} has been called for the radius.
+     * @param centerX The horizontal pixel position of the center of the dot.
+     * May be outside the image.
+     * @param centerY The vertical pixel position of the center of the dot.
+     * May be outside the image or the band.
+     * @param radius The radius of the dot. For example, 1.
+     * @param filled Whether to fill the dot or only draw its outline.
+     * @param argb The color of the dot, as given by {@link Color#getRGB()}.
+     * @param clipTop The first row of the band. Should not be negative.
+     * @param clipBottom The row after the last row of the band. Should not be
+     * more than the height of the image.
+     */
+    void stamp(int centerX, int centerY, int radius, boolean filled, int argb, int clipTop, int clipBottom) {
+        this.prepareSprites(radius);
+        int reach = this.spriteReach;
+        if (centerX >= reach && centerY >= clipTop + reach && centerX < this.width - reach && centerY < clipBottom - reach) {
+            int[] indices = filled ? this.filledSpriteIndices : this.outlineSpriteIndices;
+            int center = centerY * this.width + centerX;
+            for (int index : indices) {
+                this.pixels[center + index] = argb;
+            }
+            return;
+        }
+        int[] sprite = filled ? this.filledSprite : this.outlineSprite;
+        for (int i = 0; i < sprite.length; i += 2) {
+            int x = centerX + sprite[i];
+            int y = centerY + sprite[i + 1];
+            if (x >= 0 && y >= clipTop && x < this.width && y < clipBottom) {
+                this.pixels[y * this.width + x] = argb;
+            }
+        }
+    }
+
+    /**
+     * Tells how far from its center a dot of the prepared radius can reach.
+     * @return The reach in pixels, which is a little more than the radius.
+     */
+    int getSpriteReach() {
+        return this.spriteReach;
+    }
+
+    /**
+     * Prepares a transparent image to draw dots into.
+     * @param width The width of the image in pixels. For example, 1281.
+     * @param height The height of the image in pixels. For example, 721.
+     */
+    DotRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+    }
+
+}
@@ -56,7 +56,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
      */
     public List<ImaginaryQuadraticInteger> tryToFactorizeAnyway() {
         ImaginaryQuadraticInteger n = this.unfactorizedNumber;
-        ImaginaryQuadraticInteger unity = new ImaginaryQuadraticInteger(1, 0, n.getRing());
+        ImaginaryQuadraticInteger unity = ImaginaryQuadraticInteger.valueOf(1, 0, n.getRing());
         ImaginaryQuadraticInteger negativeOne = unity.times(-1);
         List<ImaginaryQuadraticInteger> factors = new ArrayList<>();
         if (n.norm() < 2) {
@@ -72,7 +72,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
                 factors.add(negativeOne);
             }
         } else {
-            ImaginaryQuadraticInteger testDivisor = new ImaginaryQuadraticInteger(2, 0, n.getRing());
+            ImaginaryQuadraticInteger testDivisor = ImaginaryQuadraticInteger.valueOf(2, 0, n.getRing());
             if (NumberTheoreticFunctionsCalculator.isIrreducible(testDivisor)) {
                 while (n.norm() % 4 == 0 && keepGoing) {
                     try {
@@ -114,7 +114,7 @@ public class NonUniqueFactorizationDomainException extends Exception {
             }
             boolean withinRange;
             while (n.norm() > 1) {
-                testDivisor = new ImaginaryQuadraticInteger(testDivRealPartMult, testDivImagPartMult, n.getRing(), 2);
+                testDivisor = ImaginaryQuadraticInteger.valueOf(testDivRealPartMult, testDivImagPartMult, n.getRing(), 2);
                 withinRange = (testDivisor.norm() <= n.norm());
                 if (NumberTheoreticFunctionsCalculator.isIrreducible(testDivisor)) {
                     keepGoing = true;
@@ -142,7 +142,7 @@ public class NotDivisibleException extends Exception {
      * necessarily in that order.
      */
     public ImaginaryQuadraticInteger[] getBoundingIntegers() {
-        ImaginaryQuadraticInteger zeroIQI = new ImaginaryQuadraticInteger(0, 0, workingRing);
+        ImaginaryQuadraticInteger zeroIQI = ImaginaryQuadraticInteger.valueOf(0, 0, workingRing);
         ImaginaryQuadraticInteger[] algIntArray = {zeroIQI, zeroIQI, zeroIQI, zeroIQI};
         if (workingRing.hasHalfIntegers()) {
             int topPointA, topPointB;
@@ -151,20 +151,20 @@ public class NotDivisibleException extends Exception {
             if ((topPointA % 2 == 0 && topPointB % 2 != 0) || (topPointA % 2 != 0 && topPointB % 2 == 0)) {
                 topPointA--;
             }
-            algIntArray[0] = new ImaginaryQuadraticInteger(topPointA, topPointB, workingRing, 2);
-            algIntArray[1] = new ImaginaryQuadraticInteger(topPointA - 1, topPointB - 1, workingRing, 2);
-            algIntArray[2] = new ImaginaryQuadraticInteger(topPointA + 1, topPointB - 1, workingRing, 2);
-            algIntArray[3] = new ImaginaryQuadraticInteger(topPointA, topPointB - 2, workingRing, 2);
+            algIntArray[0] = ImaginaryQuadraticInteger.valueOf(topPointA, topPointB, workingRing, 2);
+            algIntArray[1] = ImaginaryQuadraticInteger.valueOf(topPointA - 1, topPointB - 1, workingRing, 2);
+            algIntArray[2] = ImaginaryQuadraticInteger.valueOf(topPointA + 1, topPointB - 1, workingRing, 2);
+            algIntArray[3] = ImaginaryQuadraticInteger.valueOf(topPointA, topPointB - 2, workingRing, 2);
         } else {
             int floorA, floorB, ceilA, ceilB;
             floorA = (int) Math.floor(numericRealPart);
             floorB = (int) Math.floor(numericImagPartMult);
             ceilA = (int) Math.ceil(numericRealPart);
             ceilB = (int) Math.ceil(numericImagPartMult);
-            algIntArray[0] = new ImaginaryQuadraticInteger(floorA, floorB, workingRing);
-            algIntArray[1] = new ImaginaryQuadraticInteger(ceilA, floorB, workingRing);
-            algIntArray[2] = new ImaginaryQuadraticInteger(floorA, ceilB, workingRing);
-            algIntArray[3] = new ImaginaryQuadraticInteger(ceilA, ceilB, workingRing);
+            algIntArray[0] = ImaginaryQuadraticInteger.valueOf(floorA, floorB, workingRing);
+            algIntArray[1] = ImaginaryQuadraticInteger.valueOf(ceilA, floorB, workingRing);
+            algIntArray[2] = ImaginaryQuadraticInteger.valueOf(floorA, ceilB, workingRing);
+            algIntArray[3] = ImaginaryQuadraticInteger.valueOf(ceilA, ceilB, workingRing);
         }
         return algIntArray;
     }
@@ -215,7 +215,7 @@ public class NotDivisibleException extends Exception {
             if (overflowFlag) {
                 throw new ArithmeticException("Real part " + intermediateRealPart + ", imaginary part " + intermediateImagPart + " times sqrt" + resultingFractionNegRad + " is outside the range of this implmentation of ImaginaryQuadraticInteger, which uses 32-bit signed integers.");
             }
-            return new ImaginaryQuadraticInteger((int) intermediateRealPart, (int) intermediateImagPart, workingRing);
+            return ImaginaryQuadraticInteger.valueOf((int) intermediateRealPart, (int) intermediateImagPart, workingRing);
         }
     }
     
@@ -263,7 +263,7 @@ public class NotDivisibleException extends Exception {
             if (overflowFlag) {
                 throw new ArithmeticException("Real part " + intermediateRealPart + ", imaginary part " + intermediateImagPart + " times sqrt" + resultingFractionNegRad + " is outside the range of this implmentation of ImaginaryQuadraticInteger, which uses 32-bit signed integers.");
             }
-            return new ImaginaryQuadraticInteger((int) intermediateRealPart, (int) intermediateImagPart, workingRing);
+            return ImaginaryQuadraticInteger.valueOf((int) intermediateRealPart, (int) intermediateImagPart, workingRing);
         }
     }
     
@@ -292,7 +292,7 @@ public class NotDivisibleException extends Exception {
         resultingFractionImagPartNumerator = resFractImNumer;
         resultingFractionDenominator = resFractDenom;
         resultingFractionNegRad = resFractNegRad;
-        workingRing = new ImaginaryQuadraticRing(resFractNegRad);
+        workingRing = ImaginaryQuadraticRing.valueOf(resFractNegRad);
         numericRealPart = (double) resultingFractionRealPartNumerator / (double) resultingFractionDenominator;
         numericImagPartMult = (double) resultingFractionImagPartNumerator / (double) resultingFractionDenominator;
         numericImagPart = numericImagPartMult * workingRing.getAbsNegRadSqrt();
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.NonUniqueFactorizationDomainException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factors the numbers the mouse hovers over on a background thread, so that
+ * the readouts can show the factorization without holding up the mouse. In
+ * rings that are not unique factorization domains, where {@link
+ * NumberTheoreticFunctionsCalculator#primeFactors(ImaginaryQuadraticInteger)}
+ * doesn't apply, the readout says instead whether the number is prime,
+ * irreducible or neither.
+ * <p>Only the number last asked about is of interest, so asking about a new
+ * number interrupts the computation for the previous one. The results for the
+ * most recently asked about numbers are kept, so going back over a number is
+ * instant.</p>
+ * <p>The methods of this class, other than the constructor and {@link
+ * #compute(ImaginaryQuadraticInteger)}, are to be called on the event
+ * dispatch thread only.</p>
+ * @author Alonso del Arte
+ */
+final class FactorizationReadout {
+
+    private static final Logger log = LoggerFactory.getLogger(FactorizationReadout.class);
+
+    /**
+     * How many results to keep.
+     */
+    static final int DEFAULT_CACHE_CAPACITY = 256;
+
+    /**
+     * The factorization of a number, or for numbers of rings that are not
+     * unique factorization domains, whether the number is prime or
+     * irreducible. If none of that could be found out, the result says so.
+     */
+    static final class Result {
+
+        /**
+         * The result for a number that could not be factored, as when the
+         * computation overflows.
+         */
+        static final Result FAILED = new Result(null, false, false, true);
+
+        private final List<ImaginaryQuadraticInteger> factors;
+
+        private final boolean prime, irreducible, failed;
+
+        /**
+         * Gets the prime factors.
+         * @return The factors, possibly with a unit first, or null if the ring
+         * is not a unique factorization domain or the factors could not be
+         * found.
+         */
+        List<ImaginaryQuadraticInteger> getFactors() {
+            return this.factors;
+        }
+
+        boolean isPrime() {
+            return this.prime;
+        }
+
+        boolean isIrreducible() {
+            return this.irreducible;
+        }
+
+        /**
+         * Tells whether the number could not be factored.
+         * @return True if the computation failed, in which case the result
+         * says nothing about the number, false otherwise.
+         */
+        boolean isFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Gives the text of the readout.
+         * @param preferTheta Whether to write "half-integers" with theta
+         * notation, as {@link ImaginaryQuadraticInteger#toStringAlt()} does.
+         * @return For example, "Prime" for 2 + <i>i</i>, "(1 + i)(2 + i)" for
+         * 1 + 3<i>i</i>, "3^2" for 9, or "Irreducible, not prime" for
+         * 2 in <b>Z</b>[&radic;&minus;5]. Repeated factors are written with
+         * exponents, and a unit factor of 1 is left out. If the computation
+         * failed, "Could not factor."
+         */
+        String format(boolean preferTheta) {
+            if (this.failed) {
+                return "Could not factor";
+            }
+            if (this.prime) {
+                return "Prime";
+            }
+            if (this.factors == null) {
+                return this.irreducible ? "Irreducible, not prime" : "Reducible";
+            }
+            if (this.factors.size() == 1 && this.factors.get(0).norm() < 2) {
+                return this.factors.get(0).norm() == 0 ? "Zero" : "Unit";
+            }
+            StringBuilder text = new StringBuilder();
+            int index = 0;
+            while (index < this.factors.size()) {
+                ImaginaryQuadraticInteger factor = this.factors.get(index);
+                int exponent = 1;
+                while (index + exponent < this.factors.size() && this.factors.get(index + exponent).equals(factor)) {
+                    exponent++;
+                }
+                index += exponent;
+                if (factor.norm() == 1 && factor.imagPartMult == 0 && factor.realPartMult > 0) {
+                    continue;
+                }
+                String factorString = preferTheta ? factor.toStringAlt() : factor.toString();
+                if (factorString.contains(" ") || ((text.length() > 0 || exponent > 1) && factorString.startsWith("-"))) {
+                    factorString = "(" + factorString + ")";
+                }
+                text.append(factorString);
+                if (exponent > 1) {
+                    text.append("^").append(exponent);
+                }
+            }
+            return text.toString();
+        }
+
+        Result(List<ImaginaryQuadraticInteger> factors, boolean prime, boolean irreducible) {
+            this(factors, prime, irreducible, false);
+        }
+
+        private Result(List<ImaginaryQuadraticInteger> factors, boolean prime, boolean irreducible, boolean failed) {
+            this.factors = factors;
+            this.prime = prime;
+            this.irreducible = irreducible;
+            this.failed = failed;
+        }
+
+    }
+
+    private final ExecutorService executor;
+
+    private final Map<ImaginaryQuadraticInteger, Result> cache;
+
+    private ImaginaryQuadraticInteger requested = null;
+
+    private Future<?> inFlight = null;
+
+    /**
+     * Factors a number, or failing that, finds out whether it's prime or
+     * irreducible. This can take a long time for numbers of large norm, and
+     * it's what runs on the background thread.
+     * @param num The number. For example, 1 + 3<i>i</i>.
+     * @return The result. For example, a result with the factors 1 + <i>i</i>
+     * and 2 + <i>i</i>.
+     * @throws CancellationException If the thread is interrupted before the
+     * result is found.
+     */
+    static Result compute(ImaginaryQuadraticInteger num) {
+        if (num.norm() < 2) {
+            return new Result(Collections.singletonList(num), false, num.norm() == 1);
+        }
+        boolean prime = NumberTheoreticFunctionsCalculator.isPrime(num);
+        if (prime) {
+            return new Result(null, true, true);
+        }
+        try {
+            return new Result(NumberTheoreticFunctionsCalculator.primeFactors(num), false, false);
+        } catch (NonUniqueFactorizationDomainException nufde) {
+            return new Result(null, false, NumberTheoreticFunctionsCalculator.isIrreducible(num));
+        }
+    }
+
+    /**
+     * Gets the result for a number if it's already known.
+     * @param num The number.
+     * @return The result, or null if the number hasn't been asked about
+     * lately or its result is still being computed.
+     */
+    Result getKnown(ImaginaryQuadraticInteger num) {
+        return this.cache.get(num);
+    }
+
+    /**
+     * Asks for the result for a number. If it's known, it's handed over right
+     * away. Otherwise it's computed in the background, and the computation for
+     * any number asked about before is abandoned.
+     * @param num The number. For example, 1 + 3<i>i</i>.
+     * @param display What to do with the result, on the event dispatch
+     * thread. It's not called at all if another number is asked about before
+     * the result is found. If the result can't be computed, it's given {@link
+     * Result#FAILED}, so that the readout doesn't stay stuck on the number
+     * being factored.
+     */
+    void request(final ImaginaryQuadraticInteger num, final Consumer<Result> display) {
+        Result known = this.cache.get(num);
+        if (known != null) {
+            this.cancelInFlight();
+            this.requested = num;
+            display.accept(known);
+            return;
+        }
+        if (num.equals(this.requested) && this.inFlight != null) {
+            return;
+        }
+        this.cancelInFlight();
+        this.requested = num;
+        this.inFlight = this.executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                Result computed;
+                try {
+                    computed = compute(num);
+                } catch (CancellationException ce) {
+                    return;
+                } catch (RuntimeException re) {
+                    log.warn("Could not factor " + num.toASCIIString(), re);
+                    computed = Result.FAILED;
+                }
+                final Result result = computed;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        cache.put(num, result);
+                        if (num.equals(requested)) {
+                            inFlight = null;
+                            display.accept(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void cancelInFlight() {
+        if (this.inFlight != null) {
+            this.inFlight.cancel(true);
+            this.inFlight = null;
+        }
+    }
+
+    /**
+     * Sets up a readout with a thread of its own, which doesn't keep the
+     * program from exiting.
+     * @param cacheCapacity How many results to keep. For example, 256.
+     */
+    FactorizationReadout(final int cacheCapacity) {
+        this.cache = new LinkedHashMap<ImaginaryQuadraticInteger, Result>(cacheCapacity + 1, 1.0f, true) {
+            private static final long serialVersionUID = 4547203186530582L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ImaginaryQuadraticInteger, Result> eldest) {
+                return this.size() > cacheCapacity;
+            }
+        };
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Factorization readout");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+}
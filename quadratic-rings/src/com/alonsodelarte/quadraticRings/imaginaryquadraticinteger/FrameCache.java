@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Configuration.DEFAULT_FRAME_CACHE_BUDGET;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.FRAME_CACHE_MEGABYTES_PROPERTY;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps complete diagrams so that going back to a view already drawn, such as
+ * the previous ring in the history, needs no drawing at all. The diagrams are
+ * looked up by view, which takes in the ring, the zoom level, the canvas size,
+ * the center and the colors, so a diagram is only reused for exactly the view
+ * it was drawn for.
+ * <p>Diagrams are large, several megabytes each at the default canvas size,
+ * so instead of a number of diagrams, the cache is given a number of bytes,
+ * and the least recently used diagrams are forgotten first once the layers of
+ * the diagrams kept add up to more than that. Layers shared by several
+ * diagrams are counted once for each, so the actual memory used can only be
+ * less than the budget.</p>
+ * <p>The diagrams are put in on the renderer thread and looked up on the event
+ * dispatch thread, so the methods of this class are synchronized.</p>
+ * @author Alonso del Arte
+ */
+final class FrameCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameCache.class);
+
+    private final long budget;
+
+    private long bytesUsed = 0;
+
+    private final Map<DiagramView, DiagramRenderer.Frame> frames = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Gives the budget the user asked for. That's {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#FRAME_CACHE_MEGABYTES_PROPERTY}
+     * megabytes if that's set to a number that's not negative, or {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#DEFAULT_FRAME_CACHE_BUDGET}
+     * bytes otherwise.
+     * @return The number of bytes. For example, 128 megabytes.
+     */
+    static long configuredBudget() {
+        String megabytes = System.getProperty(FRAME_CACHE_MEGABYTES_PROPERTY);
+        if (megabytes != null) {
+            try {
+                long budget = Long.parseLong(megabytes.trim());
+                if (budget >= 0) {
+                    return budget << 20;
+                }
+            } catch (NumberFormatException nfe) {
+                // Same as for a negative number
+            }
+            log.warn("Ignoring {}={}, which is not a whole number of megabytes", FRAME_CACHE_MEGABYTES_PROPERTY, megabytes);
+        }
+        return DEFAULT_FRAME_CACHE_BUDGET;
+    }
+
+    /**
+     * Tells whether a diagram of a number of bytes would be kept at all.
+     * @param bytes How many bytes the layers of the diagram add up to. For
+     * example, 8 megabytes.
+     * @return True if the diagram is no more than the budget, false
+     * otherwise.
+     */
+    boolean canHold(long bytes) {
+        return bytes <= this.budget;
+    }
+
+    /**
+     * Gets the diagram kept for a view.
+     * @param view The view, without the off-screen margin.
+     * @return The diagram, or null if there is none for the view.
+     */
+    synchronized DiagramRenderer.Frame get(DiagramView view) {
+        return this.frames.get(view);
+    }
+
+    /**
+     * Tells whether there's a diagram kept for a view, without making it the
+     * most recently used.
+     * @param view The view, without the off-screen margin.
+     * @return True if there is a diagram for the view, false otherwise.
+     */
+    synchronized boolean contains(DiagramView view) {
+        return this.frames.containsKey(view);
+    }
+
+    /**
+     * Keeps a diagram, forgetting the least recently used diagrams if need be
+     * to stay within the budget.
+     * @param frame The diagram. If it's incomplete, or if by itself it's more
+     * than the budget, it's not kept.
+     */
+    synchronized void put(DiagramRenderer.Frame frame) {
+        long cost = frame.getByteCount();
+        if (!frame.isComplete() || cost > this.budget) {
+            return;
+        }
+        DiagramRenderer.Frame replaced = this.frames.put(frame.getView(), frame);
+        if (replaced != null) {
+            this.bytesUsed -= replaced.getByteCount();
+        }
+        this.bytesUsed += cost;
+        Iterator<DiagramRenderer.Frame> eldest = this.frames.values().iterator();
+        while (this.bytesUsed > this.budget) {
+            this.bytesUsed -= eldest.next().getByteCount();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Tells how many diagrams are kept.
+     * @return The number of diagrams. For example, 5.
+     */
+    synchronized int size() {
+        return this.frames.size();
+    }
+
+    /**
+     * Tells how many bytes the layers of the diagrams kept add up to,
+     * counting shared layers once for each diagram.
+     * @return The number of bytes, never more than the budget.
+     */
+    synchronized long getBytesUsed() {
+        return this.bytesUsed;
+    }
+
+    /**
+     * Sets up an empty cache.
+     * @param budget How many bytes the layers of the diagrams kept may add up
+     * to. For example, 128 megabytes.
+     * @throws IllegalArgumentException If the budget is negative.
+     */
+    FrameCache(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget " + budget + " is negative");
+        }
+        this.budget = budget;
+    }
+
+}
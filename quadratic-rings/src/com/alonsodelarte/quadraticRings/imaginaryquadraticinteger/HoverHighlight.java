@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import static com.alonsodelarte.quadraticRings.constants.Display.HOVER_RING_GAP;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The numbers to ring on the diagram while the mouse pointer hovers over a
+ * number: the number itself, its conjugate, its associates and, if they're
+ * known, its prime factors. The rings are drawn on top of the diagram rather
+ * than into it, so that as the mouse moves, only the little rectangles around
+ * the old rings and the new rings need to be repainted.
+ * @author Alonso del Arte
+ */
+final class HoverHighlight {
+
+    /**
+     * The role of the number under the mouse pointer.
+     */
+    static final int HOVERED = 0;
+
+    /**
+     * The role of the conjugate and the associates.
+     */
+    static final int RELATIVE = 1;
+
+    /**
+     * The role of the prime factors.
+     */
+    static final int FACTOR = 2;
+
+    private final ImaginaryQuadraticInteger number;
+
+    private final List<long[]> points = new ArrayList<>();
+
+    /**
+     * Gets the number under the mouse pointer.
+     * @return The number given to the constructor.
+     */
+    ImaginaryQuadraticInteger getNumber() {
+        return this.number;
+    }
+
+    /**
+     * Tells how many lattice points are ringed.
+     * @return How many points. For example, 5 for 2 + <i>i</i> in
+     * <b>Z</b>[<i>i</i>]: 2 + <i>i</i> itself, its conjugate and its three
+     * other associates.
+     */
+    int size() {
+        return this.points.size();
+    }
+
+    /**
+     * Gets a ringed lattice point.
+     * @param index Which point, from 0 to size() &minus; 1. Point 0 is always
+     * the number under the mouse pointer.
+     * @return The x coordinate, the y coordinate and the role, in that order.
+     * The coordinates are as in {@link RegionClassification}.
+     */
+    long[] getPoint(int index) {
+        return this.points.get(index).clone();
+    }
+
+    private static long latticeX(ImaginaryQuadraticInteger num) {
+        return num.getRing().d1mod4 ? num.getTwiceRealPartMult() : num.getRealPartMult();
+    }
+
+    private static long latticeY(ImaginaryQuadraticInteger num) {
+        return num.getRing().d1mod4 ? num.getTwiceImagPartMult() : num.getImagPartMult();
+    }
+
+    private void add(long x, long y, int role) {
+        for (long[] point : this.points) {
+            if (point[0] == x && point[1] == y) {
+                return;
+            }
+        }
+        this.points.add(new long[]{x, y, role});
+    }
+
+    /**
+     * Paints the rings, for the diagram of a view.
+     * @param graphics The Graphics object to paint with.
+     * @param view The view the diagram is drawn for.
+     * @param dotRadius The radius of the dots of the diagram.
+     * @param roleColors The colors of the rings of the number under the mouse
+     * pointer, its relatives and its prime factors, in that order.
+     */
+    void paint(Graphics graphics, DiagramView view, int dotRadius, Color[] roleColors) {
+        int radius = dotRadius + HOVER_RING_GAP;
+        for (long[] point : this.points) {
+            graphics.setColor(roleColors[(int) point[2]]);
+            graphics.drawOval(view.pixelX(point[0]) - radius, view.pixelY(point[1]) - radius, 2 * radius, 2 * radius);
+        }
+    }
+
+    /**
+     * Gives the rectangles the rings take up on the canvas of a view, which
+     * are what needs to be repainted when the rings are drawn or erased.
+     * @param view The view the diagram is drawn for.
+     * @param dotRadius The radius of the dots of the diagram.
+     * @return One rectangle for each ring.
+     */
+    List<Rectangle> dirtyRectangles(DiagramView view, int dotRadius) {
+        int radius = dotRadius + HOVER_RING_GAP;
+        List<Rectangle> rectangles = new ArrayList<>(this.points.size());
+        for (long[] point : this.points) {
+            rectangles.add(new Rectangle(view.pixelX(point[0]) - radius - 1, view.pixelY(point[1]) - radius - 1, 2 * radius + 3, 2 * radius + 3));
+        }
+        return rectangles;
+    }
+
+    /**
+     * Works out which lattice points to ring for a number.
+     * @param number The number under the mouse pointer. For example, 2 +
+     * <i>i</i>.
+     * @param factors The prime factors of the number, as given by {@link
+     * NumberTheoreticFunctionsCalculator#primeFactors(ImaginaryQuadraticInteger)}.
+     * Units among them are skipped. May be null if the factors aren't known.
+     */
+    HoverHighlight(ImaginaryQuadraticInteger number, List<ImaginaryQuadraticInteger> factors) {
+        this.number = number;
+        long x = latticeX(number);
+        long y = latticeY(number);
+        this.add(x, y, HOVERED);
+        this.add(x, -y, RELATIVE);
+        this.add(-x, -y, RELATIVE);
+        switch (number.getRing().getNegRad()) {
+            case -1:
+                this.add(-y, x, RELATIVE);
+                this.add(y, -x, RELATIVE);
+                break;
+            case -3:
+                // Multiplying (x + y sqrt(-3))/2 by omega = (-1 + sqrt(-3))/2
+                long omegaX = (-x - 3 * y) / 2;
+                long omegaY = (x - y) / 2;
+                long omegaSquaredX = (-omegaX - 3 * omegaY) / 2;
+                long omegaSquaredY = (omegaX - omegaY) / 2;
+                this.add(omegaX, omegaY, RELATIVE);
+                this.add(-omegaX, -omegaY, RELATIVE);
+                this.add(omegaSquaredX, omegaSquaredY, RELATIVE);
+                this.add(-omegaSquaredX, -omegaSquaredY, RELATIVE);
+                break;
+            default:
+                break;
+        }
+        if (factors != null) {
+            for (ImaginaryQuadraticInteger factor : factors) {
+                if (factor.norm() > 1) {
+                    this.add(latticeX(factor), latticeY(factor), FACTOR);
+                }
+            }
+        }
+    }
+
+}
@@ -20,7 +20,8 @@ import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.Alg
 import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.NotDivisibleException;
 import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.UnsupportedNumberDomainException;
 import java.text.DecimalFormatSymbols;
-import java.util.Objects;
+
+import static com.alonsodelarte.quadraticRings.constants.ImaginaryQuadraticInteger.FLYWEIGHT_CACHE_BOUND;
 
 /**
  * The main class, defines objects representing imaginary quadratic integers. 
@@ -55,6 +56,10 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
  denominator should be 1.
      */
     protected final int denominator;
+    
+    private static final int FLYWEIGHT_TWICE_BOUND = 2 * FLYWEIGHT_CACHE_BOUND;
+    
+    private static final int FLYWEIGHT_TABLE_SIDE = 2 * FLYWEIGHT_TWICE_BOUND + 1;
 
     /**
      * Gives the algebraic degree of the algebraic integer. Should not be higher 
@@ -206,7 +211,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (this.imagPartMult == 0) {
             return this;
         } else {
-            return new ImaginaryQuadraticInteger(this.realPartMult, -this.imagPartMult, this.imagQuadRing, this.denominator);
+            return valueOf(this.realPartMult, -this.imagPartMult, this.imagQuadRing, this.denominator);
         }
     }
     
@@ -642,18 +647,23 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
      * when applicable), the discriminant and the denominator. However, if the 
      * imaginary part is 0, the purely real integer is treated as a Gaussian 
      * integer. This was done in the hope of satisfying the contract that two 
-     * objects that evaluate as equal also hash equal.
+     * objects that evaluate as equal also hash equal. The computation gives 
+     * the same result as <code>Objects.hash()</code> would on those four 
+     * numbers, but without allocating a varargs array or boxing the numbers.
      * @return An integer which is hopefully unique from the hash codes of 
      * algebraic integers which are different that might occur in the same 
      * execution of the program.
      */
     @Override
     public int hashCode() {
+        int hash = 31 + this.realPartMult;
+        hash = 31 * hash + this.imagPartMult;
         if (this.imagPartMult == 0) {
-            return Objects.hash(this.realPartMult, this.imagPartMult, -1, this.denominator);
+            hash = 31 * hash - 1;
         } else {
-            return Objects.hash(this.realPartMult, this.imagPartMult, this.imagQuadRing.negRad, this.denominator);
+            hash = 31 * hash + this.imagQuadRing.negRad;
         }
+        return 31 * hash + this.denominator;
     }
     
     /**
@@ -693,7 +703,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (this.imagPartMult == 0) {
             return true; // negRad might be different, but its square root multiplied by 0 is still 0
         }
-        return (this.imagQuadRing.negRad == other.imagQuadRing.negRad);
+        return (this.imagQuadRing == other.imagQuadRing || this.imagQuadRing.negRad == other.imagQuadRing.negRad);
     }
     
     /**
@@ -813,12 +823,12 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
     }
     
     private static ImaginaryQuadraticInteger parseIQI(ImaginaryQuadraticRing ring, String str) {
-        return new ImaginaryQuadraticInteger(0, 0, ring);
+        return valueOf(0, 0, ring);
     }
         
     public static ImaginaryQuadraticInteger parseImaginaryQuadraticInteger(ImaginaryQuadraticRing ring, String str) {
         if (str.length() == 0) {
-            return new ImaginaryQuadraticInteger(0, 0, ring);
+            return valueOf(0, 0, ring);
         }
         String parsingString = preprocessNumberString(str);
         int presumedD = ring.negRad;
@@ -851,7 +861,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
                 String exceptionMessage = currToken + " is not a valid ImaginaryQuadraticInteger starting character.";
                 throw new NumberFormatException(exceptionMessage);
         }
-        return new ImaginaryQuadraticInteger(0, 0, new ImaginaryQuadraticRing(-1));
+        return valueOf(0, 0, ImaginaryQuadraticRing.valueOf(-1));
     }
     
     /**
@@ -873,7 +883,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
      * not be the only parsing obstacle.
      */
     public static ImaginaryQuadraticInteger parseQuaterImaginary(String str) {
-        ImaginaryQuadraticRing ringGaussian = new ImaginaryQuadraticRing(-1);
+        ImaginaryQuadraticRing ringGaussian = ImaginaryQuadraticRing.valueOf(-1);
         ImaginaryQuadraticInteger base = new ImaginaryQuadraticInteger(0, 2, ringGaussian);
         ImaginaryQuadraticInteger currPower = new ImaginaryQuadraticInteger(1, 0, ringGaussian);
         ImaginaryQuadraticInteger currPowerMult;
@@ -958,7 +968,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (summand.imagPartMult == 0) {
             return this.plus(summand.realPartMult);
         }
-        if (this.imagQuadRing.negRad != summand.imagQuadRing.negRad) {
+        if (this.imagQuadRing != summand.imagQuadRing && this.imagQuadRing.negRad != summand.imagQuadRing.negRad) {
             throw new AlgebraicDegreeOverflowException("This operation would result in an algebraic integer of degree 4.", 2, this, summand);
         }
         long sumRealPart = 0;
@@ -991,7 +1001,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (sumImagPart < Integer.MIN_VALUE || sumImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of sum exceeds int data type:" + sumRealPart + " + " + sumImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) sumRealPart, (int) sumImagPart, this.imagQuadRing, sumDenom);
+        return valueOf((int) sumRealPart, (int) sumImagPart, this.imagQuadRing, sumDenom);
     }
     
     /**
@@ -1019,7 +1029,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (sumRealPart < Integer.MIN_VALUE || sumRealPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Real part of sum exceeds int data type:" + sumRealPart + " + " + this.imagPartMult + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) sumRealPart, this.imagPartMult, this.imagQuadRing, this.denominator);
+        return valueOf((int) sumRealPart, this.imagPartMult, this.imagQuadRing, this.denominator);
     }
 
     /**
@@ -1048,7 +1058,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (subtrahend.imagPartMult == 0) {
             return this.minus(subtrahend.realPartMult);
         }
-        if (this.imagQuadRing.negRad != subtrahend.imagQuadRing.negRad) {
+        if (this.imagQuadRing != subtrahend.imagQuadRing && this.imagQuadRing.negRad != subtrahend.imagQuadRing.negRad) {
             throw new AlgebraicDegreeOverflowException("This operation would result in an algebraic integer of degree 4.", 2, this, subtrahend);
         }
         long subtractionRealPart = 0;
@@ -1081,7 +1091,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (subtractionImagPart < Integer.MIN_VALUE || subtractionImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of subtraction exceeds int data type:" + subtractionRealPart + " + " + subtractionImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) subtractionRealPart, (int) subtractionImagPart, this.imagQuadRing, subtractionDenom);
+        return valueOf((int) subtractionRealPart, (int) subtractionImagPart, this.imagQuadRing, subtractionDenom);
     }
     
     /**
@@ -1109,7 +1119,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (subtractionRealPart < Integer.MIN_VALUE || subtractionRealPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Real part of subtraction exceeds int data type:" + subtractionRealPart + " + " + this.imagPartMult + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) subtractionRealPart, this.imagPartMult, this.imagQuadRing, this.denominator);
+        return valueOf((int) subtractionRealPart, this.imagPartMult, this.imagQuadRing, this.denominator);
 
     }
     
@@ -1135,7 +1145,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (multiplicand.imagPartMult == 0) {
             return this.times(multiplicand.realPartMult);
         }
-        if (this.imagQuadRing.negRad != multiplicand.imagQuadRing.negRad) {
+        if (this.imagQuadRing != multiplicand.imagQuadRing && this.imagQuadRing.negRad != multiplicand.imagQuadRing.negRad) {
             if (this.realPartMult == 0 && multiplicand.realPartMult == 0) {
                 String exceptionMessage = "This operation would result in " + ((-1) * this.imagPartMult * multiplicand.imagPartMult) + "sqrt(" + (this.imagQuadRing.negRad * multiplicand.imagQuadRing.negRad) + "), a real quadratic integer which this package can't properly represent.";
                 throw new UnsupportedNumberDomainException(exceptionMessage, this, multiplicand);
@@ -1161,7 +1171,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (intermediateImagPart < Integer.MIN_VALUE || intermediateImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of product exceeds int data type:" + intermediateRealPart + " + " + intermediateImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, intermediateDenom);
+        return valueOf((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, intermediateDenom);
     }
     
     /**
@@ -1188,7 +1198,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (multiplicationImagPart < Integer.MIN_VALUE || multiplicationImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of product exceeds int data type:" + multiplicationRealPart + " + " + multiplicationImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) multiplicationRealPart, (int) multiplicationImagPart, this.imagQuadRing, this.denominator);
+        return valueOf((int) multiplicationRealPart, (int) multiplicationImagPart, this.imagQuadRing, this.denominator);
     }
    
     /**
@@ -1210,7 +1220,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
      * data type.
      */
     public ImaginaryQuadraticInteger divides(ImaginaryQuadraticInteger divisor) throws NotDivisibleException {
-        if (((this.imagPartMult != 0) && (divisor.imagPartMult != 0)) && (this.imagQuadRing.negRad != divisor.imagQuadRing.negRad)) {
+        if (((this.imagPartMult != 0) && (divisor.imagPartMult != 0)) && (this.imagQuadRing != divisor.imagQuadRing) && (this.imagQuadRing.negRad != divisor.imagQuadRing.negRad)) {
             if ((this.realPartMult == 0) && (divisor.realPartMult == 0)) {
                 throw new UnsupportedNumberDomainException("This operation could result in an algebraic integer in a real quadratic integer ring, which is not currently supported by this package.", this, divisor);
             } else {
@@ -1253,7 +1263,7 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (intermediateImagPart < Integer.MIN_VALUE || intermediateImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of division exceeds int data type:" + intermediateRealPart + " + " + intermediateImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, (int) intermediateDenom);
+        return valueOf((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, (int) intermediateDenom);
     }
     
     /**
@@ -1316,7 +1326,81 @@ public class ImaginaryQuadraticInteger implements AlgebraicInteger {
         if (intermediateImagPart < Integer.MIN_VALUE || intermediateImagPart > Integer.MAX_VALUE) {
             throw new ArithmeticException("Imaginary part of division exceeds int data type:" + intermediateRealPart + " + " + intermediateImagPart + "sqrt(" + this.imagQuadRing.negRad + ")");
         }
-        return new ImaginaryQuadraticInteger((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, (int) intermediateDenom);
+        return valueOf((int) intermediateRealPart, (int) intermediateImagPart, this.imagQuadRing, (int) intermediateDenom);
+    }
+    
+    /**
+     * Gives an imaginary quadratic integer with the specified parts, reusing a 
+     * cached object if the parts are small. Since ImaginaryQuadraticInteger 
+     * objects are immutable, there is no harm in handing out the same object 
+     * for, say, 1 + <i>i</i> every time it's needed. Each ring has its own 
+     * flyweight table, covering real and imaginary parts of absolute value up 
+     * to {@link 
+     * com.alonsodelarte.quadraticRings.constants.ImaginaryQuadraticInteger#FLYWEIGHT_CACHE_BOUND}. 
+     * Outside that box, this is the same as calling the constructor.
+     * @param a The real part, multiplied by 2 when applicable. For example, 
+     * for 5/2 + (&radic;-3)/2, this parameter would be 5.
+     * @param b The part to be multiplied by &radic;<i>d</i>, multiplied by 2 
+     * when applicable. For example, for 5/2 + (&radic;-3)/2, this parameter 
+     * would be 1.
+     * @param R The ring to which the algebraic integer belongs. Ideally this 
+     * was obtained from {@link ImaginaryQuadraticRing#valueOf(int)}, so that 
+     * all callers share one flyweight table.
+     * @param denom 1 or 2, with the same meaning and normalizations as for the 
+     * {@link #ImaginaryQuadraticInteger(int, int, ImaginaryQuadraticRing, int) 
+     * primary constructor}.
+     * @return An ImaginaryQuadraticInteger object, not necessarily a new one.
+     * @throws IllegalArgumentException In the same cases in which the primary 
+     * constructor would throw it.
+     */
+    public static ImaginaryQuadraticInteger valueOf(int a, int b, ImaginaryQuadraticRing R, int denom) {
+        long twiceA, twiceB;
+        switch (denom) {
+            case 1:
+                twiceA = 2L * a;
+                twiceB = 2L * b;
+                break;
+            case 2:
+                twiceA = a;
+                twiceB = b;
+                break;
+            case -1:
+                twiceA = -2L * a;
+                twiceB = -2L * b;
+                break;
+            case -2:
+                twiceA = -(long) a;
+                twiceB = -(long) b;
+                break;
+            default:
+                return new ImaginaryQuadraticInteger(a, b, R, denom);
+        }
+        if (Math.abs(twiceA) > FLYWEIGHT_TWICE_BOUND || Math.abs(twiceB) > FLYWEIGHT_TWICE_BOUND || ((twiceA ^ twiceB) & 1) != 0 || ((twiceA & 1) == 1 && !R.d1mod4)) {
+            return new ImaginaryQuadraticInteger(a, b, R, denom);
+        }
+        int index = (int) (twiceA + FLYWEIGHT_TWICE_BOUND) * FLYWEIGHT_TABLE_SIDE + (int) (twiceB + FLYWEIGHT_TWICE_BOUND);
+        ImaginaryQuadraticInteger[] table = R.getFlyweightTable(FLYWEIGHT_TABLE_SIDE * FLYWEIGHT_TABLE_SIDE);
+        ImaginaryQuadraticInteger flyweight = table[index];
+        if (flyweight == null) {
+            flyweight = new ImaginaryQuadraticInteger((int) twiceA, (int) twiceB, R, 2);
+            table[index] = flyweight;
+        }
+        return flyweight;
+    }
+    
+    /**
+     * Gives an imaginary quadratic integer with the specified parts, reusing a 
+     * cached object if the parts are small. Same as {@link #valueOf(int, int, 
+     * ImaginaryQuadraticRing, int)} with denom 1.
+     * @param a The real part. For example, for 5 + &radic;-3, this parameter 
+     * would be 5.
+     * @param b The part to be multiplied by &radic;<i>d</i>. For example, for 5 
+     * + &radic;-3, this parameter would be 1.
+     * @param R The ring to which the algebraic integer belongs.
+     * @return An ImaginaryQuadraticInteger object, not necessarily a new one.
+     */
+    public static ImaginaryQuadraticInteger valueOf(int a, int b, ImaginaryQuadraticRing R) {
+        return valueOf(a, b, R, 1);
     }
     
     /**
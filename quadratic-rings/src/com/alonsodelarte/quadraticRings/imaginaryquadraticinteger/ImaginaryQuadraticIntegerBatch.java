@@ -0,0 +1,596 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A batch of imaginary quadratic integers from a single ring, stored
+ * column-wise. Instead of a list of objects, each with its own header and its
+ * own ring reference, the real parts, imaginary parts and denominators are held
+ * in three parallel primitive arrays. The values in those arrays are what
+ * {@link ImaginaryQuadraticInteger#getRealPartMult()}, {@link
+ * ImaginaryQuadraticInteger#getImagPartMult()} and {@link
+ * ImaginaryQuadraticInteger#getDenominator()} would give.
+ * <p>The bulk functions (norms, traces, conjugates, products) are written as
+ * simple counted loops over the arrays without branches in the loop bodies, so
+ * that the JIT compiler can vectorize them. Batches of at least {@link
+ * #PARALLEL_THRESHOLD} numbers are split into chunks that are processed in the
+ * common fork-join pool.</p>
+ * <p>This class is not thread-safe. Don't add numbers to a batch while a bulk
+ * function is working on it.</p>
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerBatch {
+
+    /**
+     * Batches with at least this many numbers are processed in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * The size of the chunks a batch is split into for parallel processing.
+     */
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final ImaginaryQuadraticRing ring;
+
+    private int[] realParts;
+    private int[] imagParts;
+    private byte[] denominators;
+    private int size;
+
+    /**
+     * The largest absolute value of any real or imaginary part in the batch.
+     * This is used to decide whether the bulk functions can skip overflow
+     * checking.
+     */
+    private long maxAbsPart;
+
+    /**
+     * The largest value of maxAbsPart for which norms can be computed without
+     * overflow checking.
+     */
+    private final long normSafetyLimit;
+
+    private interface RangeKernel {
+        void apply(int from, int to);
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 4547995107428419073L;
+
+        private final RangeKernel kernel;
+        private final int from, to;
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= CHUNK_SIZE) {
+                this.kernel.apply(this.from, this.to);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask(this.kernel, this.from, middle), new ChunkTask(this.kernel, middle, this.to));
+            }
+        }
+
+        ChunkTask(RangeKernel kernel, int from, int to) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+        }
+
+    }
+
+    private void run(RangeKernel kernel) {
+        if (this.size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new ChunkTask(kernel, 0, this.size));
+        } else {
+            kernel.apply(0, this.size);
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > this.realParts.length) {
+            int newCapacity = Math.max(minCapacity, this.realParts.length + (this.realParts.length >> 1) + 1);
+            this.realParts = Arrays.copyOf(this.realParts, newCapacity);
+            this.imagParts = Arrays.copyOf(this.imagParts, newCapacity);
+            this.denominators = Arrays.copyOf(this.denominators, newCapacity);
+        }
+    }
+
+    private void append(int a, int b, int denom) {
+        this.ensureCapacity(this.size + 1);
+        this.realParts[this.size] = a;
+        this.imagParts[this.size] = b;
+        this.denominators[this.size] = (byte) denom;
+        this.size++;
+        long absPart = Math.max(Math.abs((long) a), Math.abs((long) b));
+        if (absPart > this.maxAbsPart) {
+            this.maxAbsPart = absPart;
+        }
+    }
+
+    private void recomputeMaxAbsPart() {
+        long max = 0;
+        for (int i = 0; i < this.size; i++) {
+            max = Math.max(max, Math.max(Math.abs((long) this.realParts[i]), Math.abs((long) this.imagParts[i])));
+        }
+        this.maxAbsPart = max;
+    }
+
+    /**
+     * Gets the ring that all the numbers in this batch belong to.
+     * @return The ring. For example, <b>Z</b>[&radic;-2].
+     */
+    public ImaginaryQuadraticRing getRing() {
+        return this.ring;
+    }
+
+    /**
+     * Gets how many numbers are in this batch.
+     * @return The number of numbers. May be 0.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a number to the end of this batch.
+     * @param num The number to add. For example, 1 + &radic;-2.
+     * @throws IllegalArgumentException If num is from a ring other than the
+     * ring of this batch.
+     */
+    public void add(ImaginaryQuadraticInteger num) {
+        if (!num.imagQuadRing.equals(this.ring)) {
+            throw new IllegalArgumentException("Number " + num.toASCIIString() + " is not from " + this.ring.toASCIIString() + ".");
+        }
+        this.append(num.realPartMult, num.imagPartMult, num.denominator);
+    }
+
+    /**
+     * Adds a number to the end of this batch, specified by its parts. The
+     * parameters have the same meaning as those of the primary {@link
+     * ImaginaryQuadraticInteger} constructor, and are normalized the same way.
+     * @param a The real part, multiplied by 2 when applicable.
+     * @param b The part to be multiplied by &radic;<i>d</i>, multiplied by 2
+     * when applicable.
+     * @param denom 1 or 2, or -1 or -2.
+     * @throws IllegalArgumentException In the same cases in which the
+     * ImaginaryQuadraticInteger constructor would throw it.
+     */
+    public void add(int a, int b, int denom) {
+        if (denom == -1 || denom == -2) {
+            a *= -1;
+            b *= -1;
+            denom *= -1;
+        }
+        if (denom < 1 || denom > 2) {
+            throw new IllegalArgumentException("Parameter denom must be 1 or 2.");
+        }
+        if (denom == 2) {
+            if (Math.abs(a % 2) != Math.abs(b % 2)) {
+                throw new IllegalArgumentException("Parity of parameter a must match parity of parameter b.");
+            }
+            if (a % 2 == 0) {
+                a /= 2;
+                b /= 2;
+                denom = 1;
+            } else if (!this.ring.d1mod4) {
+                throw new IllegalArgumentException("Either parameter a and parameter b need to both be even, or parameter denom needs to be 1.");
+            }
+        }
+        this.append(a, b, denom);
+    }
+
+    /**
+     * Adds all the numbers of a list to the end of this batch.
+     * @param nums The numbers to add. They must all be from the ring of this
+     * batch.
+     * @throws IllegalArgumentException If any of the numbers is from a ring
+     * other than the ring of this batch. The numbers preceding it in the list
+     * will have been added.
+     */
+    public void addAll(List<ImaginaryQuadraticInteger> nums) {
+        this.ensureCapacity(this.size + nums.size());
+        for (ImaginaryQuadraticInteger num : nums) {
+            this.add(num);
+        }
+    }
+
+    /**
+     * Retrieves one number from this batch as an object.
+     * @param index The position of the number, counting from 0.
+     * @return A new ImaginaryQuadraticInteger object.
+     * @throws IndexOutOfBoundsException If index is negative or not less than
+     * the size of this batch.
+     */
+    public ImaginaryQuadraticInteger get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for batch of size " + this.size + ".");
+        }
+        return new ImaginaryQuadraticInteger(this.realParts[index], this.imagParts[index], this.ring, this.denominators[index]);
+    }
+
+    /**
+     * Gets the real part of one number in this batch, multiplied by 2 when the
+     * denominator is 2.
+     * @param index The position of the number, counting from 0.
+     * @return The real part.
+     * @throws ArrayIndexOutOfBoundsException If index is negative or not less
+     * than the capacity of this batch.
+     */
+    public int getRealPartMult(int index) {
+        return this.realParts[index];
+    }
+
+    /**
+     * Gets the imaginary part of one number in this batch divided by
+     * &radic;<i>d</i>, multiplied by 2 when the denominator is 2.
+     * @param index The position of the number, counting from 0.
+     * @return The imaginary part.
+     * @throws ArrayIndexOutOfBoundsException If index is negative or not less
+     * than the capacity of this batch.
+     */
+    public int getImagPartMult(int index) {
+        return this.imagParts[index];
+    }
+
+    /**
+     * Gets the denominator of one number in this batch.
+     * @param index The position of the number, counting from 0.
+     * @return 1 or 2.
+     * @throws ArrayIndexOutOfBoundsException If index is negative or not less
+     * than the capacity of this batch.
+     */
+    public int getDenominator(int index) {
+        return this.denominators[index];
+    }
+
+    /**
+     * Converts this batch to a list of objects.
+     * @return A new list of new ImaginaryQuadraticInteger objects, in the same
+     * order as in this batch.
+     */
+    public List<ImaginaryQuadraticInteger> toList() {
+        List<ImaginaryQuadraticInteger> nums = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            nums.add(new ImaginaryQuadraticInteger(this.realParts[i], this.imagParts[i], this.ring, this.denominators[i]));
+        }
+        return nums;
+    }
+
+    /**
+     * Calculates the norms of all the numbers in this batch. Unlike {@link
+     * ImaginaryQuadraticInteger#norm()}, the computation is done with 64-bit
+     * variables.
+     * @return An array with the norms, in the same order as the numbers in
+     * this batch.
+     * @throws ArithmeticException If any of the norms exceeds the range of
+     * long.
+     */
+    public long[] norms() {
+        final long[] results = new long[this.size];
+        final int[] a = this.realParts;
+        final int[] b = this.imagParts;
+        final byte[] denoms = this.denominators;
+        final long absD = this.ring.absNegRad;
+        if (this.maxAbsPart <= this.normSafetyLimit) {
+            this.run(new RangeKernel() {
+                @Override
+                public void apply(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        long re = a[i];
+                        long im = b[i];
+                        results[i] = (re * re + absD * im * im) >> (denoms[i] & 2);
+                    }
+                }
+            });
+        } else {
+            this.run(new RangeKernel() {
+                @Override
+                public void apply(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        long re = a[i];
+                        long im = b[i];
+                        results[i] = Math.addExact(re * re, Math.multiplyExact(im * im, absD)) >> (denoms[i] & 2);
+                    }
+                }
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Calculates the traces of all the numbers in this batch.
+     * @return An array with the traces, in the same order as the numbers in
+     * this batch.
+     */
+    public long[] traces() {
+        final long[] results = new long[this.size];
+        final int[] a = this.realParts;
+        final byte[] denoms = this.denominators;
+        this.run(new RangeKernel() {
+            @Override
+            public void apply(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    results[i] = ((long) a[i]) << (2 - denoms[i]);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Computes the conjugates of all the numbers in this batch.
+     * @return A new batch with the conjugates, in the same order as the numbers
+     * in this batch.
+     */
+    public ImaginaryQuadraticIntegerBatch conjugates() {
+        final ImaginaryQuadraticIntegerBatch results = new ImaginaryQuadraticIntegerBatch(this.ring, this.size);
+        final int[] b = this.imagParts;
+        final int[] conjImagParts = results.imagParts;
+        System.arraycopy(this.realParts, 0, results.realParts, 0, this.size);
+        System.arraycopy(this.denominators, 0, results.denominators, 0, this.size);
+        this.run(new RangeKernel() {
+            @Override
+            public void apply(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    conjImagParts[i] = -b[i];
+                }
+            }
+        });
+        results.size = this.size;
+        results.maxAbsPart = this.maxAbsPart;
+        return results;
+    }
+
+    /**
+     * Stores a product given as twice its real and imaginary parts, halving
+     * both if they're both even, with no branches.
+     * @return Nonzero if the real or imaginary part exceeds the range of int.
+     */
+    private static long storeProduct(long twiceRe, long twiceIm, int i, int[] prodRe, int[] prodIm, byte[] prodDenoms) {
+        int evenShift = (int) (~twiceRe & 1);
+        long re = twiceRe >> evenShift;
+        long im = twiceIm >> evenShift;
+        prodRe[i] = (int) re;
+        prodIm[i] = (int) im;
+        prodDenoms[i] = (byte) (2 - evenShift);
+        return (re - (int) re) | (im - (int) im);
+    }
+
+    /**
+     * Multiplies the numbers of this batch by the numbers of another batch,
+     * elementwise.
+     * @param multiplicands The batch to multiply by. It must be of the same
+     * size and from the same ring as this batch.
+     * @return A new batch with the products. The number at position <i>i</i> is
+     * the product of the numbers at position <i>i</i> in this batch and in
+     * multiplicands.
+     * @throws IllegalArgumentException If multiplicands is of a different size
+     * or from a different ring.
+     * @throws ArithmeticException If any real or imaginary part of any product
+     * exceeds the range of int.
+     */
+    public ImaginaryQuadraticIntegerBatch times(ImaginaryQuadraticIntegerBatch multiplicands) {
+        if (!this.ring.equals(multiplicands.ring)) {
+            throw new IllegalArgumentException("Can't multiply batches from " + this.ring.toASCIIString() + " and " + multiplicands.ring.toASCIIString() + ".");
+        }
+        if (this.size != multiplicands.size) {
+            throw new IllegalArgumentException("Can't multiply batch of size " + this.size + " by batch of size " + multiplicands.size + ".");
+        }
+        final ImaginaryQuadraticIntegerBatch results = new ImaginaryQuadraticIntegerBatch(this.ring, this.size);
+        final int[] a = this.realParts;
+        final int[] b = this.imagParts;
+        final byte[] ab = this.denominators;
+        final int[] c = multiplicands.realParts;
+        final int[] d = multiplicands.imagParts;
+        final byte[] cd = multiplicands.denominators;
+        final int[] prodRe = results.realParts;
+        final int[] prodIm = results.imagParts;
+        final byte[] prodDenoms = results.denominators;
+        final long absD = this.ring.absNegRad;
+        final boolean unchecked = Math.max(this.maxAbsPart, multiplicands.maxAbsPart) <= this.normSafetyLimit / 2;
+        if (unchecked) {
+            this.run(new RangeKernel() {
+                @Override
+                public void apply(int from, int to) {
+                    long outOfRange = 0;
+                    for (int i = from; i < to; i++) {
+                        long twiceA = ((long) a[i]) << (2 - ab[i]);
+                        long twiceB = ((long) b[i]) << (2 - ab[i]);
+                        long twiceC = ((long) c[i]) << (2 - cd[i]);
+                        long twiceD = ((long) d[i]) << (2 - cd[i]);
+                        long twiceRe = (twiceA * twiceC - absD * twiceB * twiceD) / 2;
+                        long twiceIm = (twiceA * twiceD + twiceB * twiceC) / 2;
+                        outOfRange |= storeProduct(twiceRe, twiceIm, i, prodRe, prodIm, prodDenoms);
+                    }
+                    if (outOfRange != 0) {
+                        throw new ArithmeticException("Batch multiplication results in a part that exceeds the range of int.");
+                    }
+                }
+            });
+        } else {
+            this.run(new RangeKernel() {
+                @Override
+                public void apply(int from, int to) {
+                    long outOfRange = 0;
+                    for (int i = from; i < to; i++) {
+                        long twiceA = ((long) a[i]) << (2 - ab[i]);
+                        long twiceB = ((long) b[i]) << (2 - ab[i]);
+                        long twiceC = ((long) c[i]) << (2 - cd[i]);
+                        long twiceD = ((long) d[i]) << (2 - cd[i]);
+                        long twiceRe = Math.subtractExact(Math.multiplyExact(twiceA, twiceC), Math.multiplyExact(Math.multiplyExact(twiceB, twiceD), absD)) / 2;
+                        long twiceIm = Math.addExact(Math.multiplyExact(twiceA, twiceD), Math.multiplyExact(twiceB, twiceC)) / 2;
+                        outOfRange |= storeProduct(twiceRe, twiceIm, i, prodRe, prodIm, prodDenoms);
+                    }
+                    if (outOfRange != 0) {
+                        throw new ArithmeticException("Batch multiplication results in a part that exceeds the range of int.");
+                    }
+                }
+            });
+        }
+        results.size = this.size;
+        results.recomputeMaxAbsPart();
+        return results;
+    }
+
+    /**
+     * Selects the numbers of this batch that are prime, according to {@link
+     * NumberTheoreticFunctionsCalculator#isPrime(int, int, int,
+     * ImaginaryQuadraticRing)}.
+     * @return A new batch with the prime numbers, in the same order as they
+     * occur in this batch. May be empty.
+     */
+    public ImaginaryQuadraticIntegerBatch filterPrimes() {
+        final boolean[] flags = new boolean[this.size];
+        final int[] a = this.realParts;
+        final int[] b = this.imagParts;
+        final byte[] denoms = this.denominators;
+        final ImaginaryQuadraticRing R = this.ring;
+        this.run(new RangeKernel() {
+            @Override
+            public void apply(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    flags[i] = NumberTheoreticFunctionsCalculator.isPrime(a[i], b[i], denoms[i], R);
+                }
+            }
+        });
+        ImaginaryQuadraticIntegerBatch results = new ImaginaryQuadraticIntegerBatch(this.ring);
+        for (int i = 0; i < this.size; i++) {
+            if (flags[i]) {
+                results.append(this.realParts[i], this.imagParts[i], this.denominators[i]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sorts this batch in place, in ascending order by norm. Numbers of the
+     * same norm are ordered by real part and then by imaginary part, the same
+     * as {@link PackedImaginaryQuadraticInteger#compare(long, long,
+     * ImaginaryQuadraticRing)}. The sort is a merge sort on primitive arrays,
+     * so it takes O(<i>n</i> log <i>n</i>) time, unlike {@link
+     * NumberTheoreticFunctionsCalculator#sortListIQIByNorm(java.util.List)}.
+     * @throws ArithmeticException If any of the norms exceeds the range of
+     * long.
+     */
+    public void sortByNorm() {
+        long[] norms = this.norms();
+        int[] order = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            order[i] = i;
+        }
+        int[] scratch = new int[this.size];
+        for (int width = 1; width < this.size; width *= 2) {
+            for (int left = 0; left < this.size - width; left += 2 * width) {
+                int middle = left + width;
+                int right = Math.min(left + 2 * width, this.size);
+                int i = left, j = middle, k = left;
+                while (i < middle && j < right) {
+                    if (this.compareAt(order[j], order[i], norms) < 0) {
+                        scratch[k++] = order[j++];
+                    } else {
+                        scratch[k++] = order[i++];
+                    }
+                }
+                while (i < middle) {
+                    scratch[k++] = order[i++];
+                }
+                while (j < right) {
+                    scratch[k++] = order[j++];
+                }
+                System.arraycopy(scratch, left, order, left, right - left);
+            }
+        }
+        int[] sortedRe = new int[this.realParts.length];
+        int[] sortedIm = new int[this.imagParts.length];
+        byte[] sortedDenoms = new byte[this.denominators.length];
+        for (int i = 0; i < this.size; i++) {
+            sortedRe[i] = this.realParts[order[i]];
+            sortedIm[i] = this.imagParts[order[i]];
+            sortedDenoms[i] = this.denominators[order[i]];
+        }
+        this.realParts = sortedRe;
+        this.imagParts = sortedIm;
+        this.denominators = sortedDenoms;
+    }
+
+    private int compareAt(int indexA, int indexB, long[] norms) {
+        int comparison = Long.compare(norms[indexA], norms[indexB]);
+        if (comparison == 0) {
+            comparison = Long.compare(((long) this.realParts[indexA]) << (2 - this.denominators[indexA]), ((long) this.realParts[indexB]) << (2 - this.denominators[indexB]));
+        }
+        if (comparison == 0) {
+            comparison = Long.compare(((long) this.imagParts[indexA]) << (2 - this.denominators[indexA]), ((long) this.imagParts[indexB]) << (2 - this.denominators[indexB]));
+        }
+        return comparison;
+    }
+
+    /**
+     * Creates a batch from a list of imaginary quadratic integers.
+     * @param nums The list. It must not be empty, and all the numbers in it
+     * must be from the same ring.
+     * @return A new batch with the numbers of the list, in the same order.
+     * @throws IllegalArgumentException If the list is empty or has numbers from
+     * different rings.
+     */
+    public static ImaginaryQuadraticIntegerBatch fromList(List<ImaginaryQuadraticInteger> nums) {
+        if (nums.isEmpty()) {
+            throw new IllegalArgumentException("Can't infer ring from empty list.");
+        }
+        ImaginaryQuadraticIntegerBatch batch = new ImaginaryQuadraticIntegerBatch(nums.get(0).imagQuadRing, nums.size());
+        batch.addAll(nums);
+        return batch;
+    }
+
+    /**
+     * Creates an empty batch with a default initial capacity.
+     * @param R The ring for the numbers in this batch.
+     */
+    public ImaginaryQuadraticIntegerBatch(ImaginaryQuadraticRing R) {
+        this(R, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty batch with the specified initial capacity. The batch
+     * grows as needed, but specifying an adequate capacity avoids copying.
+     * @param R The ring for the numbers in this batch.
+     * @param initialCapacity How many numbers the batch should have room for.
+     * @throws IllegalArgumentException If initialCapacity is negative.
+     */
+    public ImaginaryQuadraticIntegerBatch(ImaginaryQuadraticRing R, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity " + initialCapacity + " is negative.");
+        }
+        this.ring = R;
+        this.realParts = new int[initialCapacity];
+        this.imagParts = new int[initialCapacity];
+        this.denominators = new byte[initialCapacity];
+        this.size = 0;
+        this.maxAbsPart = 0;
+        this.normSafetyLimit = (long) Math.sqrt((double) Long.MAX_VALUE / (R.absNegRad + 1)) - 1;
+    }
+
+}
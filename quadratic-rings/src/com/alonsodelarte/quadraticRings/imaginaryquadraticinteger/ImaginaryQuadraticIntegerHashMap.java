@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.Arrays;
+
+/**
+ * A map from imaginary quadratic integers of a single ring to values of some
+ * other type. The keys are held as packed longs (see {@link
+ * PackedImaginaryQuadraticInteger}) in one array and the values in a parallel
+ * array, with open addressing and linear probing, the same way as in {@link
+ * ImaginaryQuadraticIntegerHashSet}. Looking up a packed key allocates nothing.
+ * <p>Null values are not allowed, so that a null from {@link #get(long)}
+ * unambiguously means the key is not in the map. This class is not
+ * thread-safe.</p>
+ * @param <V> The type of the values. For example, a list of factors.
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerHashMap<V> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private static final long EMPTY = PackedImaginaryQuadraticInteger.INVALID;
+
+    private final ImaginaryQuadraticRing ring;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / ImaginaryQuadraticIntegerHashSet.MAXIMUM_LOAD_FACTOR) + 1;
+        if (needed > ImaginaryQuadraticIntegerHashSet.MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Can't hold " + expectedSize + " entries in a table of at most " + ImaginaryQuadraticIntegerHashSet.MAXIMUM_CAPACITY + " slots.");
+        }
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * ImaginaryQuadraticIntegerHashSet.MAXIMUM_LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = (int) PackedImaginaryQuadraticInteger.hash(oldKeys[i]) & this.mask;
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Makes sure the map can hold the specified number of entries without
+     * rehashing. Calling this before putting in a large number of entries
+     * avoids rehashing repeatedly.
+     * @param expectedSize How many entries the map is expected to hold.
+     * @throws IllegalStateException If expectedSize is too large.
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > this.resizeThreshold) {
+            this.rehash(capacityFor(expectedSize));
+        }
+    }
+
+    private boolean isKeyFromRing(ImaginaryQuadraticInteger num) {
+        return num.imagPartMult == 0 || num.imagQuadRing.equals(this.ring);
+    }
+
+    private int slotOf(long packed) {
+        int slot = (int) PackedImaginaryQuadraticInteger.hash(packed) & this.mask;
+        long key;
+        while ((key = this.keys[slot]) != EMPTY) {
+            if (key == packed) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the ring that all the keys in this map belong to.
+     * @return The ring. For example, <b>Z</b>[<i>i</i>].
+     */
+    public ImaginaryQuadraticRing getRing() {
+        return this.ring;
+    }
+
+    /**
+     * Gets how many entries are in this map.
+     * @return The number of entries. May be 0.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Tells whether this map is empty.
+     * @return True if there are no entries in this map, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Associates a value with a packed key, replacing any value previously
+     * associated with it.
+     * @param packed The packed key. It should be valid for the ring of this
+     * map; this is not checked.
+     * @param value The value. Must not be null.
+     * @return The value previously associated with the key, or null if there
+     * wasn't one.
+     * @throws IllegalArgumentException If packed is {@link
+     * PackedImaginaryQuadraticInteger#INVALID}.
+     * @throws NullPointerException If value is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long packed, V value) {
+        if (packed == EMPTY) {
+            throw new IllegalArgumentException("Can't use invalid packed value as key.");
+        }
+        if (value == null) {
+            throw new NullPointerException("Null values are not allowed.");
+        }
+        if (this.size >= this.resizeThreshold) {
+            this.ensureCapacity(this.size + 1);
+        }
+        int slot = (int) PackedImaginaryQuadraticInteger.hash(packed) & this.mask;
+        long key;
+        while ((key = this.keys[slot]) != EMPTY) {
+            if (key == packed) {
+                V previous = (V) this.values[slot];
+                this.values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = packed;
+        this.values[slot] = value;
+        this.size++;
+        return null;
+    }
+
+    /**
+     * Associates a value with a number, replacing any value previously
+     * associated with it.
+     * @param num The key. For example, 1 + <i>i</i>.
+     * @param value The value. Must not be null.
+     * @return The value previously associated with the key, or null if there
+     * wasn't one.
+     * @throws IllegalArgumentException If num is not purely real and is from a
+     * ring other than the ring of this map.
+     * @throws NullPointerException If value is null.
+     */
+    public V put(ImaginaryQuadraticInteger num, V value) {
+        if (!this.isKeyFromRing(num)) {
+            throw new IllegalArgumentException("Number " + num.toASCIIString() + " is not from " + this.ring.toASCIIString() + ".");
+        }
+        return this.put(PackedImaginaryQuadraticInteger.pack(num), value);
+    }
+
+    /**
+     * Associates values with packed keys in bulk. The table is grown once up
+     * front, not repeatedly as the entries are put in.
+     * @param packed The packed keys.
+     * @param values The values, in the same order as the keys.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     */
+    public void putAll(long[] packed, V[] values) {
+        if (packed.length != values.length) {
+            throw new IllegalArgumentException("There are " + packed.length + " keys but " + values.length + " values.");
+        }
+        this.ensureCapacity(this.size + packed.length);
+        for (int i = 0; i < packed.length; i++) {
+            this.put(packed[i], values[i]);
+        }
+    }
+
+    /**
+     * Gets the value associated with a packed key. This allocates nothing.
+     * @param packed The packed key.
+     * @return The value, or null if the key is not in this map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long packed) {
+        if (packed == EMPTY) {
+            return null;
+        }
+        int slot = this.slotOf(packed);
+        return (slot < 0) ? null : (V) this.values[slot];
+    }
+
+    /**
+     * Gets the value associated with a number.
+     * @param num The key. For example, 1 + <i>i</i>.
+     * @return The value, or null if the key is not in this map.
+     */
+    public V get(ImaginaryQuadraticInteger num) {
+        if (!this.isKeyFromRing(num)) {
+            return null;
+        }
+        return this.get(PackedImaginaryQuadraticInteger.pack(num));
+    }
+
+    /**
+     * Tells whether a packed key is in this map.
+     * @param packed The packed key.
+     * @return True if the key is in this map, false otherwise.
+     */
+    public boolean containsKey(long packed) {
+        return packed != EMPTY && this.slotOf(packed) >= 0;
+    }
+
+    /**
+     * Tells whether a number is a key in this map.
+     * @param num The number. For example, 1 + <i>i</i>.
+     * @return True if the number is a key in this map, false otherwise.
+     */
+    public boolean containsKey(ImaginaryQuadraticInteger num) {
+        return this.isKeyFromRing(num) && this.containsKey(PackedImaginaryQuadraticInteger.pack(num));
+    }
+
+    /**
+     * Removes the entry for a packed key. The following entries of the probe
+     * sequence are shifted back, so that no tombstones are left behind.
+     * @param packed The packed key.
+     * @return The value that was associated with the key, or null if the key
+     * was not in this map.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long packed) {
+        if (packed == EMPTY) {
+            return null;
+        }
+        int slot = this.slotOf(packed);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = (V) this.values[slot];
+        int next = slot;
+        while (true) {
+            next = (next + 1) & this.mask;
+            long key = this.keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = (int) PackedImaginaryQuadraticInteger.hash(key) & this.mask;
+            if (((next - home) & this.mask) >= ((next - slot) & this.mask)) {
+                this.keys[slot] = key;
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+        this.keys[slot] = EMPTY;
+        this.values[slot] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Removes the entry for a number.
+     * @param num The key. For example, 1 + <i>i</i>.
+     * @return The value that was associated with the key, or null if the key
+     * was not in this map.
+     */
+    public V remove(ImaginaryQuadraticInteger num) {
+        if (!this.isKeyFromRing(num)) {
+            return null;
+        }
+        return this.remove(PackedImaginaryQuadraticInteger.pack(num));
+    }
+
+    /**
+     * Removes all the entries from this map. The capacity is not reduced.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Gives the keys in this map as packed longs.
+     * @return A new array of packed keys, in no particular order.
+     */
+    public long[] keysToPackedArray() {
+        long[] result = new long[this.size];
+        int index = 0;
+        for (long key : this.keys) {
+            if (key != EMPTY) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates an empty map with a small default capacity.
+     * @param R The ring for the keys of this map.
+     */
+    public ImaginaryQuadraticIntegerHashMap(ImaginaryQuadraticRing R) {
+        this(R, 0);
+    }
+
+    /**
+     * Creates an empty map with room for the expected number of entries. The
+     * map grows as needed, but specifying an adequate size avoids rehashing.
+     * @param R The ring for the keys of this map.
+     * @param expectedSize How many entries the map is expected to hold.
+     * @throws IllegalArgumentException If expectedSize is negative.
+     * @throws IllegalStateException If expectedSize is too large.
+     */
+    public ImaginaryQuadraticIntegerHashMap(ImaginaryQuadraticRing R, int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is negative.");
+        }
+        this.ring = R;
+        this.allocate(capacityFor(expectedSize));
+        this.size = 0;
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of imaginary quadratic integers from a single ring, held as packed
+ * longs (see {@link PackedImaginaryQuadraticInteger}) in one array with open
+ * addressing and linear probing. There are no entry objects, and no need to
+ * call {@link ImaginaryQuadraticInteger#hashCode()}, so checking whether a
+ * packed number is in the set allocates nothing. The capacity is always a power
+ * of 2 and the table is doubled once it's {@link #MAXIMUM_LOAD_FACTOR} full,
+ * which keeps probe sequences short even with tens of millions of numbers.
+ * <p>This class is not thread-safe.</p>
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerHashSet {
+
+    /**
+     * How full the table is allowed to get before it is doubled.
+     */
+    public static final double MAXIMUM_LOAD_FACTOR = 0.7;
+
+    /**
+     * The largest capacity the table can have. With the maximum load factor,
+     * this limits the set to about 750 million numbers.
+     */
+    public static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private static final long EMPTY = PackedImaginaryQuadraticInteger.INVALID;
+
+    private final ImaginaryQuadraticRing ring;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / MAXIMUM_LOAD_FACTOR) + 1;
+        if (needed > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Can't hold " + expectedSize + " numbers in a table of at most " + MAXIMUM_CAPACITY + " slots.");
+        }
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * MAXIMUM_LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = this.keys;
+        this.allocate(newCapacity);
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                int slot = (int) PackedImaginaryQuadraticInteger.hash(key) & this.mask;
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys[slot] = key;
+            }
+        }
+    }
+
+    private void ensureCapacity(int expectedSize) {
+        if (expectedSize > this.resizeThreshold) {
+            this.rehash(capacityFor(expectedSize));
+        }
+    }
+
+    private long packFromRing(ImaginaryQuadraticInteger num) {
+        if (num.imagPartMult != 0 && !num.imagQuadRing.equals(this.ring)) {
+            throw new IllegalArgumentException("Number " + num.toASCIIString() + " is not from " + this.ring.toASCIIString() + ".");
+        }
+        return PackedImaginaryQuadraticInteger.pack(num);
+    }
+
+    private int slotOf(long packed) {
+        int slot = (int) PackedImaginaryQuadraticInteger.hash(packed) & this.mask;
+        long key;
+        while ((key = this.keys[slot]) != EMPTY) {
+            if (key == packed) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the ring that all the numbers in this set belong to.
+     * @return The ring. For example, <b>Z</b>[<i>i</i>].
+     */
+    public ImaginaryQuadraticRing getRing() {
+        return this.ring;
+    }
+
+    /**
+     * Gets how many numbers are in this set.
+     * @return The number of numbers. May be 0.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Tells whether this set is empty.
+     * @return True if there are no numbers in this set, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds a packed number to this set, if it's not already in it.
+     * @param packed The packed number. It should be valid for the ring of this
+     * set; this is not checked.
+     * @return True if the number was added, false if it was already in this
+     * set.
+     * @throws IllegalArgumentException If packed is {@link
+     * PackedImaginaryQuadraticInteger#INVALID}.
+     */
+    public boolean add(long packed) {
+        if (packed == EMPTY) {
+            throw new IllegalArgumentException("Can't add invalid packed value to set.");
+        }
+        if (this.size >= this.resizeThreshold) {
+            this.ensureCapacity(this.size + 1);
+        }
+        int slot = (int) PackedImaginaryQuadraticInteger.hash(packed) & this.mask;
+        long key;
+        while ((key = this.keys[slot]) != EMPTY) {
+            if (key == packed) {
+                return false;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys[slot] = packed;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Adds a number to this set, if it's not already in it.
+     * @param num The number to add. For example, 1 + <i>i</i>.
+     * @return True if the number was added, false if it was already in this
+     * set.
+     * @throws IllegalArgumentException If num is not purely real and is from a
+     * ring other than the ring of this set.
+     * @throws ArithmeticException If num can't be packed.
+     */
+    public boolean add(ImaginaryQuadraticInteger num) {
+        return this.add(this.packFromRing(num));
+    }
+
+    /**
+     * Adds packed numbers to this set. The table is grown once up front, not
+     * repeatedly as the numbers are added.
+     * @param packed An array of packed numbers. It may have repeats.
+     * @return How many numbers were actually added, which may be less than the
+     * length of the array if there are repeats or numbers already in this set.
+     * @throws IllegalArgumentException If any of the values is {@link
+     * PackedImaginaryQuadraticInteger#INVALID}. The values preceding it in the
+     * array will have been added.
+     */
+    public int addAll(long[] packed) {
+        this.ensureCapacity(this.size + packed.length);
+        int added = 0;
+        for (long value : packed) {
+            if (this.add(value)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds numbers to this set. The table is grown once up front, not
+     * repeatedly as the numbers are added.
+     * @param nums The numbers to add. They may have repeats.
+     * @return How many numbers were actually added.
+     * @throws IllegalArgumentException If any number is not purely real and
+     * is from a ring other than the ring of this set.
+     */
+    public int addAll(Collection<ImaginaryQuadraticInteger> nums) {
+        this.ensureCapacity(this.size + nums.size());
+        int added = 0;
+        for (ImaginaryQuadraticInteger num : nums) {
+            if (this.add(num)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds all the numbers of a batch to this set.
+     * @param batch The batch. It must be from the same ring as this set.
+     * @return How many numbers were actually added.
+     * @throws IllegalArgumentException If the batch is from a different ring.
+     */
+    public int addAll(ImaginaryQuadraticIntegerBatch batch) {
+        if (!batch.getRing().equals(this.ring)) {
+            throw new IllegalArgumentException("Batch from " + batch.getRing().toASCIIString() + " can't be added to set for " + this.ring.toASCIIString() + ".");
+        }
+        this.ensureCapacity(this.size + batch.size());
+        int added = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (this.add(PackedImaginaryQuadraticInteger.pack(batch.getRealPartMult(i), batch.getImagPartMult(i), batch.getDenominator(i)))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Tells whether a packed number is in this set. This allocates nothing.
+     * @param packed The packed number.
+     * @return True if the number is in this set, false otherwise.
+     */
+    public boolean contains(long packed) {
+        return packed != EMPTY && this.slotOf(packed) >= 0;
+    }
+
+    /**
+     * Tells whether a number is in this set.
+     * @param num The number. For example, 1 + <i>i</i>.
+     * @return True if the number is in this set, false otherwise. Also false
+     * if the number is from a different ring, unless it's purely real.
+     */
+    public boolean contains(ImaginaryQuadraticInteger num) {
+        if (num.imagPartMult != 0 && !num.imagQuadRing.equals(this.ring)) {
+            return false;
+        }
+        return this.contains(PackedImaginaryQuadraticInteger.pack(num));
+    }
+
+    /**
+     * Removes a packed number from this set. The following entries of the
+     * probe sequence are shifted back, so that no tombstones are left behind.
+     * @param packed The packed number.
+     * @return True if the number was in this set, false otherwise.
+     */
+    public boolean remove(long packed) {
+        if (packed == EMPTY) {
+            return false;
+        }
+        int slot = this.slotOf(packed);
+        if (slot < 0) {
+            return false;
+        }
+        int next = slot;
+        while (true) {
+            next = (next + 1) & this.mask;
+            long key = this.keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = (int) PackedImaginaryQuadraticInteger.hash(key) & this.mask;
+            if (((next - home) & this.mask) >= ((next - slot) & this.mask)) {
+                this.keys[slot] = key;
+                slot = next;
+            }
+        }
+        this.keys[slot] = EMPTY;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes a number from this set.
+     * @param num The number. For example, 1 + <i>i</i>.
+     * @return True if the number was in this set, false otherwise.
+     */
+    public boolean remove(ImaginaryQuadraticInteger num) {
+        if (num.imagPartMult != 0 && !num.imagQuadRing.equals(this.ring)) {
+            return false;
+        }
+        return this.remove(PackedImaginaryQuadraticInteger.pack(num));
+    }
+
+    /**
+     * Removes all the numbers from this set. The capacity is not reduced.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * Gives the numbers in this set as packed longs.
+     * @return A new array of packed numbers, in no particular order.
+     */
+    public long[] toPackedArray() {
+        long[] result = new long[this.size];
+        int index = 0;
+        for (long key : this.keys) {
+            if (key != EMPTY) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gives the numbers in this set as objects.
+     * @return A new list of new ImaginaryQuadraticInteger objects, in no
+     * particular order.
+     */
+    public List<ImaginaryQuadraticInteger> toList() {
+        List<ImaginaryQuadraticInteger> nums = new ArrayList<>(this.size);
+        for (long key : this.keys) {
+            if (key != EMPTY) {
+                nums.add(PackedImaginaryQuadraticInteger.unpack(key, this.ring));
+            }
+        }
+        return nums;
+    }
+
+    /**
+     * Creates an empty set with a small default capacity.
+     * @param R The ring for the numbers in this set.
+     */
+    public ImaginaryQuadraticIntegerHashSet(ImaginaryQuadraticRing R) {
+        this(R, 0);
+    }
+
+    /**
+     * Creates an empty set with room for the expected number of numbers. The
+     * set grows as needed, but specifying an adequate size avoids rehashing.
+     * @param R The ring for the numbers in this set.
+     * @param expectedSize How many numbers the set is expected to hold.
+     * @throws IllegalArgumentException If expectedSize is negative.
+     * @throws IllegalStateException If expectedSize is too large.
+     */
+    public ImaginaryQuadraticIntegerHashSet(ImaginaryQuadraticRing R, int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is negative.");
+        }
+        this.ring = R;
+        this.allocate(capacityFor(expectedSize));
+        this.size = 0;
+    }
+
+}
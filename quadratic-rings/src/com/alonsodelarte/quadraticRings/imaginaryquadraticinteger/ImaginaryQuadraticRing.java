@@ -16,15 +16,49 @@
  */
 package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * An object to represent an imaginary quadratic integer ring. A ring of 
  * quadratic integers contains infinitely many numbers. But, for the sake of 
  * this program, objects of type ImaginaryQuadraticRing are held by objects of 
  * type ImaginaryQuadraticInteger rather than the other way around.
+ * <p>Prefer {@link #valueOf(int)} to the constructor. It always gives the same 
+ * instance for the same <i>d</i> (as long as that instance is still in use 
+ * somewhere), so that rings can be compared by identity and data derived from 
+ * the ring, such as {@link #splittingBehavior(int)}, is computed only once.</p>
  * @author Alonso del Arte
  */
 public class ImaginaryQuadraticRing {
 
+    /**
+     * How many primes have their splitting behavior cached in each interned 
+     * ring. The behavior of primes beyond this bound is computed each time.
+     */
+    public static final int SPLITTING_CACHE_BOUND = 1 << 16;
+
+    private static final class InternedRingReference extends WeakReference<ImaginaryQuadraticRing> {
+
+        private final Integer d;
+
+        InternedRingReference(ImaginaryQuadraticRing ring, ReferenceQueue<ImaginaryQuadraticRing> queue) {
+            super(ring, queue);
+            this.d = ring.negRad;
+        }
+
+    }
+
+    /**
+     * The intern table for {@link #valueOf(int)}. Rings are weakly held, so 
+     * that a ring nobody refers to anymore can be garbage collected along with 
+     * its cached data.
+     */
+    private static final ConcurrentHashMap<Integer, InternedRingReference> INTERNED_RINGS = new ConcurrentHashMap<>();
+
+    private static final ReferenceQueue<ImaginaryQuadraticRing> COLLECTED_RINGS = new ReferenceQueue<>();
+
     /**
      * Ought to be a squarefree negative integer. For example, -7.
      */
@@ -56,6 +90,20 @@ public class ImaginaryQuadraticRing {
      */
     private static boolean preferenceForBlackboardBold = true;
     
+    /**
+     * Splitting behavior of primes, cached on demand. Each entry is 0 if not 
+     * yet computed, otherwise the Kronecker symbol plus 2. Lazily allocated.
+     */
+    private volatile byte[] splittingCache = null;
+    
+    /**
+     * The flyweight table used by {@link ImaginaryQuadraticInteger#valueOf(int, 
+     * int, ImaginaryQuadraticRing, int)}, indexed by twice the real part and 
+     * twice the imaginary part, offset to make them nonnegative. Lazily 
+     * allocated.
+     */
+    private volatile ImaginaryQuadraticInteger[] flyweights = null;
+    
     /**
      * Gets the value of <i>d</i> from &radic;<i>d</i>, which this ring adjoins. 
      * This is the discriminant, divided by 4 when the ring does not have what 
@@ -339,9 +387,105 @@ public class ImaginaryQuadraticRing {
         return (this.negRad == other.negRad);
     }
     
+    /**
+     * Gets the discriminant of this ring.
+     * @return <i>d</i> if <i>d</i> is congruent to 1 modulo 4, 4<i>d</i> 
+     * otherwise. For example, for <b>Z</b>[&radic;-10] this is -40, and for 
+     * <i>O</i><sub><b>Q</b>(&radic;-7)</sub> it's -7.
+     */
+    public int getDiscriminant() {
+        return this.d1mod4 ? this.negRad : 4 * this.negRad;
+    }
+    
+    /**
+     * Tells how a positive prime number of <b>Z</b> behaves in this ring. The 
+     * result is the Kronecker symbol of the discriminant and the prime. For 
+     * primes less than {@link #SPLITTING_CACHE_BOUND}, it is computed only 
+     * once per ring instance, which makes a difference when drawing diagrams.
+     * @param p A positive prime number. This is not checked, the result is 
+     * meaningless if p is not prime.
+     * @return -1 if p is inert (p is also prime in this ring), 0 if p ramifies 
+     * (p is a unit times the square of a prime of this ring) or 1 if p splits 
+     * (p is the product of two distinct prime conjugates in this ring). For 
+     * example, in <b>Z</b>[<i>i</i>], 2 ramifies, 3 is inert and 5 splits.
+     */
+    public int splittingBehavior(int p) {
+        if (p < 0 || p >= SPLITTING_CACHE_BOUND) {
+            return NumberTheoreticFunctionsCalculator.symbolKronecker(this.getDiscriminant(), p);
+        }
+        byte[] cache = this.splittingCache;
+        if (cache == null) {
+            cache = new byte[SPLITTING_CACHE_BOUND];
+            this.splittingCache = cache;
+        }
+        byte entry = cache[p];
+        if (entry == 0) {
+            entry = (byte) (NumberTheoreticFunctionsCalculator.symbolKronecker(this.getDiscriminant(), p) + 2);
+            cache[p] = entry;
+        }
+        return entry - 2;
+    }
+    
+    /**
+     * Gives access to this ring's flyweight table, allocating it if necessary.
+     * @param size How many slots the table should have.
+     * @return The flyweight table. Its slots are null until filled in by 
+     * {@link ImaginaryQuadraticInteger#valueOf(int, int, 
+     * ImaginaryQuadraticRing, int)}.
+     */
+    ImaginaryQuadraticInteger[] getFlyweightTable(int size) {
+        ImaginaryQuadraticInteger[] table = this.flyweights;
+        if (table == null) {
+            table = new ImaginaryQuadraticInteger[size];
+            this.flyweights = table;
+        }
+        return table;
+    }
+    
+    private static void expungeCollectedRings() {
+        InternedRingReference ref;
+        while ((ref = (InternedRingReference) COLLECTED_RINGS.poll()) != null) {
+            INTERNED_RINGS.remove(ref.d, ref);
+        }
+    }
+    
+    /**
+     * Gives the canonical ring object for a given <i>d</i>. As long as some 
+     * other object holds a reference to the ring, this function returns that 
+     * same instance rather than a new one.
+     * @param d A negative, squarefree integer. For example, -7.
+     * @return The ring. For example, <i>O</i><sub><b>Q</b>(&radic;-7)</sub>.
+     * @throws IllegalArgumentException If d is not negative or not squarefree, 
+     * same as {@link #ImaginaryQuadraticRing(int) the constructor}.
+     */
+    public static ImaginaryQuadraticRing valueOf(int d) {
+        expungeCollectedRings();
+        Integer key = d;
+        ImaginaryQuadraticRing candidate = null;
+        while (true) {
+            InternedRingReference ref = INTERNED_RINGS.get(key);
+            if (ref != null) {
+                ImaginaryQuadraticRing ring = ref.get();
+                if (ring != null) {
+                    return ring;
+                }
+            }
+            if (candidate == null) {
+                candidate = new ImaginaryQuadraticRing(d);
+            }
+            InternedRingReference newRef = new InternedRingReference(candidate, COLLECTED_RINGS);
+            boolean stored = (ref == null) ? INTERNED_RINGS.putIfAbsent(key, newRef) == null : INTERNED_RINGS.replace(key, ref, newRef);
+            if (stored) {
+                return candidate;
+            }
+        }
+    }
+    
     /**
      * Class constructor. Its task is, after validating the parameter, simply to 
-     * set the appropriate protected final properties.
+     * set the appropriate protected final properties. Since there is nothing 
+     * mutable about an ImaginaryQuadraticRing, it's almost always better to use 
+     * {@link #valueOf(int)} instead.
      * @param d A negative, squarefree integer, like -10 or -7.
      * @throws IllegalArgumentException If d is 0 or any positive integer, or if 
      * d is negative but not squarefree. For example, d being any of -28, 0 or 3 
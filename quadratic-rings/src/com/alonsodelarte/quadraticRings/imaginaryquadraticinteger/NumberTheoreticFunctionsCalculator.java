@@ -23,6 +23,7 @@ import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.Not
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
 
 /**
  * A collection of number theoretic functions, including basic primality testing 
@@ -57,12 +58,12 @@ public class NumberTheoreticFunctionsCalculator {
      */
     public static final int[] HEEGNER_NUMBERS = {-163, -67, -43, -19, -11, -7, -3, -2, -1};
     
-    public static final ImaginaryQuadraticRing RING_GAUSSIAN = new ImaginaryQuadraticRing(-1);
-    public static final ImaginaryQuadraticInteger IMAG_UNIT_I = new ImaginaryQuadraticInteger(0, 1, RING_GAUSSIAN);
+    public static final ImaginaryQuadraticRing RING_GAUSSIAN = ImaginaryQuadraticRing.valueOf(-1);
+    public static final ImaginaryQuadraticInteger IMAG_UNIT_I = ImaginaryQuadraticInteger.valueOf(0, 1, RING_GAUSSIAN);
     public static final ImaginaryQuadraticInteger IMAG_UNIT_NEG_I = IMAG_UNIT_I.times(-1);
     
-    public static final ImaginaryQuadraticRing RING_EISENSTEIN = new ImaginaryQuadraticRing(-3);
-    public static final ImaginaryQuadraticInteger COMPLEX_CUBIC_ROOT_OF_UNITY = new ImaginaryQuadraticInteger(-1, 1, RING_EISENSTEIN, 2);
+    public static final ImaginaryQuadraticRing RING_EISENSTEIN = ImaginaryQuadraticRing.valueOf(-3);
+    public static final ImaginaryQuadraticInteger COMPLEX_CUBIC_ROOT_OF_UNITY = ImaginaryQuadraticInteger.valueOf(-1, 1, RING_EISENSTEIN, 2);
 
     /**
      * Determines the prime factors of a given number. Uses simple trial 
@@ -191,28 +192,24 @@ public class NumberTheoreticFunctionsCalculator {
         if (euclideanGCD(a, p) > 1) {
             return 0;
         }
-        int oddPrime = Math.abs(p); // Making sure p is positive
-        int exponent = (oddPrime - 1)/2;
-        int modStop = oddPrime - 2;
-        int adjA = a;
-        if (adjA > (oddPrime - 1)) {
-            adjA %= oddPrime;
-        }
-        if (adjA == (oddPrime - 1)) {
-            adjA = -1;
-        }
-        while (adjA < -1) {
-            adjA += oddPrime;
-        }
-        int power = adjA;
-        for (int i = 1; i < exponent; i++) {
-            power *= adjA;
-            while (power > modStop) {
-                power -= oddPrime;
-            }
-            while (power < -1) {
-                power += oddPrime;
+        long oddPrime = Math.abs((long) p); // Making sure p is positive
+        long exponent = (oddPrime - 1)/2;
+        long base = a % oddPrime;
+        if (base < 0) {
+            base += oddPrime;
+        }
+        /* Euler's criterion by repeated squaring, with 64-bit variables so 
+           that the squares don't overflow even for p close to 2^31. */
+        long power = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) {
+                power = (power * base) % oddPrime;
             }
+            base = (base * base) % oddPrime;
+            exponent >>= 1;
+        }
+        if (power == oddPrime - 1) {
+            return -1;
         }
         return (byte) power;
     }
@@ -322,7 +319,10 @@ public class NumberTheoreticFunctionsCalculator {
     
     /**
      * Determines whether a given number, not necessarily purely real, is prime 
-     * or not. Note that an early version of this function would throw 
+     * or not. This just passes the parts of the number on to {@link 
+     * #isPrime(int, int, int, ImaginaryQuadraticRing)}, which callers that 
+     * don't already have an object should use directly. Note that an early 
+     * version of this function would throw 
      * {@link NonUniqueFactorizationDomainException} if called upon a purely
      * real integer in a non-UFD. That is no longer the case.
      * @param num The number for which to make the determination.
@@ -332,66 +332,57 @@ public class NumberTheoreticFunctionsCalculator {
      * runtime exception).
      */
     public static boolean isPrime(ImaginaryQuadraticInteger num) {
-        if (num.norm() < 0) {
-            String exceptionMessage = "Overflow has occurred for the computation of the norm of " + num.toASCIIString();
-            throw new ArithmeticException(exceptionMessage);
-        }
-        if (isPrime(num.norm())) {
+        return isPrime(num.realPartMult, num.imagPartMult, num.denominator, num.imagQuadRing);
+    }
+    
+    /**
+     * Determines whether a given number, not necessarily purely real, is prime 
+     * or not, without the need for an ImaginaryQuadraticInteger object. The 
+     * norm is computed only once, and nothing is allocated (except perhaps the 
+     * first time a prime's splitting behavior is looked up in a given ring). A 
+     * number is prime if and only if either its norm is a prime number, or its 
+     * norm is the square of a prime number that is inert in the ring, in which 
+     * case the number is that prime times a unit. This covers the purely 
+     * imaginary primes of <b>Z</b>[<i>i</i>], like 3<i>i</i>, and the 
+     * Eisenstein primes like 5&omega;, with coordinate arithmetic alone.
+     * @param a The real part, multiplied by 2 when applicable. For example, 
+     * for 5/2 + (&radic;-3)/2, this parameter would be 5.
+     * @param b The part to be multiplied by &radic;<i>d</i>, multiplied by 2 
+     * when applicable. For example, for 5/2 + (&radic;-3)/2, this parameter 
+     * would be 5.
+     * @param denom 1 or 2. In the 5/2 + 5(&radic;-3)/2 example, this would be 
+     * 2. This is not checked, nor is the parity of a and b, so the caller is 
+     * responsible for passing in the parts of an actual algebraic integer.
+     * @param ring The ring the number is in. For example, <b>Z</b>[&omega;].
+     * @return true if the number is prime, false otherwise. In the example, 
+     * true, since 5/2 + 5(&radic;-3)/2 = 5(1/2 + (&radic;-3)/2) has norm 25 and 
+     * 5 is inert in <b>Z</b>[&omega;].
+     * @throws ArithmeticException If the norm exceeds the range of long.
+     */
+    public static boolean isPrime(int a, int b, int denom, ImaginaryQuadraticRing ring) {
+        long re = a;
+        long im = b;
+        long norm = Math.addExact(re * re, Math.multiplyExact(im * im, (long) ring.absNegRad));
+        if (denom == 2) {
+            norm /= 4;
+        }
+        if (isPrime(norm)) {
             return true;
-        } else {
-            if (num.imagQuadRing.negRad == -1 && num.realPartMult == 0) {
-                if (isPrime(num.imagPartMult)) {
-                    return ((Math.abs(num.imagPartMult)) % 4 == 3);
-                } else {
-                    return false;
-                }
-            }
-            if (num.imagQuadRing.negRad == -3 && num.imagPartMult != 0) {
-                ImaginaryQuadraticInteger pureReal = num.times(COMPLEX_CUBIC_ROOT_OF_UNITY);
-                if (pureReal.imagPartMult != 0) {
-                    pureReal = pureReal.times(COMPLEX_CUBIC_ROOT_OF_UNITY);
-                }
-                if (pureReal.imagPartMult == 0) {
-                    if (pureReal.realPartMult < 0) {
-                        pureReal = pureReal.times(-1);
-                    }
-                    if (isPrime(pureReal.realPartMult)) {
-                        return (pureReal.realPartMult % 3 == 2);
-                    } else {
-                        return false;
-                    }
-                }
-            }
-            if (num.imagPartMult == 0) {
-                int absRealPartMult = Math.abs(num.realPartMult);
-                if (absRealPartMult == 2) {
-                    return (symbolKronecker(num.imagQuadRing.negRad, 2) == -1);
-                }
-                if (isPrime(absRealPartMult)) {
-                    switch (num.imagQuadRing.negRad) {
-                        case -1:
-                            return (absRealPartMult % 4 == 3);
-                        case -2:
-                            return (absRealPartMult % 8 == 5 || absRealPartMult % 8 == 7);
-                        case -3:
-                            return (absRealPartMult % 3 == 2);
-//                        case -7:
-//                        case -11:
-//                        case -19:
-//                        case -43:
-//                        case -67:
-//                        case -163:
-//                            return (symbolLegendre(num.imagQuadRing.negRad, absRealPartMult) == -1);
-                        default:
-                            return (symbolLegendre(num.imagQuadRing.negRad, absRealPartMult) == -1);
-                    }
-                } else {
-                    return false;
-                }
-            } else {
-                return false;
-            }
         }
+        /* The square root in floating point can be off by one either way for
+           norms this large, and squaring root + 1 could overflow, so the
+           corrections compare by division instead. */
+        long root = (long) Math.sqrt((double) norm);
+        while (root > 0 && root > norm / root) {
+            root--;
+        }
+        while (root + 1 <= norm / (root + 1)) {
+            root++;
+        }
+        if (root * root != norm || root > Integer.MAX_VALUE || !isPrime((int) root)) {
+            return false;
+        }
+        return (ring.splittingBehavior((int) root) == -1);
     }
     
     /**
@@ -451,6 +442,9 @@ public class NumberTheoreticFunctionsCalculator {
      * the prime factors of a number from a non-UFD, even if a complete 
      * factorization into primes is possible in the given domain, e.g., 5 and 41 
      * in Z[sqrt(-5)].
+     * @throws CancellationException If the calling thread is interrupted
+     * while the factors are being searched for, as it is when a factorization
+     * being computed in the background is no longer needed.
      */
     public static List<ImaginaryQuadraticInteger> primeFactors(ImaginaryQuadraticInteger num) throws NonUniqueFactorizationDomainException {
         int d = num.getRing().getNegRad();
@@ -477,10 +471,10 @@ public class NumberTheoreticFunctionsCalculator {
             return factors;
         }
         if (isPrime(n)) {
-            factors.add(new ImaginaryQuadraticInteger(1, 0, num.getRing()));
+            factors.add(ImaginaryQuadraticInteger.valueOf(1, 0, num.getRing()));
             factors.add(n);
         } else {
-            ImaginaryQuadraticInteger testDivisor = new ImaginaryQuadraticInteger(2, 0, n.getRing());
+            ImaginaryQuadraticInteger testDivisor = ImaginaryQuadraticInteger.valueOf(2, 0, n.getRing());
             boolean keepGoing = true;
             if (isPrime(testDivisor)) {
                 while (n.norm() % 4 == 0) {
@@ -494,6 +488,7 @@ public class NumberTheoreticFunctionsCalculator {
             }
             testDivisor = testDivisor.plus(1);
             while ((n.norm() > testDivisor.norm()) && keepGoing) {
+                checkInterrupted();
                 if (isPrime(testDivisor)) {
                     while (n.norm() % testDivisor.norm() == 0) {
                         try {
@@ -514,7 +509,8 @@ public class NumberTheoreticFunctionsCalculator {
             }
             boolean withinRange;
             while (n.norm() > 1) {
-                testDivisor = new ImaginaryQuadraticInteger(testDivRealPartMult, testDivImagPartMult, n.getRing(), 2);
+                checkInterrupted();
+                testDivisor = ImaginaryQuadraticInteger.valueOf(testDivRealPartMult, testDivImagPartMult, n.getRing(), 2);
                 withinRange = (testDivisor.norm() < n.norm());
                 if (isPrime(testDivisor)) {
                     while (n.norm() % testDivisor.norm() == 0) {
@@ -563,6 +559,17 @@ public class NumberTheoreticFunctionsCalculator {
         return factors;
     }
     
+    /**
+     * Gives up on a search for divisors if the thread doing it has been
+     * interrupted. The interrupt status is left set, for the caller to see.
+     * @throws CancellationException If the current thread is interrupted.
+     */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search for divisors interrupted.");
+        }
+    }
+
     /**
      * Determines whether a given number is irreducible, not necessarily prime.
      * @param num The number for which to make the determination.
@@ -571,6 +578,8 @@ public class NumberTheoreticFunctionsCalculator {
      * considered irreducible by this function.
      * @throws ArithmeticException If a norm computation error occurs (this is a 
      * runtime exception).
+     * @throws CancellationException If the calling thread is interrupted
+     * while divisors are being tried.
      */
     public static boolean isIrreducible(ImaginaryQuadraticInteger num) {
         if (num.norm() < 0) {
@@ -602,10 +611,11 @@ public class NumberTheoreticFunctionsCalculator {
                         int testDivImagPartMult = 0;
                         boolean testDivisorChanged;
                         while (withinRange && presumedIrreducible) {
-                            testDivisor = new ImaginaryQuadraticInteger(testDivRealPartMult, testDivImagPartMult, num.imagQuadRing, 2);
+                            testDivisor = ImaginaryQuadraticInteger.valueOf(testDivRealPartMult, testDivImagPartMult, num.imagQuadRing, 2);
                             testDivisorChanged = false;
                             withinRange = (testDivisor.norm() < num.norm());
                             while (withinRange && presumedIrreducible) {
+                                checkInterrupted();
                                 try {
                                     currDivision = num.divides(testDivisor);
                                     if (currDivision.norm() > 1) {
@@ -616,7 +626,7 @@ public class NumberTheoreticFunctionsCalculator {
                                 } catch (NotDivisibleException nde) {
                                     withinRange = (Math.abs(nde.getNumericRealPart()) > 1) || (Math.abs(nde.getNumericImagPart()) > 1);
                                     testDivRealPartMult += 2;
-                                    testDivisor = new ImaginaryQuadraticInteger(testDivRealPartMult, testDivImagPartMult, num.imagQuadRing, 2);
+                                    testDivisor = ImaginaryQuadraticInteger.valueOf(testDivRealPartMult, testDivImagPartMult, num.imagQuadRing, 2);
                                     testDivisorChanged = true;
                                 }
                             }
@@ -803,7 +813,7 @@ public class NumberTheoreticFunctionsCalculator {
      */
     public static ImaginaryQuadraticInteger euclideanGCD(ImaginaryQuadraticInteger a, ImaginaryQuadraticInteger b) throws NonEuclideanDomainException {
         int d = a.getRing().getNegRad();
-        if (((a.getImagPartMult() != 0) && (b.getImagPartMult() != 0)) && (d != b.getRing().getNegRad())) {
+        if (((a.getImagPartMult() != 0) && (b.getImagPartMult() != 0)) && (a.getRing() != b.getRing()) && (d != b.getRing().getNegRad())) {
             String exceptionMessage = "This operation would result in an algebraic integer of degree 4.";
             throw new AlgebraicDegreeOverflowException(exceptionMessage, 2, a, b);
         }
@@ -866,7 +876,7 @@ public class NumberTheoreticFunctionsCalculator {
      * exception.
      */
     public static ImaginaryQuadraticInteger euclideanGCD(int a, ImaginaryQuadraticInteger b) throws NonEuclideanDomainException {
-        ImaginaryQuadraticInteger wrappedA = new ImaginaryQuadraticInteger(a, 0, b.imagQuadRing);
+        ImaginaryQuadraticInteger wrappedA = ImaginaryQuadraticInteger.valueOf(a, 0, b.imagQuadRing);
         return euclideanGCD(wrappedA, b);
     }
 
@@ -888,7 +898,7 @@ public class NumberTheoreticFunctionsCalculator {
      * exception.
      */
     public static ImaginaryQuadraticInteger euclideanGCD(ImaginaryQuadraticInteger a, int b) throws NonEuclideanDomainException {
-        ImaginaryQuadraticInteger wrappedB = new ImaginaryQuadraticInteger(b, 0, a.imagQuadRing);
+        ImaginaryQuadraticInteger wrappedB = ImaginaryQuadraticInteger.valueOf(b, 0, a.imagQuadRing);
         return euclideanGCD(a, wrappedB);
     }
     
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+/**
+ * Encodes imaginary quadratic integers as primitive 64-bit values, and provides
+ * arithmetic functions that work directly on those values. An {@link
+ * ImaginaryQuadraticInteger} object carries an object header, three ints and a
+ * reference to an {@link ImaginaryQuadraticRing}, which is too much when
+ * holding hundreds of millions of numbers. A packed value is just a long, so an
+ * array of them takes up 8 bytes per number.
+ * <p>The high 32 bits hold the real part multiplied by 2, and the low 32 bits
+ * hold the imaginary part (divided by &radic;<i>d</i>) multiplied by 2. This is
+ * what {@link ImaginaryQuadraticInteger#getTwiceRealPartMult()} and {@link
+ * ImaginaryQuadraticInteger#getTwiceImagPartMult()} give. The denominator is
+ * thus carried by the parity of the two halves: both odd means a so-called
+ * "half-integer" with denominator 2, both even means denominator 1. Halves of
+ * different parity never occur in a valid packed value. Because of the
+ * doubling, a number with denominator 1 can be packed only if its real and
+ * imaginary parts are both within the range -2<sup>30</sup> to
+ * 2<sup>30</sup> &minus; 1.</p>
+ * <p>The ring is not stored in the packed value. The caller supplies it as
+ * context to those functions that need it, such as {@link #norm(long,
+ * ImaginaryQuadraticRing)}. Addition, subtraction and conjugation do not need
+ * it at all. Since the encoding is canonical, two packed values from the same
+ * ring represent the same number if and only if the two longs are equal.</p>
+ * @author Alonso del Arte
+ */
+public final class PackedImaginaryQuadraticInteger {
+
+    private static final long LOW_HALF_MASK = 0xFFFFFFFFL;
+
+    /**
+     * The packed value of 0. This is the same in every ring.
+     */
+    public static final long ZERO = 0L;
+
+    /**
+     * The packed value of 1. This is the same in every ring.
+     */
+    public static final long ONE = 2L << 32;
+
+    /**
+     * A long that is never a valid packed value in any ring, because its
+     * halves differ in parity. Useful as a sentinel, for example to mark empty
+     * slots in hash tables of packed values.
+     */
+    public static final long INVALID = 1L;
+
+    private static long repack(long twiceRealPart, long twiceImagPart, String operation) {
+        if (twiceRealPart < Integer.MIN_VALUE || twiceRealPart > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Real part of " + operation + " exceeds packed range: " + twiceRealPart + "/2 + " + twiceImagPart + "sqrt(d)/2");
+        }
+        if (twiceImagPart < Integer.MIN_VALUE || twiceImagPart > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Imaginary part of " + operation + " exceeds packed range: " + twiceRealPart + "/2 + " + twiceImagPart + "sqrt(d)/2");
+        }
+        return (twiceRealPart << 32) | (twiceImagPart & LOW_HALF_MASK);
+    }
+
+    /**
+     * Packs the parts of an imaginary quadratic integer into a long. The
+     * parameters have the same meaning as those of the primary {@link
+     * ImaginaryQuadraticInteger} constructor.
+     * @param a The real part, multiplied by 2 when applicable. For example,
+     * for 5/2 + (&radic;-3)/2, this parameter would be 5.
+     * @param b The part to be multiplied by &radic;<i>d</i>, multiplied by 2
+     * when applicable. For example, for 5/2 + (&radic;-3)/2, this parameter
+     * would be 1.
+     * @param denom 1 or 2. In the 5/2 + (&radic;-3)/2 example, this would be 2.
+     * @return The packed value. For example, for 5/2 + (&radic;-3)/2, this
+     * would be 5 &times; 2<sup>32</sup> + 1.
+     * @throws IllegalArgumentException If denom is anything other than 1 or 2,
+     * or if denom is 2 but a and b don't match parity.
+     * @throws ArithmeticException If denom is 1 and either a or b is outside
+     * the packable range.
+     */
+    public static long pack(int a, int b, int denom) {
+        switch (denom) {
+            case 1:
+                return repack(2L * a, 2L * b, "packing");
+            case 2:
+                if (Math.abs(a % 2) != Math.abs(b % 2)) {
+                    throw new IllegalArgumentException("Parity of parameter a must match parity of parameter b.");
+                }
+                return repack(a, b, "packing");
+            default:
+                throw new IllegalArgumentException("Parameter denom must be 1 or 2.");
+        }
+    }
+
+    /**
+     * Packs an imaginary quadratic integer into a long.
+     * @param num The number to pack. For example, 5/2 + (&radic;-3)/2.
+     * @return The packed value. The ring of num is not recorded, so the caller
+     * needs to keep track of it.
+     * @throws ArithmeticException If num has denominator 1 and either of its
+     * parts is outside the packable range.
+     */
+    public static long pack(ImaginaryQuadraticInteger num) {
+        return repack(num.getTwiceRealPartMult(), num.getTwiceImagPartMult(), "packing");
+    }
+
+    /**
+     * Unpacks a packed value into a new imaginary quadratic integer object.
+     * @param packed The packed value.
+     * @param ring The ring the number belongs to.
+     * @return A new ImaginaryQuadraticInteger object.
+     * @throws IllegalArgumentException If the packed value represents a
+     * "half-integer" but the ring does not have "half-integers," or if the
+     * halves of the packed value don't match parity.
+     */
+    public static ImaginaryQuadraticInteger unpack(long packed, ImaginaryQuadraticRing ring) {
+        return new ImaginaryQuadraticInteger(getTwiceRealPartMult(packed), getTwiceImagPartMult(packed), ring, 2);
+    }
+
+    /**
+     * Determines whether a long is a valid packed value for a given ring.
+     * @param packed The value to check.
+     * @param ring The ring to check against.
+     * @return True if both halves are even, or if both halves are odd and the
+     * ring has "half-integers"; false otherwise.
+     */
+    public static boolean isValid(long packed, ImaginaryQuadraticRing ring) {
+        int realParity = getTwiceRealPartMult(packed) & 1;
+        int imagParity = getTwiceImagPartMult(packed) & 1;
+        if (realParity != imagParity) {
+            return false;
+        }
+        return (realParity == 0 || ring.d1mod4);
+    }
+
+    /**
+     * Gets the real part of a packed number multiplied by 2.
+     * @param packed The packed value. For example, the packed value of -1/2 +
+     * (&radic;-7)/2.
+     * @return The real part multiplied by 2. In the example, -1.
+     */
+    public static int getTwiceRealPartMult(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Gets the imaginary part of a packed number, divided by &radic;<i>d</i>
+     * and multiplied by 2.
+     * @param packed The packed value. For example, the packed value of -1/2 +
+     * (&radic;-7)/2.
+     * @return The imaginary part multiplied by 2. In the example, 1.
+     */
+    public static int getTwiceImagPartMult(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Gets the denominator of a packed number.
+     * @param packed The packed value.
+     * @return 2 for a "half-integer," 1 otherwise.
+     */
+    public static int getDenominator(long packed) {
+        return ((packed & 1L) == 0) ? 1 : 2;
+    }
+
+    /**
+     * Gets the real part of a packed number, multiplied by 2 when the
+     * denominator is 2. This matches {@link
+     * ImaginaryQuadraticInteger#getRealPartMult()}.
+     * @param packed The packed value.
+     * @return The real part as an int. For example, for 3/2 + (&radic;-7)/2,
+     * this would be 3; for 3 + &radic;-7 this would also be 3.
+     */
+    public static int getRealPartMult(long packed) {
+        int twiceRealPart = getTwiceRealPartMult(packed);
+        return ((packed & 1L) == 0) ? twiceRealPart / 2 : twiceRealPart;
+    }
+
+    /**
+     * Gets the imaginary part of a packed number divided by &radic;<i>d</i>,
+     * multiplied by 2 when the denominator is 2. This matches {@link
+     * ImaginaryQuadraticInteger#getImagPartMult()}.
+     * @param packed The packed value.
+     * @return The imaginary part as an int. For example, for 3/2 +
+     * (&radic;-7)/2, this would be 1; for 3 + &radic;-7 this would also be 1.
+     */
+    public static int getImagPartMult(long packed) {
+        int twiceImagPart = getTwiceImagPartMult(packed);
+        return ((packed & 1L) == 0) ? twiceImagPart / 2 : twiceImagPart;
+    }
+
+    /**
+     * Addition of two packed numbers from the same ring.
+     * @param summandA One of the two summands.
+     * @param summandB The other summand.
+     * @return The packed sum.
+     * @throws ArithmeticException If either part of the sum is outside the
+     * packable range.
+     */
+    public static long plus(long summandA, long summandB) {
+        long twiceRealPart = (long) getTwiceRealPartMult(summandA) + getTwiceRealPartMult(summandB);
+        long twiceImagPart = (long) getTwiceImagPartMult(summandA) + getTwiceImagPartMult(summandB);
+        return repack(twiceRealPart, twiceImagPart, "sum");
+    }
+
+    /**
+     * Subtraction of two packed numbers from the same ring.
+     * @param minuend The number to subtract from.
+     * @param subtrahend The number to subtract.
+     * @return The packed difference.
+     * @throws ArithmeticException If either part of the difference is outside
+     * the packable range.
+     */
+    public static long minus(long minuend, long subtrahend) {
+        long twiceRealPart = (long) getTwiceRealPartMult(minuend) - getTwiceRealPartMult(subtrahend);
+        long twiceImagPart = (long) getTwiceImagPartMult(minuend) - getTwiceImagPartMult(subtrahend);
+        return repack(twiceRealPart, twiceImagPart, "subtraction");
+    }
+
+    /**
+     * Multiplication of two packed numbers from the same ring.
+     * @param multiplicandA One of the two multiplicands. For example, the
+     * packed value of 1/2 + (&radic;-7)/2.
+     * @param multiplicandB The other multiplicand. For example, the packed
+     * value of 1/2 - (&radic;-7)/2.
+     * @param ring The ring both multiplicands belong to. For example,
+     * <i>O</i><sub><b>Q</b>(&radic;-7)</sub>.
+     * @return The packed product. In the example, the packed value of 2.
+     * @throws ArithmeticException If either part of the product is outside the
+     * packable range.
+     */
+    public static long times(long multiplicandA, long multiplicandB, ImaginaryQuadraticRing ring) {
+        long a = getTwiceRealPartMult(multiplicandA);
+        long b = getTwiceImagPartMult(multiplicandA);
+        long c = getTwiceRealPartMult(multiplicandB);
+        long d = getTwiceImagPartMult(multiplicandB);
+        long twiceRealPart = Math.subtractExact(a * c, Math.multiplyExact(b * d, (long) ring.absNegRad)) / 2;
+        long twiceImagPart = Math.addExact(a * d, b * c) / 2;
+        return repack(twiceRealPart, twiceImagPart, "product");
+    }
+
+    /**
+     * Multiplication of a packed number by a purely real integer.
+     * @param multiplicand The packed number.
+     * @param factor The purely real integer. For example, -1.
+     * @return The packed product.
+     * @throws ArithmeticException If either part of the product is outside the
+     * packable range.
+     */
+    public static long times(long multiplicand, int factor) {
+        long twiceRealPart = (long) getTwiceRealPartMult(multiplicand) * factor;
+        long twiceImagPart = (long) getTwiceImagPartMult(multiplicand) * factor;
+        return repack(twiceRealPart, twiceImagPart, "product");
+    }
+
+    /**
+     * Computes the conjugate of a packed number.
+     * @param packed The packed number. For example, the packed value of 5/2 +
+     * (&radic;-7)/2.
+     * @return The packed conjugate. In the example, the packed value of 5/2
+     * &minus; (&radic;-7)/2.
+     * @throws ArithmeticException Only in the unlikely event that the imaginary
+     * part is -2<sup>31</sup>, which can't be negated in an int.
+     */
+    public static long conjugate(long packed) {
+        return repack(getTwiceRealPartMult(packed), -((long) getTwiceImagPartMult(packed)), "conjugate");
+    }
+
+    /**
+     * Calculates the trace of a packed number.
+     * @param packed The packed number. For example, the packed value of 5/2 +
+     * (&radic;-7)/2.
+     * @return Twice the real part. In the example, 5.
+     */
+    public static long trace(long packed) {
+        return getTwiceRealPartMult(packed);
+    }
+
+    /**
+     * Calculates the norm of a packed number. Unlike {@link
+     * ImaginaryQuadraticInteger#norm()}, all of the computation is done with
+     * 64-bit variables, and overflows are detected.
+     * @param packed The packed number. For example, the packed value of 5/2 +
+     * (&radic;-7)/2.
+     * @param ring The ring the number belongs to. For example,
+     * <i>O</i><sub><b>Q</b>(&radic;-7)</sub>.
+     * @return The norm, which is never negative. In the example, 8.
+     * @throws ArithmeticException If the norm exceeds the range of long.
+     */
+    public static long norm(long packed, ImaginaryQuadraticRing ring) {
+        long a = getTwiceRealPartMult(packed);
+        long b = getTwiceImagPartMult(packed);
+        return Math.addExact(a * a, Math.multiplyExact(b * b, (long) ring.absNegRad)) / 4;
+    }
+
+    /**
+     * Compares two packed numbers from the same ring for equality. The
+     * encoding is canonical, so this is the same as comparing the longs, and it
+     * even works for purely real numbers from different rings.
+     * @param packedA One of the two packed numbers.
+     * @param packedB The other packed number.
+     * @return True if the two numbers are arithmetically equal, false
+     * otherwise.
+     */
+    public static boolean equals(long packedA, long packedB) {
+        return packedA == packedB;
+    }
+
+    /**
+     * Compares two packed numbers from the same ring, in ascending order by
+     * norm. This is the same ordering as {@link
+     * NumberTheoreticFunctionsCalculator#sortListIQIByNorm(java.util.List)},
+     * except that numbers of the same norm are ordered by real part and then by
+     * imaginary part, which makes this a total order consistent with {@link
+     * #equals(long, long)}.
+     * @param packedA One of the two packed numbers.
+     * @param packedB The other packed number.
+     * @param ring The ring both numbers belong to.
+     * @return A negative integer, zero or a positive integer as packedA is less
+     * than, equal to or greater than packedB.
+     * @throws ArithmeticException If either norm exceeds the range of long.
+     */
+    public static int compare(long packedA, long packedB, ImaginaryQuadraticRing ring) {
+        if (packedA == packedB) {
+            return 0;
+        }
+        int comparison = Long.compare(norm(packedA, ring), norm(packedB, ring));
+        if (comparison == 0) {
+            comparison = Integer.compare(getTwiceRealPartMult(packedA), getTwiceRealPartMult(packedB));
+        }
+        if (comparison == 0) {
+            comparison = Integer.compare(getTwiceImagPartMult(packedA), getTwiceImagPartMult(packedB));
+        }
+        return comparison;
+    }
+
+    /**
+     * Scrambles the bits of a packed value, for use by hash tables. Since the
+     * halves of packed values are usually small numbers, using the packed
+     * value itself, or even the usual 31 multiplier hash, would make too many
+     * values cluster in too few buckets. This is the finalization step of the
+     * MurmurHash3 algorithm, which makes each bit of the input affect each
+     * bit of the output.
+     * @param packed The packed value.
+     * @return A scrambled 64-bit hash. Take the high bits or the low bits as
+     * needed, they're all equally good.
+     */
+    public static long hash(long packed) {
+        long h = packed;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private PackedImaginaryQuadraticInteger() {
+        // Only static functions in this class
+    }
+
+}
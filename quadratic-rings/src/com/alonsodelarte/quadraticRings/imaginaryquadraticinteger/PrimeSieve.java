@@ -0,0 +1,463 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A sieve of Eratosthenes, for when many primality tests of numbers up to some
+ * bound are needed at once, as when classifying every point of a ring diagram.
+ * Only odd numbers are represented, one bit each, so a sieve up to 16 million
+ * takes up 1 megabyte. Numbers beyond the limit of the sieve are tested with
+ * the Miller&ndash;Rabin test, which is deterministic with the first twelve
+ * primes as bases for all numbers less than 3.3 &times; 10<sup>24</sup>, and
+ * so for all longs and for norms of numbers far away from 0. For longs, the
+ * test is done with Montgomery multiplication, without creating any objects,
+ * and for numbers less than 2<sup>32</sup> it only needs three bases and half
+ * width arithmetic. Before that, the small primes are ruled out by
+ * multiplying by their inverses rather than by dividing.
+ * <p>Large sieves are built a segment at a time, each segment small enough to
+ * stay in the processor's cache while the multiples of the primes are
+ * crossed out of it, and the segments are built in parallel.</p>
+ * <p>Instances are immutable once constructed, and so they can be shared
+ * between threads. Use {@link #upTo(long)} to get a shared sieve rather than
+ * constructing a new one each time.</p>
+ * @author Alonso del Arte
+ */
+public final class PrimeSieve {
+
+    /**
+     * The largest limit a sieve can have. At one bit per odd number, a sieve
+     * this large takes up 64 megabytes. This covers the norms of all the
+     * points of a density map of the default canvas size zoomed all the way
+     * out, which go up to about 5.5 &times; 10<sup>8</sup>.
+     */
+    public static final long MAXIMUM_LIMIT = 1L << 30;
+
+    private static final long MINIMUM_SHARED_LIMIT = 1L << 16;
+
+    private static volatile PrimeSieve shared = null;
+
+    /**
+     * How many longs of the sieve each segment is, so that a segment takes up
+     * 32 kilobytes and covers 2<sup>19</sup> numbers.
+     */
+    private static final int SEGMENT_WORDS = 1 << 12;
+
+    private static final int[] MILLER_RABIN_BASES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    /**
+     * Every number less than 3474749660383 that passes the Miller-Rabin test
+     * for the first six primes as bases is prime.
+     */
+    private static final long SIX_BASES_BOUND = 3474749660383L;
+
+    /**
+     * Every number less than 4759123141 that passes the Miller-Rabin test for
+     * these three bases is prime, which covers every number less than
+     * 2<sup>32</sup>.
+     */
+    private static final int[] WORD_HALF_BASES = {2, 7, 61};
+
+    private static final long LOW_HALF_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Every number less than this that passes the Miller-Rabin test for all
+     * of {@link #MILLER_RABIN_BASES} is prime.
+     */
+    private static final BigInteger MILLER_RABIN_DETERMINISTIC_BOUND = new BigInteger("3317044064679887385961981");
+
+    private static final int[] SMALL_ODD_PRIMES = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83, 89, 97};
+
+    /**
+     * 2 to the 64th power modulo each of {@link #SMALL_ODD_PRIMES}.
+     */
+    private static final long[] WORD_RESIDUES = new long[SMALL_ODD_PRIMES.length];
+
+    /**
+     * The multiplicative inverse of each of {@link #SMALL_ODD_PRIMES} modulo
+     * 2<sup>64</sup>, and the largest unsigned long divided by each of them.
+     * A long is divisible by one of the primes if and only if the long times
+     * the inverse, as an unsigned number, is at most that quotient. This
+     * saves a division for each prime tried.
+     */
+    private static final long[] SMALL_ODD_PRIME_INVERSES = new long[SMALL_ODD_PRIMES.length], SMALL_ODD_PRIME_QUOTIENTS = new long[SMALL_ODD_PRIMES.length];
+
+    static {
+        for (int i = 0; i < SMALL_ODD_PRIMES.length; i++) {
+            WORD_RESIDUES[i] = BigInteger.ONE.shiftLeft(64).mod(BigInteger.valueOf(SMALL_ODD_PRIMES[i])).longValue();
+            SMALL_ODD_PRIME_INVERSES[i] = inverseModWord(SMALL_ODD_PRIMES[i]);
+            SMALL_ODD_PRIME_QUOTIENTS[i] = Long.divideUnsigned(-1L, SMALL_ODD_PRIMES[i]);
+        }
+    }
+
+    private final long limit;
+
+    /**
+     * Bit i of this array is set if and only if 2i + 1 is composite (or 1).
+     */
+    private final long[] compositeOdds;
+
+    /**
+     * Gives a sieve with a limit of at least the specified bound, reusing the
+     * previously built sieve if that one is large enough. The limit is at
+     * least doubled each time a new sieve is needed, so that panning and
+     * zooming out do not cause a new sieve to be built every time.
+     * @param bound The largest number expected to be tested. For example,
+     * 1000000.
+     * @return A sieve with a limit of at least bound, or of {@link
+     * #MAXIMUM_LIMIT} if bound exceeds that.
+     */
+    public static PrimeSieve upTo(long bound) {
+        PrimeSieve sieve = shared;
+        long needed = Math.min(bound, MAXIMUM_LIMIT);
+        if (sieve == null || sieve.limit < needed) {
+            long newLimit = Math.max(needed, MINIMUM_SHARED_LIMIT);
+            if (sieve != null) {
+                newLimit = Math.min(Math.max(newLimit, 2 * sieve.limit), MAXIMUM_LIMIT);
+            }
+            sieve = new PrimeSieve(newLimit);
+            shared = sieve;
+        }
+        return sieve;
+    }
+
+    /**
+     * Gets the limit of this sieve.
+     * @return The limit. For example, 65536.
+     */
+    public long getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Determines whether a number is prime. For numbers up to the limit of
+     * this sieve, this is a lookup of a single bit.
+     * @param num The number to test. Negative numbers are considered prime if
+     * their absolute values are prime, same as in {@link
+     * NumberTheoreticFunctionsCalculator#isPrime(long)}.
+     * @return True if the number is prime, false otherwise. For example, true
+     * for 47, false for 91.
+     */
+    public boolean isPrime(long num) {
+        if (num < 0) {
+            num = -num;
+        }
+        if (num > this.limit) {
+            if (num < 2 || (num & 1) == 0) {
+                return num == 2;
+            }
+            for (int i = 0; i < SMALL_ODD_PRIMES.length; i++) {
+                if (Long.compareUnsigned(num * SMALL_ODD_PRIME_INVERSES[i], SMALL_ODD_PRIME_QUOTIENTS[i]) <= 0) {
+                    return num == SMALL_ODD_PRIMES[i];
+                }
+            }
+            if (num <= LOW_HALF_MASK) {
+                return isStrongProbablePrimeBelowWordHalf(num);
+            }
+            return isStrongProbablePrime(num, num < SIX_BASES_BOUND ? 6 : MILLER_RABIN_BASES.length);
+        }
+        if ((num & 1) == 0) {
+            return num == 2;
+        }
+        long index = num >> 1;
+        return (this.compositeOdds[(int) (index >> 6)] & (1L << index)) == 0;
+    }
+
+    /**
+     * Determines whether a number given as two 64-bit words is prime. This is
+     * for norms that exceed the range of long, as given by {@link
+     * ScanlineNormGenerator#fillRow(long, long, int, long[], long[])}. The
+     * small odd primes are tried first, since most norms have a small factor
+     * and this doesn't require any objects to be created.
+     * @param highWord The high 64 bits of the number. Must not be negative.
+     * For example, 54210.
+     * @param lowWord The low 64 bits of the number, unsigned. For example,
+     * 2003764205206896647.
+     * @return True if the number is prime, false otherwise. In the example,
+     * the number is 10<sup>24</sup> + 7, which is prime. Numbers of 3.3
+     * &times; 10<sup>24</sup> or more are tested with {@link
+     * BigInteger#isProbablePrime(int)}, which has a vanishingly small chance
+     * of reporting a composite number as prime.
+     */
+    public boolean isPrime(long highWord, long lowWord) {
+        if (highWord == 0 && lowWord >= 0) {
+            return this.isPrime(lowWord);
+        }
+        if ((lowWord & 1) == 0) {
+            return false;
+        }
+        for (int i = 0; i < SMALL_ODD_PRIMES.length; i++) {
+            long p = SMALL_ODD_PRIMES[i];
+            if ((Long.remainderUnsigned(highWord, p) * WORD_RESIDUES[i] + Long.remainderUnsigned(lowWord, p)) % p == 0) {
+                return false;
+            }
+        }
+        BigInteger num = BigInteger.valueOf(highWord).shiftLeft(64).or(BigInteger.valueOf(lowWord >>> 1).shiftLeft(1)).setBit(0);
+        if (num.compareTo(MILLER_RABIN_DETERMINISTIC_BOUND) >= 0) {
+            return num.isProbablePrime(100);
+        }
+        return isStrongProbablePrime(num);
+    }
+
+    /**
+     * The Miller-Rabin test with the first twelve primes as bases. The caller
+     * makes sure num is odd and not divisible by any of those primes.
+     */
+    private static boolean isStrongProbablePrime(BigInteger num) {
+        BigInteger numMinusOne = num.subtract(BigInteger.ONE);
+        int twos = numMinusOne.getLowestSetBit();
+        BigInteger oddPart = numMinusOne.shiftRight(twos);
+        for (int base : MILLER_RABIN_BASES) {
+            BigInteger power = BigInteger.valueOf(base).modPow(oddPart, num);
+            if (power.equals(BigInteger.ONE) || power.equals(numMinusOne)) {
+                continue;
+            }
+            boolean witness = true;
+            for (int i = 1; i < twos && witness; i++) {
+                power = power.multiply(power).mod(num);
+                witness = !power.equals(numMinusOne);
+            }
+            if (witness) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The multiplicative inverse of an odd number modulo 2<sup>64</sup>, by
+     * Newton's method. Each step doubles the number of correct low bits, and
+     * the odd number is its own inverse modulo 8 to start with.
+     */
+    private static long inverseModWord(long num) {
+        long inverse = num;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - num * inverse;
+        }
+        return inverse;
+    }
+
+    /**
+     * The high 64 bits of the unsigned product of two longs.
+     */
+    private static long unsignedMultiplyHigh(long a, long b) {
+        long aLow = a & 0xFFFFFFFFL, aHigh = a >>> 32;
+        long bLow = b & 0xFFFFFFFFL, bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long middle = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + (lowHigh & 0xFFFFFFFFL);
+        return aHigh * bHigh + (highLow >>> 32) + (lowHigh >>> 32) + (middle >>> 32);
+    }
+
+    /**
+     * Montgomery multiplication: a times b divided by 2<sup>64</sup>, modulo
+     * num. Both a and b must be less than num.
+     * @param negInverse The additive inverse of the multiplicative inverse of
+     * num modulo 2<sup>64</sup>.
+     */
+    private static long montgomeryMultiply(long a, long b, long num, long negInverse) {
+        long high = unsignedMultiplyHigh(a, b);
+        long m = a * b * negInverse;
+        long reduced = high + unsignedMultiplyHigh(m, num) + (a * b != 0 ? 1 : 0);
+        return Long.compareUnsigned(reduced, num) >= 0 ? reduced - num : reduced;
+    }
+
+    /**
+     * The Miller-Rabin test with the first few primes as bases, for a number
+     * that fits in a long. The caller makes sure num is odd and not divisible
+     * by any of those primes, and picks enough bases for the test to be
+     * deterministic for num.
+     */
+    private static boolean isStrongProbablePrime(long num, int baseCount) {
+        long negInverse = -inverseModWord(num);
+        long one = Long.remainderUnsigned(-num, num);
+        long minusOne = num - one;
+        long rSquared = one;
+        for (int i = 0; i < 64; i++) {
+            rSquared <<= 1;
+            if (Long.compareUnsigned(rSquared, num) >= 0) {
+                rSquared -= num;
+            }
+        }
+        long numMinusOne = num - 1;
+        int twos = Long.numberOfTrailingZeros(numMinusOne);
+        long oddPart = numMinusOne >>> twos;
+        for (int b = 0; b < baseCount; b++) {
+            long base = montgomeryMultiply(MILLER_RABIN_BASES[b] % num, rSquared, num, negInverse);
+            long power = one;
+            for (int bit = 63 - Long.numberOfLeadingZeros(oddPart); bit >= 0; bit--) {
+                power = montgomeryMultiply(power, power, num, negInverse);
+                if ((oddPart >>> bit & 1) != 0) {
+                    power = montgomeryMultiply(power, base, num, negInverse);
+                }
+            }
+            if (power == one || power == minusOne) {
+                continue;
+            }
+            boolean witness = true;
+            for (int i = 1; i < twos && witness; i++) {
+                power = montgomeryMultiply(power, power, num, negInverse);
+                witness = power != minusOne;
+            }
+            if (witness) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Montgomery multiplication for a number less than 2<sup>32</sup>: a
+     * times b divided by 2<sup>32</sup>, modulo num. Both a and b must be
+     * less than num, so that the product fits in an unsigned long.
+     * @param negInverse The additive inverse of the multiplicative inverse of
+     * num modulo 2<sup>32</sup>.
+     */
+    private static long montgomeryMultiplyBelowWordHalf(long a, long b, long num, long negInverse) {
+        long product = a * b;
+        long m = ((product & LOW_HALF_MASK) * negInverse) & LOW_HALF_MASK;
+        long reduced = (product >>> 32) + ((m * num) >>> 32) + ((product & LOW_HALF_MASK) != 0 ? 1 : 0);
+        return reduced >= num ? reduced - num : reduced;
+    }
+
+    /**
+     * The Miller-Rabin test for a number less than 2<sup>32</sup>, with the
+     * three bases that make the test deterministic there. This is the same
+     * as {@link #isStrongProbablePrime(long, int)}, but with each Montgomery
+     * multiplication taking two multiplications rather than eight. The
+     * caller makes sure num is odd and not divisible by any of the bases.
+     */
+    private static boolean isStrongProbablePrimeBelowWordHalf(long num) {
+        long negInverse = -inverseModWord(num) & LOW_HALF_MASK;
+        long one = (1L << 32) % num;
+        long minusOne = num - one;
+        long rSquared = Long.remainderUnsigned(one * one, num);
+        long numMinusOne = num - 1;
+        int twos = Long.numberOfTrailingZeros(numMinusOne);
+        long oddPart = numMinusOne >>> twos;
+        for (int b : WORD_HALF_BASES) {
+            long base = montgomeryMultiplyBelowWordHalf(b, rSquared, num, negInverse);
+            long power = one;
+            for (int bit = 63 - Long.numberOfLeadingZeros(oddPart); bit >= 0; bit--) {
+                power = montgomeryMultiplyBelowWordHalf(power, power, num, negInverse);
+                if ((oddPart >>> bit & 1) != 0) {
+                    power = montgomeryMultiplyBelowWordHalf(power, base, num, negInverse);
+                }
+            }
+            if (power == one || power == minusOne) {
+                continue;
+            }
+            boolean witness = true;
+            for (int i = 1; i < twos && witness; i++) {
+                power = montgomeryMultiplyBelowWordHalf(power, power, num, negInverse);
+                witness = power != minusOne;
+            }
+            if (witness) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Crosses out the multiples of the sieving primes from a range of
+     * segments of the sieve, splitting the range in two for the fork/join
+     * pool to work on in parallel if it's more than one segment. Each segment
+     * only writes its own longs of the sieve.
+     */
+    private final class Segments extends RecursiveAction {
+
+        private static final long serialVersionUID = 1058516835;
+
+        private final int[] primes;
+
+        private final int firstWord, endWord;
+
+        @Override
+        protected void compute() {
+            if (this.endWord - this.firstWord > SEGMENT_WORDS) {
+                int middle = this.firstWord + Math.max(1, (this.endWord - this.firstWord) / SEGMENT_WORDS / 2) * SEGMENT_WORDS;
+                invokeAll(new Segments(this.primes, this.firstWord, middle), new Segments(this.primes, middle, this.endWord));
+                return;
+            }
+            long[] bits = PrimeSieve.this.compositeOdds;
+            long limitIndex = PrimeSieve.this.limit >> 1;
+            long firstIndex = (long) this.firstWord << 6;
+            long endIndex = Math.min((long) this.endWord << 6, limitIndex + 1);
+            for (int p : this.primes) {
+                long start = ((long) p * p) >> 1;
+                if (start >= endIndex) {
+                    break;
+                }
+                if (start < firstIndex) {
+                    /* The odd multiples of p are at indices congruent to
+                       p >> 1 modulo p. */
+                    long offset = (firstIndex - (p >> 1)) % p;
+                    start = offset == 0 ? firstIndex : firstIndex + p - offset;
+                }
+                for (long index = start; index < endIndex; index += p) {
+                    bits[(int) (index >>> 6)] |= 1L << index;
+                }
+            }
+        }
+
+        Segments(int[] primes, int firstWord, int endWord) {
+            this.primes = primes;
+            this.firstWord = firstWord;
+            this.endWord = endWord;
+        }
+
+    }
+
+    /**
+     * Builds a sieve up to the specified limit.
+     * @param limit The largest number the sieve should cover. For example,
+     * 1000000.
+     * @throws IllegalArgumentException If limit is negative or greater than
+     * {@link #MAXIMUM_LIMIT}.
+     */
+    public PrimeSieve(long limit) {
+        if (limit < 0 || limit > MAXIMUM_LIMIT) {
+            throw new IllegalArgumentException("Sieve limit " + limit + " is outside the range 0 to " + MAXIMUM_LIMIT + ".");
+        }
+        this.limit = limit;
+        long oddCount = (limit >> 1) + 1;
+        this.compositeOdds = new long[(int) ((oddCount + 63) >> 6)];
+        this.compositeOdds[0] = 1L;
+        int root = (int) Math.sqrt((double) limit);
+        PrimeSieve baseSieve = root < 9 ? null : new PrimeSieve(root);
+        int[] primes = new int[(root + 1) / 2];
+        int primeCount = 0;
+        for (int p = 3; p <= root; p += 2) {
+            if (baseSieve == null || baseSieve.isPrime(p)) {
+                primes[primeCount++] = p;
+            }
+        }
+        Segments all = new Segments(Arrays.copyOf(primes, primeCount), 0, this.compositeOdds.length);
+        if (this.compositeOdds.length > SEGMENT_WORDS) {
+            ForkJoinPool.commonPool().invoke(all);
+        } else {
+            all.compute();
+        }
+    }
+
+}
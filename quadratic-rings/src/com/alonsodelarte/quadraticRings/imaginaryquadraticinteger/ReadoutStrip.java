@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+/**
+ * The readouts at the bottom of the window: the number under the mouse
+ * pointer, its trace, norm, minimal polynomial and factorization. These used
+ * to be text fields, but every call to <code>setText()</code> on a text field
+ * fires document events and can set off revalidation, and with the mouse
+ * moving quickly that adds up. This component instead just keeps the text of
+ * each readout and paints it itself, repainting only the readouts that
+ * changed. Nothing at all is done if the mouse moves to a spot nearest the
+ * same number as before.
+ * <p>The text is what {@link ImaginaryQuadraticInteger#toString()}, {@link
+ * ImaginaryQuadraticInteger#toStringAlt()} and {@link
+ * ImaginaryQuadraticInteger#minPolynomialString()} give. The text for the
+ * most recently shown numbers is kept, so that going back over a number
+ * doesn't format it again.</p>
+ * @author Alonso del Arte
+ */
+final class ReadoutStrip extends JComponent {
+
+    private static final long serialVersionUID = 4547203188260751L;
+
+    static final int NUMBER = 0;
+
+    static final int TRACE = 1;
+
+    static final int NORM = 2;
+
+    static final int POLYNOMIAL = 3;
+
+    static final int FACTORS = 4;
+
+    /**
+     * How many numbers to keep the text of.
+     */
+    static final int TEXT_CACHE_CAPACITY = 64;
+
+    private static final String[] LABELS = {"", "Trace: ", "Norm: ", "Polynomial: ", "Factors: "};
+
+    private static final int GAP = 5;
+
+    private static final int PADDING = 3;
+
+    /* Where the text of a number in theta notation goes in the cached text,
+       after the text of each of the readouts other than the factors. */
+    private static final int ALT_NUMBER = FACTORS;
+
+    private final int columns;
+
+    private final String[] texts = new String[LABELS.length];
+
+    private final Map<ImaginaryQuadraticInteger, String[]> textCache;
+
+    /* Where each readout box is, worked out from the font metrics when first
+       needed. */
+    private final int[] boxXs = new int[LABELS.length];
+
+    private int boxWidth = -1, boxHeight;
+
+    private FontMetrics laidOutMetrics = null;
+
+    private ImaginaryQuadraticInteger shown = null;
+
+    private boolean shownWithTheta;
+
+    /**
+     * Gets the text of a readout.
+     * @param field Which readout. For example, {@link #NORM}.
+     * @return The text. For example, "5".
+     */
+    String getText(int field) {
+        return this.texts[field];
+    }
+
+    /**
+     * Gives the text of the readouts other than the factors for a number,
+     * formatting it only if it's not among the most recently shown numbers.
+     */
+    private String[] textOf(ImaginaryQuadraticInteger num) {
+        String[] text = this.textCache.get(num);
+        if (text == null) {
+            text = new String[] {num.toString(), Long.toString(num.trace()), Long.toString(num.norm()), num.minPolynomialString(), num.toStringAlt()};
+            this.textCache.put(num, text);
+        }
+        return text;
+    }
+
+    /**
+     * Shows the readouts for a number, unless they're already showing it.
+     * @param num The number under the mouse pointer. For example, 2 +
+     * <i>i</i>.
+     * @param preferTheta Whether to write numbers of rings with
+     * "half-integers" in theta notation.
+     * @return True if the readouts changed, false if they were already
+     * showing the number that way.
+     */
+    boolean show(ImaginaryQuadraticInteger num, boolean preferTheta) {
+        if (num.equals(this.shown) && preferTheta == this.shownWithTheta) {
+            return false;
+        }
+        this.shown = num;
+        this.shownWithTheta = preferTheta;
+        String[] text = this.textOf(num);
+        this.setText(NUMBER, text[preferTheta ? ALT_NUMBER : NUMBER]);
+        this.setText(TRACE, text[TRACE]);
+        this.setText(NORM, text[NORM]);
+        this.setText(POLYNOMIAL, text[POLYNOMIAL]);
+        return true;
+    }
+
+    /**
+     * Changes the text of one readout.
+     * @param field Which readout. For example, {@link #FACTORS}.
+     * @param text The new text. For example, "Factoring...".
+     */
+    void setText(int field, CharSequence text) {
+        String newText = text.toString();
+        if (newText.equals(this.texts[field])) {
+            return;
+        }
+        this.texts[field] = newText;
+        this.repaintField(field);
+    }
+
+    /**
+     * Works out where the readout boxes go for the current font. Like a text
+     * field, each box is wide enough for as many m's as there are columns.
+     */
+    private void layOutFields(FontMetrics metrics) {
+        if (metrics.equals(this.laidOutMetrics)) {
+            return;
+        }
+        this.boxWidth = this.columns * metrics.charWidth('m') + 2 * PADDING;
+        this.boxHeight = metrics.getHeight() + 2 * PADDING;
+        int x = GAP;
+        for (int i = 0; i < LABELS.length; i++) {
+            x += metrics.stringWidth(LABELS[i]);
+            this.boxXs[i] = x;
+            x += this.boxWidth + GAP;
+        }
+        this.laidOutMetrics = metrics;
+    }
+
+    private void repaintField(int field) {
+        if (this.boxWidth < 0) {
+            this.repaint();
+        } else {
+            this.repaint(this.boxXs[field], GAP, this.boxWidth, this.boxHeight);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (this.isPreferredSizeSet() || this.getFont() == null) {
+            return super.getPreferredSize();
+        }
+        this.layOutFields(this.getFontMetrics(this.getFont()));
+        int width = this.boxXs[LABELS.length - 1] + this.boxWidth + GAP;
+        return new Dimension(width, this.boxHeight + 2 * GAP);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        FontMetrics metrics = g.getFontMetrics(this.getFont());
+        this.layOutFields(metrics);
+        g.setFont(this.getFont());
+        g.setColor(this.getBackground());
+        g.fillRect(0, 0, this.getWidth(), this.getHeight());
+        int baseline = GAP + PADDING + metrics.getAscent();
+        for (int i = 0; i < LABELS.length; i++) {
+            int boxX = this.boxXs[i];
+            g.setColor(this.getForeground());
+            g.drawString(LABELS[i], boxX - metrics.stringWidth(LABELS[i]), baseline);
+            g.setColor(Color.WHITE);
+            g.fillRect(boxX, GAP, this.boxWidth, this.boxHeight);
+            g.setColor(Color.GRAY);
+            g.drawRect(boxX, GAP, this.boxWidth - 1, this.boxHeight - 1);
+            Graphics boxGraphics = g.create(boxX + PADDING, GAP, this.boxWidth - 2 * PADDING, this.boxHeight);
+            boxGraphics.setColor(this.getForeground());
+            boxGraphics.drawString(this.texts[i], 0, PADDING + metrics.getAscent());
+            boxGraphics.dispose();
+        }
+    }
+
+    /**
+     * Sets up the readouts to show 0.
+     * @param columns How many columns wide to make each readout. For example,
+     * 20.
+     */
+    ReadoutStrip(int columns) {
+        this.columns = columns;
+        this.textCache = new LinkedHashMap<ImaginaryQuadraticInteger, String[]>(TEXT_CACHE_CAPACITY + 1, 1.0f, true) {
+            private static final long serialVersionUID = 4547203188260752L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ImaginaryQuadraticInteger, String[]> eldest) {
+                return this.size() > TEXT_CACHE_CAPACITY;
+            }
+        };
+        this.setOpaque(true);
+        this.setFont(UIManager.getFont("TextField.font"));
+        this.setForeground(UIManager.getColor("TextField.foreground"));
+        this.setBackground(UIManager.getColor("Panel.background"));
+        this.setText(NUMBER, "0");
+        this.setText(TRACE, "0");
+        this.setText(NORM, "0");
+        this.setText(POLYNOMIAL, "x");
+        this.setText(FACTORS, "Zero");
+    }
+
+}
@@ -0,0 +1,1089 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Classifies every lattice point in a rectangular region of an imaginary
+ * quadratic ring as zero, unit, prime of one kind or another, or composite,
+ * without creating any {@link ImaginaryQuadraticInteger} objects. The norms of
+ * the points of a row are consecutive values of the quadratic form
+ * <i>x</i><sup>2</sup> + |<i>d</i>|<i>y</i><sup>2</sup>, so they are computed
+ * by adding 2<i>x</i> + 1 to the norm of the previous point. The primes up to
+ * the largest norm in the region are sieved once (see {@link PrimeSieve}), so
+ * that the primality test of each norm is just a lookup, done a whole row at a
+ * time by {@link ScanlineClassifier}.
+ * <p>The region is given in lattice coordinates. For rings in which <i>d</i>
+ * is not congruent to 1 modulo 4, the point (<i>x</i>, <i>y</i>) is the number
+ * <i>x</i> + <i>y</i>&radic;<i>d</i>. For rings in which <i>d</i> is congruent
+ * to 1 modulo 4, the coordinates are in half units, the point (<i>x</i>,
+ * <i>y</i>) is the number <i>x</i>/2 + <i>y</i>&radic;<i>d</i>/2, and the
+ * points with <i>x</i> and <i>y</i> of different parity are not in the ring.
+ * </p>
+ * <p>The classification of a number depends only on the number and not on the
+ * extent of the region. Associates of purely real integers are classified like
+ * those purely real integers, so that, for example, 5<i>i</i> is classified
+ * like 5, as a split prime.</p>
+ * <p>Since the classification of a number is the same as that of its
+ * associates and its conjugate, only the points of a fundamental sector are
+ * actually classified whenever that saves work: 1/8 of the plane for
+ * <b>Z</b>[<i>i</i>], 1/12 for <b>Z</b>[&omega;] and 1/4 for the other rings.
+ * The rest of the points are then filled in from their counterparts in the
+ * sector.</p>
+ * @author Alonso del Arte
+ */
+public final class RegionClassification {
+
+    /**
+     * The point is not in the ring. This only occurs in rings in which
+     * <i>d</i> is congruent to 1 modulo 4, for points with one coordinate odd
+     * and the other even.
+     */
+    public static final byte NOT_IN_RING = 0;
+
+    /**
+     * The point is neither zero, nor a unit, nor prime, nor a unit times a
+     * purely real prime. For example, 2 + 2<i>i</i> in <b>Z</b>[<i>i</i>].
+     */
+    public static final byte COMPOSITE = 1;
+
+    /**
+     * The point is 0.
+     */
+    public static final byte ZERO = 2;
+
+    /**
+     * The point is a unit. For example, &minus;<i>i</i> in
+     * <b>Z</b>[<i>i</i>].
+     */
+    public static final byte UNIT = 3;
+
+    /**
+     * The point is a unit times a purely real prime that is inert in the ring.
+     * Such a point is prime in the ring. For example, 3<i>i</i> in
+     * <b>Z</b>[<i>i</i>].
+     */
+    public static final byte INERT_PRIME = 4;
+
+    /**
+     * The point is a unit times a purely real prime that splits in the ring as
+     * the product of a number of the ring and its conjugate. For example, 5 in
+     * <b>Z</b>[<i>i</i>], which is (2 &minus; <i>i</i>)(2 + <i>i</i>).
+     */
+    public static final byte SPLIT_PRIME = 5;
+
+    /**
+     * The point is a unit times a purely real prime that splits in the ring,
+     * but as a product of nonprincipal ideals rather than of numbers. Such a
+     * point is irreducible but not prime. For example, 3 in
+     * <b>Z</b>[&radic;-5].
+     */
+    public static final byte SPLIT_PRIME_NONPRINCIPAL = 6;
+
+    /**
+     * The point is a unit times a purely real prime that ramifies in the ring
+     * as a unit times the square of a number of the ring. For example, 2 in
+     * <b>Z</b>[<i>i</i>], which is &minus;<i>i</i>(1 + <i>i</i>)<sup>2</sup>.
+     */
+    public static final byte RAMIFIED_PRIME = 7;
+
+    /**
+     * The point is a unit times a purely real prime that ramifies in the ring,
+     * but as the square of a nonprincipal ideal rather than of a number. For
+     * example, 2 in <b>Z</b>[&radic;-5].
+     */
+    public static final byte RAMIFIED_PRIME_NONPRINCIPAL = 8;
+
+    /**
+     * The point is prime, with a norm that is a purely real prime that splits
+     * in the ring. For example, 2 + <i>i</i> in <b>Z</b>[<i>i</i>].
+     */
+    public static final byte SPLIT_PRIME_FACTOR = 9;
+
+    /**
+     * The point is prime, with a norm that is a purely real prime that
+     * ramifies in the ring. For example, 1 + <i>i</i> in <b>Z</b>[<i>i</i>].
+     */
+    public static final byte RAMIFIED_PRIME_FACTOR = 10;
+
+    /**
+     * How many classification codes there are. The codes go from 0 to one
+     * less than this, so they can be used as array indices.
+     */
+    static final int CODE_COUNT = RAMIFIED_PRIME_FACTOR + 1;
+
+    /**
+     * Primes at least this large are checked for being norms with
+     * Cornacchia's algorithm rather than by searching.
+     */
+    private static final long CORNACCHIA_THRESHOLD = 1L << 20;
+
+    /**
+     * Marks the points of a sector classification that are outside the
+     * fundamental sector. These are never looked up.
+     */
+    private static final byte UNCLASSIFIED = -1;
+
+    /**
+     * Bands of rows with more points than this are split in two to be
+     * classified in parallel.
+     */
+    private static final int PARALLEL_BAND_POINTS = 1 << 12;
+
+    private final ImaginaryQuadraticRing ring;
+
+    private final long minX, minY;
+
+    private final int width, height;
+
+    /**
+     * The classifications, row by row. Row 0 has the points with the least
+     * y coordinate.
+     */
+    private final byte[] codes;
+
+    /**
+     * Tells whether a classification means the point is prime in the ring.
+     * @param code One of the classification constants of this class, such as
+     * {@link #INERT_PRIME}.
+     * @return True for {@link #INERT_PRIME}, {@link #SPLIT_PRIME_FACTOR} and
+     * {@link #RAMIFIED_PRIME_FACTOR}, false for everything else. In
+     * particular, false for {@link #SPLIT_PRIME}, since a split prime of
+     * <b>Z</b> is not prime in the ring.
+     */
+    public static boolean isPrime(byte code) {
+        return code == INERT_PRIME || code == SPLIT_PRIME_FACTOR || code == RAMIFIED_PRIME_FACTOR;
+    }
+
+    /**
+     * Gets the ring of the classified region.
+     * @return The ring. For example, <b>Z</b>[<i>i</i>].
+     */
+    public ImaginaryQuadraticRing getRing() {
+        return this.ring;
+    }
+
+    /**
+     * Gets the least x coordinate of the region.
+     * @return The x coordinate of the points in column 0.
+     */
+    public long getMinX() {
+        return this.minX;
+    }
+
+    /**
+     * Gets the least y coordinate of the region.
+     * @return The y coordinate of the points in row 0.
+     */
+    public long getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * Gets the width of the region.
+     * @return How many points there are in each row.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the region.
+     * @return How many rows there are.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the classification of a point of the region.
+     * @param column The column of the point, from 0 to width &minus; 1. This
+     * is the x coordinate minus the least x coordinate.
+     * @param row The row of the point, from 0 to height &minus; 1. This is the
+     * y coordinate minus the least y coordinate.
+     * @return One of the classification constants of this class, such as
+     * {@link #INERT_PRIME}.
+     * @throws ArrayIndexOutOfBoundsException If the row or the column is out
+     * of range.
+     */
+    public byte getCode(int column, int row) {
+        if (column < 0 || column >= this.width) {
+            throw new ArrayIndexOutOfBoundsException("Column " + column + " is outside the range 0 to " + (this.width - 1) + ".");
+        }
+        if (row < 0 || row >= this.height) {
+            throw new ArrayIndexOutOfBoundsException("Row " + row + " is outside the range 0 to " + (this.height - 1) + ".");
+        }
+        return this.codes[row * this.width + column];
+    }
+
+    /**
+     * Computes the norm of a lattice point, or Long.MAX_VALUE if the norm
+     * exceeds the range of long. This is only used to size the sieve.
+     */
+    private static long normAt(ImaginaryQuadraticRing ring, long x, long y) {
+        try {
+            long formValue = Math.addExact(Math.multiplyExact(x, x), Math.multiplyExact(Math.multiplyExact(y, y), (long) ring.absNegRad));
+            return ring.d1mod4 ? formValue >> 2 : formValue;
+        } catch (ArithmeticException ae) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int splittingBehavior(ImaginaryQuadraticRing ring, long p) {
+        if (p <= Integer.MAX_VALUE) {
+            return ring.splittingBehavior((int) p);
+        }
+        BigInteger prime = BigInteger.valueOf(p);
+        BigInteger discr = BigInteger.valueOf(ring.getDiscriminant()).mod(prime);
+        if (discr.signum() == 0) {
+            return 0;
+        }
+        return discr.modPow(prime.shiftRight(1), prime).equals(BigInteger.ONE) ? 1 : -1;
+    }
+
+    private static long floorSqrt(long n) {
+        long root = (long) Math.sqrt((double) n);
+        while (root * root > n) {
+            root--;
+        }
+        while ((root + 1) * (root + 1) <= n) {
+            root++;
+        }
+        return root;
+    }
+
+    /**
+     * A square root of a modulo an odd prime p, by the Tonelli-Shanks
+     * algorithm. The caller makes sure a is a quadratic residue.
+     */
+    private static BigInteger modSqrt(BigInteger a, BigInteger p) {
+        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
+        int twos = pMinusOne.getLowestSetBit();
+        BigInteger oddPart = pMinusOne.shiftRight(twos);
+        BigInteger nonResidue = BigInteger.valueOf(2);
+        while (nonResidue.modPow(pMinusOne.shiftRight(1), p).equals(BigInteger.ONE)) {
+            nonResidue = nonResidue.add(BigInteger.ONE);
+        }
+        BigInteger c = nonResidue.modPow(oddPart, p);
+        BigInteger root = a.modPow(oddPart.add(BigInteger.ONE).shiftRight(1), p);
+        BigInteger t = a.modPow(oddPart, p);
+        int m = twos;
+        while (!t.equals(BigInteger.ONE)) {
+            int i = 0;
+            BigInteger power = t;
+            while (!power.equals(BigInteger.ONE)) {
+                power = power.multiply(power).mod(p);
+                i++;
+            }
+            BigInteger b = c.modPow(BigInteger.ONE.shiftLeft(m - i - 1), p);
+            root = root.multiply(b).mod(p);
+            c = b.multiply(b).mod(p);
+            t = t.multiply(c).mod(p);
+            m = i;
+        }
+        return root;
+    }
+
+    /**
+     * Tells whether there is a number of the ring with the specified prime
+     * norm. Every prime that splits or ramifies is such a norm in a ring of
+     * class number 1, but not necessarily in other rings. Small primes are
+     * checked by searching, large ones with Cornacchia's algorithm, so that
+     * the purely real primes far from 0 don't take forever.
+     */
+    private static boolean isNorm(ImaginaryQuadraticRing ring, long p) {
+        for (int heegner : NumberTheoreticFunctionsCalculator.HEEGNER_NUMBERS) {
+            if (ring.negRad == heegner) {
+                return true;
+            }
+        }
+        long target = ring.d1mod4 ? 4 * p : p;
+        if (p < CORNACCHIA_THRESHOLD || ring.getDiscriminant() % p == 0) {
+            for (long y = 0; ring.absNegRad * y * y <= target; y++) {
+                long remainder = target - ring.absNegRad * y * y;
+                long x = floorSqrt(remainder);
+                if (x * x == remainder && (!ring.d1mod4 || ((x ^ y) & 1) == 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        BigInteger prime = BigInteger.valueOf(p);
+        long r = modSqrt(BigInteger.valueOf(-ring.absNegRad).mod(prime), prime).longValue();
+        long modulus = p;
+        long bound = floorSqrt(p);
+        if (ring.d1mod4) {
+            if ((r & 1) == 0) {
+                r = p - r;
+            }
+            modulus = 2 * p;
+            bound = floorSqrt(4 * p);
+        }
+        long previous = modulus;
+        while (r > bound) {
+            long next = previous % r;
+            previous = r;
+            r = next;
+        }
+        long remainder = target - r * r;
+        if (remainder % ring.absNegRad != 0) {
+            return false;
+        }
+        long ySquared = remainder / ring.absNegRad;
+        long y = floorSqrt(ySquared);
+        return y * y == ySquared;
+    }
+
+    private void reclassifyRealAssociate(long column, int row, long p, PrimeSieve sieve, Map<Long, Boolean> principal, boolean[] rowsDone) {
+        if (column < 0 || column >= this.width || row < 0 || row >= this.height || p < 2 || (rowsDone != null && !rowsDone[row])) {
+            return;
+        }
+        byte code = COMPOSITE;
+        if (sieve.isPrime(p)) {
+            int behavior = splittingBehavior(this.ring, p);
+            if (behavior == -1) {
+                code = INERT_PRIME;
+            } else {
+                Boolean isPrincipal = principal.get(p);
+                if (isPrincipal == null) {
+                    isPrincipal = isNorm(this.ring, p);
+                    principal.put(p, isPrincipal);
+                }
+                if (behavior == 0) {
+                    code = isPrincipal ? RAMIFIED_PRIME : RAMIFIED_PRIME_NONPRINCIPAL;
+                } else {
+                    code = isPrincipal ? SPLIT_PRIME : SPLIT_PRIME_NONPRINCIPAL;
+                }
+            }
+        }
+        this.codes[row * this.width + (int) column] = code;
+    }
+
+    /**
+     * The main pass classifies every point by its norm alone, which is correct
+     * except for the units times purely real primes, whose norms are squares.
+     * Those lie on the real axis, plus the imaginary axis in Z[i] and the lines
+     * through the other units in Z[omega], and this pass puts them right. If
+     * rowsDone is not null, the rows not yet classified are left alone.
+     */
+    private void reclassifyRealAssociates(PrimeSieve sieve, boolean[] rowsDone) {
+        Map<Long, Boolean> principal = new HashMap<>();
+        int step = this.ring.d1mod4 ? 2 : 1;
+        if (this.minY <= 0 && this.minY + this.height > 0) {
+            int row = (int) -this.minY;
+            for (int column = 0; column < this.width; column++) {
+                long x = this.minX + column;
+                if (x % step == 0) {
+                    this.reclassifyRealAssociate(column, row, Math.abs(x) / step, sieve, principal, rowsDone);
+                }
+            }
+        }
+        if (this.ring.negRad == -1 && this.minX <= 0 && this.minX + this.width > 0) {
+            int column = (int) -this.minX;
+            for (int row = 0; row < this.height; row++) {
+                this.reclassifyRealAssociate(column, row, Math.abs(this.minY + row), sieve, principal, rowsDone);
+            }
+        }
+        if (this.ring.negRad == -3) {
+            for (int row = 0; row < this.height; row++) {
+                long y = this.minY + row;
+                if (y != 0) {
+                    this.reclassifyRealAssociate(y - this.minX, row, Math.abs(y), sieve, principal, rowsDone);
+                    this.reclassifyRealAssociate(-y - this.minX, row, Math.abs(y), sieve, principal, rowsDone);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells where the fundamental sector starts in a row with nonnegative y.
+     * The sector is 0 &le; y &le; x for Z[i], 0 &le; 3y &le; x for Z[omega]
+     * (that's the 30 degree line in half units) and 0 &le; x, 0 &le; y for
+     * the other rings.
+     */
+    private static long sectorRowStart(ImaginaryQuadraticRing ring, long y) {
+        switch (ring.negRad) {
+            case -1:
+                return y;
+            case -3:
+                return 3 * y;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Finds the counterpart of a point in the fundamental sector, by
+     * multiplying it by units and conjugating it as needed. In Z[omega], the
+     * point is rotated by -60 degrees while it's above the 60 degree line,
+     * and then reflected across the 30 degree line if it's above that one.
+     * @param x The x coordinate of the point. For Z[omega], this must have the
+     * same parity as y.
+     * @param y The y coordinate of the point.
+     * @param counterpart The array in which to put the x and y coordinates of
+     * the counterpart.
+     */
+    private static void toSector(ImaginaryQuadraticRing ring, long x, long y, long[] counterpart) {
+        long a = Math.abs(x);
+        long b = Math.abs(y);
+        switch (ring.negRad) {
+            case -1:
+                if (b > a) {
+                    long swap = a;
+                    a = b;
+                    b = swap;
+                }
+                break;
+            case -3:
+                a = x;
+                long rotated;
+                while (b > a) {
+                    rotated = ((a + b) >> 1) + b;
+                    b = (b - a) >> 1;
+                    a = rotated;
+                }
+                if (a < 3 * b) {
+                    rotated = ((a + b) >> 1) + b;
+                    b = (a - b) >> 1;
+                    a = rotated;
+                }
+                break;
+            default:
+        }
+        counterpart[0] = a;
+        counterpart[1] = b;
+    }
+
+    /**
+     * Classifies the points of some of the rows of this region, using a norm
+     * generator of its own, so that different bands of rows can be classified
+     * on different threads at the same time.
+     */
+    private void classifyRows(PrimeSieve sieve, boolean sectorOnly, int firstRow, int endRow) {
+        this.classifyRows(sieve, sectorOnly, firstRow, endRow, 0, this.width);
+    }
+
+    /**
+     * Classifies the points of some of the columns of some of the rows of
+     * this region.
+     */
+    private void classifyRows(PrimeSieve sieve, boolean sectorOnly, int firstRow, int endRow, int startColumn, int endColumn) {
+        ScanlineNormGenerator generator = new ScanlineNormGenerator(this.ring);
+        long[] lowWords = new long[this.width];
+        long[] highWords = new long[this.width];
+        int discr = this.ring.getDiscriminant();
+        boolean halfIntegers = this.ring.d1mod4;
+        byte[] codes = this.codes;
+        for (int row = firstRow; row < endRow; row++) {
+            long y = this.minY + row;
+            int index = row * this.width + startColumn;
+            int firstColumn = startColumn;
+            if (sectorOnly) {
+                firstColumn = (int) clamp(sectorRowStart(this.ring, y) - this.minX, startColumn, endColumn);
+                for (int column = startColumn; column < firstColumn; column++) {
+                    codes[index++] = UNCLASSIFIED;
+                }
+            }
+            int count = endColumn - firstColumn;
+            boolean narrow = generator.fillRow(this.minX + firstColumn, y, count, lowWords, highWords);
+            if (narrow && count > 0 && Math.max(lowWords[0], lowWords[count - 1]) <= sieve.getLimit()) {
+                boolean firstInRing = (((this.minX + firstColumn) ^ y) & 1) == 0;
+                ScanlineClassifier.classifyRow(lowWords, count, halfIntegers, firstInRing, sieve, discr, codes, index);
+                continue;
+            }
+            for (int column = firstColumn; column < endColumn; column++) {
+                long x = this.minX + column;
+                byte code;
+                if (halfIntegers && ((x ^ y) & 1) != 0) {
+                    code = NOT_IN_RING;
+                } else if (narrow || (highWords[column - firstColumn] == 0 && lowWords[column - firstColumn] >= 0)) {
+                    code = ScanlineClassifier.classifyNorm(lowWords[column - firstColumn], sieve, discr);
+                } else {
+                    code = sieve.isPrime(highWords[column - firstColumn], lowWords[column - firstColumn]) ? SPLIT_PRIME_FACTOR : COMPOSITE;
+                }
+                codes[index++] = code;
+            }
+        }
+    }
+
+    /**
+     * Classifies the rows of a band whose numbers are multiples of the stride,
+     * skipping the rows already classified, and marks them as classified.
+     */
+    private void classifyInterleavedRows(PrimeSieve sieve, int rowStride, boolean[] rowsDone, BooleanSupplier cancelled, int firstRow, int endRow) {
+        int row = firstRow + (rowStride - firstRow % rowStride) % rowStride;
+        for (; row < endRow && !isAbandoned(cancelled); row += rowStride) {
+            if (!rowsDone[row]) {
+                this.classifyRows(sieve, false, row, row + 1);
+                rowsDone[row] = true;
+            }
+        }
+    }
+
+    /**
+     * Fills in some of the rows of this region by looking up the counterpart
+     * of each point in a classification of the fundamental sector.
+     */
+    private void fillRows(RegionClassification sector, int firstRow, int endRow) {
+        boolean halfIntegers = this.ring.d1mod4;
+        long[] counterpart = new long[2];
+        int index = firstRow * this.width;
+        for (int row = firstRow; row < endRow; row++) {
+            long y = this.minY + row;
+            for (int column = 0; column < this.width; column++) {
+                long x = this.minX + column;
+                if (halfIntegers && ((x ^ y) & 1) != 0) {
+                    this.codes[index++] = NOT_IN_RING;
+                } else {
+                    toSector(this.ring, x, y, counterpart);
+                    this.codes[index++] = sector.codes[(int) (counterpart[1] - sector.minY) * sector.width + (int) (counterpart[0] - sector.minX)];
+                }
+            }
+        }
+    }
+
+    private static boolean isAbandoned(BooleanSupplier cancelled) {
+        return cancelled != null && cancelled.getAsBoolean();
+    }
+
+    private static void throwIfCancelled(BooleanSupplier cancelled) {
+        if (isAbandoned(cancelled)) {
+            throw new CancellationException("Classification no longer needed.");
+        }
+    }
+
+    /**
+     * Classifies or fills in a band of rows of a region, splitting it in two
+     * for the fork/join pool to work on in parallel if it's large enough. The
+     * rows far from 0 can cost a lot more than the rows near 0, since their
+     * norms are larger, and far enough out can't be sieved. Rather than try to
+     * guess how much more, the bands are split down to a few thousand points
+     * each, so that whichever threads finish their bands early can steal the
+     * bands that are left. For a {@link Progressive} classification, only
+     * every few rows of the band are classified.
+     * <p>Once the classification is no longer needed, the bands stop early
+     * but quietly rather than throw, so that the band that started them
+     * doesn't return until every band under it has stopped writing. It's up
+     * to whoever invoked the band to check whether it was cancelled and throw
+     * then, and a classification reused after that never has bands of an
+     * abandoned pass still writing into it.</p>
+     */
+    private static final class RowBand extends RecursiveAction {
+
+        private static final long serialVersionUID = 1058516832;
+
+        private final RegionClassification region;
+
+        private final PrimeSieve sieve;
+
+        private final boolean sectorOnly;
+
+        private final RegionClassification sector;
+
+        private final BooleanSupplier cancelled;
+
+        private final int firstRow, endRow;
+
+        private final int rowStride;
+
+        private final boolean[] rowsDone;
+
+        @Override
+        protected void compute() {
+            if (isAbandoned(this.cancelled)) {
+                return;
+            }
+            if (this.endRow - this.firstRow < 2 * this.rowStride || (long) (this.endRow - this.firstRow) * this.region.width <= (long) PARALLEL_BAND_POINTS * this.rowStride) {
+                if (this.rowsDone != null) {
+                    this.region.classifyInterleavedRows(this.sieve, this.rowStride, this.rowsDone, this.cancelled, this.firstRow, this.endRow);
+                } else if (this.sector == null) {
+                    this.region.classifyRows(this.sieve, this.sectorOnly, this.firstRow, this.endRow);
+                } else {
+                    this.region.fillRows(this.sector, this.firstRow, this.endRow);
+                }
+                return;
+            }
+            int middleRow = (this.firstRow + this.endRow) >>> 1;
+            invokeAll(new RowBand(this.region, this.sieve, this.sectorOnly, this.sector, this.cancelled, this.firstRow, middleRow, this.rowStride, this.rowsDone), new RowBand(this.region, this.sieve, this.sectorOnly, this.sector, this.cancelled, middleRow, this.endRow, this.rowStride, this.rowsDone));
+        }
+
+        /**
+         * Sets up a band of rows to classify or fill in.
+         * @param region The region the rows are in.
+         * @param sieve The sieve to classify with. Ignored if sector is not
+         * null.
+         * @param sectorOnly Whether to classify only the points in the
+         * fundamental sector. Ignored if sector is not null.
+         * @param sector The classification of the fundamental sector to fill
+         * in the rows from, or null to classify the rows.
+         * @param cancelled Tells whether to give up. May be null.
+         * @param firstRow The first row of the band.
+         * @param endRow The row after the last row of the band.
+         */
+        RowBand(RegionClassification region, PrimeSieve sieve, boolean sectorOnly, RegionClassification sector, BooleanSupplier cancelled, int firstRow, int endRow) {
+            this(region, sieve, sectorOnly, sector, cancelled, firstRow, endRow, 1, null);
+        }
+
+        /**
+         * Sets up a band of rows to classify every few rows of. The rows
+         * are classified in full, not just in the fundamental sector.
+         * @param region The region the rows are in.
+         * @param sieve The sieve to classify with.
+         * @param cancelled Tells whether to give up. May be null.
+         * @param firstRow The first row of the band.
+         * @param endRow The row after the last row of the band.
+         * @param rowStride Only the rows whose numbers are multiples of this
+         * are classified. For example, 4.
+         * @param rowsDone Which rows of the region have been classified
+         * already. Those are skipped, and the rest are marked as they get
+         * classified.
+         */
+        RowBand(RegionClassification region, PrimeSieve sieve, BooleanSupplier cancelled, int firstRow, int endRow, int rowStride, boolean[] rowsDone) {
+            this(region, sieve, false, null, cancelled, firstRow, endRow, rowStride, rowsDone);
+        }
+
+        private RowBand(RegionClassification region, PrimeSieve sieve, boolean sectorOnly, RegionClassification sector, BooleanSupplier cancelled, int firstRow, int endRow, int rowStride, boolean[] rowsDone) {
+            this.region = region;
+            this.sieve = sieve;
+            this.sectorOnly = sectorOnly;
+            this.sector = sector;
+            this.cancelled = cancelled;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+            this.rowStride = rowStride;
+            this.rowsDone = rowsDone;
+        }
+
+    }
+
+    /**
+     * Gets a sieve large enough for the norms of a region, or a small one if
+     * even the least norm of the region is too large to sieve.
+     */
+    private static PrimeSieve sieveFor(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+        long maxX = minX + width - 1;
+        long maxY = minY + height - 1;
+        long maxNorm = Math.max(Math.max(normAt(ring, minX, minY), normAt(ring, minX, maxY)), Math.max(normAt(ring, maxX, minY), normAt(ring, maxX, maxY)));
+        long minNorm = normAt(ring, clamp(0, minX, maxX), clamp(0, minY, maxY));
+        return PrimeSieve.upTo(minNorm <= PrimeSieve.MAXIMUM_LIMIT ? maxNorm : 0);
+    }
+
+    private static RegionClassification classifyPoints(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height, boolean sectorOnly, BooleanSupplier cancelled) {
+        RegionClassification region = new RegionClassification(ring, minX, minY, width, height);
+        PrimeSieve sieve = sieveFor(ring, minX, minY, width, height);
+        ForkJoinPool.commonPool().invoke(new RowBand(region, sieve, sectorOnly, null, cancelled, 0, height));
+        throwIfCancelled(cancelled);
+        region.reclassifyRealAssociates(sieve, null);
+        return region;
+    }
+
+    /**
+     * Classifies every point of a rectangular region of a ring. The region may
+     * be anywhere in the plane, not just around 0. Far from 0, where the norms
+     * exceed the range of long, the classification is slower, since the primes
+     * can't be sieved, but it still creates no objects for most points.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param minX The least x coordinate of the region, in lattice
+     * coordinates (see the class description). For example, -320.
+     * @param minY The least y coordinate of the region. For example, -180.
+     * @param width How many points across the region is. For example, 641.
+     * @param height How many points down the region is. For example, 361.
+     * @return The classification of the region.
+     * @throws IllegalArgumentException If width or height is negative, or if
+     * the region has more than {@link Integer#MAX_VALUE} points.
+     * @throws ArithmeticException If the region reaches so far from 0 that
+     * {@link ScanlineNormGenerator} can't compute the norms.
+     */
+    public static RegionClassification classify(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+        return classify(ring, minX, minY, width, height, null);
+    }
+
+    /**
+     * Classifies every point of a rectangular region of a ring, giving up if
+     * the classification is no longer needed. This is for classifying in the
+     * background a region the user may have scrolled or zoomed away from by
+     * the time the classification would be done.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param minX The least x coordinate of the region. For example, -320.
+     * @param minY The least y coordinate of the region. For example, -180.
+     * @param width How many points across the region is. For example, 641.
+     * @param height How many points down the region is. For example, 361.
+     * @param cancelled Checked every few thousand points, and if it ever
+     * gives true, the classification is abandoned. May be null, in which case
+     * the classification always runs to completion.
+     * @return The classification of the region.
+     * @throws IllegalArgumentException If width or height is negative, or if
+     * the region has more than {@link Integer#MAX_VALUE} points.
+     * @throws ArithmeticException If the region reaches so far from 0 that
+     * {@link ScanlineNormGenerator} can't compute the norms.
+     * @throws CancellationException If the classification is abandoned.
+     */
+    static RegionClassification classify(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height, BooleanSupplier cancelled) {
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region of " + width + " by " + height + " points is not valid.");
+        }
+        if (width == 0 || height == 0) {
+            return new RegionClassification(ring, minX, minY, width, height);
+        }
+        long[] sectorBounds = findSector(ring, minX, minY, width, height);
+        if (sectorBounds == null) {
+            return classifyPoints(ring, minX, minY, width, height, false, cancelled);
+        }
+        int sectorWidth = (int) (sectorBounds[2] - sectorBounds[0] + 1);
+        RegionClassification sector = classifyPoints(ring, sectorBounds[0], sectorBounds[1], sectorWidth, (int) (sectorBounds[3] - sectorBounds[1] + 1), true, cancelled);
+        RegionClassification region = new RegionClassification(ring, minX, minY, width, height);
+        ForkJoinPool.commonPool().invoke(new RowBand(region, null, false, sector, cancelled, 0, height));
+        throwIfCancelled(cancelled);
+        return region;
+    }
+
+    /**
+     * Finds the bounding box of the counterparts in the fundamental sector of
+     * the points of a region, if classifying that box instead of the region
+     * saves work.
+     * @return The least x, the least y, the greatest x and the greatest y of
+     * the box, in that order, or null if the box is no smaller than the
+     * region.
+     */
+    private static long[] findSector(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+        boolean halfIntegers = ring.d1mod4;
+        long[] counterpart = new long[2];
+        long sectorMinX = Long.MAX_VALUE, sectorMaxX = Long.MIN_VALUE;
+        long sectorMinY = Long.MAX_VALUE, sectorMaxY = Long.MIN_VALUE;
+        for (int row = 0; row < height; row++) {
+            long y = minY + row;
+            for (int column = 0; column < width; column++) {
+                long x = minX + column;
+                if (halfIntegers && ((x ^ y) & 1) != 0) {
+                    continue;
+                }
+                toSector(ring, x, y, counterpart);
+                sectorMinX = Math.min(sectorMinX, counterpart[0]);
+                sectorMaxX = Math.max(sectorMaxX, counterpart[0]);
+                sectorMinY = Math.min(sectorMinY, counterpart[1]);
+                sectorMaxY = Math.max(sectorMaxY, counterpart[1]);
+            }
+        }
+        if (sectorMinX > sectorMaxX || (sectorMaxX - sectorMinX + 1) * (sectorMaxY - sectorMinY + 1) >= (long) width * height) {
+            return null;
+        }
+        return new long[]{sectorMinX, sectorMinY, sectorMaxX, sectorMaxY};
+    }
+
+    /**
+     * A classification of a region that is done a few rows at a time, so that
+     * a diagram can be drawn from the rows classified so far while the rest
+     * are still being classified. The first pass classifies every sixteenth
+     * row, and each pass after that classifies the rows halfway between the
+     * rows already classified, so that every row is classified exactly once.
+     * The rows not classified yet read as {@link #NOT_IN_RING}, so a diagram
+     * drawn from a partial classification just has those rows blank.
+     * <p>Regions for which classifying the fundamental sector saves work are
+     * classified all in one pass, since those are usually the regions around
+     * 0, which are quick to classify anyway.</p>
+     * <p>If a classification of an overlapping region is at hand, as when the
+     * user has dragged the diagram a little ways or zoomed in or out, the
+     * overlap is copied from it, and only the points that weren't in it are
+     * classified, unless classifying the fundamental sector from scratch
+     * would classify fewer points. The first pass then also classifies the
+     * rest of the rows that overlap it, and the rows that don't overlap it at
+     * all are classified in passes as usual.</p>
+     */
+    static final class Progressive {
+
+        /**
+         * How many rows apart the rows of the first pass are. This should be
+         * a power of 2.
+         */
+        static final int INITIAL_ROW_STRIDE = 16;
+
+        private final ImaginaryQuadraticRing ring;
+
+        private final long minX, minY;
+
+        private final int width, height;
+
+        private final boolean bySector;
+
+        private RegionClassification region;
+
+        private PrimeSieve sieve = null;
+
+        private boolean[] rowsDone = null;
+
+        private int rowsDoneCount = 0;
+
+        private int rowStride;
+
+        private RegionClassification seed;
+
+        /**
+         * Tells whether this classification is of the specified region.
+         * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+         * @param minX The least x coordinate. For example, -320.
+         * @param minY The least y coordinate. For example, -180.
+         * @param width How many points across. For example, 641.
+         * @param height How many points down. For example, 361.
+         * @return True if the ring and the region are the same, false
+         * otherwise.
+         */
+        boolean covers(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+            return this.ring.equals(ring) && this.minX == minX && this.minY == minY && this.width == width && this.height == height;
+        }
+
+        /**
+         * Gets the classification as it stands. Until {@link #isComplete()}
+         * gives true, some rows read as not in the ring, and the
+         * classification changes as passes are done, so it must not be read
+         * while a pass is being done.
+         * @return The classification.
+         */
+        RegionClassification getRegion() {
+            return this.region;
+        }
+
+        /**
+         * Tells whether every row has been classified.
+         * @return True if the classification is complete, false if more
+         * passes are needed.
+         */
+        boolean isComplete() {
+            return this.rowStride == 0;
+        }
+
+        /**
+         * Tells what fraction of the rows has been classified so far.
+         * @return A number from 0 to 1.
+         */
+        double getFractionDone() {
+            if (this.isComplete()) {
+                return 1.0;
+            }
+            return (double) this.rowsDoneCount / this.height;
+        }
+
+        /**
+         * Does the next pass. If a previous pass was abandoned, the rows it
+         * classified before it was abandoned are not classified again.
+         * @param cancelled Tells whether to give up. May be null.
+         * @throws CancellationException If the pass is abandoned. This is
+         * only thrown once every band of the pass has stopped, so nothing is
+         * written to the classification after that, and the classification
+         * can still be refined later.
+         */
+        void refine(BooleanSupplier cancelled) {
+            if (this.isComplete()) {
+                return;
+            }
+            if (this.bySector) {
+                this.region = RegionClassification.classify(this.ring, this.minX, this.minY, this.width, this.height, cancelled);
+                this.rowStride = 0;
+                return;
+            }
+            if (this.sieve == null) {
+                this.sieve = sieveFor(this.ring, this.minX, this.minY, this.width, this.height);
+            }
+            if (this.seed != null) {
+                this.copyFromSeed();
+                if (this.rowsDoneCount == this.height) {
+                    this.rowStride = 1;
+                }
+            }
+            try {
+                ForkJoinPool.commonPool().invoke(new RowBand(this.region, this.sieve, cancelled, 0, this.height, this.rowStride, this.rowsDone));
+            } finally {
+                int count = 0;
+                for (boolean done : this.rowsDone) {
+                    if (done) {
+                        count++;
+                    }
+                }
+                this.rowsDoneCount = count;
+            }
+            throwIfCancelled(cancelled);
+            this.region.reclassifyRealAssociates(this.sieve, this.rowsDone);
+            this.rowStride /= 2;
+        }
+
+        /**
+         * Copies the overlap with the seed and classifies the rest of the rows
+         * that overlap it. The rows that don't overlap it at all are left for
+         * the pass that follows.
+         */
+        private void copyFromSeed() {
+            int startColumn = (int) clamp(this.seed.minX - this.minX, 0, this.width);
+            int endColumn = (int) clamp(this.seed.minX + this.seed.width - this.minX, startColumn, this.width);
+            int startRow = (int) clamp(this.seed.minY - this.minY, 0, this.height);
+            int endRow = (int) clamp(this.seed.minY + this.seed.height - this.minY, startRow, this.height);
+            int seedColumn = (int) (this.minX + startColumn - this.seed.minX);
+            for (int row = startRow; row < endRow; row++) {
+                int seedRow = (int) (this.minY + row - this.seed.minY);
+                System.arraycopy(this.seed.codes, seedRow * this.seed.width + seedColumn, this.region.codes, row * this.width + startColumn, endColumn - startColumn);
+                if (startColumn > 0) {
+                    this.region.classifyRows(this.sieve, false, row, row + 1, 0, startColumn);
+                }
+                if (endColumn < this.width) {
+                    this.region.classifyRows(this.sieve, false, row, row + 1, endColumn, this.width);
+                }
+                this.rowsDone[row] = true;
+            }
+            this.rowsDoneCount = endRow - startRow;
+            this.seed = null;
+        }
+
+        /**
+         * Does whatever passes are left.
+         * @param cancelled Tells whether to give up. May be null.
+         * @return The complete classification.
+         * @throws CancellationException If a pass is abandoned.
+         */
+        RegionClassification finish(BooleanSupplier cancelled) {
+            while (!this.isComplete()) {
+                this.refine(cancelled);
+            }
+            return this.region;
+        }
+
+        /**
+         * Sets up a classification of a rectangular region of a ring, without
+         * classifying anything yet.
+         * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+         * @param minX The least x coordinate of the region, in lattice
+         * coordinates. For example, -320.
+         * @param minY The least y coordinate of the region. For example, -180.
+         * @param width How many points across the region is. For example, 641.
+         * @param height How many points down the region is. For example, 361.
+         * @throws IllegalArgumentException If width or height is negative, or
+         * if the region has more than {@link Integer#MAX_VALUE} points.
+         */
+        Progressive(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+            this(ring, minX, minY, width, height, null);
+        }
+
+        /**
+         * Sets up a classification of a rectangular region of a ring, to be
+         * filled in as far as possible from a classification of a nearby
+         * region. Nothing is classified or copied yet.
+         * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+         * @param minX The least x coordinate of the region, in lattice
+         * coordinates. For example, -300.
+         * @param minY The least y coordinate of the region. For example, -180.
+         * @param width How many points across the region is. For example, 641.
+         * @param height How many points down the region is. For example, 361.
+         * @param seed A complete classification of a nearby region of the same
+         * ring. For example, the classification of the region with least x
+         * coordinate -320 and the same least y coordinate, width and height.
+         * It's not used if it's null, of a different ring, or overlaps the
+         * region so little that it's quicker to classify the region from
+         * scratch.
+         * @throws IllegalArgumentException If width or height is negative, or
+         * if the region has more than {@link Integer#MAX_VALUE} points.
+         */
+        Progressive(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height, RegionClassification seed) {
+            if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Region of " + width + " by " + height + " points is not valid.");
+            }
+            this.ring = ring;
+            this.minX = minX;
+            this.minY = minY;
+            this.width = width;
+            this.height = height;
+            this.region = new RegionClassification(ring, minX, minY, width, height);
+            if (width == 0 || height == 0) {
+                this.bySector = false;
+                this.rowStride = 0;
+            } else {
+                long[] sectorBounds = findSector(ring, minX, minY, width, height);
+                long freshPoints = (long) width * height;
+                if (sectorBounds != null) {
+                    freshPoints = (sectorBounds[2] - sectorBounds[0] + 1) * (sectorBounds[3] - sectorBounds[1] + 1);
+                }
+                long seededPoints = Long.MAX_VALUE;
+                if (seed != null && seed.ring.equals(ring)) {
+                    seededPoints = (long) width * height - overlap(seed, minX, minY, width, height);
+                }
+                this.rowStride = INITIAL_ROW_STRIDE;
+                if (seededPoints < freshPoints) {
+                    this.bySector = false;
+                    this.seed = seed;
+                    this.rowsDone = new boolean[height];
+                } else {
+                    this.bySector = sectorBounds != null;
+                    if (!this.bySector) {
+                        this.rowsDone = new boolean[height];
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Wraps classifications worked out earlier, such as those read back from
+     * a {@link ClassificationDiskCache}, without checking them.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param minX The least x coordinate of the region. For example, -128.
+     * @param minY The least y coordinate of the region. For example, -128.
+     * @param width How many points across the region is. For example, 128.
+     * @param height How many points down the region is. For example, 128.
+     * @param codes The classifications, row by row, starting with the row of
+     * least y coordinate. The array is used as is, not copied.
+     * @return The classification of the region.
+     * @throws IllegalArgumentException If the number of codes is not width
+     * times height.
+     */
+    static RegionClassification fromCodes(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height, byte[] codes) {
+        if (width < 0 || height < 0 || (long) width * height != codes.length) {
+            throw new IllegalArgumentException(codes.length + " codes don't fit a region of " + width + " by " + height + " points.");
+        }
+        return new RegionClassification(ring, minX, minY, width, height, codes);
+    }
+
+    /**
+     * Counts how many points a region has in common with another region.
+     */
+    private static long overlap(RegionClassification other, long minX, long minY, int width, int height) {
+        long across = Math.min(other.minX + other.width, minX + width) - Math.max(other.minX, minX);
+        long down = Math.min(other.minY + other.height, minY + height) - Math.max(other.minY, minY);
+        return across > 0 && down > 0 ? across * down : 0;
+    }
+
+    private RegionClassification(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height) {
+        this(ring, minX, minY, width, height, new byte[width * height]);
+    }
+
+    private RegionClassification(ImaginaryQuadraticRing ring, long minX, long minY, int width, int height, byte[] codes) {
+        this.ring = ring;
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.codes = codes;
+    }
+
+}
@@ -29,35 +29,39 @@ import com.alonsodelarte.quadraticRings.fileops.FileChooserWithOverwriteGuard;
 import com.alonsodelarte.quadraticRings.fileops.PNGFileFilter;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Cursor;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.Event;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.imageio.ImageIO;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.WindowConstants;
 import javax.swing.filechooser.FileFilter;
@@ -91,7 +95,7 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     }
 
     private static void PrintOutputForRingChoice(int ringChoice, String argumentB) {
-        ImaginaryQuadraticRing ring = new ImaginaryQuadraticRing(ringChoice);
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(ringChoice);
         ImaginaryQuadraticInteger number = parseImaginaryQuadraticInteger(ring, argumentB);
 
         System.out.print(number.toASCIIString());
@@ -133,10 +137,10 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
             ringChoice *= -1;
         }
         if (isSquareFree(ringChoice)) {
-            imR = new ImaginaryQuadraticRing(ringChoice);
+            imR = ImaginaryQuadraticRing.valueOf(ringChoice);
             discrHistory.add(ringChoice);
         } else {
-            imR = new ImaginaryQuadraticRing(DEFAULT_RING_D);
+            imR = ImaginaryQuadraticRing.valueOf(DEFAULT_RING_D);
             discrHistory.add(DEFAULT_RING_D);
         }
         this.currHistoryIndex = 0;
@@ -144,6 +148,18 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         this.mouseIQI = new ImaginaryQuadraticInteger(0, 0, imR);
         this.setBackground(this.backgroundColor);
         this.setPreferredSize(new Dimension(this.ringCanvasHorizMax, this.ringCanvasVerticMax));
+        this.addMouseMotionListener(this);
+        this.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent mauv) {
+                prevDragX = mauv.getX();
+                prevDragY = mauv.getY();
+            }
+            @Override
+            public void mouseExited(MouseEvent mauv) {
+                changeHoverHighlight(null);
+            }
+        });
     }
 
 
@@ -162,6 +178,22 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
      */
     protected int pixelsPerBasicImaginaryInterval;
 
+    /**
+     * How many unit intervals each pixel spans once the user zooms out past
+     * MINIMUM_PIXELS_PER_UNIT_INTERVAL and the diagram is drawn as a density
+     * map. This is 0 while the diagram is drawn with dots, and otherwise a
+     * power of 2 no greater than MAXIMUM_UNIT_INTERVALS_PER_PIXEL. The pixels
+     * per unit interval are kept as they were, for when the user zooms back
+     * in.
+     */
+    private int unitIntervalsPerPixel = 0;
+
+    /**
+     * How many diagrams for saving or copying are still being drawn. The
+     * wait cursor is shown until this is back to 0.
+     */
+    private int pendingExports = 0;
+
     /**
      * The ring of the currently displayed diagram.
      */
@@ -207,6 +239,33 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
        necessarily have 0 in the center. */
     // private boolean zeroCentered, zeroInView;
 
+    /* The number drawn at (zeroCoordX, zeroCoordY) is viewCenterRe + 
+       viewCenterIm * sqrt(d), which is 0 unless changeViewCenter() says 
+       otherwise. These are longs so that the diagram can show numbers far 
+       beyond the range of int. */
+    private long viewCenterRe = 0, viewCenterIm = 0;
+
+    /* Draws the diagrams in the background, so that zooming or switching 
+       rings doesn't freeze the menus and readouts. See paintComponent(). */
+    private final DiagramRenderer renderer = new DiagramRenderer(this, FrameCache.configuredBudget(), ClassificationDiskCache.configured());
+
+    /* Where the mouse was when it was last pressed or dragged. See 
+       mouseDragged(). */
+    private int prevDragX, prevDragY;
+
+    /* Mouse motion is always listened to, for dragging, but the readouts are 
+       only updated if the user asks for that. */
+    private boolean readOutsEnabled = false;
+
+    /* The rings around the number under the mouse pointer and its relatives, 
+       or null if there's no such number. Painted over the diagram by 
+       paintComponent(). */
+    private HoverHighlight hoverHighlight = null;
+
+    /* Factors the number under the mouse pointer on a thread of its own, so
+       that large norms don't hold up the mouse. */
+    private final FactorizationReadout factorizationReadout = new FactorizationReadout(FactorizationReadout.DEFAULT_CACHE_CAPACITY);
+
     private JFrame ringFrame;
 
     private JMenuItem increaseDMenuItem, decreaseDMenuItem;
@@ -216,7 +275,9 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     private JMenuItem decreaseDotRadiusMenuItem, increaseDotRadiusMenuItem;
     private JCheckBoxMenuItem preferThetaNotationMenuItem, toggleReadOutsEnabledMenuItem;
 
-    private JTextField algIntReadOut, algIntTraceReadOut, algIntNormReadOut, algIntPolReadOut;
+    /* The readouts for the number under the mouse pointer, painted directly
+       rather than put into text fields. */
+    private ReadoutStrip readoutStrip;
 
     /**
      * Keeps track of whether or not the user has saved a diagram before.
@@ -242,348 +303,85 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     private short currHistoryIndex;
 
     /**
-     * Draws the grids. Should only be called if the points are spaced far apart
-     * enough for the grids to be visible.
-     * @param graphicsForGrids The Graphics object supplied by the caller.
+     * Captures the current settings of the diagram, for the renderer to draw.
+     * @return The current view.
      */
-    private void drawGrids(Graphics graphicsForGrids) {
-        int verticalGridDistance;
-        int currPixelPos, currReflectPixelPos;
-        boolean withinBoundaries = true;
-        verticalGridDistance = this.pixelsPerBasicImaginaryInterval;
-        if (this.diagramRing.d1mod4) {
-            // Draw horizontal lines of half integer grid
-            currPixelPos = this.zeroCoordY + verticalGridDistance;
-            currReflectPixelPos = this.zeroCoordY - verticalGridDistance;
-            graphicsForGrids.setColor(halfIntegerGridColor);
-            verticalGridDistance *= 2;
-            while (withinBoundaries) {
-                withinBoundaries = (currPixelPos < this.ringCanvasVerticMax) && (currReflectPixelPos > -1);
-                if (withinBoundaries) {
-                    graphicsForGrids.drawLine(0, currPixelPos, this.ringCanvasHorizMax, currPixelPos);
-                    graphicsForGrids.drawLine(0, currReflectPixelPos, this.ringCanvasHorizMax, currReflectPixelPos);
-                    currPixelPos += verticalGridDistance;
-                    currReflectPixelPos -= verticalGridDistance;
-                }
-            }
-            // Draw vertical lines of half integer grid
-            int halfHorizontalGridDistance = this.pixelsPerUnitInterval;
-            if (halfHorizontalGridDistance % 2 == 1) {
-                halfHorizontalGridDistance--;
-            }
-            halfHorizontalGridDistance /= 2;
-            withinBoundaries = true;
-            currPixelPos = this.zeroCoordX + halfHorizontalGridDistance;
-            currReflectPixelPos = this.zeroCoordX - halfHorizontalGridDistance;
-            while (withinBoundaries) {
-                withinBoundaries = (currPixelPos < ringCanvasHorizMax) && (currReflectPixelPos > -1);
-                if (withinBoundaries) {
-                    graphicsForGrids.drawLine(currPixelPos, 0, currPixelPos, this.ringCanvasVerticMax);
-                    graphicsForGrids.drawLine(currReflectPixelPos, 0, currReflectPixelPos, this.ringCanvasVerticMax);
-                    currPixelPos += this.pixelsPerUnitInterval;
-                    currReflectPixelPos -= this.pixelsPerUnitInterval;
-                }
-            }
-        }
-        // Draw horizontal lines of integer grid
-        withinBoundaries = true;
-        graphicsForGrids.setColor(this.integerGridColor);
-        graphicsForGrids.drawLine(0, this.zeroCoordY, this.ringCanvasHorizMax, this.zeroCoordY);
-        currPixelPos = this.zeroCoordY;
-        currReflectPixelPos = currPixelPos;
-        while (withinBoundaries) {
-            currPixelPos += verticalGridDistance;
-            currReflectPixelPos -= verticalGridDistance;
-            withinBoundaries = (currPixelPos < ringCanvasVerticMax) && (currReflectPixelPos > -1);
-            if (withinBoundaries) {
-                graphicsForGrids.drawLine(0, currPixelPos, this.ringCanvasHorizMax, currPixelPos);
-                graphicsForGrids.drawLine(0, currReflectPixelPos, this.ringCanvasHorizMax, currReflectPixelPos);
-            }
-        }
-        // Draw vertical lines of integer grid
-        graphicsForGrids.drawLine(this.zeroCoordX, 0, this.zeroCoordX, this.ringCanvasVerticMax);
-        currPixelPos = this.zeroCoordX;
-        currReflectPixelPos = currPixelPos;
-        withinBoundaries = true;
-        while (withinBoundaries) {
-            currPixelPos += this.pixelsPerUnitInterval;
-            currReflectPixelPos -= this.pixelsPerUnitInterval;
-            withinBoundaries = (currPixelPos < ringCanvasHorizMax) && (currReflectPixelPos > -1);
-            if (withinBoundaries) {
-                graphicsForGrids.drawLine(currPixelPos, 0, currPixelPos, this.ringCanvasVerticMax);
-                graphicsForGrids.drawLine(currReflectPixelPos, 0, currReflectPixelPos, this.ringCanvasVerticMax);
-            }
-        }
+    private DiagramView currentView() {
+        return this.viewOf(this.diagramRing, this.pixelsPerBasicImaginaryInterval);
     }
 
     /**
-     * Draws the points. In the original implementation, this tested the
-     * primality of the norms of the imaginary quadratic integers with nonzero
-     * imaginary parts. However, that was not quite correct in that it skipped
-     * over primes that are real integer multiples of &omega; in
-     * <b>Z</b>[&omega;]. So I changed it to do primality test on the imaginary
-     * quadratic integers themselves, but that caused a slight delay for the
-     * <b>Z</b>[&omega;] diagram at 2 pixels per unit interval. So now the
-     * program is back to doing primality testing on the norms of the numbers
-     * rather than the numbers themselves, and there is a special pass for the
-     * aforementioned primes.
-     * @param graphicsForPoints The Graphics object supplied by the caller.
+     * Captures the current settings of the diagram, but for another ring, as
+     * they would be after {@link #setRing(ImaginaryQuadraticRing)}.
+     * @param ring The ring. For example, <b>Z</b>[&radic;&minus;2].
+     * @return The view of that ring.
      */
-    private void drawPoints(Graphics graphicsForPoints) {
-
-        int currPointX, currPointY;
-        int currNegPointX, currNegPointY;
-
-        int dotDiameter = 2 * this.dotRadius;
-
-        int maxX = (int) Math.floor((this.ringCanvasHorizMax - this.zeroCoordX)/this.pixelsPerUnitInterval);
-        int maxY;
-        int verticalGridDistance = this.pixelsPerBasicImaginaryInterval;
-
-        ImaginaryQuadraticInteger currIQI;
-
-        if (this.diagramRing.d1mod4) {
-            maxY = (int) Math.floor((this.ringCanvasVerticMax - this.zeroCoordY)/(2 * this.pixelsPerBasicImaginaryInterval));
-            verticalGridDistance *= 2;
-        } else {
-            maxY = (int) Math.floor((this.ringCanvasVerticMax - this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval);
+    private DiagramView viewOf(ImaginaryQuadraticRing ring) {
+        double imagInterval = this.pixelsPerUnitInterval * ring.absNegRadSqrt;
+        if (ring.d1mod4) {
+            imagInterval /= 2;
         }
+        return this.viewOf(ring, (int) Math.floor(imagInterval));
+    }
 
-        // The central point, 0
-        currPointX = this.zeroCoordX;
-        currPointY = this.zeroCoordY;
-        graphicsForPoints.setColor(zeroColor);
-        graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-
-        // The purely real unit points, -1 and 1
-        currNegPointX = currPointX - this.pixelsPerUnitInterval;
-        currPointX += this.pixelsPerUnitInterval;
-        graphicsForPoints.setColor(unitColor);
-        graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
+    private DiagramView viewOf(ImaginaryQuadraticRing ring, int pixelsPerBasicImaginaryInterval) {
+        Color[] gridColors = {this.halfIntegerGridColor, this.integerGridColor};
+        Color[] pointColors = {this.zeroColor, this.unitColor, this.inertPrimeColor, this.splitPrimeColor, this.ramifiedPrimeColor};
+        return new DiagramView(ring, this.pixelsPerUnitInterval, pixelsPerBasicImaginaryInterval, this.unitIntervalsPerPixel, this.ringCanvasHorizMax, this.ringCanvasVerticMax, this.zeroCoordX, this.zeroCoordY, this.viewCenterRe, this.viewCenterIm, this.dotRadius, gridColors, pointColors);
+    }
 
-        // The even primes, -2 and 2
-        currNegPointX -= this.pixelsPerUnitInterval;
-        currPointX += this.pixelsPerUnitInterval;
-        byte symbol = NumberTheoreticFunctionsCalculator.symbolKronecker(this.diagramRing.negRad, 2);
-        if (this.diagramRing.negRad % 4 == -1) {
-            symbol = 0;
-        }
-        if (this.diagramRing.negRad == -3) {
-            symbol = -1;
-        }
-        if (this.diagramRing.negRad == -1) {
-            symbol = 1;
-        }
-        switch (symbol) {
-            case -1:
-                graphicsForPoints.setColor(this.inertPrimeColor);
-                graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                break;
-            case 0:
-                graphicsForPoints.setColor(this.ramifiedPrimeColor);
-                graphicsForPoints.drawOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.drawOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                break;
-            case 1:
-                graphicsForPoints.setColor(this.splitPrimeColor);
-                graphicsForPoints.drawOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.drawOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                break;
-            default:
-                throw new RuntimeException("Unexpected problem computing symbolKronecker(" + diagramRing.negRad + ", " + 2 + ") = " + symbol);
-        }
-
-        // Place "nibs" back at -1 and 1
-        currNegPointX += this.pixelsPerUnitInterval;
-        currPointX -= this.pixelsPerUnitInterval;
-
-        // The other purely real integer points
-        for (int x = 3; x <= maxX; x += 2) {
-            currPointX += (2 * this.pixelsPerUnitInterval);
-            currNegPointX -= (2 * this.pixelsPerUnitInterval);
-            if (NumberTheoreticFunctionsCalculator.isPrime(x)) {
-                symbol = NumberTheoreticFunctionsCalculator.symbolLegendre(diagramRing.negRad, x);
-                switch (symbol) {
-                    case -1:
-                        graphicsForPoints.setColor(this.inertPrimeColor);
-                        graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        break;
-                    case 0:
-                        graphicsForPoints.setColor(this.ramifiedPrimeColor);
-                        graphicsForPoints.drawOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.drawOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        break;
-                    case 1:
-                        graphicsForPoints.setColor(this.splitPrimeColor);
-                        graphicsForPoints.drawOval(currPointX - this.dotRadius + 1, currPointY - this.dotRadius + 1, dotDiameter, dotDiameter);
-                        graphicsForPoints.drawOval(currNegPointX - this.dotRadius + 1, currPointY - this.dotRadius + 1, dotDiameter, dotDiameter);
-                        break;
-                    default:
-                        throw new RuntimeException("Unexpected problem computing symbolLegendre(" + diagramRing.negRad + ", " + x + ") = " + symbol);
-                }
+    /**
+     * Has the renderer draw, whenever it's idle, the diagrams of the rings
+     * the user is likely to go to next from the current one: the next
+     * squarefree discriminants up and down, and the rings before and after
+     * in the history. That way browsing the rings with the keyboard shows
+     * each diagram right away. Density maps are not prefetched, since each
+     * of those can take many seconds of every processor to draw, and would
+     * hold up the diagram the user actually asks for next.
+     */
+    private void prefetchNeighbors() {
+        if (this.unitIntervalsPerPixel > 0) {
+            this.renderer.prefetch(Collections.emptyList());
+            return;
+        }
+        List<Integer> neighbors = new ArrayList<>();
+        int d = this.diagramRing.negRad;
+        if (d < -1) {
+            int up = d + 1;
+            while (!isSquareFree(up) && up < -1) {
+                up++;
             }
+            neighbors.add(up);
         }
-
-        // The purely imaginary integer points other than 0
-        if (this.diagramRing.negRad == -1) {
-            // Take care to color the units in Z[i]
-            currPointX = this.zeroCoordX;
-            // currPointY = this.zeroCoordY; ???currPointY should not have changed from before, right????
-            currPointY = this.zeroCoordY + verticalGridDistance;
-            currNegPointY = this.zeroCoordY - verticalGridDistance;
-            graphicsForPoints.setColor(this.unitColor);
-            graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-            graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-            graphicsForPoints.setColor(this.inertPrimeColor);
-            for (int y = 2; y <= maxY; y++) {
-                currPointY += verticalGridDistance;
-                currNegPointY -= verticalGridDistance;
-                if (NumberTheoreticFunctionsCalculator.isPrime(y)) {
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                }
-            }
-        } else {
-            currPointX = this.zeroCoordX;
-            // currPointY = this.zeroCoordY; ???currPointY should not have changed from before, right????
-            currNegPointY = currPointY;
-            for (int y = 1; y <= maxY; y++) {
-                currPointY += verticalGridDistance;
-                currNegPointY -= verticalGridDistance;
-                currIQI = new ImaginaryQuadraticInteger(0, y, this.diagramRing);
-                if (NumberTheoreticFunctionsCalculator.isPrime(currIQI.norm())) {
-                    if (NumberTheoreticFunctionsCalculator.euclideanGCD(currIQI.norm(), this.diagramRing.negRad) > 1) {
-                        int ramifyPoint = this.zeroCoordX + (int) currIQI.norm() * this.pixelsPerUnitInterval;
-                        int negRamifyPoint = this.zeroCoordX - (int) currIQI.norm() * this.pixelsPerUnitInterval;
-                        graphicsForPoints.setColor(this.ramifiedPrimeColor);
-                        graphicsForPoints.fillOval(ramifyPoint - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(negRamifyPoint - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                    } else {
-                        graphicsForPoints.setColor(this.inertPrimeColor);
-                    }
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                }
+        if (d > MINIMUM_RING_D) {
+            int down = d - 1;
+            while (!isSquareFree(down) && down > MINIMUM_RING_D) {
+                down--;
             }
+            neighbors.add(down);
         }
-
-        // Now the complex integer points, but not the "half-integers" yet
-        long currSplitPrime;
-        int currSplitPrimePointX, currNegSplitPrimePointX;
-        for (int x = 1; x <= maxX; x++) {
-            currPointX = this.zeroCoordX + (x * this.pixelsPerUnitInterval);
-            currNegPointX = this.zeroCoordX - (x * this.pixelsPerUnitInterval);
-            for (int y = 1; y <= maxY; y++) {
-                currPointY = this.zeroCoordY + (y * verticalGridDistance);
-                currNegPointY = this.zeroCoordY - (y * verticalGridDistance);
-                currIQI = new ImaginaryQuadraticInteger(x, y, this.diagramRing, 1);
-                if (NumberTheoreticFunctionsCalculator.isPrime(currIQI.norm())) {
-                    graphicsForPoints.setColor(this.inertPrimeColor);
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    currSplitPrime = currIQI.norm();
-                    if (currSplitPrime <= maxX) {
-                        currSplitPrimePointX = this.zeroCoordX + ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                        currNegSplitPrimePointX = this.zeroCoordX - ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                        graphicsForPoints.setColor(this.splitPrimeColor);
-                        graphicsForPoints.fillOval(currSplitPrimePointX - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegSplitPrimePointX - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                    }
-                    if (currSplitPrime <= maxY && this.diagramRing.negRad == -1) {
-                        currSplitPrimePointX = this.zeroCoordY + ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                        currNegSplitPrimePointX = this.zeroCoordY - ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                        graphicsForPoints.fillOval(this.zeroCoordX - this.dotRadius, currSplitPrimePointX - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(this.zeroCoordX - this.dotRadius, currNegSplitPrimePointX - this.dotRadius, dotDiameter, dotDiameter);
-                    }
-
-                }
-            }
+        if (this.currHistoryIndex > 0) {
+            neighbors.add(this.discrHistory.get(this.currHistoryIndex - 1));
         }
-
-        // Last but not least, the "half-integers"
-        if (this.diagramRing.d1mod4) {
-            int halfUnitInterval = pixelsPerUnitInterval;
-            if (halfUnitInterval % 2 == 1) {
-                halfUnitInterval--;
-            }
-            halfUnitInterval /= 2;
-            int halfMaxX = 2 * maxX;
-            int halfMaxY = (int) Math.floor((this.ringCanvasVerticMax - this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval);
-            currPointX = this.zeroCoordX + halfUnitInterval;
-            currNegPointX = this.zeroCoordX - halfUnitInterval;
-            currPointY = this.zeroCoordY + this.pixelsPerBasicImaginaryInterval;
-            currNegPointY = this.zeroCoordY - this.pixelsPerBasicImaginaryInterval;
-            /* Take care of the other units among the Eisenstein integers. Also
-               primes of the form p * omega, where p is a purely real prime
-               satisfying p = 2 mod 3 */
-            if (this.diagramRing.negRad == -3) {
-                // The complex units, like omega
-                graphicsForPoints.setColor(this.unitColor);
-                graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                // Then 2 * omega, and complex associates
-                graphicsForPoints.setColor(this.inertPrimeColor);
-                currPointX += halfUnitInterval;
-                currNegPointX -= halfUnitInterval;
-                currPointY += this.pixelsPerBasicImaginaryInterval;
-                currNegPointY -= this.pixelsPerBasicImaginaryInterval;
-                graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                // And then p * omega from p = 5 on, and complex associates
-                for (int auxX = 5; auxX < halfMaxX; auxX += 6) {
-                    currPointX = this.zeroCoordX + (auxX * halfUnitInterval);
-                    currNegPointX = this.zeroCoordX - (auxX * halfUnitInterval);
-                    currPointY = this.zeroCoordY + (auxX * this.pixelsPerBasicImaginaryInterval);
-                    currNegPointY = this.zeroCoordY - (auxX * this.pixelsPerBasicImaginaryInterval);
-                    if (NumberTheoreticFunctionsCalculator.isPrime(auxX)) {
-                        graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                    }
-                }
-            }
-            // And now all the other "half-integer" primes
-            for (int x = 1; x < halfMaxX; x += 2) {
-                currPointX = this.zeroCoordX + (x * halfUnitInterval);
-                currNegPointX = this.zeroCoordX - (x * halfUnitInterval);
-                for (int y = 1; y <= halfMaxY; y += 2) {
-                    currPointY = this.zeroCoordY + (y * this.pixelsPerBasicImaginaryInterval);
-                    currNegPointY = this.zeroCoordY - (y * this.pixelsPerBasicImaginaryInterval);
-                    currIQI = new ImaginaryQuadraticInteger(x, y, this.diagramRing, 2);
-                    if (NumberTheoreticFunctionsCalculator.isPrime(currIQI.norm())) {
-                        graphicsForPoints.setColor(this.inertPrimeColor);
-                        graphicsForPoints.fillOval(currPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        graphicsForPoints.fillOval(currNegPointX - this.dotRadius, currNegPointY - this.dotRadius, dotDiameter, dotDiameter);
-                        currSplitPrime = currIQI.norm();
-                        if (currSplitPrime <= maxX) {
-                            currSplitPrimePointX = this.zeroCoordX + ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                            currNegSplitPrimePointX = this.zeroCoordX - ((int) currSplitPrime * this.pixelsPerUnitInterval);
-                            graphicsForPoints.setColor(this.splitPrimeColor);
-                            graphicsForPoints.fillOval(currSplitPrimePointX - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                            graphicsForPoints.fillOval(currNegSplitPrimePointX - this.dotRadius, this.zeroCoordY - this.dotRadius, dotDiameter, dotDiameter);
-                        }
-                    }
-                }
+        if (this.currHistoryIndex < this.discrHistory.size() - 1) {
+            neighbors.add(this.discrHistory.get(this.currHistoryIndex + 1));
+        }
+        List<DiagramView> views = new ArrayList<>();
+        List<Integer> seen = new ArrayList<>();
+        seen.add(d);
+        for (Integer neighbor : neighbors) {
+            if (!seen.contains(neighbor)) {
+                seen.add(neighbor);
+                views.add(this.viewOf(ImaginaryQuadraticRing.valueOf(neighbor)));
             }
         }
-
+        this.renderer.prefetch(views);
     }
 
     /**
      * Change how many pixels there are per unit interval. Also concomitantly
-     * changes how many pixels there are per basic imaginary interval.
+     * changes how many pixels there are per basic imaginary interval, and
+     * goes back to drawing the diagram with dots if it was a density map.
      * @param pixelLength An integer greater than or equal to
      * MINIMUM_PIXELS_PER_UNIT_INTERVAL but less than or equal to
      * MAXIMUM_PIXELS_PER_UNIT_INTERVAL.
@@ -598,6 +396,7 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
             throw new IllegalArgumentException("Pixels per unit interval needs to be set to less than " + (MAXIMUM_PIXELS_PER_UNIT_INTERVAL + 1));
         }
         pixelsPerUnitInterval = pixelLength;
+        this.unitIntervalsPerPixel = 0;
         double imagInterval = this.pixelsPerUnitInterval * this.diagramRing.absNegRadSqrt;
         if (this.diagramRing.d1mod4) {
             imagInterval /= 2;
@@ -726,8 +525,11 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     }
 
     /**
-     * Function to change the coordinates of the point 0. I have not yet
-     * implemented a meaningful use for this function.
+     * Function to change the coordinates of the point 0, or of the view center
+     * if that's not 0. The lattice points and the grids are drawn relative to
+     * these coordinates, which may be anywhere on the canvas or even off it.
+     * This is how the diagram gets dragged around (see {@link
+     * #mouseDragged(MouseEvent)}).
      * @param newCoordX The new x-coordinate for 0.
      * @param newCoordY The new y-coordinate for 0.
      */
@@ -739,76 +541,235 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     }
 
     /**
-     * Paints the canvas, by delegating to private procedures to draw the grids
-     * and the points. However, if the points are too close together, the grids
-     * will not be drawn.
+     * Function to change which number is drawn at the coordinates of the point
+     * 0 (see {@link #changeZeroCoords(int, int)}), so that the diagram can 
+     * show a region far away from 0. The norms of the numbers there can far 
+     * exceed the range of long, but the diagram is still drawn correctly.
+     * @param re The real part of the number to draw at the zero coordinates. 
+     * For example, 1000000000000.
+     * @param im The imaginary part of the number to draw at the zero 
+     * coordinates, divided by &radic;<i>d</i>. For example, 1000000000000. In 
+     * rings with "half-integers," the number is still re + 
+     * im&radic;<i>d</i>, not (re + im&radic;<i>d</i>)/2, so that the grids 
+     * stay in place.
+     */
+    public void changeViewCenter(long re, long im) {
+        this.viewCenterRe = re;
+        this.viewCenterIm = im;
+    }
+
+    /**
+     * Paints the canvas with the latest diagram the renderer has finished. If
+     * that diagram is not of the current view, the renderer is asked to draw
+     * the current view in the background, and the canvas is repainted when
+     * it's done. Meanwhile the previous diagram stays on the canvas, stretched
+     * and shifted to where its points fall in the current view if it's of the
+     * same ring, so that zooming, resizing and recentering show something
+     * right away, and dragging needs no more than shifting the diagram most of
+     * the time. However, if the points are too close together, the grids
+     * will not be drawn. The diagram is painted from the layers the renderer
+     * keeps, the grids first and then the points, which are the same layers
+     * that saving and copying the diagram use.
      * @param g The Graphics object supplied by the caller.
      */
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (this.pixelsPerUnitInterval > MINIMUM_PIXELS_PER_UNIT_INTERVAL_TO_DRAW_GRIDS) {
-            drawGrids(g);
+        DiagramView view = this.currentView();
+        /* While the diagram is being dragged, the latest diagram only needs
+           to be shifted, and a new one is only needed once the margin drawn
+           around the canvas starts to run low. */
+        this.renderer.requestCovering(view);
+        DiagramRenderer.Frame frame = this.renderer.getLatestFrame();
+        if (frame == null) {
+            return;
+        }
+        AffineTransform placement = view.placementOf(frame.getDrawnView());
+        if (placement == null) {
+            placement = frame.getView().placementOf(frame.getDrawnView());
+        }
+        frame.paint((Graphics2D) g, placement);
+        if (this.hoverHighlight != null && !view.drawsDensity()) {
+            Color[] roleColors = {DEFAULT_HOVER_COLOR, DEFAULT_HOVER_RELATIVE_COLOR, DEFAULT_HOVER_FACTOR_COLOR};
+            this.hoverHighlight.paint(g, view, this.dotRadius, roleColors);
+        }
+    }
+
+    /**
+     * Replaces the rings around the number under the mouse pointer and its
+     * relatives. Only the rectangles around the old rings and the new rings
+     * are repainted, from the layers the renderer already has, so the rings
+     * can follow the mouse however long the diagram took to draw.
+     * @param highlight The new rings. May be null to erase the old ones.
+     */
+    private void changeHoverHighlight(HoverHighlight highlight) {
+        DiagramView view = this.currentView();
+        if (this.hoverHighlight != null) {
+            for (Rectangle dirty : this.hoverHighlight.dirtyRectangles(view, this.dotRadius)) {
+                this.repaint(dirty);
+            }
+        }
+        this.hoverHighlight = highlight;
+        if (highlight != null) {
+            for (Rectangle dirty : highlight.dirtyRectangles(view, this.dotRadius)) {
+                this.repaint(dirty);
+            }
         }
-        drawPoints(g);
     }
 
     /**
      * Function to determine mouse position on the diagram and update readouts
-     * accordingly.
+     * accordingly. The number under the mouse pointer, its conjugate and its
+     * associates are ringed on the diagram. The factorization readout is
+     * filled in, and the prime factors ringed, once the factors are found in
+     * the background, which for numbers already factored lately is right away.
      * @param mauv A MouseEvent object with the relevant information.
      */
     @Override
     public void mouseMoved(MouseEvent mauv) {
+        if (!this.readOutsEnabled) {
+            return;
+        }
         boolean algIntFound;
         int horizCoord, verticCoord;
-        String stringForAlgIntReadOut;
-        if (this.diagramRing.d1mod4) {
+        long horizLattice, verticLattice;
+        if (this.unitIntervalsPerPixel > 0) {
+            /* Each pixel spans several lattice points, so the readouts are for
+               the point nearest the middle of the pixel. */
+            int unitsPerInterval = this.diagramRing.d1mod4 ? 2 : 1;
+            double basicIntervalsPerPixel = unitsPerInterval * this.unitIntervalsPerPixel / this.diagramRing.absNegRadSqrt;
+            horizLattice = (long) (mauv.getX() - this.zeroCoordX) * unitsPerInterval * this.unitIntervalsPerPixel + unitsPerInterval * this.viewCenterRe;
+            verticLattice = Math.round((-mauv.getY() + this.zeroCoordY) * basicIntervalsPerPixel) + unitsPerInterval * this.viewCenterIm;
+            if (this.diagramRing.d1mod4 && ((horizLattice ^ verticLattice) & 1) != 0) {
+                horizLattice++;
+            }
+        } else if (this.diagramRing.d1mod4) {
             double horizIntermediate = 4 * (mauv.getX() - this.zeroCoordX)/this.pixelsPerUnitInterval;
-            horizCoord = (int) Math.round(horizIntermediate/2);
-            verticCoord = (int) Math.round((-mauv.getY() + this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval);
+            horizLattice = Math.round(horizIntermediate/2) + 2 * this.viewCenterRe;
+            verticLattice = Math.round((-mauv.getY() + this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval) + 2 * this.viewCenterIm;
+        } else {
+            horizLattice = Math.round((mauv.getX() - this.zeroCoordX)/this.pixelsPerUnitInterval) + this.viewCenterRe;
+            verticLattice = Math.round((-mauv.getY() + this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval) + this.viewCenterIm;
+        }
+        // Numbers beyond the range of int can't be put into an ImaginaryQuadraticInteger
+        if (horizLattice != (int) horizLattice || verticLattice != (int) verticLattice) {
+            return;
+        }
+        horizCoord = (int) horizLattice;
+        verticCoord = (int) verticLattice;
+        if (this.diagramRing.d1mod4) {
             algIntFound = (Math.abs(horizCoord % 2) == Math.abs(verticCoord % 2));
             if (algIntFound) {
                 mouseIQI = new ImaginaryQuadraticInteger(horizCoord, verticCoord, this.diagramRing, 2);
             }
         } else {
-            horizCoord = (int) Math.round((mauv.getX() - this.zeroCoordX)/this.pixelsPerUnitInterval);
-            verticCoord = (int) Math.round((-mauv.getY() + this.zeroCoordY)/this.pixelsPerBasicImaginaryInterval);
             mouseIQI = new ImaginaryQuadraticInteger(horizCoord, verticCoord, this.diagramRing, 1);
             algIntFound = true;
         }
         if (algIntFound) {
-            if (preferenceForThetaNotation) {
-                stringForAlgIntReadOut = mouseIQI.toStringAlt();
-            } else {
-                stringForAlgIntReadOut = mouseIQI.toString();
+            this.readoutStrip.show(mouseIQI, preferenceForThetaNotation);
+            if (this.hoverHighlight == null || !this.hoverHighlight.getNumber().equals(mouseIQI)) {
+                this.changeHoverHighlight(new HoverHighlight(mouseIQI, null));
+                this.readoutStrip.setText(ReadoutStrip.FACTORS, "Factoring...");
+                final ImaginaryQuadraticInteger hovered = mouseIQI;
+                this.factorizationReadout.request(hovered, new Consumer<FactorizationReadout.Result>() {
+                    @Override
+                    public void accept(FactorizationReadout.Result result) {
+                        showFactorization(hovered, result);
+                    }
+                });
             }
-            algIntReadOut.setText(stringForAlgIntReadOut);
-            algIntTraceReadOut.setText(Long.toString(mouseIQI.trace()));
-            algIntNormReadOut.setText(Long.toString(mouseIQI.norm()));
-            algIntPolReadOut.setText(mouseIQI.minPolynomialString());
         }
     }
 
     /**
-     * No implementation for time being. Hope to add the capability to drag the
-     * diagram in a future version.
+     * Shows the result of factoring a number, provided the mouse pointer is
+     * still over that number, and rings the prime factors.
+     * @param num The number that was factored.
+     * @param result The factorization, or whether the number is prime or
+     * irreducible.
+     */
+    private void showFactorization(ImaginaryQuadraticInteger num, FactorizationReadout.Result result) {
+        if (!this.readOutsEnabled || !num.equals(mouseIQI)) {
+            return;
+        }
+        this.readoutStrip.setText(ReadoutStrip.FACTORS, result.format(preferenceForThetaNotation));
+        if (result.getFactors() != null) {
+            this.changeHoverHighlight(new HoverHighlight(num, result.getFactors()));
+        }
+    }
+
+    /**
+     * Drags the diagram along with the mouse. The point 0 is moved by as many
+     * pixels as the mouse has moved since it was pressed or last dragged, and
+     * then whole unit intervals are traded between the zero coordinates and
+     * the view center (see {@link #changeViewCenter(long, long)}), so that the
+     * zero coordinates stay near the middle of the canvas no matter how far
+     * the user drags. The canvas is repainted by shifting the diagram already
+     * drawn, so the diagram keeps up with the mouse. A density map is only
+     * ever shifted, since a pixel of it doesn't span a whole number of basic
+     * imaginary intervals.
      * @param mauv Mouse event to respond to.
      */
     @Override
     public void mouseDragged(MouseEvent mauv) {
-        // IMPLEMENTATION PLACEHOLDER
+        int dragX = mauv.getX() - this.prevDragX;
+        int dragY = mauv.getY() - this.prevDragY;
+        this.prevDragX = mauv.getX();
+        this.prevDragY = mauv.getY();
+        if (dragX == 0 && dragY == 0) {
+            return;
+        }
+        this.changeZeroCoords(this.zeroCoordX + dragX, this.zeroCoordY + dragY);
+        if (this.unitIntervalsPerPixel > 0) {
+            this.repaint();
+            return;
+        }
+        int horizUnitPixels = this.pixelsPerUnitInterval;
+        int verticUnitPixels = this.diagramRing.d1mod4 ? 2 * this.pixelsPerBasicImaginaryInterval : this.pixelsPerBasicImaginaryInterval;
+        int horizSteps = Math.floorDiv(this.zeroCoordX - this.ringCanvasHorizMax / 2, horizUnitPixels);
+        int verticSteps = Math.floorDiv(this.zeroCoordY - this.ringCanvasVerticMax / 2, verticUnitPixels);
+        this.changeZeroCoords(this.zeroCoordX - horizSteps * horizUnitPixels, this.zeroCoordY - verticSteps * verticUnitPixels);
+        this.changeViewCenter(this.viewCenterRe - horizSteps, this.viewCenterIm + verticSteps);
+        this.repaint();
+    }
+
+    /**
+     * Draws the currently displayed diagram on the renderer thread and then
+     * does something with it, showing the wait cursor in the meantime. If
+     * the diagram can't be drawn, the user is told so instead.
+     * @param whenDone What to do with the image of the diagram, on the event
+     * dispatch thread.
+     */
+    private void exportDiagram(final Consumer<BufferedImage> whenDone) {
+        this.pendingExports++;
+        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        this.renderer.renderLater(this.currentView(), this.getBackground(), new Consumer<BufferedImage>() {
+            @Override
+            public void accept(BufferedImage diagram) {
+                pendingExports--;
+                if (pendingExports == 0) {
+                    setCursor(Cursor.getDefaultCursor());
+                }
+                if (diagram == null) {
+                    JOptionPane.showMessageDialog(ringFrame, "The diagram could not be drawn.");
+                    return;
+                }
+                whenDone.accept(diagram);
+            }
+        });
     }
 
     /**
      * Prompts the user for a filename and saves the currently displayed diagram
-     * with that filename as a Portable Network Graphics (PNG) file.
+     * with that filename as a Portable Network Graphics (PNG) file. The
+     * diagram is drawn in the background once the user has chosen a file.
      */
     public void saveDiagramAs() {
-        BufferedImage diagram = new BufferedImage(this.ringCanvasHorizMax, this.ringCanvasVerticMax, BufferedImage.TYPE_INT_RGB);
-        Graphics2D graph = diagram.createGraphics();
-        this.paint(graph);
         String suggestedFilename = this.diagramRing.toFilenameString() + "pxui" + this.pixelsPerUnitInterval + ".png";
+        if (this.unitIntervalsPerPixel > 0) {
+            suggestedFilename = this.diagramRing.toFilenameString() + "uipx" + this.unitIntervalsPerPixel + ".png";
+        }
         File diagramFile = new File(suggestedFilename);
         FileChooserWithOverwriteGuard fileChooser = new FileChooserWithOverwriteGuard();
         FileFilter pngFilter = new PNGFileFilter();
@@ -821,16 +782,20 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         String notificationString;
         switch (fcRet) {
             case JFileChooser.APPROVE_OPTION:
-                diagramFile = fileChooser.getSelectedFile();
-                String filePath = diagramFile.getAbsolutePath();
+                final File chosenFile = fileChooser.getSelectedFile();
+                String filePath = chosenFile.getAbsolutePath();
                 prevSavePathname = filePath.substring(0, filePath.lastIndexOf(File.separator));
                 haveSavedBefore = true;
-                try {
-                    ImageIO.write(diagram, "PNG", diagramFile);
-                } catch (IOException ioe) {
-                    notificationString = "Image input/output exception occurred:\n " + ioe.getMessage();
-                    JOptionPane.showMessageDialog(ringFrame, notificationString);
-                }
+                this.exportDiagram(new Consumer<BufferedImage>() {
+                    @Override
+                    public void accept(BufferedImage diagram) {
+                        try {
+                            ImageIO.write(diagram, "PNG", chosenFile);
+                        } catch (IOException ioe) {
+                            JOptionPane.showMessageDialog(ringFrame, "Image input/output exception occurred:\n " + ioe.getMessage());
+                        }
+                    }
+                });
                 break;
             case JFileChooser.CANCEL_OPTION:
                 notificationString = "File save canceled.";
@@ -847,7 +812,7 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
     }
 
     private void switchToRing(int d) {
-        ImaginaryQuadraticRing imagRing = new ImaginaryQuadraticRing(d);
+        ImaginaryQuadraticRing imagRing = ImaginaryQuadraticRing.valueOf(d);
         ringFrame.setTitle("Ring Diagram for " + imagRing.toString());
         setRing(imagRing);
         repaint();
@@ -875,6 +840,7 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         if (currHistoryIndex > MAXIMUM_HISTORY_ITEMS) {
             discrHistory.remove(0); // Remove the first item
         }
+        prefetchNeighbors();
     }
 
     /**
@@ -975,6 +941,7 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         if (!nextDMenuItem.isEnabled()) {
             nextDMenuItem.setEnabled(true);
         }
+        prefetchNeighbors();
     }
 
     /**
@@ -989,11 +956,13 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         if (!prevDMenuItem.isEnabled()) {
             prevDMenuItem.setEnabled(true);
         }
+        prefetchNeighbors();
     }
 
     /**
-     * Copies the readouts of the algebraic integer, trace, norm and polynomial
-     * to the system clipboard as plain text.
+     * Copies the readouts of the algebraic integer, trace, norm, polynomial
+     * and factorization to the system clipboard as plain text. The
+     * factorization is included only if it has been found.
      */
     public void copyReadoutsToClipboard() {
         String agregReadouts = mouseIQI.toString();
@@ -1001,20 +970,27 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
             agregReadouts = agregReadouts + " = " + mouseIQI.toStringAlt();
         }
         agregReadouts = agregReadouts + ", Trace: " + mouseIQI.trace() + ", Norm: " + mouseIQI.norm() + ", Polynomial: " + mouseIQI.minPolynomialString();
+        FactorizationReadout.Result factorization = this.factorizationReadout.getKnown(mouseIQI);
+        if (factorization != null) {
+            agregReadouts = agregReadouts + ", Factors: " + factorization.format(false);
+        }
         StringSelection strSel = new StringSelection(agregReadouts);
         this.getToolkit().getSystemClipboard().setContents(strSel, strSel);
     }
 
     /**
      * Copies the currently displayed diagram to the clipboard as a {@link
-     * BufferedImage}, of type {@link BufferedImage#TYPE_INT_RGB}.
+     * BufferedImage}, of type {@link BufferedImage#TYPE_INT_RGB}. The diagram
+     * is drawn in the background and put on the clipboard once it's done.
      */
     public void copyDiagramToClipboard() {
-        BufferedImage diagram = new BufferedImage(this.ringCanvasHorizMax, this.ringCanvasVerticMax, BufferedImage.TYPE_INT_RGB);
-        Graphics2D graph = diagram.createGraphics();
-        this.paint(graph);
-        ImageSelection imgSel = new ImageSelection(diagram);
-        this.getToolkit().getSystemClipboard().setContents(imgSel, imgSel);
+        this.exportDiagram(new Consumer<BufferedImage>() {
+            @Override
+            public void accept(BufferedImage diagram) {
+                ImageSelection imgSel = new ImageSelection(diagram);
+                getToolkit().getSystemClipboard().setContents(imgSel, imgSel);
+            }
+        });
     }
 
     /**
@@ -1022,54 +998,56 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
      * and whether they should be, enabling them or disabling them as needed.
      */
     private void checkViewMenuEnablements() {
-        if (this.zoomInMenuItem.isEnabled() && (this.pixelsPerUnitInterval > (MAXIMUM_PIXELS_PER_UNIT_INTERVAL - zoomInterval))) {
-            this.zoomInMenuItem.setEnabled(false);
-        }
-        if (!this.zoomInMenuItem.isEnabled() && (this.pixelsPerUnitInterval <= (MAXIMUM_PIXELS_PER_UNIT_INTERVAL - zoomInterval))) {
-            this.zoomInMenuItem.setEnabled(true);
-        }
-        if (this.zoomOutMenuItem.isEnabled() && (this.pixelsPerUnitInterval < (MINIMUM_PIXELS_PER_UNIT_INTERVAL + zoomInterval))) {
-            this.zoomOutMenuItem.setEnabled(false);
-        }
-        if (!this.zoomOutMenuItem.isEnabled() && (this.pixelsPerUnitInterval >= (MINIMUM_PIXELS_PER_UNIT_INTERVAL + zoomInterval))) {
-            this.zoomOutMenuItem.setEnabled(true);
-        }
+        this.zoomInMenuItem.setEnabled(this.unitIntervalsPerPixel > 0 || this.pixelsPerUnitInterval <= (MAXIMUM_PIXELS_PER_UNIT_INTERVAL - zoomInterval));
+        this.zoomOutMenuItem.setEnabled(this.unitIntervalsPerPixel < MAXIMUM_UNIT_INTERVALS_PER_PIXEL);
     }
 
     /**
-     * Zooms in on the diagram. This is done by reducing pixelsPerUnitInterval
-     * by zoomInterval and calling repaint().
+     * Zooms in on the diagram. This is done by increasing pixelsPerUnitInterval
+     * by zoomInterval and calling repaint(). If the diagram is a density map,
+     * each pixel is made to span half as many unit intervals instead, and
+     * once a pixel would span half a unit interval, the diagram goes back to
+     * being drawn with dots at the pixels per unit interval it had before.
      */
     public void zoomIn() {
-        int newPixelsPerUnitInterval = this.pixelsPerUnitInterval + this.zoomInterval;
-        if (newPixelsPerUnitInterval <= MAXIMUM_PIXELS_PER_UNIT_INTERVAL) {
-            setPixelsPerUnitInterval(newPixelsPerUnitInterval);
+        if (this.unitIntervalsPerPixel > 0) {
+            this.unitIntervalsPerPixel /= 2;
             repaint();
-            if ((newPixelsPerUnitInterval + this.zoomInterval) > MAXIMUM_PIXELS_PER_UNIT_INTERVAL) {
-                this.zoomInMenuItem.setEnabled(false);
+        } else {
+            int newPixelsPerUnitInterval = this.pixelsPerUnitInterval + this.zoomInterval;
+            if (newPixelsPerUnitInterval <= MAXIMUM_PIXELS_PER_UNIT_INTERVAL) {
+                setPixelsPerUnitInterval(newPixelsPerUnitInterval);
+                repaint();
             }
         }
-        if (!this.zoomOutMenuItem.isEnabled() && (newPixelsPerUnitInterval >= (MINIMUM_PIXELS_PER_UNIT_INTERVAL + this.zoomInterval))) {
-            this.zoomOutMenuItem.setEnabled(true);
-        }
+        checkViewMenuEnablements();
     }
 
     /**
-     * Zooms out on the diagram. This is done by increasing
-     * pixelsPerUnitInterval by zoomInterval and calling repaint().
+     * Zooms out on the diagram. This is done by reducing
+     * pixelsPerUnitInterval by zoomInterval and calling repaint(). If that
+     * would take it below MINIMUM_PIXELS_PER_UNIT_INTERVAL, the dots would
+     * just run together, so instead the diagram becomes a density map with
+     * one unit interval per pixel, and from then on each zoom out doubles the
+     * unit intervals per pixel, up to MAXIMUM_UNIT_INTERVALS_PER_PIXEL.
      */
     public void zoomOut() {
-        int newPixelsPerUnitInterval = this.pixelsPerUnitInterval - this.zoomInterval;
-        if (newPixelsPerUnitInterval >= MINIMUM_PIXELS_PER_UNIT_INTERVAL) {
-            setPixelsPerUnitInterval(newPixelsPerUnitInterval);
-            repaint();
-            if ((newPixelsPerUnitInterval - zoomInterval) < MINIMUM_PIXELS_PER_UNIT_INTERVAL) {
-                this.zoomOutMenuItem.setEnabled(false);
+        if (this.unitIntervalsPerPixel > 0) {
+            if (this.unitIntervalsPerPixel < MAXIMUM_UNIT_INTERVALS_PER_PIXEL) {
+                this.unitIntervalsPerPixel *= 2;
+                repaint();
             }
+        } else {
+            int newPixelsPerUnitInterval = this.pixelsPerUnitInterval - this.zoomInterval;
+            if (newPixelsPerUnitInterval >= MINIMUM_PIXELS_PER_UNIT_INTERVAL) {
+                setPixelsPerUnitInterval(newPixelsPerUnitInterval);
+            } else {
+                this.unitIntervalsPerPixel = 1;
+                prefetchNeighbors();
+            }
+            repaint();
         }
-        if (!this.zoomInMenuItem.isEnabled() && (newPixelsPerUnitInterval <= (MAXIMUM_PIXELS_PER_UNIT_INTERVAL - this.zoomInterval))) {
-            this.zoomInMenuItem.setEnabled(true);
-        }
+        checkViewMenuEnablements();
     }
 
     /**
@@ -1078,6 +1056,9 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
      */
     private void informZoomIntervalChange() {
         String notificationString = "Zoom interval is now " + this.zoomInterval + ".\nThere are " + this.pixelsPerUnitInterval + " pixels per unit interval.";
+        if (this.unitIntervalsPerPixel > 0) {
+            notificationString = "Zoom interval is now " + this.zoomInterval + ".\nEach pixel spans " + this.unitIntervalsPerPixel + " unit intervals.";
+        }
         JOptionPane.showMessageDialog(ringFrame, notificationString);
     }
 
@@ -1213,10 +1194,9 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
      * and polynomial.
      */
     public void toggleReadOutsEnabled() {
-        if (this.toggleReadOutsEnabledMenuItem.isSelected()) {
-            this.addMouseMotionListener(this);
-        } else {
-            this.removeMouseMotionListener(this);
+        this.readOutsEnabled = this.toggleReadOutsEnabledMenuItem.isSelected();
+        if (!this.readOutsEnabled) {
+            this.changeHoverHighlight(null);
         }
     }
 
@@ -1488,9 +1468,6 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
             zoomOutMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, Event.CTRL_MASK));
         }
         zoomOutMenuItem.addActionListener(this);
-        if (this.pixelsPerUnitInterval < (MINIMUM_PIXELS_PER_UNIT_INTERVAL + zoomInterval)) {
-            zoomInMenuItem.setEnabled(false);
-        }
         ringWindowMenu.addSeparator();
         ringWindowMenuItem = new JMenuItem("Decrease zoom interval");
         ringWindowMenuItem.getAccessibleContext().setAccessibleDescription("Decrease the zoom interval used by the zoom in and zoom out functions");
@@ -1569,32 +1546,14 @@ public final class RingWindowDisplay extends JPanel implements ActionListener, M
         aboutMenuItem.addActionListener(this);
         ringFrame.setJMenuBar(ringWindowMenuBar);
         // Now to add the readouts
-        JPanel readOutsPane = new JPanel();
-        algIntReadOut = new JTextField(DEFAULT_READOUT_FIELD_COLUMNS);
-        algIntReadOut.setText("0");
-        algIntReadOut.setEditable(false);
-        readOutsPane.add(algIntReadOut);
-        readOutsPane.add(new JLabel("Trace: "));
-        algIntTraceReadOut = new JTextField(DEFAULT_READOUT_FIELD_COLUMNS);
-        algIntTraceReadOut.setText("0");
-        algIntTraceReadOut.setEditable(false);
-        readOutsPane.add(algIntTraceReadOut);
-        readOutsPane.add(new JLabel("Norm: "));
-        algIntNormReadOut = new JTextField(DEFAULT_READOUT_FIELD_COLUMNS);
-        algIntNormReadOut.setText("0");
-        algIntNormReadOut.setEditable(false);
-        readOutsPane.add(algIntNormReadOut);
-        readOutsPane.add(new JLabel("Polynomial: "));
-        algIntPolReadOut = new JTextField(DEFAULT_READOUT_FIELD_COLUMNS);
-        algIntPolReadOut.setText("x");
-        algIntPolReadOut.setEditable(false);
-        readOutsPane.add(algIntPolReadOut);
+        readoutStrip = new ReadoutStrip(DEFAULT_READOUT_FIELD_COLUMNS);
         // And lastly, to put it all onto the frame and display it
-        ringFrame.add(readOutsPane, BorderLayout.PAGE_END);
+        ringFrame.add(readoutStrip, BorderLayout.PAGE_END);
         ringFrame.add(this, BorderLayout.CENTER);
         ringFrame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         ringFrame.pack();
         ringFrame.setVisible(true);
+        prefetchNeighbors();
     }
 
 }
\ No newline at end of file
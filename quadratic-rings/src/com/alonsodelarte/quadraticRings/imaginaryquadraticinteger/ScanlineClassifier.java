@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+/**
+ * Turns a row of norms into a row of classification codes for {@link
+ * RegionClassification}. Each point of the ring is classified by looking its
+ * norm up in the sieve, and in rings with "half-integers," the points of the
+ * row that are not in the ring are skipped without looking anything up.
+ * @author Alonso del Arte
+ */
+final class ScanlineClassifier {
+
+    /**
+     * Classifies a point by its norm alone. This is correct except for the
+     * units times purely real primes, which RegionClassification takes care
+     * of separately.
+     * @param norm The norm of the point. Must not be negative.
+     * @param sieve The sieve to test the norm for primality with.
+     * @param discr The discriminant of the ring.
+     * @return The classification code, such as {@link
+     * RegionClassification#SPLIT_PRIME_FACTOR}.
+     */
+    static byte classifyNorm(long norm, PrimeSieve sieve, int discr) {
+        if (norm == 0) {
+            return RegionClassification.ZERO;
+        }
+        if (norm == 1) {
+            return RegionClassification.UNIT;
+        }
+        if (sieve.isPrime(norm)) {
+            return (discr % norm == 0) ? RegionClassification.RAMIFIED_PRIME_FACTOR : RegionClassification.SPLIT_PRIME_FACTOR;
+        }
+        return RegionClassification.COMPOSITE;
+    }
+
+    /**
+     * Classifies a row of points with norms that fit in long.
+     * @param norms The norms of the points of the row, as given by {@link
+     * ScanlineNormGenerator#fillRow(long, long, int, long[], long[])}. None
+     * may exceed the limit of the sieve.
+     * @param count How many points are in the row.
+     * @param halfIntegers Whether the ring has "half-integers," in which case
+     * every other point of the row is not in the ring.
+     * @param firstInRing Whether the first point of the row is in the ring.
+     * Ignored if halfIntegers is false.
+     * @param sieve The sieve to look the norms up in.
+     * @param discr The discriminant of the ring.
+     * @param codes The array in which to put the classification codes.
+     * @param offset Where in the codes array the row starts.
+     */
+    static void classifyRow(long[] norms, int count, boolean halfIntegers, boolean firstInRing, PrimeSieve sieve, int discr, byte[] codes, int offset) {
+        if (!halfIntegers) {
+            for (int i = 0; i < count; i++) {
+                codes[offset + i] = classifyNorm(norms[i], sieve, discr);
+            }
+            return;
+        }
+        int first = firstInRing ? 0 : 1;
+        for (int i = first; i < count; i += 2) {
+            codes[offset + i] = classifyNorm(norms[i], sieve, discr);
+        }
+        for (int i = 1 - first; i < count; i += 2) {
+            codes[offset + i] = RegionClassification.NOT_IN_RING;
+        }
+    }
+
+    private ScanlineClassifier() {
+        // Only static methods
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+
+/**
+ * Computes the norms of consecutive lattice points along a row of a ring
+ * diagram. The norm of the point (<i>x</i>, <i>y</i>) is a value of the
+ * quadratic form <i>x</i><sup>2</sup> + |<i>d</i>|<i>y</i><sup>2</sup> (divided
+ * by 4 for rings with "half-integers," see {@link RegionClassification} for
+ * the lattice coordinates). Going from <i>x</i> to <i>x</i> + 1 adds 2<i>x</i>
+ * + 1 to the form, and the next step adds 2 more than that, so after the first
+ * point of the row the inner loop needs no multiplications at all.
+ * <p>Far from 0 the norms exceed the range of long. At <i>x</i> and <i>y</i>
+ * around 10<sup>12</sup>, for example, the norms are around
+ * 10<sup>24</sup>. So the form is held in two longs, a high word and a low
+ * word, and the additions carry from one to the other. The norms are given the
+ * same way, as the high and low words of a nonnegative 128-bit number. In a
+ * view near 0, all the high words are 0.</p>
+ * <p>This class is not thread-safe, but it holds no state between rows, so
+ * each thread can have its own instance for the same ring.</p>
+ * @author Alonso del Arte
+ */
+public final class ScanlineNormGenerator {
+
+    /**
+     * The quadratic form must be less than 2 to this power at every point of
+     * a row. This keeps the high word well clear of the sign bit and the step
+     * 2<i>x</i> + 1 within the range of long.
+     */
+    public static final int MAXIMUM_FORM_BITS = 122;
+
+    private static final BigInteger LOW_WORD_MASK = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    private final ImaginaryQuadraticRing ring;
+
+    private final BigInteger absNegRad;
+
+    private final boolean quarterForm;
+
+    /**
+     * Gets the ring whose norms this generator computes.
+     * @return The ring. For example, <b>Z</b>[<i>i</i>].
+     */
+    public ImaginaryQuadraticRing getRing() {
+        return this.ring;
+    }
+
+    private BigInteger formValue(long x, long y) {
+        BigInteger bigX = BigInteger.valueOf(x);
+        BigInteger bigY = BigInteger.valueOf(y);
+        BigInteger form = bigX.multiply(bigX).add(this.absNegRad.multiply(bigY).multiply(bigY));
+        if (form.bitLength() > MAXIMUM_FORM_BITS) {
+            throw new ArithmeticException("Norm at (" + x + ", " + y + ") in " + this.ring.toASCIIString() + " exceeds " + MAXIMUM_FORM_BITS + " bits.");
+        }
+        return form;
+    }
+
+    /**
+     * Computes the norms of a row of consecutive lattice points.
+     * @param x The x coordinate of the first point of the row. For example,
+     * 1000000000000.
+     * @param y The y coordinate of all the points of the row. For example,
+     * -1000000000000.
+     * @param count How many points to compute the norms of. May be 0.
+     * @param lowWords The array in which to put the low 64 bits of each norm,
+     * starting at index 0. The words are unsigned, so they may appear negative
+     * as longs.
+     * @param highWords The array in which to put the high 64 bits of each
+     * norm, starting at index 0. These are always nonnegative.
+     * @return True if every norm in the row fits in a long, that is, every
+     * high word is 0 and every low word is nonnegative, false otherwise.
+     * @throws ArithmeticException If the form at the first or last point of
+     * the row has more than {@link #MAXIMUM_FORM_BITS} bits.
+     * @throws ArrayIndexOutOfBoundsException If either array is shorter than
+     * count.
+     */
+    public boolean fillRow(long x, long y, int count, long[] lowWords, long[] highWords) {
+        if (count <= 0) {
+            return true;
+        }
+        if (lowWords.length < count || highWords.length < count) {
+            throw new ArrayIndexOutOfBoundsException("Arrays of lengths " + lowWords.length + " and " + highWords.length + " can't hold " + count + " norms.");
+        }
+        BigInteger start = this.formValue(x, y);
+        this.formValue(x + count - 1, y);
+        long high = start.shiftRight(64).longValue();
+        long low = start.and(LOW_WORD_MASK).longValue();
+        long step = 2 * x + 1;
+        long highBits = 0;
+        long newLow;
+        for (int i = 0; i < count; i++) {
+            if (this.quarterForm) {
+                lowWords[i] = (low >>> 2) | (high << 62);
+                highWords[i] = high >>> 2;
+            } else {
+                lowWords[i] = low;
+                highWords[i] = high;
+            }
+            highBits |= highWords[i] | (lowWords[i] & Long.MIN_VALUE);
+            newLow = low + step;
+            high += (step >> 63) + (Long.compareUnsigned(newLow, low) < 0 ? 1 : 0);
+            low = newLow;
+            step += 2;
+        }
+        return highBits == 0;
+    }
+
+    /**
+     * Prepares a norm generator for a ring.
+     * @param R The ring. For example, <b>Z</b>[<i>i</i>].
+     */
+    public ScanlineNormGenerator(ImaginaryQuadraticRing R) {
+        this.ring = R;
+        this.absNegRad = BigInteger.valueOf(R.absNegRad);
+        this.quarterForm = R.d1mod4;
+    }
+
+}
@@ -30,6 +30,28 @@
  * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.NumberTheoreticFunctionsCalculator} is a
  * collection of number theoretic functions, including basic primality testing 
  * and the Euclidean GCD algorithm.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.PackedImaginaryQuadraticInteger}
+ * encodes imaginary quadratic integers as primitive longs and provides 
+ * arithmetic functions on those, for when there are too many numbers to hold 
+ * as objects.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.ImaginaryQuadraticIntegerBatch}
+ * holds many imaginary quadratic integers from one ring in parallel primitive 
+ * arrays, with bulk functions for norms, traces, conjugates, products, 
+ * primality filtering and sorting.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.ImaginaryQuadraticIntegerHashSet}
+ * and {@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.ImaginaryQuadraticIntegerHashMap}
+ * are a set and a map keyed on packed imaginary quadratic integers of one ring, 
+ * with open addressing, for collections too large for java.util.HashSet and 
+ * java.util.HashMap.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.PrimeSieve}
+ * is a sieve of Eratosthenes, for when many primality tests of norms up to 
+ * some bound are needed at once.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.ScanlineNormGenerator}
+ * computes the norms along a row of lattice points by repeated addition, with 
+ * two longs per norm so as to reach far beyond the range of long.</li>
+ * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.RegionClassification}
+ * classifies every point in a rectangular region of a ring as zero, unit, 
+ * prime of one kind or another, or composite, for drawing diagrams.</li>
  * <li>{@link com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.RingWindowDisplay} is a Swing component
  * in which to display diagrams of prime numbers in various quadratic integer 
  * rings.</li>
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.alonsodelarte.quadraticRings.constants.Display.DEFAULT_CANVAS_BACKGROUND_COLOR;
+import static com.alonsodelarte.quadraticRings.constants.Display.DEFAULT_DOT_RADIUS;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the drawing of diagrams without a window.
+ * @author Alonso del Arte
+ */
+public class BatchRendererTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("gallery").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    /**
+     * Test of parseDiscriminants method, of class BatchRenderer. Ranges may
+     * go either way, positive numbers count as negative, numbers that are not
+     * squarefree are skipped and repeats are dropped.
+     */
+    @Test
+    public void testParseDiscriminants() {
+        System.out.println("parseDiscriminants");
+        List<Integer> expResult = Arrays.asList(-1, -2, -3, -5, -6, -7, -10, -11);
+        assertEquals(expResult, BatchRenderer.parseDiscriminants("-1..-7,11,-10..-8,-3"));
+        try {
+            List<Integer> result = BatchRenderer.parseDiscriminants("-1..-9000");
+            fail("Parsing a range past the minimum discriminant should have caused an exception, not given " + result.size() + " discriminants");
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Trying to parse a range past the minimum discriminant correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+        try {
+            List<Integer> result = BatchRenderer.parseDiscriminants("-1,zero");
+            fail("Parsing \"zero\" should have caused an exception, not given " + result);
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Trying to parse \"zero\" correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of parse method, of class BatchRenderer.Zoom.
+     */
+    @Test
+    public void testParseZoom() {
+        System.out.println("Zoom.parse");
+        assertEquals("pxui40", BatchRenderer.Zoom.parse("40").toFilenameString());
+        assertEquals("pxui2", BatchRenderer.Zoom.parse("2pxui").toFilenameString());
+        BatchRenderer.Zoom densityZoom = BatchRenderer.Zoom.parse("4uipx");
+        assertEquals("uipx4", densityZoom.toFilenameString());
+        assertEquals(4, densityZoom.getUnitIntervalsPerPixel());
+        String[] badZooms = {"1", "3uipx", "forty"};
+        for (String badZoom : badZooms) {
+            try {
+                BatchRenderer.Zoom result = BatchRenderer.Zoom.parse(badZoom);
+                fail("Parsing \"" + badZoom + "\" should have caused an exception, not given " + result.toFilenameString());
+            } catch (IllegalArgumentException iae) {
+                System.out.println("Trying to parse \"" + badZoom + "\" correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+            }
+        }
+    }
+
+    /**
+     * Test of filenameFor method, of class BatchRenderer. The size is only
+     * part of the name when there's more than one size in the batch.
+     */
+    @Test
+    public void testFilenameFor() {
+        System.out.println("filenameFor");
+        BatchRenderer.Zoom zoom = BatchRenderer.Zoom.parse("40");
+        Dimension size = new Dimension(1280, 720);
+        BatchRenderer oneSize = new BatchRenderer(Collections.singletonList(-7), Collections.singletonList(size), Collections.singletonList(zoom), this.directory, 1, DEFAULT_DOT_RADIUS);
+        assertEquals("OQI7pxui40.png", oneSize.filenameFor(ImaginaryQuadraticRing.valueOf(-7), size, zoom));
+        BatchRenderer twoSizes = new BatchRenderer(Collections.singletonList(-7), Arrays.asList(size, new Dimension(640, 360)), Collections.singletonList(zoom), this.directory, 1, DEFAULT_DOT_RADIUS);
+        assertEquals("OQI7pxui40w1280h720.png", twoSizes.filenameFor(ImaginaryQuadraticRing.valueOf(-7), size, zoom));
+    }
+
+    /**
+     * Test of run method, of class BatchRenderer. Each ring gets a diagram
+     * for each zoom level, of the size asked for, and the diagrams look just
+     * like the diagrams {@link DiagramRenderer#renderNow(DiagramView,
+     * java.awt.Color)} draws.
+     * @throws IOException If the diagrams can't be read back, which would
+     * mean the test fails.
+     */
+    @Test
+    public void testRun() throws IOException {
+        System.out.println("run");
+        int status = BatchRenderer.run("-1..-3", "-s", "320x240", "-z", "20,2uipx", "-o", this.directory.getPath(), "-t", "2");
+        assertEquals(0, status);
+        String[] expected = {"ZIpxui20.png", "ZIuipx2.png", "ZI2pxui20.png", "ZI2uipx2.png", "ZWpxui20.png", "ZWuipx2.png"};
+        assertEquals(expected.length, this.directory.list().length);
+        for (String filename : expected) {
+            BufferedImage diagram = ImageIO.read(new File(this.directory, filename));
+            assertNotNull(filename + " should have been saved", diagram);
+            assertEquals(320, diagram.getWidth());
+            assertEquals(240, diagram.getHeight());
+        }
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-2);
+        DiagramView view = BatchRenderer.viewOf(ring, new Dimension(320, 240), BatchRenderer.Zoom.parse("20"), DEFAULT_DOT_RADIUS);
+        BufferedImage expDiagram = new DiagramRenderer(new Canvas(), 0).renderNow(view, DEFAULT_CANVAS_BACKGROUND_COLOR);
+        BufferedImage diagram = ImageIO.read(new File(this.directory, "ZI2pxui20.png"));
+        for (int y = 0; y < 240; y++) {
+            for (int x = 0; x < 320; x++) {
+                assertEquals("Pixel at " + x + ", " + y, expDiagram.getRGB(x, y), diagram.getRGB(x, y));
+            }
+        }
+        assertEquals(2, BatchRenderer.run("-1", "-s", "10x10"));
+    }
+
+    /**
+     * Test of run method, of class BatchRenderer. A density zoom gets a
+     * density map just like the one {@link DiagramRenderer#renderNow(DiagramView,
+     * java.awt.Color)} draws, for rings both with and without half-integers.
+     * @throws IOException If the diagrams can't be read back, which would
+     * mean the test fails.
+     */
+    @Test
+    public void testRunDensity() throws IOException {
+        System.out.println("run (density map)");
+        int status = BatchRenderer.run("-1,-3", "-s", "200x180", "-z", "32uipx", "-o", this.directory.getPath(), "-t", "2");
+        assertEquals(0, status);
+        Dimension size = new Dimension(200, 180);
+        BatchRenderer.Zoom zoom = BatchRenderer.Zoom.parse("32uipx");
+        DiagramRenderer renderer = new DiagramRenderer(new Canvas(), 0);
+        String[] filenames = {"ZIuipx32.png", "ZWuipx32.png"};
+        int[] discriminants = {-1, -3};
+        for (int i = 0; i < filenames.length; i++) {
+            BufferedImage diagram = ImageIO.read(new File(this.directory, filenames[i]));
+            assertNotNull(filenames[i] + " should have been saved", diagram);
+            assertEquals(200, diagram.getWidth());
+            assertEquals(180, diagram.getHeight());
+            DiagramView view = BatchRenderer.viewOf(ImaginaryQuadraticRing.valueOf(discriminants[i]), size, zoom, DEFAULT_DOT_RADIUS);
+            assertTrue(view.drawsDensity());
+            BufferedImage expDiagram = renderer.renderNow(view, DEFAULT_CANVAS_BACKGROUND_COLOR);
+            boolean mapped = false;
+            for (int y = 0; y < 180; y++) {
+                for (int x = 0; x < 200; x++) {
+                    assertEquals(filenames[i] + " pixel at " + x + ", " + y, expDiagram.getRGB(x, y), diagram.getRGB(x, y));
+                    mapped |= diagram.getRGB(x, y) != DEFAULT_CANVAS_BACKGROUND_COLOR.getRGB();
+                }
+            }
+            assertTrue(filenames[i] + " should show some primes", mapped);
+        }
+    }
+
+    /**
+     * Test of run method, of class BatchRenderer. The dots are drawn with
+     * the radius asked for, which needs to be in range.
+     * @throws IOException If the diagram can't be read back, which would mean
+     * the test fails.
+     */
+    @Test
+    public void testRunDotRadius() throws IOException {
+        System.out.println("run (dot radius)");
+        int status = BatchRenderer.run("-7", "-s", "320x240", "-z", "40", "--radius", "2", "-o", this.directory.getPath());
+        assertEquals(0, status);
+        Dimension size = new Dimension(320, 240);
+        BatchRenderer.Zoom zoom = BatchRenderer.Zoom.parse("40");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-7);
+        DiagramRenderer renderer = new DiagramRenderer(new Canvas(), 0);
+        BufferedImage expDiagram = renderer.renderNow(BatchRenderer.viewOf(ring, size, zoom, 2), DEFAULT_CANVAS_BACKGROUND_COLOR);
+        BufferedImage defaultDiagram = renderer.renderNow(BatchRenderer.viewOf(ring, size, zoom, DEFAULT_DOT_RADIUS), DEFAULT_CANVAS_BACKGROUND_COLOR);
+        BufferedImage diagram = ImageIO.read(new File(this.directory, "OQI7pxui40.png"));
+        boolean differsFromDefault = false;
+        for (int y = 0; y < 240; y++) {
+            for (int x = 0; x < 320; x++) {
+                assertEquals("Pixel at " + x + ", " + y, expDiagram.getRGB(x, y), diagram.getRGB(x, y));
+                differsFromDefault |= diagram.getRGB(x, y) != defaultDiagram.getRGB(x, y);
+            }
+        }
+        assertTrue("Dots of radius 2 should not look like dots of the default radius", differsFromDefault);
+        assertEquals(2, BatchRenderer.run("-7", "-r", "0"));
+        assertEquals(2, BatchRenderer.run("-7", "-r", "big"));
+        assertEquals(2, BatchRenderer.run("-7", "-r"));
+    }
+
+    /**
+     * Test of bytesPerWorker method, of class BatchRenderer. A density map
+     * needs room for the counts, the map and the image at the very least,
+     * and the sieve of primes is set aside apart from the workers.
+     */
+    @Test
+    public void testBytesPerWorker() {
+        System.out.println("bytesPerWorker");
+        Dimension size = new Dimension(1280, 720);
+        BatchRenderer dots = new BatchRenderer(Collections.singletonList(-1), Collections.singletonList(size), Collections.singletonList(BatchRenderer.Zoom.parse("40")), this.directory, 4, DEFAULT_DOT_RADIUS);
+        assertEquals(0, dots.sharedBytes());
+        BatchRenderer density = new BatchRenderer(Collections.singletonList(-1), Collections.singletonList(size), Collections.singletonList(BatchRenderer.Zoom.parse("32uipx")), this.directory, 4, DEFAULT_DOT_RADIUS);
+        long pixels = 1281L * 721L;
+        long leastExpected = 4 * Integer.BYTES * pixels + Integer.BYTES * pixels + Integer.BYTES * 1280L * 720L + (1 << 20);
+        long result = density.bytesPerWorker();
+        assertTrue("At least " + leastExpected + " bytes expected, not " + result, result >= leastExpected);
+        assertTrue(density.sharedBytes() >= PrimeSieve.MAXIMUM_LIMIT / 16 + ForkJoinPool.getCommonPoolParallelism() * (1L << 20));
+    }
+
+}
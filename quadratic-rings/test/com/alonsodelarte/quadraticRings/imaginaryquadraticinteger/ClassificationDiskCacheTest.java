@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_MEGABYTES_PROPERTY;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.CLASSIFICATION_CACHE_PROPERTY;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.DEFAULT_CLASSIFICATION_CACHE_BUDGET;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the classifications kept on disk.
+ * @author Alonso del Arte
+ */
+public class ClassificationDiskCacheTest {
+
+    private static final long WRITE_TIMEOUT_MILLIS = 60000;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("classifications");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walkFileTree(this.directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void assertSameCodes(RegionClassification expected, RegionClassification actual) {
+        assertEquals(expected.getMinX(), actual.getMinX());
+        assertEquals(expected.getMinY(), actual.getMinY());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int row = 0; row < expected.getHeight(); row++) {
+            for (int column = 0; column < expected.getWidth(); column++) {
+                assertEquals("Code at column " + column + ", row " + row, expected.getCode(column, row), actual.getCode(column, row));
+            }
+        }
+    }
+
+    /**
+     * Test of save and load methods, of class ClassificationDiskCache. A
+     * region straddling several tiles, including tiles that stick out of it,
+     * should read back just as it was classified, and so should a region
+     * nearby inside the same tiles.
+     * @throws InterruptedException If interrupted while waiting for the
+     * tiles to be written.
+     */
+    @Test
+    public void testSaveAndLoad() throws InterruptedException {
+        System.out.println("save and load");
+        int[] ds = {-1, -7};
+        for (int d : ds) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            ClassificationDiskCache cache = new ClassificationDiskCache(this.directory);
+            assertNull(cache.load(ring, -150, -90, 301, 181));
+            RegionClassification region = RegionClassification.classify(ring, -150, -90, 301, 181);
+            cache.save(region);
+            assertTrue(cache.awaitWrites(WRITE_TIMEOUT_MILLIS));
+            ClassificationDiskCache reopened = new ClassificationDiskCache(this.directory);
+            assertSameCodes(region, reopened.load(ring, -150, -90, 301, 181));
+            assertSameCodes(RegionClassification.classify(ring, -200, 10, 20, 100), reopened.load(ring, -200, 10, 20, 100));
+            assertNull(reopened.load(ring, 300, 0, 10, 10));
+        }
+    }
+
+    /**
+     * Test of load method, of class ClassificationDiskCache. A tile file with
+     * a header for another version should be deleted rather than read.
+     * @throws IOException If the tile file can't be tampered with.
+     * @throws InterruptedException If interrupted while waiting for the
+     * tiles to be written.
+     */
+    @Test
+    public void testLoadOutdated() throws IOException, InterruptedException {
+        System.out.println("load (outdated)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-5);
+        ClassificationDiskCache cache = new ClassificationDiskCache(this.directory);
+        cache.save(RegionClassification.classify(ring, 0, 0, ClassificationDiskCache.TILE_SIZE, ClassificationDiskCache.TILE_SIZE));
+        assertTrue(cache.awaitWrites(WRITE_TIMEOUT_MILLIS));
+        Path tile = null;
+        try (DirectoryStream<Path> tiles = Files.newDirectoryStream(this.directory.resolve("d-5"))) {
+            for (Path path : tiles) {
+                tile = path;
+            }
+        }
+        assertNotNull(tile);
+        assertNotNull(cache.load(ring, 0, 0, 10, 10));
+        try (FileChannel channel = FileChannel.open(tile, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(Integer.BYTES);
+            version.putInt(ClassificationDiskCache.CLASSIFICATION_VERSION + 1).flip();
+            channel.write(version, 2 * Integer.BYTES);
+        }
+        assertNull(cache.load(ring, 0, 0, 10, 10));
+        assertFalse(Files.exists(tile));
+    }
+
+    /**
+     * Sets the modification time of the tile files of a ring to some minutes
+     * ago.
+     */
+    private void age(String ringDirectory, int minutes) throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - minutes * 60000L);
+        try (DirectoryStream<Path> tiles = Files.newDirectoryStream(this.directory.resolve(ringDirectory))) {
+            for (Path tile : tiles) {
+                Files.setLastModifiedTime(tile, time);
+            }
+        }
+    }
+
+    /**
+     * Test of save method, of class ClassificationDiskCache. Once the tiles
+     * go over the budget, the least recently used tiles should be deleted,
+     * with tiles that have been read counting as just used.
+     * @throws IOException If the times of the tile files can't be set.
+     * @throws InterruptedException If interrupted while waiting for the
+     * tiles to be written.
+     */
+    @Test
+    public void testSaveOverBudget() throws IOException, InterruptedException {
+        System.out.println("save (over budget)");
+        int size = ClassificationDiskCache.TILE_SIZE;
+        ImaginaryQuadraticRing ringA = ImaginaryQuadraticRing.valueOf(-2);
+        ImaginaryQuadraticRing ringB = ImaginaryQuadraticRing.valueOf(-5);
+        ImaginaryQuadraticRing ringC = ImaginaryQuadraticRing.valueOf(-6);
+        ClassificationDiskCache cache = new ClassificationDiskCache(this.directory, 5L * ClassificationDiskCache.TILE_BYTES);
+        cache.save(RegionClassification.classify(ringA, 0, 0, 2 * size, size));
+        assertTrue(cache.awaitWrites(WRITE_TIMEOUT_MILLIS));
+        this.age("d-2", 60);
+        cache.save(RegionClassification.classify(ringB, 0, 0, 2 * size, size));
+        assertTrue(cache.awaitWrites(WRITE_TIMEOUT_MILLIS));
+        this.age("d-5", 30);
+        assertNotNull("Reading ring A's tiles should mark them as just used", cache.load(ringA, 0, 0, 2 * size, size));
+        cache.save(RegionClassification.classify(ringC, 0, 0, 2 * size, size));
+        assertTrue(cache.awaitWrites(WRITE_TIMEOUT_MILLIS));
+        assertNotNull(cache.load(ringA, 0, 0, 2 * size, size));
+        assertNull("Ring B's tiles were the least recently used", cache.load(ringB, 0, 0, 2 * size, size));
+        assertNotNull(cache.load(ringC, 0, 0, 2 * size, size));
+        ClassificationDiskCache noBudget = new ClassificationDiskCache(this.directory, 0);
+        noBudget.save(RegionClassification.classify(ringB, 0, 0, size, size));
+        assertTrue(noBudget.awaitWrites(WRITE_TIMEOUT_MILLIS));
+        assertNull("Nothing should be written without a budget", noBudget.load(ringB, 0, 0, size, size));
+        assertNotNull("Tiles already there should still be read without a budget", noBudget.load(ringC, 0, 0, size, size));
+    }
+
+    /**
+     * Test of configured method, of class ClassificationDiskCache. The
+     * system properties should be able to move the cache, change its budget
+     * or turn it off.
+     */
+    @Test
+    public void testConfigured() {
+        System.out.println("configured");
+        String previousLocation = System.getProperty(CLASSIFICATION_CACHE_PROPERTY);
+        String previousMegabytes = System.getProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY);
+        try {
+            System.clearProperty(CLASSIFICATION_CACHE_PROPERTY);
+            System.clearProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY);
+            ClassificationDiskCache cache = ClassificationDiskCache.configured();
+            assertNotNull(cache);
+            assertTrue(cache.getDirectory().startsWith(System.getProperty("user.home")));
+            assertEquals(DEFAULT_CLASSIFICATION_CACHE_BUDGET, cache.getBudget());
+            System.setProperty(CLASSIFICATION_CACHE_PROPERTY, this.directory.toString());
+            System.setProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY, "12");
+            cache = ClassificationDiskCache.configured();
+            assertEquals(this.directory, cache.getDirectory());
+            assertEquals(12L << 20, cache.getBudget());
+            System.setProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY, "lots");
+            assertEquals(DEFAULT_CLASSIFICATION_CACHE_BUDGET, ClassificationDiskCache.configured().getBudget());
+            System.setProperty(CLASSIFICATION_CACHE_PROPERTY, "off");
+            assertNull(ClassificationDiskCache.configured());
+        } finally {
+            if (previousLocation == null) {
+                System.clearProperty(CLASSIFICATION_CACHE_PROPERTY);
+            } else {
+                System.setProperty(CLASSIFICATION_CACHE_PROPERTY, previousLocation);
+            }
+            if (previousMegabytes == null) {
+                System.clearProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY);
+            } else {
+                System.setProperty(CLASSIFICATION_CACHE_MEGABYTES_PROPERTY, previousMegabytes);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the store of classifications reused across zoom levels.
+ * @author Alonso del Arte
+ */
+public class ClassificationStoreTest {
+
+    /**
+     * Test of put method, of class ClassificationStore. A classification of a
+     * region inside the one remembered should not replace it, but a
+     * classification of a region sticking out of it should.
+     */
+    @Test
+    public void testPut() {
+        System.out.println("put");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-5);
+        ClassificationStore store = new ClassificationStore();
+        assertNull(store.get(ring));
+        RegionClassification large = RegionClassification.classify(ring, -40, -30, 81, 61);
+        store.put(large);
+        assertSame(large, store.get(ring));
+        store.put(RegionClassification.classify(ring, -10, -10, 21, 21));
+        assertSame(large, store.get(ring));
+        RegionClassification shifted = RegionClassification.classify(ring, -30, -30, 81, 61);
+        store.put(shifted);
+        assertSame(shifted, store.get(ring));
+        RegionClassification larger = RegionClassification.classify(ring, -80, -60, 161, 121);
+        store.put(larger);
+        assertSame(larger, store.get(ring));
+    }
+
+    /**
+     * Test of get method, of class ClassificationStore. Once more rings than
+     * the capacity have been put in, the least recently used ring should be
+     * forgotten.
+     */
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        ClassificationStore store = new ClassificationStore(2);
+        ImaginaryQuadraticRing ringA = ImaginaryQuadraticRing.valueOf(-1);
+        ImaginaryQuadraticRing ringB = ImaginaryQuadraticRing.valueOf(-2);
+        ImaginaryQuadraticRing ringC = ImaginaryQuadraticRing.valueOf(-3);
+        store.put(RegionClassification.classify(ringA, -5, -5, 11, 11));
+        store.put(RegionClassification.classify(ringB, -5, -5, 11, 11));
+        assertNotNull(store.get(ringA));
+        store.put(RegionClassification.classify(ringC, -5, -5, 11, 11));
+        assertNotNull(store.get(ringA));
+        assertNull(store.get(ringB));
+        assertNotNull(store.get(ringC));
+    }
+
+    /**
+     * Test of constructor, of class ClassificationStore. A capacity of less
+     * than one ring should be rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorRejectsZeroCapacity() {
+        System.out.println("ClassificationStore (zero capacity)");
+        ClassificationStore store = new ClassificationStore(0);
+        System.out.println("Somehow constructed store with zero capacity " + store);
+    }
+
+}
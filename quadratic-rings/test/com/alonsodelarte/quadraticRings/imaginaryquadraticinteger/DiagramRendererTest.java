@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the renderer that draws diagrams in the background.
+ * @author Alonso del Arte
+ */
+public class DiagramRendererTest {
+
+    private static DiagramView makeView(int d) {
+        return TestDiagramViews.makeView(ImaginaryQuadraticRing.valueOf(d), 40, 40, 160, 90, 0, 0);
+    }
+
+    /**
+     * Test of prefetch method, of class DiagramRenderer. Once a prefetched
+     * view is drawn, requesting it should make its complete diagram the
+     * latest frame right away, without waiting for the renderer thread.
+     * @throws InterruptedException If the test is interrupted while waiting
+     * for the prefetching to finish.
+     */
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        System.out.println("prefetch");
+        DiagramRenderer renderer = new DiagramRenderer(new Canvas());
+        DiagramView up = makeView(-2);
+        DiagramView down = makeView(-5);
+        renderer.prefetch(Arrays.asList(up, down));
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!(renderer.isCached(up) && renderer.isCached(down)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(renderer.isCached(up));
+        assertTrue(renderer.isCached(down));
+        renderer.request(down);
+        DiagramRenderer.Frame frame = renderer.getLatestFrame();
+        assertNotNull(frame);
+        assertTrue(frame.isComplete());
+        assertEquals(down, frame.getView());
+        assertFalse(renderer.isPending(down));
+    }
+
+    /**
+     * Test of prefetch method, of class DiagramRenderer. With no room in the
+     * frame cache, nothing should be kept. A diagram to hand over is queued
+     * behind the prefetching, so that by the time it's handed over, the
+     * renderer thread is done with the prefetching.
+     * @throws InterruptedException If the test is interrupted while waiting
+     * for the renderer thread.
+     */
+    @Test
+    public void testPrefetchWithoutBudget() throws InterruptedException {
+        System.out.println("prefetch (no budget)");
+        DiagramRenderer renderer = new DiagramRenderer(new Canvas(), 0);
+        DiagramView view = makeView(-7);
+        renderer.prefetch(Arrays.asList(view));
+        final CountDownLatch done = new CountDownLatch(1);
+        renderer.renderLater(makeView(-1), Color.WHITE, new Consumer<BufferedImage>() {
+            @Override
+            public void accept(BufferedImage diagram) {
+                done.countDown();
+            }
+        });
+        assertTrue("Renderer thread should have caught up", done.await(30, TimeUnit.SECONDS));
+        assertFalse(renderer.isCached(view));
+    }
+
+    /**
+     * Test of renderLater method, of class DiagramRenderer. The diagram should
+     * be handed over on the event dispatch thread, and it should be the same
+     * as the one drawn by {@link DiagramRenderer#renderNow(DiagramView,
+     * Color)}.
+     * @throws InterruptedException If the test is interrupted while waiting
+     * for the diagram.
+     */
+    @Test
+    public void testRenderLater() throws InterruptedException {
+        System.out.println("renderLater");
+        DiagramRenderer renderer = new DiagramRenderer(new Canvas(), 0);
+        DiagramView view = makeView(-3);
+        final AtomicReference<BufferedImage> handedOver = new AtomicReference<>();
+        final AtomicBoolean onEventDispatchThread = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        renderer.renderLater(view, Color.WHITE, new Consumer<BufferedImage>() {
+            @Override
+            public void accept(BufferedImage diagram) {
+                handedOver.set(diagram);
+                onEventDispatchThread.set(SwingUtilities.isEventDispatchThread());
+                done.countDown();
+            }
+        });
+        assertTrue("Diagram should have been handed over", done.await(30, TimeUnit.SECONDS));
+        assertTrue("Diagram should have been handed over on the event dispatch thread", onEventDispatchThread.get());
+        BufferedImage diagram = handedOver.get();
+        assertNotNull(diagram);
+        BufferedImage expDiagram = renderer.renderNow(view, Color.WHITE);
+        assertEquals(expDiagram.getWidth(), diagram.getWidth());
+        assertEquals(expDiagram.getHeight(), diagram.getHeight());
+        for (int y = 0; y < diagram.getHeight(); y++) {
+            for (int x = 0; x < diagram.getWidth(); x++) {
+                assertEquals("Pixel at " + x + ", " + y, expDiagram.getRGB(x, y), diagram.getRGB(x, y));
+            }
+        }
+    }
+
+}
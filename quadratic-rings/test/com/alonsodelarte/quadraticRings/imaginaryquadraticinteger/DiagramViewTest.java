@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.TestDiagramViews.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the diagram view snapshots.
+ * @author Alonso del Arte
+ */
+public class DiagramViewTest {
+
+    private static final double TEST_DELTA = 0.000001;
+
+    private static BufferedImage drawFully(DiagramView view) {
+        BufferedImage image = new BufferedImage(view.getCanvasWidth() + 1, view.getCanvasHeight() + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        view.draw(graphics, view.startClassifying(null, null).finish(null), new DotRaster(image.getWidth(), image.getHeight()), null);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Test of placementOf method, of class DiagramView. The lattice points of
+     * a diagram drawn for an earlier view should be placed where the later
+     * view draws them, whether the zoom level, the canvas size or the view
+     * center changed. For rings with "half-integers," only the points on the
+     * integer grid are checked, since the points on the "half-integer" grid
+     * may be off by half a pixel.
+     */
+    @Test
+    public void testPlacementOf() {
+        System.out.println("placementOf");
+        int[] testDs = {-1, -2, -3, -7};
+        for (int d : testDs) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            DiagramView earlier = makeView(ring, 20, 28, 640, 360, 0, 0);
+            DiagramView[] laterViews = {makeView(ring, 25, 35, 640, 360, 0, 0), makeView(ring, 20, 28, 800, 500, 0, 0), makeView(ring, 12, 17, 640, 360, 7, -3)};
+            for (DiagramView later : laterViews) {
+                AffineTransform placement = later.placementOf(earlier);
+                int step = ring.hasHalfIntegers() ? 2 : 1;
+                for (long x = -10; x <= 10; x += step) {
+                    for (long y = -6; y <= 6; y++) {
+                        Point2D expected = new Point2D.Double(later.pixelX(x), later.pixelY(y));
+                        Point2D actual = placement.transform(new Point2D.Double(earlier.pixelX(x), earlier.pixelY(y)), null);
+                        assertEquals("Horizontal position of (" + x + ", " + y + ") in " + ring.toASCIIString(), expected.getX(), actual.getX(), TEST_DELTA);
+                        assertEquals("Vertical position of (" + x + ", " + y + ") in " + ring.toASCIIString(), expected.getY(), actual.getY(), TEST_DELTA);
+                    }
+                }
+            }
+            assertTrue(earlier.placementOf(earlier).isIdentity());
+            DiagramView otherRing = makeView(ImaginaryQuadraticRing.valueOf(d == -1 ? -2 : -1), 20, 28, 640, 360, 0, 0);
+            assertNull(otherRing.placementOf(earlier));
+        }
+    }
+
+    /**
+     * Test of startClassifying method, of class DiagramView. A classification
+     * already of the visible region should be kept, but not a classification
+     * of some other region.
+     */
+    @Test
+    public void testStartClassifying() {
+        System.out.println("startClassifying");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-5);
+        DiagramView view = makeView(ring, 20, 45, 640, 360, 0, 0);
+        RegionClassification.Progressive progress = view.startClassifying(null, null);
+        assertSame(progress, view.startClassifying(progress, null));
+        assertSame(progress, makeView(ring, 20, 45, 640, 360, 0, 0).startClassifying(progress, null));
+        assertNotSame(progress, makeView(ring, 20, 45, 640, 360, 1, 0).startClassifying(progress, null));
+        assertNotSame(progress, makeView(ring, 25, 56, 640, 360, 0, 0).startClassifying(progress, null));
+        RegionClassification region = progress.finish(null);
+        assertTrue(region.getMinX() <= -16 && region.getMinX() + region.getWidth() > 16);
+        assertTrue(region.getMinY() <= -4 && region.getMinY() + region.getHeight() > 4);
+    }
+
+    /**
+     * Test of coverageMargin method, of class DiagramView. A diagram drawn
+     * with a margin should cover a shifted view by the margin less the shift,
+     * but it can't stand in for a view at another zoom level.
+     */
+    @Test
+    public void testCoverageMargin() {
+        System.out.println("coverageMargin");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-3);
+        DiagramView view = makeView(ring, 20, 17, 640, 360, 0, 0);
+        DiagramView drawn = view.withMargin(100);
+        assertEquals(100, view.coverageMargin(drawn));
+        assertEquals(70, makeView(ring, 20, 17, 640, 360, 320 + 30, 180 - 10, 0, 0).coverageMargin(drawn));
+        assertEquals(80, makeView(ring, 20, 17, 640, 360, 320, 180, 1, 0).coverageMargin(drawn));
+        assertEquals(66, makeView(ring, 20, 17, 640, 360, 320, 180, 0, -1).coverageMargin(drawn));
+        assertEquals(-20, makeView(ring, 20, 17, 640, 360, 320 - 120, 180, 0, 0).coverageMargin(drawn));
+        assertEquals(Integer.MIN_VALUE, makeView(ring, 25, 21, 640, 360, 0, 0).coverageMargin(drawn));
+        assertEquals(Integer.MIN_VALUE, makeView(ImaginaryQuadraticRing.valueOf(-7), 20, 17, 640, 360, 0, 0).coverageMargin(drawn));
+        assertTrue(makeView(ring, 20, 17, 640, 360, Long.MAX_VALUE / 2, 0).coverageMargin(drawn) < 0);
+    }
+
+    /**
+     * Test of draw method, of class DiagramView. A diagram drawn with a
+     * margin, then shifted, should look just like the diagram drawn for the
+     * shifted view, grids included, even when 0 is off the canvas. Only the
+     * pixels near the edges of either diagram may differ, since dots that are
+     * partly off a canvas are not drawn.
+     */
+    @Test
+    public void testDrawShifted() {
+        System.out.println("draw (shifted)");
+        int[] testDs = {-1, -2, -3, -7};
+        int[][] zeros = {{150 + 37, 100 - 23}, {-45, 250}, {150, 100}};
+        for (int d : testDs) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            DiagramView view = makeView(ring, 12, 16, 300, 200, 0, 0);
+            DiagramView drawn = view.withMargin(64);
+            BufferedImage margined = drawFully(drawn);
+            for (int[] zero : zeros) {
+                DiagramView shifted = makeView(ring, 12, 16, 300, 200, zero[0], zero[1], 0, 0);
+                AffineTransform placement = shifted.placementOf(drawn);
+                int shiftX = (int) placement.getTranslateX();
+                int shiftY = (int) placement.getTranslateY();
+                BufferedImage expected = drawFully(shifted);
+                for (int y = 6; y < 200 - 6; y++) {
+                    for (int x = 6; x < 300 - 6; x++) {
+                        int drawnX = x - shiftX;
+                        int drawnY = y - shiftY;
+                        if (drawnX >= 6 && drawnY >= 6 && drawnX < margined.getWidth() - 6 && drawnY < margined.getHeight() - 6) {
+                            assertEquals("Pixel (" + x + ", " + y + ") of " + ring.toASCIIString() + " with 0 at (" + zero[0] + ", " + zero[1] + ")", expected.getRGB(x, y), margined.getRGB(drawnX, drawnY));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of draw method, of class DiagramView, for a density map. With one
+     * unit interval per pixel in <b>Z</b>[<i>i</i>], each pixel spans just one
+     * lattice point, so the pixels of the primes should be opaque in the
+     * color of their kind of prime, and all the other pixels should be
+     * transparent.
+     */
+    @Test
+    public void testDrawDensity() {
+        System.out.println("draw (density)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        long[] centers = {0, 20, -20, 100};
+        for (long center : centers) {
+            DiagramView view = new DiagramView(ring, 2, 2, 1, 120, 80, 60, 40, center, 0, 3, GRID_COLORS, POINT_COLORS);
+            assertTrue(view.drawsDensity());
+            BufferedImage image = drawFully(view);
+            RegionClassification region = RegionClassification.classify(ring, center - 60, -40, 121, 81);
+            for (int row = 0; row < region.getHeight(); row++) {
+                for (int column = 0; column < region.getWidth(); column++) {
+                    byte code = region.getCode(column, row);
+                    int rgb = image.getRGB(column, 80 - row);
+                    String msg = "Pixel of (" + (center + column - 60) + ", " + (row - 40) + ")";
+                    switch (code) {
+                        case RegionClassification.INERT_PRIME:
+                        case RegionClassification.SPLIT_PRIME_FACTOR:
+                            assertEquals(msg, Color.CYAN.getRGB(), rgb);
+                            break;
+                        case RegionClassification.SPLIT_PRIME:
+                        case RegionClassification.SPLIT_PRIME_NONPRINCIPAL:
+                            assertEquals(msg, Color.BLUE.getRGB(), rgb);
+                            break;
+                        case RegionClassification.RAMIFIED_PRIME:
+                        case RegionClassification.RAMIFIED_PRIME_NONPRINCIPAL:
+                        case RegionClassification.RAMIFIED_PRIME_FACTOR:
+                            assertEquals(msg, Color.GREEN.getRGB(), rgb);
+                            break;
+                        default:
+                            assertEquals(msg, 0, rgb);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of draw method, of class DiagramView, for a density map zoomed
+     * far out. At 32 unit intervals per pixel, the norms in a diagram the
+     * size of a small window centered far from 0 go past the limit of the
+     * prime sieves the drawing used to rely on, and this checks that the
+     * drawing still takes seconds rather than minutes.
+     */
+    @Test(timeout = 60000)
+    public void testDrawDensityFarOut() {
+        System.out.println("draw (density, far out)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        DiagramView view = new DiagramView(ring, 2, 2, 32, 320, 180, 160, 90, 40000, 0, 3, GRID_COLORS, POINT_COLORS);
+        long start = System.nanoTime();
+        BufferedImage image = drawFully(view);
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        System.out.println("Drew " + image.getWidth() + " by " + image.getHeight() + " density map at 32 unit intervals per pixel in " + elapsed + " ms");
+        int opaque = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) > 0) {
+                    opaque++;
+                }
+            }
+        }
+        assertTrue("Most pixels should have some primes", opaque > image.getWidth() * image.getHeight() / 2);
+        assertTrue("Drawing should have taken less than 20 seconds, not " + elapsed + " ms", elapsed < 20000);
+    }
+
+    /**
+     * Test of placementOf method, of class DiagramView, for a density map. A
+     * diagram drawn with dots should shrink to where the density map has its
+     * lattice points, and each doubling of the unit intervals per pixel
+     * should halve the scale.
+     */
+    @Test
+    public void testPlacementOfDensity() {
+        System.out.println("placementOf (density)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        DiagramView dots = makeView(ring, 2, 2, 640, 360, 0, 0);
+        DiagramView density = new DiagramView(ring, 2, 2, 4, 640, 360, 320, 180, 0, 0, 3, GRID_COLORS, POINT_COLORS);
+        AffineTransform placement = density.placementOf(dots);
+        assertEquals(0.125, placement.getScaleX(), TEST_DELTA);
+        assertEquals(0.125, placement.getScaleY(), TEST_DELTA);
+        Point2D zero = placement.transform(new Point2D.Double(320, 180), null);
+        assertEquals(320.0, zero.getX(), TEST_DELTA);
+        assertEquals(180.0, zero.getY(), TEST_DELTA);
+        DiagramView further = new DiagramView(ring, 2, 2, 8, 640, 360, 320, 180, 0, 0, 3, GRID_COLORS, POINT_COLORS);
+        assertEquals(0.5, further.placementOf(density).getScaleX(), TEST_DELTA);
+        assertEquals(Integer.MIN_VALUE, further.coverageMargin(density));
+        assertEquals(0, density.coverageMargin(density));
+    }
+
+    /**
+     * Test of hasSameGridsAs method, of class DiagramView. Moving 0 by whole
+     * grid spacings or changing the dot radius should keep the grid layer,
+     * but moving 0 by part of a spacing or zooming should not.
+     */
+    @Test
+    public void testHasSameGridsAs() {
+        System.out.println("hasSameGridsAs");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-3);
+        DiagramView view = makeView(ring, 20, 17, 640, 360, 0, 0);
+        assertTrue(view.hasSameGridsAs(view));
+        assertTrue(view.hasSameGridsAs(makeView(ring, 20, 17, 640, 360, 320 + 40, 180 - 34, 5, -2)));
+        assertTrue(view.hasSameGridsAs(new DiagramView(ring, 20, 17, 640, 360, 320, 180, 0, 0, 7, GRID_COLORS, POINT_COLORS)));
+        assertFalse(view.hasSameGridsAs(makeView(ring, 20, 17, 640, 360, 320 + 10, 180, 0, 0)));
+        assertFalse(view.hasSameGridsAs(makeView(ring, 20, 17, 640, 360, 320, 180 + 17, 0, 0)));
+        assertFalse(view.hasSameGridsAs(makeView(ring, 25, 21, 640, 360, 0, 0)));
+        assertFalse(view.hasSameGridsAs(null));
+        DiagramView noGrids = makeView(ring, 4, 3, 640, 360, 0, 0);
+        assertTrue(noGrids.hasSameGridsAs(makeView(ring, 2, 1, 640, 360, 7, 7)));
+        assertFalse(noGrids.hasSameGridsAs(view));
+    }
+
+    /**
+     * Test of hasSamePointsAs method, of class DiagramView. Only a change of
+     * grid colors should keep the point layer.
+     */
+    @Test
+    public void testHasSamePointsAs() {
+        System.out.println("hasSamePointsAs");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-3);
+        DiagramView view = makeView(ring, 20, 17, 640, 360, 0, 0);
+        Color[] otherGridColors = {Color.GRAY, Color.RED};
+        assertTrue(view.hasSamePointsAs(new DiagramView(ring, 20, 17, 640, 360, 320, 180, 0, 0, 3, otherGridColors, POINT_COLORS)));
+        assertFalse(view.hasSamePointsAs(new DiagramView(ring, 20, 17, 640, 360, 320, 180, 0, 0, 4, GRID_COLORS, POINT_COLORS)));
+        assertFalse(view.hasSamePointsAs(makeView(ring, 20, 17, 640, 360, 1, 0)));
+        assertFalse(view.hasSamePointsAs(null));
+    }
+
+    /**
+     * Test of drawGridLayer and drawPointLayer methods, of class DiagramView.
+     * The point layer drawn over the grid layer should look just like the
+     * whole diagram drawn at once.
+     */
+    @Test
+    public void testDrawLayers() {
+        System.out.println("drawGridLayer, drawPointLayer");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-7);
+        DiagramView view = makeView(ring, 16, 21, 300, 200, 0, 0);
+        BufferedImage whole = drawFully(view);
+        RegionClassification region = view.startClassifying(null, null).finish(null);
+        BufferedImage gridLayer = new BufferedImage(301, 201, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = gridLayer.createGraphics();
+        view.drawGridLayer(graphics);
+        graphics.dispose();
+        BufferedImage pointLayer = new BufferedImage(301, 201, BufferedImage.TYPE_INT_ARGB);
+        graphics = pointLayer.createGraphics();
+        view.drawPointLayer(graphics, region, new DotRaster(301, 201), null);
+        graphics.dispose();
+        BufferedImage composite = new BufferedImage(301, 201, BufferedImage.TYPE_INT_ARGB);
+        graphics = composite.createGraphics();
+        graphics.drawImage(gridLayer, 0, 0, null);
+        graphics.drawImage(pointLayer, 0, 0, null);
+        graphics.dispose();
+        for (int y = 0; y < 201; y++) {
+            for (int x = 0; x < 301; x++) {
+                assertEquals("Pixel (" + x + ", " + y + ")", whole.getRGB(x, y), composite.getRGB(x, y));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the direct drawing of dots. The dots should come out exactly the
+ * same as when drawn with Java2D, including at the edges of the image.
+ * @author Alonso del Arte
+ */
+public class DotRasterTest {
+
+    private static final int WIDTH = 61;
+
+    private static final int HEIGHT = 37;
+
+    private static final int MARGIN = 50;
+
+    /**
+     * Test of stamp method, of class DotRaster. The expected dots are drawn
+     * with Java2D into a larger image, since Java2D sometimes draws a pixel
+     * or two differently when an outline is cut off by the edge of the
+     * image.
+     */
+    @Test
+    public void testStamp() {
+        System.out.println("stamp");
+        int[][] centers = {{30, 18}, {0, 0}, {WIDTH - 1, HEIGHT - 1}, {-2, 10}, {WIDTH + 1, 5}, {15, HEIGHT}};
+        Color color = new Color(0, 255, 255);
+        DotRaster raster = new DotRaster(WIDTH, HEIGHT);
+        for (int radius = 1; radius <= 12; radius++) {
+            for (boolean filled : new boolean[]{true, false}) {
+                raster.clear();
+                BufferedImage expected = new BufferedImage(WIDTH + 2 * MARGIN, HEIGHT + 2 * MARGIN, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D graphics = expected.createGraphics();
+                graphics.setColor(color);
+                for (int[] center : centers) {
+                    raster.stamp(center[0], center[1], radius, filled, color.getRGB());
+                    if (filled) {
+                        graphics.fillOval(MARGIN + center[0] - radius, MARGIN + center[1] - radius, 2 * radius, 2 * radius);
+                    } else {
+                        graphics.drawOval(MARGIN + center[0] - radius, MARGIN + center[1] - radius, 2 * radius, 2 * radius);
+                    }
+                }
+                graphics.dispose();
+                for (int y = 0; y < HEIGHT; y++) {
+                    for (int x = 0; x < WIDTH; x++) {
+                        assertEquals("Pixel (" + x + ", " + y + ") for radius " + radius + (filled ? " filled" : " outline"), expected.getRGB(MARGIN + x, MARGIN + y), raster.getImage().getRGB(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of stamp method, of class DotRaster, for a band of rows. Stamping
+     * the same dots band by band should give the same picture as stamping
+     * them into the whole image, even where dots of different colors overlap
+     * across the bands.
+     */
+    @Test
+    public void testStampBand() {
+        System.out.println("stamp (band)");
+        int[] colors = {Color.RED.getRGB(), Color.GREEN.getRGB(), Color.BLUE.getRGB()};
+        int[] bandEdges = {0, 7, 8, 20, 31, HEIGHT};
+        for (int radius = 1; radius <= 8; radius++) {
+            DotRaster whole = new DotRaster(WIDTH, HEIGHT);
+            DotRaster banded = new DotRaster(WIDTH, HEIGHT);
+            banded.prepareSprites(radius);
+            for (int y = -2; y < HEIGHT + 2; y += 3) {
+                for (int x = -2; x < WIDTH + 2; x += 4) {
+                    whole.stamp(x, y, radius, (x & 4) == 0, colors[(x + y) % 3 < 0 ? 0 : (x + y) % 3]);
+                }
+            }
+            for (int band = 0; band < bandEdges.length - 1; band++) {
+                for (int y = -2; y < HEIGHT + 2; y += 3) {
+                    for (int x = -2; x < WIDTH + 2; x += 4) {
+                        banded.stamp(x, y, radius, (x & 4) == 0, colors[(x + y) % 3 < 0 ? 0 : (x + y) % 3], bandEdges[band], bandEdges[band + 1]);
+                    }
+                }
+            }
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals("Pixel (" + x + ", " + y + ") for radius " + radius, whole.getImage().getRGB(x, y), banded.getImage().getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of clear method, of class DotRaster.
+     */
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        DotRaster raster = new DotRaster(WIDTH, HEIGHT);
+        raster.stamp(20, 20, 5, true, Color.WHITE.getRGB());
+        assertNotEquals(0, raster.getImage().getRGB(20, 20));
+        raster.clear();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals("Pixel (" + x + ", " + y + ") should be transparent", 0, raster.getImage().getRGB(x, y));
+            }
+        }
+    }
+
+}
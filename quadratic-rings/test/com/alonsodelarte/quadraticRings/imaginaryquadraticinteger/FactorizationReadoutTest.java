@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the factorization readout computed in the background.
+ * @author Alonso del Arte
+ */
+public class FactorizationReadoutTest {
+
+    private static final ImaginaryQuadraticRing RING_GAUSSIAN = ImaginaryQuadraticRing.valueOf(-1);
+
+    private static final ImaginaryQuadraticRing RING_ZSQRT5 = ImaginaryQuadraticRing.valueOf(-5);
+
+    /**
+     * Test of compute method, of class FactorizationReadout. In a unique
+     * factorization domain, composite numbers should be shown factored.
+     */
+    @Test
+    public void testComputeComposite() {
+        System.out.println("compute (composite)");
+        FactorizationReadout.Result result = FactorizationReadout.compute(new ImaginaryQuadraticInteger(1, 3, RING_GAUSSIAN));
+        assertFalse(result.isPrime());
+        assertNotNull(result.getFactors());
+        System.out.println("1 + 3i = " + result.format(false));
+        ImaginaryQuadraticInteger product = new ImaginaryQuadraticInteger(1, 0, RING_GAUSSIAN);
+        for (ImaginaryQuadraticInteger factor : result.getFactors()) {
+            product = product.times(factor);
+        }
+        assertEquals(new ImaginaryQuadraticInteger(1, 3, RING_GAUSSIAN), product);
+        assertEquals("3^2", FactorizationReadout.compute(new ImaginaryQuadraticInteger(9, 0, RING_GAUSSIAN)).format(false));
+    }
+
+    /**
+     * Test of compute method, of class FactorizationReadout. Primes should be
+     * shown as such, in unique factorization domains and in other rings alike.
+     */
+    @Test
+    public void testComputePrime() {
+        System.out.println("compute (prime)");
+        assertEquals("Prime", FactorizationReadout.compute(new ImaginaryQuadraticInteger(2, 1, RING_GAUSSIAN)).format(false));
+        assertEquals("Prime", FactorizationReadout.compute(new ImaginaryQuadraticInteger(0, 1, RING_ZSQRT5)).format(false));
+    }
+
+    /**
+     * Test of compute method, of class FactorizationReadout. In
+     * <b>Z</b>[&radic;&minus;5], 2 is irreducible but not prime, while 6 is
+     * reducible, and neither should be factored.
+     */
+    @Test
+    public void testComputeNonUFD() {
+        System.out.println("compute (non-UFD)");
+        FactorizationReadout.Result result = FactorizationReadout.compute(new ImaginaryQuadraticInteger(2, 0, RING_ZSQRT5));
+        assertNull(result.getFactors());
+        assertTrue(result.isIrreducible());
+        assertEquals("Irreducible, not prime", result.format(false));
+        result = FactorizationReadout.compute(new ImaginaryQuadraticInteger(6, 0, RING_ZSQRT5));
+        assertNull(result.getFactors());
+        assertFalse(result.isIrreducible());
+        assertEquals("Reducible", result.format(false));
+    }
+
+    /**
+     * Test of compute method, of class FactorizationReadout. Zero and the
+     * units are neither prime nor composite.
+     */
+    @Test
+    public void testComputeZeroAndUnits() {
+        System.out.println("compute (zero and units)");
+        assertEquals("Zero", FactorizationReadout.compute(new ImaginaryQuadraticInteger(0, 0, RING_ZSQRT5)).format(false));
+        assertEquals("Unit", FactorizationReadout.compute(new ImaginaryQuadraticInteger(0, -1, RING_GAUSSIAN)).format(false));
+    }
+
+    /**
+     * Test of compute method, of class FactorizationReadout. A computation on
+     * an interrupted thread should be abandoned rather than finished.
+     */
+    @Test
+    public void testComputeInterrupted() {
+        System.out.println("compute (interrupted)");
+        ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(1009 * 1013, 0, ImaginaryQuadraticRing.valueOf(-2));
+        Thread.currentThread().interrupt();
+        try {
+            FactorizationReadout.Result result = FactorizationReadout.compute(num);
+            fail("Computation on interrupted thread should have been abandoned, not given " + result.format(false));
+        } catch (CancellationException ce) {
+            System.out.println("CancellationException correctly triggered");
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Test of request method, of class FactorizationReadout. If the
+     * computation fails, the readout should be told so, rather than be left
+     * waiting for a result that never comes.
+     * @throws InterruptedException If the test is interrupted while waiting
+     * for the result.
+     * @throws InvocationTargetException If the request itself throws an
+     * exception, which would mean the test fails.
+     */
+    @Test
+    public void testRequestFailed() throws InterruptedException, InvocationTargetException {
+        System.out.println("request (failed)");
+        final ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(5, 7, RING_GAUSSIAN) {
+            @Override
+            public long norm() {
+                throw new IllegalStateException("Norm deliberately not available for this test");
+            }
+        };
+        final FactorizationReadout readout = new FactorizationReadout(FactorizationReadout.DEFAULT_CACHE_CAPACITY);
+        final AtomicReference<FactorizationReadout.Result> displayed = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                readout.request(num, new Consumer<FactorizationReadout.Result>() {
+                    @Override
+                    public void accept(FactorizationReadout.Result result) {
+                        displayed.set(result);
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue("The readout should have been told the computation failed", done.await(30, TimeUnit.SECONDS));
+        FactorizationReadout.Result result = displayed.get();
+        assertTrue(result.isFailed());
+        assertNull(result.getFactors());
+        assertEquals("Could not factor", result.format(false));
+        assertFalse(FactorizationReadout.compute(new ImaginaryQuadraticInteger(5, 7, RING_GAUSSIAN)).isFailed());
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static com.alonsodelarte.quadraticRings.constants.Configuration.DEFAULT_FRAME_CACHE_BUDGET;
+import static com.alonsodelarte.quadraticRings.constants.Configuration.FRAME_CACHE_MEGABYTES_PROPERTY;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the cache of complete diagrams.
+ * @author Alonso del Arte
+ */
+public class FrameCacheTest {
+
+    /* Each frame made by makeFrame has two layers of 100 by 50 pixels. */
+    private static final long FRAME_BYTES = 2 * 4 * 100 * 50;
+
+    private static DiagramView makeView(int d) {
+        return TestDiagramViews.makeView(ImaginaryQuadraticRing.valueOf(d), 40, 40, 99, 49, 50, 25, 0, 0);
+    }
+
+    private static DiagramRenderer.Frame makeFrame(int d, boolean complete) {
+        DiagramView view = makeView(d);
+        BufferedImage gridLayer = new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage pointLayer = new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB);
+        return new DiagramRenderer.Frame(view, view, gridLayer, pointLayer, complete);
+    }
+
+    /**
+     * Test of put method, of class FrameCache. Once the frames add up to more
+     * than the budget, the least recently used frame should be forgotten.
+     */
+    @Test
+    public void testPut() {
+        System.out.println("put");
+        FrameCache cache = new FrameCache(3 * FRAME_BYTES);
+        cache.put(makeFrame(-1, true));
+        cache.put(makeFrame(-2, true));
+        cache.put(makeFrame(-3, true));
+        assertEquals(3, cache.size());
+        assertEquals(3 * FRAME_BYTES, cache.getBytesUsed());
+        assertNotNull(cache.get(makeView(-1)));
+        cache.put(makeFrame(-5, true));
+        assertEquals(3, cache.size());
+        assertTrue(cache.contains(makeView(-1)));
+        assertFalse(cache.contains(makeView(-2)));
+        assertTrue(cache.contains(makeView(-3)));
+        assertTrue(cache.contains(makeView(-5)));
+        cache.put(makeFrame(-5, true));
+        assertEquals(3 * FRAME_BYTES, cache.getBytesUsed());
+    }
+
+    /**
+     * Test of put method, of class FrameCache. Incomplete frames, and frames
+     * bigger than the whole budget, should not be kept.
+     */
+    @Test
+    public void testPutNotKept() {
+        System.out.println("put (not kept)");
+        FrameCache cache = new FrameCache(FRAME_BYTES);
+        cache.put(makeFrame(-1, false));
+        assertEquals(0, cache.size());
+        cache = new FrameCache(FRAME_BYTES - 1);
+        cache.put(makeFrame(-1, true));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytesUsed());
+    }
+
+    /**
+     * Test of constructor, of class FrameCache. A negative budget should
+     * cause an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorRejectsNegativeBudget() {
+        System.out.println("FrameCache (negative budget)");
+        FrameCache cache = new FrameCache(-1);
+        System.out.println("Somehow created cache with budget " + cache.getBytesUsed());
+    }
+
+    /**
+     * Test of canHold method, of class FrameCache.
+     */
+    @Test
+    public void testCanHold() {
+        System.out.println("canHold");
+        FrameCache cache = new FrameCache(FRAME_BYTES);
+        assertTrue(cache.canHold(FRAME_BYTES));
+        assertFalse(cache.canHold(FRAME_BYTES + 1));
+        assertFalse(new FrameCache(0).canHold(FRAME_BYTES));
+    }
+
+    /**
+     * Test of configuredBudget method, of class FrameCache. The budget is
+     * read in megabytes from {@link
+     * com.alonsodelarte.quadraticRings.constants.Configuration#FRAME_CACHE_MEGABYTES_PROPERTY},
+     * and anything that's not a whole number of megabytes is ignored.
+     */
+    @Test
+    public void testConfiguredBudget() {
+        System.out.println("configuredBudget");
+        String previous = System.getProperty(FRAME_CACHE_MEGABYTES_PROPERTY);
+        try {
+            System.clearProperty(FRAME_CACHE_MEGABYTES_PROPERTY);
+            assertEquals(DEFAULT_FRAME_CACHE_BUDGET, FrameCache.configuredBudget());
+            System.setProperty(FRAME_CACHE_MEGABYTES_PROPERTY, "512");
+            assertEquals(512L << 20, FrameCache.configuredBudget());
+            System.setProperty(FRAME_CACHE_MEGABYTES_PROPERTY, "0");
+            assertEquals(0, FrameCache.configuredBudget());
+            System.setProperty(FRAME_CACHE_MEGABYTES_PROPERTY, "-1");
+            assertEquals(DEFAULT_FRAME_CACHE_BUDGET, FrameCache.configuredBudget());
+            System.setProperty(FRAME_CACHE_MEGABYTES_PROPERTY, "lots");
+            assertEquals(DEFAULT_FRAME_CACHE_BUDGET, FrameCache.configuredBudget());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(FRAME_CACHE_MEGABYTES_PROPERTY);
+            } else {
+                System.setProperty(FRAME_CACHE_MEGABYTES_PROPERTY, previous);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import com.alonsodelarte.quadraticRings.imaginaryquadraticinteger.Exceptions.NonUniqueFactorizationDomainException;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the rings drawn around the number under the mouse pointer and its
+ * relatives.
+ * @author Alonso del Arte
+ */
+public class HoverHighlightTest {
+
+    private static boolean contains(HoverHighlight highlight, long x, long y, int role) {
+        for (int i = 0; i < highlight.size(); i++) {
+            long[] point = highlight.getPoint(i);
+            if (point[0] == x && point[1] == y) {
+                return point[2] == role;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test of constructor, of class HoverHighlight. In <b>Z</b>[<i>i</i>],
+     * 2 + <i>i</i> should be ringed along with its conjugate and its three
+     * other associates, and nothing else, since it's prime.
+     */
+    @Test
+    public void testGaussian() {
+        System.out.println("HoverHighlight (Gaussian)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(2, 1, ring);
+        HoverHighlight highlight = new HoverHighlight(num, null);
+        assertEquals(5, highlight.size());
+        assertTrue(contains(highlight, 2, 1, HoverHighlight.HOVERED));
+        assertTrue(contains(highlight, 2, -1, HoverHighlight.RELATIVE));
+        assertTrue(contains(highlight, -2, -1, HoverHighlight.RELATIVE));
+        assertTrue(contains(highlight, -1, 2, HoverHighlight.RELATIVE));
+        assertTrue(contains(highlight, 1, -2, HoverHighlight.RELATIVE));
+    }
+
+    /**
+     * Test of constructor, of class HoverHighlight. In <b>Z</b>[&omega;], a
+     * number off the axes should have six associates, all of norm 7 for 5/2
+     * + &radic;&minus;3/2, and the "half-integer" coordinates should be in
+     * half units.
+     */
+    @Test
+    public void testEisenstein() {
+        System.out.println("HoverHighlight (Eisenstein)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-3);
+        ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(5, 1, ring, 2);
+        HoverHighlight highlight = new HoverHighlight(num, null);
+        assertEquals(7, highlight.size());
+        assertTrue(contains(highlight, 5, 1, HoverHighlight.HOVERED));
+        assertTrue(contains(highlight, 5, -1, HoverHighlight.RELATIVE));
+        for (int i = 0; i < highlight.size(); i++) {
+            long[] point = highlight.getPoint(i);
+            assertEquals("Norm of point " + i, 4 * 7, point[0] * point[0] + 3 * point[1] * point[1]);
+        }
+    }
+
+    /**
+     * Test of constructor, of class HoverHighlight. The prime factors of a
+     * composite number should be ringed when they're known.
+     */
+    @Test
+    public void testFactors() throws NonUniqueFactorizationDomainException {
+        System.out.println("HoverHighlight (factors)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-2);
+        ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(3, 0, ring);
+        List<ImaginaryQuadraticInteger> factors = NumberTheoreticFunctionsCalculator.primeFactors(num);
+        HoverHighlight highlight = new HoverHighlight(num, factors);
+        assertEquals(4, highlight.size());
+        assertTrue(contains(highlight, 1, 1, HoverHighlight.FACTOR) || contains(highlight, 1, -1, HoverHighlight.FACTOR));
+    }
+
+    /**
+     * Test of dirtyRectangles method, of class HoverHighlight. The rectangles
+     * should cover the rings that paint draws.
+     */
+    @Test
+    public void testDirtyRectangles() {
+        System.out.println("dirtyRectangles");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        Color[] gridColors = {Color.DARK_GRAY, Color.BLACK};
+        Color[] pointColors = {Color.BLACK, Color.WHITE, Color.CYAN, Color.BLUE, Color.GREEN};
+        DiagramView view = new DiagramView(ring, 40, 40, 400, 300, 200, 150, 0, 0, 5, gridColors, pointColors);
+        HoverHighlight highlight = new HoverHighlight(new ImaginaryQuadraticInteger(2, 1, ring), null);
+        List<Rectangle> rectangles = highlight.dirtyRectangles(view, 5);
+        assertEquals(highlight.size(), rectangles.size());
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        highlight.paint(graphics, view, 5, new Color[]{Color.YELLOW, Color.ORANGE, Color.MAGENTA});
+        graphics.dispose();
+        for (int y = 0; y < 300; y++) {
+            for (int x = 0; x < 400; x++) {
+                if (image.getRGB(x, y) != 0) {
+                    boolean covered = false;
+                    for (Rectangle rectangle : rectangles) {
+                        covered |= rectangle.contains(x, y);
+                    }
+                    assertTrue("Pixel (" + x + ", " + y + ") should be in a dirty rectangle", covered);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the column-wise batch of imaginary quadratic integers. The results
+ * of the bulk functions are checked against the results of the corresponding
+ * ImaginaryQuadraticInteger methods.
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerBatchTest {
+
+    private static final int MAXIMUM_TEST_PART = 1024;
+
+    private static ImaginaryQuadraticRing[] testRings;
+
+    private static List<List<ImaginaryQuadraticInteger>> testLists;
+
+    private static ImaginaryQuadraticIntegerBatch largeBatch;
+
+    private static List<ImaginaryQuadraticInteger> makeList(ImaginaryQuadraticRing ring, int size, Random ranNumGen) {
+        List<ImaginaryQuadraticInteger> nums = new ArrayList<>(size);
+        int a, b, denom;
+        for (int i = 0; i < size; i++) {
+            a = ranNumGen.nextInt(2 * MAXIMUM_TEST_PART) - MAXIMUM_TEST_PART;
+            b = ranNumGen.nextInt(2 * MAXIMUM_TEST_PART) - MAXIMUM_TEST_PART;
+            denom = 1;
+            if (ring.hasHalfIntegers() && ranNumGen.nextBoolean()) {
+                a = 2 * a + 1;
+                b = 2 * b + 1;
+                denom = 2;
+            }
+            nums.add(new ImaginaryQuadraticInteger(a, b, ring, denom));
+        }
+        return nums;
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        testRings = new ImaginaryQuadraticRing[]{new ImaginaryQuadraticRing(-1), new ImaginaryQuadraticRing(-3), new ImaginaryQuadraticRing(-5), new ImaginaryQuadraticRing(-7), new ImaginaryQuadraticRing(-163)};
+        testLists = new ArrayList<>();
+        Random ranNumGen = new Random();
+        for (ImaginaryQuadraticRing ring : testRings) {
+            testLists.add(makeList(ring, 300, ranNumGen));
+        }
+        largeBatch = ImaginaryQuadraticIntegerBatch.fromList(makeList(testRings[3], 2 * ImaginaryQuadraticIntegerBatch.PARALLEL_THRESHOLD + 17, ranNumGen));
+    }
+
+    /**
+     * Test of fromList, get and toList methods, of class
+     * ImaginaryQuadraticIntegerBatch.
+     */
+    @Test
+    public void testFromListToList() {
+        System.out.println("fromList, get, toList");
+        for (List<ImaginaryQuadraticInteger> nums : testLists) {
+            ImaginaryQuadraticIntegerBatch batch = ImaginaryQuadraticIntegerBatch.fromList(nums);
+            assertEquals(nums.size(), batch.size());
+            assertEquals(nums, batch.toList());
+            for (int i = 0; i < nums.size(); i++) {
+                assertEquals(nums.get(i), batch.get(i));
+            }
+        }
+        ImaginaryQuadraticIntegerBatch batch = new ImaginaryQuadraticIntegerBatch(testRings[3]);
+        batch.add(4, 2, 2);
+        assertEquals("4/2 + 2sqrt(-7)/2 should be normalized", new ImaginaryQuadraticInteger(2, 1, testRings[3]), batch.get(0));
+        try {
+            batch.add(testLists.get(0).get(0));
+            fail("Adding a number from a different ring should have caused an exception");
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Adding a number from a different ring correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of norms and traces methods, of class
+     * ImaginaryQuadraticIntegerBatch.
+     */
+    @Test
+    public void testNormsTraces() {
+        System.out.println("norms, traces");
+        for (List<ImaginaryQuadraticInteger> nums : testLists) {
+            ImaginaryQuadraticIntegerBatch batch = ImaginaryQuadraticIntegerBatch.fromList(nums);
+            long[] norms = batch.norms();
+            long[] traces = batch.traces();
+            for (int i = 0; i < nums.size(); i++) {
+                assertEquals("Norm of " + nums.get(i).toASCIIString(), nums.get(i).norm(), norms[i]);
+                assertEquals("Trace of " + nums.get(i).toASCIIString(), nums.get(i).trace(), traces[i]);
+            }
+        }
+        long[] norms = largeBatch.norms();
+        for (int i = 0; i < largeBatch.size(); i += 97) {
+            assertEquals(largeBatch.get(i).norm(), norms[i]);
+        }
+        ImaginaryQuadraticIntegerBatch batch = new ImaginaryQuadraticIntegerBatch(testRings[4]);
+        batch.add(1 << 20, 1 << 20, 1);
+        assertEquals("Norm should not overflow in int arithmetic", (1L << 40) * 164, batch.norms()[0]);
+    }
+
+    /**
+     * Test of conjugates and times methods, of class
+     * ImaginaryQuadraticIntegerBatch.
+     */
+    @Test
+    public void testConjugatesTimes() {
+        System.out.println("conjugates, times");
+        for (List<ImaginaryQuadraticInteger> nums : testLists) {
+            ImaginaryQuadraticIntegerBatch batch = ImaginaryQuadraticIntegerBatch.fromList(nums);
+            ImaginaryQuadraticIntegerBatch conjugates = batch.conjugates();
+            ImaginaryQuadraticIntegerBatch products = batch.times(conjugates);
+            ImaginaryQuadraticIntegerBatch squares = batch.times(batch);
+            for (int i = 0; i < nums.size(); i++) {
+                assertEquals(nums.get(i).conjugate(), conjugates.get(i));
+                assertEquals(nums.get(i).times(nums.get(i).conjugate()), products.get(i));
+                assertEquals(nums.get(i).times(nums.get(i)), squares.get(i));
+            }
+        }
+        ImaginaryQuadraticIntegerBatch products = largeBatch.times(largeBatch.conjugates());
+        for (int i = 0; i < largeBatch.size(); i += 89) {
+            assertEquals(largeBatch.get(i).times(largeBatch.get(i).conjugate()), products.get(i));
+        }
+        ImaginaryQuadraticIntegerBatch batch = new ImaginaryQuadraticIntegerBatch(testRings[0]);
+        batch.add(1 << 20, 1 << 20, 1);
+        try {
+            ImaginaryQuadraticIntegerBatch result = batch.times(batch);
+            fail("Overflowing product should have caused an exception, not given " + result.get(0).toASCIIString());
+        } catch (ArithmeticException ae) {
+            System.out.println("Overflowing product correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of filterPrimes method, of class ImaginaryQuadraticIntegerBatch.
+     */
+    @Test
+    public void testFilterPrimes() {
+        System.out.println("filterPrimes");
+        for (List<ImaginaryQuadraticInteger> nums : testLists) {
+            List<ImaginaryQuadraticInteger> expResult = new ArrayList<>();
+            for (ImaginaryQuadraticInteger num : nums) {
+                if (NumberTheoreticFunctionsCalculator.isPrime(num)) {
+                    expResult.add(num);
+                }
+            }
+            assertEquals(expResult, ImaginaryQuadraticIntegerBatch.fromList(nums).filterPrimes().toList());
+        }
+    }
+
+    /**
+     * Test of sortByNorm method, of class ImaginaryQuadraticIntegerBatch.
+     */
+    @Test
+    public void testSortByNorm() {
+        System.out.println("sortByNorm");
+        for (List<ImaginaryQuadraticInteger> nums : testLists) {
+            ImaginaryQuadraticIntegerBatch batch = ImaginaryQuadraticIntegerBatch.fromList(nums);
+            batch.sortByNorm();
+            assertEquals(nums.size(), batch.size());
+            long[] norms = batch.norms();
+            for (int i = 1; i < norms.length; i++) {
+                assertTrue("Norms should be in ascending order", norms[i - 1] <= norms[i]);
+            }
+            List<ImaginaryQuadraticInteger> sorted = batch.toList();
+            assertTrue("Sorting should not lose numbers", sorted.containsAll(nums));
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the open-addressing map keyed on imaginary quadratic integers. The
+ * map is checked against a java.util.HashMap subjected to the same operations.
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerHashMapTest {
+
+    private static final ImaginaryQuadraticRing RING_ZI2 = new ImaginaryQuadraticRing(-2);
+
+    /**
+     * Test of put, get and remove methods, of class
+     * ImaginaryQuadraticIntegerHashMap.
+     */
+    @Test
+    public void testPutGetRemove() {
+        System.out.println("put, get, remove");
+        ImaginaryQuadraticIntegerHashMap<String> map = new ImaginaryQuadraticIntegerHashMap<>(RING_ZI2);
+        Map<ImaginaryQuadraticInteger, String> expected = new HashMap<>();
+        Random ranNumGen = new Random();
+        ImaginaryQuadraticInteger num;
+        String value;
+        for (int i = 0; i < 50000; i++) {
+            num = new ImaginaryQuadraticInteger(ranNumGen.nextInt(100) - 50, ranNumGen.nextInt(100) - 50, RING_ZI2);
+            switch (ranNumGen.nextInt(4)) {
+                case 0:
+                    assertEquals("Removing " + num.toASCIIString(), expected.remove(num), map.remove(num));
+                    break;
+                case 1:
+                    assertEquals("Getting " + num.toASCIIString(), expected.get(num), map.get(num));
+                    assertEquals(expected.containsKey(num), map.containsKey(num));
+                    break;
+                default:
+                    value = "Value " + i;
+                    assertEquals("Putting " + num.toASCIIString(), expected.put(num, value), map.put(num, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key : map.keysToPackedArray()) {
+            num = PackedImaginaryQuadraticInteger.unpack(key, RING_ZI2);
+            assertEquals(expected.get(num), map.get(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(PackedImaginaryQuadraticInteger.ONE));
+    }
+
+    /**
+     * Test of putAll method, of class ImaginaryQuadraticIntegerHashMap.
+     */
+    @Test
+    public void testPutAll() {
+        System.out.println("putAll");
+        int total = 100000;
+        long[] keys = new long[total];
+        Integer[] values = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            keys[i] = PackedImaginaryQuadraticInteger.pack(i, -i, 1);
+            values[i] = i;
+        }
+        ImaginaryQuadraticIntegerHashMap<Integer> map = new ImaginaryQuadraticIntegerHashMap<>(RING_ZI2);
+        map.putAll(keys, values);
+        assertEquals(total, map.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new ImaginaryQuadraticInteger(i, -i, RING_ZI2)));
+        }
+        try {
+            map.put(PackedImaginaryQuadraticInteger.ONE, null);
+            fail("Putting null value should have caused an exception");
+        } catch (NullPointerException npe) {
+            System.out.println("Putting null value correctly triggered NullPointerException \"" + npe.getMessage() + "\"");
+        }
+    }
+
+}
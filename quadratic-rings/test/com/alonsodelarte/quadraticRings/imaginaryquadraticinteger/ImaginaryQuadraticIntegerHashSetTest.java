@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the open-addressing set of imaginary quadratic integers. The set is
+ * checked against a java.util.HashSet subjected to the same operations.
+ * @author Alonso del Arte
+ */
+public class ImaginaryQuadraticIntegerHashSetTest {
+
+    private static final ImaginaryQuadraticRing RING_OQI7 = new ImaginaryQuadraticRing(-7);
+
+    private static ImaginaryQuadraticInteger randomNumber(Random ranNumGen, int bound) {
+        int a = ranNumGen.nextInt(2 * bound) - bound;
+        int b = ranNumGen.nextInt(2 * bound) - bound;
+        if (ranNumGen.nextBoolean()) {
+            return new ImaginaryQuadraticInteger(2 * a + 1, 2 * b + 1, RING_OQI7, 2);
+        }
+        return new ImaginaryQuadraticInteger(a, b, RING_OQI7);
+    }
+
+    /**
+     * Test of add, contains and remove methods, of class
+     * ImaginaryQuadraticIntegerHashSet.
+     */
+    @Test
+    public void testAddContainsRemove() {
+        System.out.println("add, contains, remove");
+        ImaginaryQuadraticIntegerHashSet set = new ImaginaryQuadraticIntegerHashSet(RING_OQI7);
+        Set<ImaginaryQuadraticInteger> expected = new HashSet<>();
+        Random ranNumGen = new Random();
+        ImaginaryQuadraticInteger num;
+        for (int i = 0; i < 50000; i++) {
+            num = randomNumber(ranNumGen, 64);
+            if (ranNumGen.nextInt(3) == 0) {
+                assertEquals("Removing " + num.toASCIIString(), expected.remove(num), set.remove(num));
+            } else {
+                assertEquals("Adding " + num.toASCIIString(), expected.add(num), set.add(num));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int i = 0; i < 5000; i++) {
+            num = randomNumber(ranNumGen, 72);
+            assertEquals("Checking " + num.toASCIIString(), expected.contains(num), set.contains(num));
+        }
+        List<ImaginaryQuadraticInteger> list = set.toList();
+        assertEquals(expected, new HashSet<>(list));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(list.get(0)));
+    }
+
+    /**
+     * Test of addAll method, of class ImaginaryQuadraticIntegerHashSet.
+     */
+    @Test
+    public void testAddAll() {
+        System.out.println("addAll");
+        Random ranNumGen = new Random();
+        long[] packed = new long[200000];
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = PackedImaginaryQuadraticInteger.pack(randomNumber(ranNumGen, 1024));
+            expected.add(packed[i]);
+        }
+        ImaginaryQuadraticIntegerHashSet set = new ImaginaryQuadraticIntegerHashSet(RING_OQI7);
+        assertEquals(expected.size(), set.addAll(packed));
+        assertEquals(0, set.addAll(packed));
+        assertEquals(expected.size(), set.size());
+        for (long value : set.toPackedArray()) {
+            assertTrue(expected.contains(value));
+        }
+        ImaginaryQuadraticIntegerHashSet purelyReal = new ImaginaryQuadraticIntegerHashSet(RING_OQI7);
+        purelyReal.add(new ImaginaryQuadraticInteger(3, 0, new ImaginaryQuadraticRing(-1)));
+        assertTrue("Purely real 3 should be found regardless of ring", purelyReal.contains(new ImaginaryQuadraticInteger(3, 0, RING_OQI7)));
+        try {
+            purelyReal.add(new ImaginaryQuadraticInteger(3, 1, new ImaginaryQuadraticRing(-1)));
+            fail("Adding 3 + i to a set for O_(Q(sqrt(-7))) should have caused an exception");
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Adding number from a different ring correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+
+}
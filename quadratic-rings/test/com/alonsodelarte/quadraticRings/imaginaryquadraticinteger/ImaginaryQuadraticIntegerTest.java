@@ -2157,6 +2157,39 @@ public class ImaginaryQuadraticIntegerTest {
         }
     }
 
+    /**
+     * Test of valueOf method, of class ImaginaryQuadraticInteger. Small numbers 
+     * should come from the flyweight table, larger numbers should be 
+     * constructed normally, and either way the result should equal what the 
+     * constructor gives.
+     */
+    @Test
+    public void testValueOf() {
+        System.out.println("valueOf");
+        ImaginaryQuadraticInteger expResult, result;
+        for (int a = -20; a <= 20; a++) {
+            for (int b = -20; b <= 20; b++) {
+                expResult = new ImaginaryQuadraticInteger(a, b, ringZi2);
+                result = ImaginaryQuadraticInteger.valueOf(a, b, ringZi2);
+                assertEquals(expResult, result);
+                assertEquals(ringZi2, result.getRing());
+                if (Math.abs(a % 2) == Math.abs(b % 2)) {
+                    expResult = new ImaginaryQuadraticInteger(a, b, ringOQi7, 2);
+                    result = ImaginaryQuadraticInteger.valueOf(a, b, ringOQi7, -2).times(-1);
+                    assertEquals(expResult, result);
+                }
+            }
+        }
+        assertSame("Small numbers should be served from the flyweight table", ImaginaryQuadraticInteger.valueOf(1, 1, ringOQi7, 2), ImaginaryQuadraticInteger.valueOf(1, 1, ringOQi7, 2));
+        assertSame("2/2 should be normalized to the flyweight for 1", ImaginaryQuadraticInteger.valueOf(1, 0, ringOQi7), ImaginaryQuadraticInteger.valueOf(2, 0, ringOQi7, 2));
+        try {
+            result = ImaginaryQuadraticInteger.valueOf(1, 1, ringGaussian, 2);
+            fail("Attempt to get 1/2 + i/2 should have caused an IllegalArgumentException, not given " + result.toASCIIString());
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Attempt to get 1/2 + i/2 correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+    
     /**
      * Test of ImaginaryQuadraticInteger class constructor. The main thing we're 
      * testing here is that an invalid argument triggers an 
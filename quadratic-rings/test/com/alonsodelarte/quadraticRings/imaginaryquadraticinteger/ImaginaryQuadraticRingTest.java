@@ -384,6 +384,55 @@ public class ImaginaryQuadraticRingTest {
         assertEquals(expResult, result);
     }
     
+    /**
+     * Test of getDiscriminant method, of class ImaginaryQuadraticRing.
+     */
+    @Test
+    public void testGetDiscriminant() {
+        System.out.println("getDiscriminant");
+        assertEquals(-4, ringGaussian.getDiscriminant());
+        assertEquals(-8, ringZi2.getDiscriminant());
+        assertEquals(-3, ringEisenstein.getDiscriminant());
+        assertEquals(-7, ringOQi7.getDiscriminant());
+        int expResult = ringRandomd1mod4 ? randomDiscr : 4 * randomDiscr;
+        assertEquals(expResult, ringRandom.getDiscriminant());
+    }
+    
+    /**
+     * Test of splittingBehavior method, of class ImaginaryQuadraticRing.
+     */
+    @Test
+    public void testSplittingBehavior() {
+        System.out.println("splittingBehavior");
+        assertEquals("2 should ramify in Z[i]", 0, ringGaussian.splittingBehavior(2));
+        assertEquals("3 should be inert in Z[i]", -1, ringGaussian.splittingBehavior(3));
+        assertEquals("5 should split in Z[i]", 1, ringGaussian.splittingBehavior(5));
+        assertEquals("2 should be inert in Z[omega]", -1, ringEisenstein.splittingBehavior(2));
+        assertEquals("3 should ramify in Z[omega]", 0, ringEisenstein.splittingBehavior(3));
+        assertEquals("7 should split in Z[omega]", 1, ringEisenstein.splittingBehavior(7));
+        assertEquals("2 should split in O_(Q(sqrt(-7)))", 1, ringOQi7.splittingBehavior(2));
+        assertEquals("Second call should give the same result", 1, ringOQi7.splittingBehavior(2));
+        assertEquals("Prime beyond cache bound should still work", ringGaussian.splittingBehavior(5), ringGaussian.splittingBehavior(65537));
+    }
+    
+    /**
+     * Test of valueOf method, of class ImaginaryQuadraticRing.
+     */
+    @Test
+    public void testValueOf() {
+        System.out.println("valueOf");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(randomDiscr);
+        assertEquals(ringRandom, ring);
+        assertSame("valueOf should give the same instance for the same d", ring, ImaginaryQuadraticRing.valueOf(randomDiscr));
+        assertSame(NumberTheoreticFunctionsCalculator.RING_GAUSSIAN, ImaginaryQuadraticRing.valueOf(-1));
+        try {
+            ImaginaryQuadraticRing ringZi12 = ImaginaryQuadraticRing.valueOf(-12);
+            fail("Attempt to use -12 should have caused an IllegalArgumentException, not given " + ringZi12.toASCIIString());
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Attempt to use -12 correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+    
     /**
      * Test of ImaginaryQuadraticRing class constructor. The main thing we're 
      * testing here is that an invalid argument triggers an 
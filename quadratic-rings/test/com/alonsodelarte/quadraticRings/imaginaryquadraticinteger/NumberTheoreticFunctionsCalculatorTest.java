@@ -504,6 +504,65 @@ public class NumberTheoreticFunctionsCalculatorTest {
         }
     }
     
+    /**
+     * Test of isPrime method, of class NumberTheoreticFunctionsCalculator, 
+     * specifically the overload that takes the parts of an imaginary quadratic 
+     * integer rather than an object. The results should match those of the 
+     * overload for ImaginaryQuadraticInteger, and should be correct for 
+     * associates of inert primes in <b>Z</b>[<i>i</i>] and 
+     * <b>Z</b>[&omega;], as well as for 2 in rings in which it ramifies.
+     */
+    @Test
+    public void testIsPrimeFromParts() {
+        System.out.println("isPrime(int, int, int, ImaginaryQuadraticRing)");
+        ImaginaryQuadraticRing ringGaussian = ImaginaryQuadraticRing.valueOf(-1);
+        ImaginaryQuadraticRing ringEisenstein = ImaginaryQuadraticRing.valueOf(-3);
+        ImaginaryQuadraticRing ringZi5 = ImaginaryQuadraticRing.valueOf(-5);
+        assertTrue("3 should be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(3, 0, 1, ringGaussian));
+        assertTrue("3i should be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(0, 3, 1, ringGaussian));
+        assertTrue("-7i should be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(0, -7, 1, ringGaussian));
+        assertTrue("2 + i should be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(2, 1, 1, ringGaussian));
+        assertFalse("2 should not be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(2, 0, 1, ringGaussian));
+        assertFalse("5i should not be prime in Z[i]", NumberTheoreticFunctionsCalculator.isPrime(0, 5, 1, ringGaussian));
+        assertTrue("2 should be prime in Z[omega]", NumberTheoreticFunctionsCalculator.isPrime(2, 0, 1, ringEisenstein));
+        assertTrue("2omega should be prime in Z[omega]", NumberTheoreticFunctionsCalculator.isPrime(-1, 1, 1, ringEisenstein));
+        assertTrue("5omega should be prime in Z[omega]", NumberTheoreticFunctionsCalculator.isPrime(-5, 5, 2, ringEisenstein));
+        assertFalse("7omega should not be prime in Z[omega]", NumberTheoreticFunctionsCalculator.isPrime(-7, 7, 2, ringEisenstein));
+        assertFalse("2 should not be prime in Z[sqrt(-5)]", NumberTheoreticFunctionsCalculator.isPrime(2, 0, 1, ringZi5));
+        assertFalse("3 should not be prime in Z[sqrt(-5)]", NumberTheoreticFunctionsCalculator.isPrime(3, 0, 1, ringZi5));
+        assertTrue("11 should be prime in Z[sqrt(-5)]", NumberTheoreticFunctionsCalculator.isPrime(11, 0, 1, ringZi5));
+        assertFalse("0 should not be prime", NumberTheoreticFunctionsCalculator.isPrime(0, 0, 1, ringZi5));
+        assertFalse("Units should not be prime", NumberTheoreticFunctionsCalculator.isPrime(1, 1, 2, ringEisenstein));
+        ImaginaryQuadraticRing ring;
+        ImaginaryQuadraticInteger num;
+        // In a unique factorization domain, prime and irreducible are the same
+        for (int d : new int[]{-1, -2, -3, -7, -19}) {
+            ring = ImaginaryQuadraticRing.valueOf(d);
+            for (int a = -30; a <= 30; a++) {
+                for (int b = -30; b <= 30; b++) {
+                    num = new ImaginaryQuadraticInteger(a, b, ring);
+                    if (num.norm() > 1) {
+                        assertEquals("Primality and irreducibility should agree on " + num.toASCIIString(), NumberTheoreticFunctionsCalculator.isIrreducible(num), NumberTheoreticFunctionsCalculator.isPrime(a, b, 1, ring));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Test of isPrime method, of class NumberTheoreticFunctionsCalculator, 
+     * for the overload that takes the parts of an imaginary quadratic integer, 
+     * with a norm so close to Long.MAX_VALUE that squaring one more than its 
+     * square root would overflow.
+     */
+    @Test(timeout = 10000)
+    public void testIsPrimeFromPartsNearMaxNorm() {
+        System.out.println("isPrime(int, int, int, ImaginaryQuadraticRing) near Long.MAX_VALUE");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-2);
+        // The norm is 9223372034708045609, which is 43 times an odd number
+        assertFalse(NumberTheoreticFunctionsCalculator.isPrime(Integer.MAX_VALUE, 1518500250, 1, ring));
+    }
+    
     /**
      * Test of isIrreducible method, of class 
      * NumberTheoreticFunctionsCalculator.
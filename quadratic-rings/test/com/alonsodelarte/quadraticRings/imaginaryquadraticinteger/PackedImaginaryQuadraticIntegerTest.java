@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the packed-long encoding of imaginary quadratic integers. The
+ * results of the packed arithmetic functions are checked against the results
+ * of the corresponding ImaginaryQuadraticInteger methods.
+ * @author Alonso del Arte
+ */
+public class PackedImaginaryQuadraticIntegerTest {
+
+    private static final int TOTAL_TEST_NUMBERS = 200;
+
+    private static final int MAXIMUM_TEST_PART = 512;
+
+    private static ImaginaryQuadraticRing[] testRings;
+
+    private static List<List<ImaginaryQuadraticInteger>> testNumbers;
+
+    @BeforeClass
+    public static void setUpClass() {
+        testRings = new ImaginaryQuadraticRing[]{new ImaginaryQuadraticRing(-1), new ImaginaryQuadraticRing(-2), new ImaginaryQuadraticRing(-3), new ImaginaryQuadraticRing(-7), new ImaginaryQuadraticRing(-10), new ImaginaryQuadraticRing(-163)};
+        testNumbers = new ArrayList<>();
+        Random ranNumGen = new Random();
+        int a, b, denom;
+        for (ImaginaryQuadraticRing ring : testRings) {
+            List<ImaginaryQuadraticInteger> numbers = new ArrayList<>();
+            for (int i = 0; i < TOTAL_TEST_NUMBERS; i++) {
+                a = ranNumGen.nextInt(2 * MAXIMUM_TEST_PART) - MAXIMUM_TEST_PART;
+                b = ranNumGen.nextInt(2 * MAXIMUM_TEST_PART) - MAXIMUM_TEST_PART;
+                denom = 1;
+                if (ring.hasHalfIntegers() && ranNumGen.nextBoolean()) {
+                    a = 2 * a + 1;
+                    b = 2 * b + 1;
+                    denom = 2;
+                }
+                numbers.add(new ImaginaryQuadraticInteger(a, b, ring, denom));
+            }
+            testNumbers.add(numbers);
+        }
+    }
+
+    /**
+     * Test of pack and unpack methods, of class
+     * PackedImaginaryQuadraticInteger.
+     */
+    @Test
+    public void testPackUnpack() {
+        System.out.println("pack, unpack");
+        ImaginaryQuadraticRing ring;
+        long packed;
+        ImaginaryQuadraticInteger unpacked;
+        for (int r = 0; r < testRings.length; r++) {
+            ring = testRings[r];
+            for (ImaginaryQuadraticInteger number : testNumbers.get(r)) {
+                packed = PackedImaginaryQuadraticInteger.pack(number);
+                assertEquals("Packing from parts should match packing from object", packed, PackedImaginaryQuadraticInteger.pack(number.getRealPartMult(), number.getImagPartMult(), number.getDenominator()));
+                assertEquals("Real part of packed " + number.toASCIIString() + " should match", number.getRealPartMult(), PackedImaginaryQuadraticInteger.getRealPartMult(packed));
+                assertEquals("Imaginary part of packed " + number.toASCIIString() + " should match", number.getImagPartMult(), PackedImaginaryQuadraticInteger.getImagPartMult(packed));
+                assertEquals("Denominator of packed " + number.toASCIIString() + " should match", number.getDenominator(), PackedImaginaryQuadraticInteger.getDenominator(packed));
+                assertTrue("Packed " + number.toASCIIString() + " should be valid in " + ring.toASCIIString(), PackedImaginaryQuadraticInteger.isValid(packed, ring));
+                unpacked = PackedImaginaryQuadraticInteger.unpack(packed, ring);
+                assertEquals("Unpacking should give back " + number.toASCIIString(), number, unpacked);
+            }
+        }
+        assertEquals(PackedImaginaryQuadraticInteger.ONE, PackedImaginaryQuadraticInteger.pack(1, 0, 1));
+        assertEquals(PackedImaginaryQuadraticInteger.ONE, PackedImaginaryQuadraticInteger.pack(2, 0, 2));
+        assertFalse("Mixed parity should not be valid", PackedImaginaryQuadraticInteger.isValid(1L, testRings[3]));
+        assertFalse("Half-integer should not be valid in Z[i]", PackedImaginaryQuadraticInteger.isValid(PackedImaginaryQuadraticInteger.pack(1, 1, 2), testRings[0]));
+        try {
+            long result = PackedImaginaryQuadraticInteger.pack(Integer.MAX_VALUE, 0, 1);
+            fail("Packing " + Integer.MAX_VALUE + " should have caused an exception, not given result " + result);
+        } catch (ArithmeticException ae) {
+            System.out.println("Trying to pack " + Integer.MAX_VALUE + " correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+        try {
+            long result = PackedImaginaryQuadraticInteger.pack(1, 2, 2);
+            fail("Packing with mismatched parity should have caused an exception, not given result " + result);
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Trying to pack 1/2 + 2sqrt(d)/2 correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of plus and minus methods, of class PackedImaginaryQuadraticInteger.
+     */
+    @Test
+    public void testPlusMinus() {
+        System.out.println("plus, minus");
+        ImaginaryQuadraticRing ring;
+        List<ImaginaryQuadraticInteger> numbers;
+        ImaginaryQuadraticInteger numA, numB;
+        long packedA, packedB;
+        for (int r = 0; r < testRings.length; r++) {
+            ring = testRings[r];
+            numbers = testNumbers.get(r);
+            for (int i = 1; i < numbers.size(); i++) {
+                numA = numbers.get(i - 1);
+                numB = numbers.get(i);
+                packedA = PackedImaginaryQuadraticInteger.pack(numA);
+                packedB = PackedImaginaryQuadraticInteger.pack(numB);
+                assertEquals("Packed sum should match", numA.plus(numB), PackedImaginaryQuadraticInteger.unpack(PackedImaginaryQuadraticInteger.plus(packedA, packedB), ring));
+                assertEquals("Packed difference should match", numA.minus(numB), PackedImaginaryQuadraticInteger.unpack(PackedImaginaryQuadraticInteger.minus(packedA, packedB), ring));
+            }
+        }
+        long big = PackedImaginaryQuadraticInteger.pack(Integer.MAX_VALUE, 1, 2);
+        try {
+            long result = PackedImaginaryQuadraticInteger.plus(big, big);
+            fail("Overflowing sum should have caused an exception, not given result " + result);
+        } catch (ArithmeticException ae) {
+            System.out.println("Overflowing sum correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of times method, of class PackedImaginaryQuadraticInteger.
+     */
+    @Test
+    public void testTimes() {
+        System.out.println("times");
+        ImaginaryQuadraticRing ring;
+        List<ImaginaryQuadraticInteger> numbers;
+        ImaginaryQuadraticInteger numA, numB;
+        long packedA, packedB;
+        for (int r = 0; r < testRings.length; r++) {
+            ring = testRings[r];
+            numbers = testNumbers.get(r);
+            for (int i = 1; i < numbers.size(); i++) {
+                numA = numbers.get(i - 1);
+                numB = numbers.get(i);
+                packedA = PackedImaginaryQuadraticInteger.pack(numA);
+                packedB = PackedImaginaryQuadraticInteger.pack(numB);
+                assertEquals("Packed product should match", numA.times(numB), PackedImaginaryQuadraticInteger.unpack(PackedImaginaryQuadraticInteger.times(packedA, packedB, ring), ring));
+                assertEquals("Packed product by integer should match", numA.times(-3), PackedImaginaryQuadraticInteger.unpack(PackedImaginaryQuadraticInteger.times(packedA, -3), ring));
+            }
+        }
+        long big = PackedImaginaryQuadraticInteger.pack(1 << 20, 1 << 20, 1);
+        try {
+            long result = PackedImaginaryQuadraticInteger.times(big, big, testRings[5]);
+            fail("Overflowing product should have caused an exception, not given result " + result);
+        } catch (ArithmeticException ae) {
+            System.out.println("Overflowing product correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of conjugate, trace and norm methods, of class
+     * PackedImaginaryQuadraticInteger.
+     */
+    @Test
+    public void testConjugateTraceNorm() {
+        System.out.println("conjugate, trace, norm");
+        ImaginaryQuadraticRing ring;
+        long packed;
+        for (int r = 0; r < testRings.length; r++) {
+            ring = testRings[r];
+            for (ImaginaryQuadraticInteger number : testNumbers.get(r)) {
+                packed = PackedImaginaryQuadraticInteger.pack(number);
+                assertEquals("Packed conjugate should match", number.conjugate(), PackedImaginaryQuadraticInteger.unpack(PackedImaginaryQuadraticInteger.conjugate(packed), ring));
+                assertEquals("Packed trace should match", number.trace(), PackedImaginaryQuadraticInteger.trace(packed));
+                assertEquals("Packed norm should match", number.norm(), PackedImaginaryQuadraticInteger.norm(packed, ring));
+            }
+        }
+        long big = PackedImaginaryQuadraticInteger.pack(65536, 65536, 1);
+        long expResult = 65536L * 65536L * 164L;
+        assertEquals("Norm should not overflow in int arithmetic", expResult, PackedImaginaryQuadraticInteger.norm(big, testRings[5]));
+    }
+
+    /**
+     * Test of equals and compare methods, of class
+     * PackedImaginaryQuadraticInteger.
+     */
+    @Test
+    public void testEqualsCompare() {
+        System.out.println("equals, compare");
+        ImaginaryQuadraticRing ring = testRings[3];
+        long packedA = PackedImaginaryQuadraticInteger.pack(1, 1, 2);
+        long packedB = PackedImaginaryQuadraticInteger.pack(1, -1, 2);
+        long packedC = PackedImaginaryQuadraticInteger.pack(2, 0, 1);
+        assertTrue(PackedImaginaryQuadraticInteger.equals(packedA, PackedImaginaryQuadraticInteger.pack(new ImaginaryQuadraticInteger(1, 1, ring, 2))));
+        assertFalse(PackedImaginaryQuadraticInteger.equals(packedA, packedB));
+        assertTrue("Same norm should be ordered by imaginary part", PackedImaginaryQuadraticInteger.compare(packedB, packedA, ring) < 0);
+        assertTrue("Norm 2 should come before norm 4", PackedImaginaryQuadraticInteger.compare(packedA, packedC, ring) < 0);
+        assertTrue("Norm 4 should come after norm 2", PackedImaginaryQuadraticInteger.compare(packedC, packedB, ring) > 0);
+        assertEquals(0, PackedImaginaryQuadraticInteger.compare(packedC, packedC, ring));
+    }
+
+}
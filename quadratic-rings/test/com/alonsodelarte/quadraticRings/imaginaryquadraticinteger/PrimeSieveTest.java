@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the sieve of Eratosthenes. The results are checked against
+ * NumberTheoreticFunctionsCalculator.isPrime().
+ * @author Alonso del Arte
+ */
+public class PrimeSieveTest {
+
+    private static final int TEST_LIMIT = 100000;
+
+    /**
+     * Test of isPrime method, of class PrimeSieve.
+     */
+    @Test
+    public void testIsPrime() {
+        System.out.println("isPrime");
+        PrimeSieve sieve = new PrimeSieve(TEST_LIMIT);
+        for (long n = -100; n <= TEST_LIMIT + 100; n++) {
+            assertEquals("Primality of " + n, NumberTheoreticFunctionsCalculator.isPrime(n), sieve.isPrime(n));
+        }
+        assertTrue("2147483647 is prime even though it is beyond the limit", sieve.isPrime(Integer.MAX_VALUE));
+        assertFalse("2147483649 is composite even though it is beyond the limit", sieve.isPrime(2147483649L));
+        PrimeSieve tinySieve = new PrimeSieve(0);
+        assertTrue(tinySieve.isPrime(7));
+        assertTrue(tinySieve.isPrime(2));
+        assertFalse(tinySieve.isPrime(1));
+        for (long n = 10000000000L; n < 10000000000L + 300; n++) {
+            assertEquals("Primality of " + n, NumberTheoreticFunctionsCalculator.isPrime(n), sieve.isPrime(n));
+        }
+        assertTrue("Largest prime less than 2^63", sieve.isPrime(Long.MAX_VALUE - 24));
+        assertFalse("3825123056546413051 is a strong pseudoprime to bases up to 23", sieve.isPrime(3825123056546413051L));
+    }
+
+    /**
+     * Test of isPrime method, of class PrimeSieve, for numbers beyond the
+     * limit of the sieve. Each of the composite numbers tried is a strong
+     * pseudoprime to several of the smallest prime bases, and the random
+     * numbers are checked against {@link BigInteger#isProbablePrime(int)}.
+     */
+    @Test
+    public void testIsPrimeBeyondLimit() {
+        System.out.println("isPrime (beyond limit)");
+        PrimeSieve sieve = new PrimeSieve(0);
+        long[] pseudoprimes = {1373653L, 25326001L, 3215031751L, 2152302898747L, 3474749660383L, 341550071728321L, 3825123056546413051L};
+        for (long pseudoprime : pseudoprimes) {
+            assertFalse(pseudoprime + " is composite", sieve.isPrime(pseudoprime));
+        }
+        assertTrue("4294967291 is the largest prime less than 2^32", sieve.isPrime(4294967291L));
+        assertFalse("4294967297 is 641 times 6700417", sieve.isPrime(4294967297L));
+        assertTrue("4294967311 is the least prime greater than 2^32", sieve.isPrime(4294967311L));
+        assertFalse("97 squared", sieve.isPrime(9409));
+        assertTrue(sieve.isPrime(97));
+        Random ranNumGen = new Random();
+        for (int i = 0; i < 2000; i++) {
+            int bits = 20 + ranNumGen.nextInt(43);
+            long num = (ranNumGen.nextLong() >>> (64 - bits)) | 1;
+            if (i % 4 == 0) {
+                num = BigInteger.valueOf(num).nextProbablePrime().longValue();
+            }
+            assertEquals("Primality of " + num, BigInteger.valueOf(num).isProbablePrime(100), sieve.isPrime(num));
+        }
+    }
+
+    /**
+     * Test of isPrime method, of class PrimeSieve, for numbers given as two
+     * 64-bit words.
+     */
+    @Test
+    public void testIsPrimeWords() {
+        System.out.println("isPrime (two words)");
+        PrimeSieve sieve = new PrimeSieve(TEST_LIMIT);
+        assertTrue("10^24 + 7 is prime", sieve.isPrime(54210L, 2003764205206896647L));
+        assertFalse("10^24 + 1 is composite", sieve.isPrime(54210L, 2003764205206896641L));
+        assertTrue("Words with high word 0 are like longs", sieve.isPrime(0L, 104729L));
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        Random ranNumGen = new Random();
+        for (int i = 0; i < 500; i++) {
+            BigInteger num = new BigInteger(60 + ranNumGen.nextInt(60), ranNumGen);
+            if (i % 5 == 0) {
+                num = num.nextProbablePrime();
+            }
+            assertEquals("Primality of " + num, num.isProbablePrime(100), sieve.isPrime(num.shiftRight(64).longValue(), num.and(mask).longValue()));
+        }
+    }
+
+    /**
+     * Test of upTo method, of class PrimeSieve.
+     */
+    @Test
+    public void testUpTo() {
+        System.out.println("upTo");
+        PrimeSieve sieve = PrimeSieve.upTo(5000);
+        assertTrue("Limit should be at least 5000", sieve.getLimit() >= 5000);
+        assertSame("Smaller bound should reuse the shared sieve", sieve, PrimeSieve.upTo(100));
+        PrimeSieve largerSieve = PrimeSieve.upTo(sieve.getLimit() + 1);
+        assertTrue("Limit should be at least doubled", largerSieve.getLimit() >= 2 * sieve.getLimit());
+        assertEquals("Bound beyond maximum should be capped", PrimeSieve.MAXIMUM_LIMIT, PrimeSieve.upTo(Long.MAX_VALUE).getLimit());
+    }
+
+    /**
+     * Test of constructor, of class PrimeSieve, for a sieve of several
+     * segments. The sieve should be the same as one done the plain way, all at
+     * once.
+     */
+    @Test
+    public void testConstructorSegmented() {
+        System.out.println("PrimeSieve (constructor, segmented)");
+        int limit = 3000000;
+        boolean[] composite = new boolean[limit + 1];
+        composite[0] = true;
+        composite[1] = true;
+        for (int p = 2; p * p <= limit; p++) {
+            if (!composite[p]) {
+                for (int multiple = p * p; multiple <= limit; multiple += p) {
+                    composite[multiple] = true;
+                }
+            }
+        }
+        PrimeSieve sieve = new PrimeSieve(limit);
+        for (int n = 0; n <= limit; n++) {
+            assertEquals("Primality of " + n, !composite[n], sieve.isPrime(n));
+        }
+    }
+
+    /**
+     * Test of constructor, of class PrimeSieve.
+     */
+    @Test
+    public void testConstructor() {
+        System.out.println("PrimeSieve (constructor)");
+        try {
+            PrimeSieve sieve = new PrimeSieve(-1);
+            fail("Negative limit should have caused an exception, not given sieve with limit " + sieve.getLimit());
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Negative limit correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+    }
+
+}
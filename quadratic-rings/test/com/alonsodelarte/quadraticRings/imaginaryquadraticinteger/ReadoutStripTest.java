@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the readouts painted at the bottom of the window.
+ * @author Alonso del Arte
+ */
+public class ReadoutStripTest {
+
+    private static final int[] RING_DS = {-1, -2, -3, -5, -7, -11, -15, -8191};
+
+    private static final int[] PARTS = {0, 1, -1, 2, -2, 3, -7, 10, -123, 4096, Integer.MAX_VALUE / 2, Integer.MIN_VALUE / 2};
+
+    /**
+     * Test of show method, of class ReadoutStrip. The readouts should read
+     * exactly as the String functions of ImaginaryQuadraticInteger would have
+     * them, with and without theta notation.
+     */
+    @Test
+    public void testShow() {
+        System.out.println("show");
+        ReadoutStrip strip = new ReadoutStrip(20);
+        for (int d : RING_DS) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            for (int a : PARTS) {
+                for (int b : PARTS) {
+                    ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(a, b, ring);
+                    checkReadouts(strip, num);
+                    if (ring.hasHalfIntegers()) {
+                        int halfA = (a % 2 == 0) ? a + 1 : a;
+                        int halfB = (b % 2 == 0) ? b + 1 : b;
+                        checkReadouts(strip, new ImaginaryQuadraticInteger(halfA, halfB, ring, 2));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkReadouts(ReadoutStrip strip, ImaginaryQuadraticInteger num) {
+        strip.show(num, false);
+        assertEquals(num.toString(), strip.getText(ReadoutStrip.NUMBER));
+        assertEquals(Long.toString(num.trace()), strip.getText(ReadoutStrip.TRACE));
+        assertEquals(Long.toString(num.norm()), strip.getText(ReadoutStrip.NORM));
+        assertEquals(num.minPolynomialString(), strip.getText(ReadoutStrip.POLYNOMIAL));
+        strip.show(num, true);
+        assertEquals(num.toStringAlt(), strip.getText(ReadoutStrip.NUMBER));
+    }
+
+    /**
+     * Test of show method, of class ReadoutStrip. Nothing should be redone
+     * when the number hasn't changed, unless the notation has.
+     */
+    @Test
+    public void testShowUnchanged() {
+        System.out.println("show (unchanged)");
+        ReadoutStrip strip = new ReadoutStrip(20);
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-7);
+        assertTrue(strip.show(new ImaginaryQuadraticInteger(5, 1, ring, 2), false));
+        assertFalse(strip.show(new ImaginaryQuadraticInteger(5, 1, ring, 2), false));
+        assertTrue(strip.show(new ImaginaryQuadraticInteger(5, 1, ring, 2), true));
+        assertTrue(strip.show(new ImaginaryQuadraticInteger(3, 1, ring, 2), true));
+        assertTrue(strip.show(new ImaginaryQuadraticInteger(3, 1, ImaginaryQuadraticRing.valueOf(-11), 2), true));
+    }
+
+    /**
+     * Test of show method, of class ReadoutStrip. Going back over a number
+     * shown recently should reuse the text from before rather than format the
+     * number again.
+     */
+    @Test
+    public void testShowCached() {
+        System.out.println("show (cached)");
+        ReadoutStrip strip = new ReadoutStrip(20);
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-7);
+        ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(5, 1, ring, 2);
+        strip.show(num, false);
+        String numberText = strip.getText(ReadoutStrip.NUMBER);
+        String polynomialText = strip.getText(ReadoutStrip.POLYNOMIAL);
+        strip.show(new ImaginaryQuadraticInteger(3, 1, ring, 2), false);
+        strip.show(new ImaginaryQuadraticInteger(5, 1, ring, 2), false);
+        assertSame(numberText, strip.getText(ReadoutStrip.NUMBER));
+        assertSame(polynomialText, strip.getText(ReadoutStrip.POLYNOMIAL));
+        for (int a = 0; a <= ReadoutStrip.TEXT_CACHE_CAPACITY; a++) {
+            strip.show(new ImaginaryQuadraticInteger(a, 2, ring), false);
+        }
+        strip.show(num, false);
+        assertEquals(numberText, strip.getText(ReadoutStrip.NUMBER));
+        assertNotSame("Least recently shown number should have been dropped from the cache", numberText, strip.getText(ReadoutStrip.NUMBER));
+    }
+
+    /**
+     * Test of setText method, of class ReadoutStrip. Text much longer than
+     * the readout box should be kept whole.
+     */
+    @Test
+    public void testSetText() {
+        System.out.println("setText");
+        ReadoutStrip strip = new ReadoutStrip(20);
+        assertEquals("Zero", strip.getText(ReadoutStrip.FACTORS));
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            longText.append("(1 + i)");
+        }
+        strip.setText(ReadoutStrip.FACTORS, longText);
+        assertEquals(longText.toString(), strip.getText(ReadoutStrip.FACTORS));
+        strip.setText(ReadoutStrip.FACTORS, "Prime");
+        assertEquals("Prime", strip.getText(ReadoutStrip.FACTORS));
+    }
+
+    /**
+     * Test of paintComponent method, of class ReadoutStrip. The readouts
+     * should be painted within the preferred size.
+     */
+    @Test
+    public void testPaint() {
+        System.out.println("paintComponent");
+        ReadoutStrip strip = new ReadoutStrip(20);
+        Dimension size = strip.getPreferredSize();
+        assertTrue(size.width > 0 && size.height > 0);
+        strip.setSize(size);
+        strip.show(new ImaginaryQuadraticInteger(2, 1, ImaginaryQuadraticRing.valueOf(-1)), false);
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        strip.paint(g);
+        g.dispose();
+        int background = strip.getBackground().getRGB() & 0xFFFFFF;
+        boolean somethingPainted = false;
+        for (int x = 0; x < size.width && !somethingPainted; x++) {
+            for (int y = 0; y < size.height && !somethingPainted; y++) {
+                somethingPainted = (image.getRGB(x, y) & 0xFFFFFF) != background;
+            }
+        }
+        assertTrue(somethingPainted);
+    }
+
+}
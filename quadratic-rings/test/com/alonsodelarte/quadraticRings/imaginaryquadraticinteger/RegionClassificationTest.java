@@ -0,0 +1,486 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the classification of the points of a region of a ring. The
+ * classifications are checked against NumberTheoreticFunctionsCalculator and
+ * ImaginaryQuadraticInteger.
+ * @author Alonso del Arte
+ */
+public class RegionClassificationTest {
+
+    private static ImaginaryQuadraticRing[] testRings;
+
+    @BeforeClass
+    public static void setUpClass() {
+        testRings = new ImaginaryQuadraticRing[]{new ImaginaryQuadraticRing(-1), new ImaginaryQuadraticRing(-2), new ImaginaryQuadraticRing(-3), new ImaginaryQuadraticRing(-5), new ImaginaryQuadraticRing(-7), new ImaginaryQuadraticRing(-15), new ImaginaryQuadraticRing(-163)};
+    }
+
+    private static void checkRegion(RegionClassification region) {
+        ImaginaryQuadraticRing ring = region.getRing();
+        for (int row = 0; row < region.getHeight(); row++) {
+            long y = region.getMinY() + row;
+            for (int column = 0; column < region.getWidth(); column++) {
+                long x = region.getMinX() + column;
+                byte code = region.getCode(column, row);
+                int a = (int) x;
+                int b = (int) y;
+                int denom = 1;
+                if (ring.hasHalfIntegers()) {
+                    if (((x ^ y) & 1) != 0) {
+                        assertEquals("Point (" + x + ", " + y + ") should not be in the ring", RegionClassification.NOT_IN_RING, code);
+                        continue;
+                    }
+                    if ((x & 1) == 0) {
+                        a /= 2;
+                        b /= 2;
+                    } else {
+                        denom = 2;
+                    }
+                }
+                ImaginaryQuadraticInteger num = new ImaginaryQuadraticInteger(a, b, ring, denom);
+                String msg = "Classification of " + num.toASCIIString() + " in " + ring.toASCIIString();
+                assertEquals(msg, num.norm() == 0, code == RegionClassification.ZERO);
+                assertEquals(msg, num.norm() == 1, code == RegionClassification.UNIT);
+                assertEquals(msg, NumberTheoreticFunctionsCalculator.isPrime(num), RegionClassification.isPrime(code));
+            }
+        }
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification.
+     */
+    @Test
+    public void testClassify() {
+        System.out.println("classify");
+        for (ImaginaryQuadraticRing ring : testRings) {
+            checkRegion(RegionClassification.classify(ring, -30, -20, 61, 41));
+            checkRegion(RegionClassification.classify(ring, 97, -45, 40, 25));
+            checkRegion(RegionClassification.classify(ring, 150, 130, 45, 35));
+            checkRegion(RegionClassification.classify(ring, -13, -200, 9, 260));
+        }
+        RegionClassification region = RegionClassification.classify(testRings[0], 5, 5, 0, 10);
+        assertEquals(0, region.getWidth());
+        try {
+            region = RegionClassification.classify(testRings[0], 0, 0, -1, 10);
+            fail("Negative width should have caused an exception, not given region of width " + region.getWidth());
+        } catch (IllegalArgumentException iae) {
+            System.out.println("Negative width correctly triggered IllegalArgumentException \"" + iae.getMessage() + "\"");
+        }
+        try {
+            region = RegionClassification.classify(testRings[0], Long.MAX_VALUE - 10, 0, 5, 5);
+            fail("Norms too large for the norm generator should have caused an exception, not given region of width " + region.getWidth());
+        } catch (ArithmeticException ae) {
+            System.out.println("Norms too large for the norm generator correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification, for units times
+     * purely real primes. These are the points for which the splitting
+     * behavior of the prime matters.
+     */
+    @Test
+    public void testClassifyRealAssociates() {
+        System.out.println("classify (units times purely real primes)");
+        RegionClassification region = RegionClassification.classify(testRings[0], -10, -10, 21, 21);
+        assertEquals("2 ramifies in Z[i]", RegionClassification.RAMIFIED_PRIME, region.getCode(12, 10));
+        assertEquals("3 is inert in Z[i]", RegionClassification.INERT_PRIME, region.getCode(13, 10));
+        assertEquals("5 splits in Z[i]", RegionClassification.SPLIT_PRIME, region.getCode(15, 10));
+        assertEquals("-3i is like 3", RegionClassification.INERT_PRIME, region.getCode(10, 7));
+        assertEquals("5i is like 5", RegionClassification.SPLIT_PRIME, region.getCode(10, 15));
+        assertEquals("1 + i has norm 2", RegionClassification.RAMIFIED_PRIME_FACTOR, region.getCode(11, 11));
+        assertEquals("2 + i has norm 5", RegionClassification.SPLIT_PRIME_FACTOR, region.getCode(12, 11));
+        assertEquals("9 is composite", RegionClassification.COMPOSITE, region.getCode(19, 10));
+        region = RegionClassification.classify(testRings[3], 0, 0, 30, 3);
+        assertEquals("2 ramifies in Z[sqrt(-5)] as a nonprincipal ideal", RegionClassification.RAMIFIED_PRIME_NONPRINCIPAL, region.getCode(2, 0));
+        assertEquals("3 splits in Z[sqrt(-5)] as nonprincipal ideals", RegionClassification.SPLIT_PRIME_NONPRINCIPAL, region.getCode(3, 0));
+        assertEquals("5 ramifies in Z[sqrt(-5)] as sqrt(-5) squared", RegionClassification.RAMIFIED_PRIME, region.getCode(5, 0));
+        assertEquals("11 is inert in Z[sqrt(-5)]", RegionClassification.INERT_PRIME, region.getCode(11, 0));
+        assertEquals("29 splits in Z[sqrt(-5)] as (3 - 2sqrt(-5))(3 + 2sqrt(-5))", RegionClassification.SPLIT_PRIME, region.getCode(29, 0));
+        assertEquals("3 + 2sqrt(-5) has norm 29", RegionClassification.SPLIT_PRIME_FACTOR, region.getCode(3, 2));
+        region = RegionClassification.classify(testRings[2], -16, -12, 33, 25);
+        assertEquals("2 is inert in Z[omega]", RegionClassification.INERT_PRIME, region.getCode(20, 12));
+        assertEquals("2 omega is like 2", RegionClassification.INERT_PRIME, region.getCode(14, 14));
+        assertEquals("5 omega squared is like 5", RegionClassification.INERT_PRIME, region.getCode(11, 7));
+        assertEquals("3 ramifies in Z[omega]", RegionClassification.RAMIFIED_PRIME, region.getCode(22, 12));
+        assertEquals("7 splits in Z[omega]", RegionClassification.SPLIT_PRIME, region.getCode(30, 12));
+        assertEquals("omega is a unit", RegionClassification.UNIT, region.getCode(15, 13));
+        assertEquals("Half-integer coordinates of different parity", RegionClassification.NOT_IN_RING, region.getCode(15, 12));
+    }
+
+    private static boolean isNormByBruteForce(ImaginaryQuadraticRing ring, long p) {
+        long target = ring.hasHalfIntegers() ? 4 * p : p;
+        for (long y = 0; (long) ring.getAbsNegRad() * y * y <= target; y++) {
+            long remainder = target - ring.getAbsNegRad() * y * y;
+            long x = (long) Math.sqrt((double) remainder);
+            while (x * x > remainder) {
+                x--;
+            }
+            while ((x + 1) * (x + 1) <= remainder) {
+                x++;
+            }
+            if (x * x == remainder && (!ring.hasHalfIntegers() || ((x ^ y) & 1) == 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification, for split primes
+     * large enough to be checked with Cornacchia's algorithm, in rings of class
+     * number greater than 1.
+     */
+    @Test
+    public void testClassifyLargeSplitPrimes() {
+        System.out.println("classify (large split primes)");
+        int[] testDs = {-5, -6, -14, -15, -23, -47};
+        long[] starts = {(1L << 20) - 50, 1000000000000L};
+        for (int d : testDs) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            int scale = ring.hasHalfIntegers() ? 2 : 1;
+            for (long start : starts) {
+                RegionClassification region = RegionClassification.classify(ring, scale * start, 0, scale * 400, 1);
+                for (int column = 0; column < region.getWidth(); column += scale) {
+                    long p = start + column / scale;
+                    byte code = region.getCode(column, 0);
+                    if (code == RegionClassification.SPLIT_PRIME || code == RegionClassification.SPLIT_PRIME_NONPRINCIPAL) {
+                        assertTrue(p + " should be prime", BigInteger.valueOf(p).isProbablePrime(50));
+                        assertEquals("Whether " + p + " is a norm in " + ring.toASCIIString(), isNormByBruteForce(ring, p), code == RegionClassification.SPLIT_PRIME);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isInertPrimeSquared(ImaginaryQuadraticRing ring, BigInteger norm) {
+        BigInteger root = BigInteger.valueOf((long) Math.sqrt(norm.doubleValue()));
+        while (root.multiply(root).compareTo(norm) > 0) {
+            root = root.subtract(BigInteger.ONE);
+        }
+        while (root.add(BigInteger.ONE).multiply(root.add(BigInteger.ONE)).compareTo(norm) <= 0) {
+            root = root.add(BigInteger.ONE);
+        }
+        if (!root.multiply(root).equals(norm) || !root.isProbablePrime(50)) {
+            return false;
+        }
+        BigInteger discr = BigInteger.valueOf(ring.getDiscriminant()).mod(root);
+        return discr.modPow(root.shiftRight(1), root).equals(root.subtract(BigInteger.ONE));
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification, for regions so
+     * far from 0 that the norms exceed the range of long.
+     */
+    @Test
+    public void testClassifyFarFromZero() {
+        System.out.println("classify (far from 0)");
+        long far = 1000000000000L;
+        for (ImaginaryQuadraticRing ring : testRings) {
+            int scale = ring.hasHalfIntegers() ? 2 : 1;
+            RegionClassification region = RegionClassification.classify(ring, scale * far - 30, scale * far - 20, 60, 40);
+            BigInteger absNegRad = BigInteger.valueOf(ring.getAbsNegRad());
+            int primeCount = 0;
+            for (int row = 0; row < region.getHeight(); row++) {
+                BigInteger y = BigInteger.valueOf(region.getMinY() + row);
+                for (int column = 0; column < region.getWidth(); column++) {
+                    BigInteger x = BigInteger.valueOf(region.getMinX() + column);
+                    byte code = region.getCode(column, row);
+                    if (ring.hasHalfIntegers() && x.testBit(0) != y.testBit(0)) {
+                        assertEquals(RegionClassification.NOT_IN_RING, code);
+                        continue;
+                    }
+                    BigInteger norm = x.multiply(x).add(absNegRad.multiply(y).multiply(y)).shiftRight(scale == 2 ? 2 : 0);
+                    boolean expected = norm.isProbablePrime(50) || isInertPrimeSquared(ring, norm);
+                    if (expected) {
+                        primeCount++;
+                    }
+                    assertEquals("Classification of (" + x + ", " + y + ") in " + ring.toASCIIString() + " with norm " + norm, expected, RegionClassification.isPrime(code));
+                }
+            }
+            assertTrue("There should be some primes far from 0 in " + ring.toASCIIString(), primeCount > 0);
+        }
+    }
+
+    private static byte codeAt(RegionClassification region, long x, long y) {
+        long column = x - region.getMinX();
+        long row = y - region.getMinY();
+        if (column < 0 || column >= region.getWidth() || row < 0 || row >= region.getHeight()) {
+            return -1;
+        }
+        return region.getCode((int) column, (int) row);
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification, for symmetry.
+     * The classification of a point should be the same as that of its
+     * conjugate and of its associates.
+     */
+    @Test
+    public void testClassifySymmetry() {
+        System.out.println("classify (symmetry)");
+        for (ImaginaryQuadraticRing ring : testRings) {
+            RegionClassification region = RegionClassification.classify(ring, -70, -45, 141, 91);
+            for (int row = 0; row < region.getHeight(); row++) {
+                long y = region.getMinY() + row;
+                for (int column = 0; column < region.getWidth(); column++) {
+                    long x = region.getMinX() + column;
+                    byte code = region.getCode(column, row);
+                    long[][] images;
+                    switch (ring.getNegRad()) {
+                        case -1:
+                            images = new long[][]{{x, -y}, {-x, -y}, {-y, x}, {y, x}};
+                            break;
+                        case -3:
+                            images = new long[][]{{x, -y}, {-x, -y}, {(-x - 3 * y) / 2, (x - y) / 2}, {(x - 3 * y) / 2, (x + y) / 2}};
+                            break;
+                        default:
+                            images = new long[][]{{x, -y}, {-x, -y}};
+                    }
+                    if (code == RegionClassification.NOT_IN_RING) {
+                        continue;
+                    }
+                    for (long[] image : images) {
+                        byte imageCode = codeAt(region, image[0], image[1]);
+                        if (imageCode >= 0) {
+                            assertEquals("Classifications of (" + x + ", " + y + ") and (" + image[0] + ", " + image[1] + ") in " + ring.toASCIIString(), code, imageCode);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of classify method, of class RegionClassification, with
+     * cancellation. A classification that is cancelled from the start should
+     * be abandoned, and one that is never cancelled should be the same as
+     * with no way to cancel it.
+     */
+    @Test
+    public void testClassifyCancelled() {
+        System.out.println("classify (cancelled)");
+        BooleanSupplier always = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return true;
+            }
+        };
+        BooleanSupplier never = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return false;
+            }
+        };
+        for (ImaginaryQuadraticRing ring : testRings) {
+            try {
+                RegionClassification region = RegionClassification.classify(ring, -320, -180, 641, 361, always);
+                fail("Classification in " + ring.toASCIIString() + " should have been abandoned, not given " + region);
+            } catch (CancellationException ce) {
+                System.out.println("Cancelled classification in " + ring.toASCIIString() + " correctly abandoned");
+            }
+            RegionClassification expected = RegionClassification.classify(ring, -40, -25, 81, 51);
+            RegionClassification actual = RegionClassification.classify(ring, -40, -25, 81, 51, never);
+            for (int row = 0; row < expected.getHeight(); row++) {
+                for (int column = 0; column < expected.getWidth(); column++) {
+                    assertEquals(expected.getCode(column, row), actual.getCode(column, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of refine method, of class RegionClassification.Progressive. After
+     * each pass, every row should either be classified the same as by
+     * classify() or be blank, the rows of the first pass should be done first,
+     * and in the end all the rows should be classified, even if a pass was
+     * abandoned along the way.
+     */
+    @Test
+    public void testProgressiveRefine() {
+        System.out.println("Progressive.refine");
+        BooleanSupplier always = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return true;
+            }
+        };
+        long[][] corners = {{1000, 200}, {-60, -40}};
+        for (ImaginaryQuadraticRing ring : testRings) {
+            for (long[] corner : corners) {
+                RegionClassification expected = RegionClassification.classify(ring, corner[0], corner[1], 121, 81);
+                RegionClassification.Progressive progress = new RegionClassification.Progressive(ring, corner[0], corner[1], 121, 81);
+                assertTrue(progress.covers(ring, corner[0], corner[1], 121, 81));
+                assertFalse(progress.covers(ring, corner[0], corner[1] + 1, 121, 81));
+                try {
+                    progress.refine(always);
+                    fail("Pass in " + ring.toASCIIString() + " should have been abandoned");
+                } catch (CancellationException ce) {
+                    assertFalse(progress.isComplete());
+                }
+                int passes = 0;
+                while (!progress.isComplete()) {
+                    progress.refine(null);
+                    passes++;
+                    RegionClassification actual = progress.getRegion();
+                    for (int row = 0; row < expected.getHeight(); row++) {
+                        boolean blank = true;
+                        boolean same = true;
+                        for (int column = 0; column < expected.getWidth(); column++) {
+                            byte code = actual.getCode(column, row);
+                            blank &= code == RegionClassification.NOT_IN_RING;
+                            same &= code == expected.getCode(column, row);
+                        }
+                        assertTrue("Row " + row + " of " + ring.toASCIIString() + " after pass " + passes + " should be blank or right", blank || same);
+                        if (row % RegionClassification.Progressive.INITIAL_ROW_STRIDE == 0) {
+                            assertTrue("Row " + row + " of " + ring.toASCIIString() + " should be done after pass " + passes, same);
+                        }
+                    }
+                }
+                assertEquals(1.0, progress.getFractionDone(), 0.0);
+                RegionClassification actual = progress.getRegion();
+                for (int row = 0; row < expected.getHeight(); row++) {
+                    for (int column = 0; column < expected.getWidth(); column++) {
+                        assertEquals(expected.getCode(column, row), actual.getCode(column, row));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of refine method, of class RegionClassification.Progressive, for a
+     * pass abandoned partway through. By the time the pass gives up, none of
+     * its bands should still be classifying rows, and the rows it did finish
+     * should be right.
+     * @throws InterruptedException If the test is interrupted while waiting
+     * to see whether anything is still writing.
+     */
+    @Test
+    public void testProgressiveRefineCancelledPartway() throws InterruptedException {
+        System.out.println("Progressive.refine (cancelled partway)");
+        ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(-1);
+        RegionClassification expected = RegionClassification.classify(ring, -640, -360, 1281, 721);
+        final AtomicInteger checks = new AtomicInteger();
+        BooleanSupplier partway = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return checks.incrementAndGet() > 40;
+            }
+        };
+        RegionClassification.Progressive progress = new RegionClassification.Progressive(ring, -640, -360, 1281, 721);
+        try {
+            progress.refine(partway);
+            fail("Pass should have been abandoned");
+        } catch (CancellationException ce) {
+            System.out.println("Pass abandoned after " + checks.get() + " checks");
+        }
+        double fraction = progress.getFractionDone();
+        RegionClassification region = progress.getRegion();
+        byte[] snapshot = new byte[region.getWidth() * region.getHeight()];
+        for (int row = 0; row < region.getHeight(); row++) {
+            for (int column = 0; column < region.getWidth(); column++) {
+                snapshot[row * region.getWidth() + column] = region.getCode(column, row);
+            }
+        }
+        Thread.sleep(200);
+        assertEquals(fraction, progress.getFractionDone(), 0.0);
+        for (int row = 0; row < region.getHeight(); row++) {
+            for (int column = 0; column < region.getWidth(); column++) {
+                assertEquals("Code at " + column + ", " + row + " changed after the pass was abandoned", snapshot[row * region.getWidth() + column], region.getCode(column, row));
+            }
+        }
+        progress.finish(null);
+        for (int row = 0; row < expected.getHeight(); row++) {
+            for (int column = 0; column < expected.getWidth(); column++) {
+                assertEquals(expected.getCode(column, row), progress.getRegion().getCode(column, row));
+            }
+        }
+    }
+
+    /**
+     * Test of refine method, of class RegionClassification.Progressive, for a
+     * classification started from a classification of a nearby region. The
+     * result should be the same as classifying the region from scratch,
+     * whichever way the region has been shifted, and whether or not the
+     * nearby region is too far away to be of use.
+     */
+    @Test
+    public void testProgressiveRefineFromSeed() {
+        System.out.println("Progressive.refine (from seed)");
+        long[][] shifts = {{13, 0}, {-13, 0}, {0, 9}, {0, -9}, {-7, 5}, {100, 100}};
+        for (ImaginaryQuadraticRing ring : testRings) {
+            for (long[] corner : new long[][]{{-60, -40}, {700, -30}}) {
+                RegionClassification seed = RegionClassification.classify(ring, corner[0], corner[1], 121, 81);
+                for (long[] shift : shifts) {
+                    long minX = corner[0] + shift[0];
+                    long minY = corner[1] + shift[1];
+                    RegionClassification expected = RegionClassification.classify(ring, minX, minY, 121, 81);
+                    RegionClassification actual = new RegionClassification.Progressive(ring, minX, minY, 121, 81, seed).finish(null);
+                    for (int row = 0; row < expected.getHeight(); row++) {
+                        for (int column = 0; column < expected.getWidth(); column++) {
+                            assertEquals("Code at (" + (minX + column) + ", " + (minY + row) + ") in " + ring.toASCIIString(), expected.getCode(column, row), actual.getCode(column, row));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of refine method, of class RegionClassification.Progressive, for a
+     * classification started from a classification of a region at another
+     * zoom level, either a region containing this one or a region inside this
+     * one. The result should be the same as classifying the region from
+     * scratch.
+     */
+    @Test
+    public void testProgressiveRefineAcrossZoom() {
+        System.out.println("Progressive.refine (across zoom)");
+        long[][] regions = {{-20, -15, 41, 31}, {-100, -70, 201, 141}, {-45, -12, 40, 30}};
+        for (ImaginaryQuadraticRing ring : testRings) {
+            for (long[] corner : new long[][]{{-60, -40}, {700, -30}}) {
+                RegionClassification seed = RegionClassification.classify(ring, corner[0], corner[1], 121, 81);
+                for (long[] region : regions) {
+                    long minX = corner[0] + 60 + region[0];
+                    long minY = corner[1] + 40 + region[1];
+                    int width = (int) region[2];
+                    int height = (int) region[3];
+                    RegionClassification expected = RegionClassification.classify(ring, minX, minY, width, height);
+                    RegionClassification actual = new RegionClassification.Progressive(ring, minX, minY, width, height, seed).finish(null);
+                    for (int row = 0; row < height; row++) {
+                        for (int column = 0; column < width; column++) {
+                            assertEquals("Code at (" + (minX + column) + ", " + (minY + row) + ") in " + ring.toASCIIString(), expected.getCode(column, row), actual.getCode(column, row));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
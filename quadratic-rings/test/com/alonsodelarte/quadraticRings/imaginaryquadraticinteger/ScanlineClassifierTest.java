@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the row classifier. Rows are checked against classifying one norm
+ * at a time, on rows of norms generated by {@link ScanlineNormGenerator}.
+ * @author Alonso del Arte
+ */
+public class ScanlineClassifierTest {
+
+    private static final int ROW_LENGTH = 203;
+
+    private static final int OFFSET = 5;
+
+    private static void checkRow(ImaginaryQuadraticRing ring, long x, long y, PrimeSieve sieve) {
+        long[] norms = new long[ROW_LENGTH];
+        long[] highWords = new long[ROW_LENGTH];
+        assertTrue(new ScanlineNormGenerator(ring).fillRow(x, y, ROW_LENGTH, norms, highWords));
+        byte[] codes = new byte[ROW_LENGTH + 2 * OFFSET];
+        boolean firstInRing = ((x ^ y) & 1) == 0;
+        ScanlineClassifier.classifyRow(norms, ROW_LENGTH, ring.hasHalfIntegers(), firstInRing, sieve, ring.getDiscriminant(), codes, OFFSET);
+        for (int i = 0; i < OFFSET; i++) {
+            assertEquals("Code before the row should not be written", 0, codes[i]);
+            assertEquals("Code after the row should not be written", 0, codes[OFFSET + ROW_LENGTH + i]);
+        }
+        for (int i = 0; i < ROW_LENGTH; i++) {
+            byte expected;
+            if (ring.hasHalfIntegers() && (((x + i) ^ y) & 1) != 0) {
+                expected = RegionClassification.NOT_IN_RING;
+            } else {
+                expected = ScanlineClassifier.classifyNorm(norms[i], sieve, ring.getDiscriminant());
+            }
+            assertEquals("Code at (" + (x + i) + ", " + y + ") in " + ring.toASCIIString() + " of norm " + norms[i], expected, codes[OFFSET + i]);
+        }
+    }
+
+    /**
+     * Test of classifyRow method, of class ScanlineClassifier. It should give
+     * the same codes as classifying each norm by itself.
+     */
+    @Test
+    public void testClassifyRow() {
+        System.out.println("classifyRow");
+        PrimeSieve sieve = new PrimeSieve(1L << 22);
+        Random ranNumGen = new Random();
+        int[] testDs = {-1, -2, -3, -5, -7, -15, -163, -1019};
+        for (int d : testDs) {
+            ImaginaryQuadraticRing ring = ImaginaryQuadraticRing.valueOf(d);
+            checkRow(ring, -ROW_LENGTH / 2, 0, sieve);
+            checkRow(ring, -ROW_LENGTH / 2, 1, sieve);
+            checkRow(ring, -3, -2, sieve);
+            checkRow(ring, 0, 0, sieve);
+            for (int i = 0; i < 10; i++) {
+                checkRow(ring, ranNumGen.nextInt(1000) - 500, ranNumGen.nextInt(40) - 20, sieve);
+            }
+        }
+    }
+
+}
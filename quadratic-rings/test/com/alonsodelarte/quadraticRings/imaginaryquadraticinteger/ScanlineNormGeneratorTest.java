@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the generation of norms along rows of lattice points. The norms are
+ * checked against norms computed with BigInteger.
+ * @author Alonso del Arte
+ */
+public class ScanlineNormGeneratorTest {
+
+    private static final int ROW_LENGTH = 200;
+
+    private static BigInteger expectedNorm(ImaginaryQuadraticRing ring, long x, long y) {
+        BigInteger bigX = BigInteger.valueOf(x);
+        BigInteger bigY = BigInteger.valueOf(y);
+        BigInteger form = bigX.multiply(bigX).add(BigInteger.valueOf(ring.getAbsNegRad()).multiply(bigY).multiply(bigY));
+        return ring.hasHalfIntegers() ? form.shiftRight(2) : form;
+    }
+
+    private static BigInteger fromWords(long highWord, long lowWord) {
+        return BigInteger.valueOf(highWord).shiftLeft(64).add(BigInteger.valueOf(lowWord).and(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)));
+    }
+
+    private static void checkRow(ScanlineNormGenerator generator, long x, long y) {
+        long[] lowWords = new long[ROW_LENGTH];
+        long[] highWords = new long[ROW_LENGTH];
+        boolean narrow = generator.fillRow(x, y, ROW_LENGTH, lowWords, highWords);
+        boolean expectedNarrow = true;
+        for (int i = 0; i < ROW_LENGTH; i++) {
+            BigInteger expected = expectedNorm(generator.getRing(), x + i, y);
+            assertEquals("Norm at (" + (x + i) + ", " + y + ") in " + generator.getRing().toASCIIString(), expected, fromWords(highWords[i], lowWords[i]));
+            expectedNarrow &= expected.bitLength() < 64;
+        }
+        assertEquals("Row should be reported as fitting in long or not", expectedNarrow, narrow);
+    }
+
+    /**
+     * Test of fillRow method, of class ScanlineNormGenerator.
+     */
+    @Test
+    public void testFillRow() {
+        System.out.println("fillRow");
+        Random ranNumGen = new Random();
+        int[] testDs = {-1, -2, -3, -5, -7, -163, -2147483647};
+        for (int d : testDs) {
+            ScanlineNormGenerator generator = new ScanlineNormGenerator(ImaginaryQuadraticRing.valueOf(d));
+            checkRow(generator, -ROW_LENGTH / 2, 0);
+            checkRow(generator, -ROW_LENGTH / 2, -7);
+            checkRow(generator, 1000000000000L, 1000000000000L);
+            checkRow(generator, -1000000000000L - ROW_LENGTH / 2, 999999999999L);
+            checkRow(generator, 3037000400L, 0);
+            for (int i = 0; i < 10; i++) {
+                checkRow(generator, ranNumGen.nextLong() >> 20, ranNumGen.nextLong() >> 36);
+            }
+        }
+        ScanlineNormGenerator generator = new ScanlineNormGenerator(ImaginaryQuadraticRing.valueOf(-1));
+        assertTrue("Empty row fits in long", generator.fillRow(5, 5, 0, new long[0], new long[0]));
+        try {
+            generator.fillRow(Long.MAX_VALUE / 2, 0, 10, new long[10], new long[10]);
+            fail("Norms beyond " + ScanlineNormGenerator.MAXIMUM_FORM_BITS + " bits should have caused an exception");
+        } catch (ArithmeticException ae) {
+            System.out.println("Norms beyond " + ScanlineNormGenerator.MAXIMUM_FORM_BITS + " bits correctly triggered ArithmeticException \"" + ae.getMessage() + "\"");
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2019 Alonso del Arte
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.alonsodelarte.quadraticRings.imaginaryquadraticinteger;
+
+import java.awt.Color;
+
+/**
+ * Makes the diagram views the tests of the drawing of diagrams share, all
+ * with the same colors and a dot radius of 3 pixels.
+ * @author Alonso del Arte
+ */
+final class TestDiagramViews {
+
+    static final Color[] GRID_COLORS = {Color.DARK_GRAY, Color.BLACK};
+
+    static final Color[] POINT_COLORS = {Color.BLACK, Color.WHITE, Color.CYAN, Color.BLUE, Color.GREEN};
+
+    /**
+     * Makes a view with 0 at the center of the canvas.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param pixelsPerUnitInterval How many pixels apart 0 and 1 are. For
+     * example, 40.
+     * @param pixelsPerBasicImaginaryInterval How many pixels apart 0 and
+     * <i>i</i> are, or half that for rings with "half-integers." For example,
+     * 40.
+     * @param width The canvas width. For example, 640.
+     * @param height The canvas height. For example, 360.
+     * @param centerRe The real part of the number at the center of the view.
+     * For example, 0.
+     * @param centerIm The imaginary part of the number at the center of the
+     * view, in basic imaginary intervals. For example, 0.
+     * @return The view.
+     */
+    static DiagramView makeView(ImaginaryQuadraticRing ring, int pixelsPerUnitInterval, int pixelsPerBasicImaginaryInterval, int width, int height, long centerRe, long centerIm) {
+        return makeView(ring, pixelsPerUnitInterval, pixelsPerBasicImaginaryInterval, width, height, width / 2, height / 2, centerRe, centerIm);
+    }
+
+    /**
+     * Makes a view with 0 anywhere on the canvas, or off it.
+     * @param ring The ring. For example, <b>Z</b>[<i>i</i>].
+     * @param pixelsPerUnitInterval How many pixels apart 0 and 1 are. For
+     * example, 40.
+     * @param pixelsPerBasicImaginaryInterval How many pixels apart 0 and
+     * <i>i</i> are, or half that for rings with "half-integers." For example,
+     * 40.
+     * @param width The canvas width. For example, 640.
+     * @param height The canvas height. For example, 360.
+     * @param zeroX Where 0 is across. For example, 320.
+     * @param zeroY Where 0 is down. For example, 180.
+     * @param centerRe The real part of the number at the center of the view.
+     * For example, 0.
+     * @param centerIm The imaginary part of the number at the center of the
+     * view, in basic imaginary intervals. For example, 0.
+     * @return The view.
+     */
+    static DiagramView makeView(ImaginaryQuadraticRing ring, int pixelsPerUnitInterval, int pixelsPerBasicImaginaryInterval, int width, int height, int zeroX, int zeroY, long centerRe, long centerIm) {
+        return new DiagramView(ring, pixelsPerUnitInterval, pixelsPerBasicImaginaryInterval, width, height, zeroX, zeroY, centerRe, centerIm, 3, GRID_COLORS, POINT_COLORS);
+    }
+
+    private TestDiagramViews() {
+    }
+
+}